@@ -0,0 +1,97 @@
+package com.example.svnkit.benchmark;
+
+import com.example.svnkit.ChangeFileSink;
+import com.example.svnkit.ChangeLogStatistics;
+import com.example.svnkit.DiffStatParser;
+import com.example.svnkit.SVNManager;
+import com.example.svnkit.ChangeFile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较日志统计相关方法的基准测试,比较日志文件由 {@link SyntheticDiffGenerator} 生成
+ *
+ * @author dengzm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiffStatisticsBenchmark {
+
+    @Param({"100", "2000"})
+    public int files;
+
+    @Param({"50", "1000"})
+    public int linesPerFile;
+
+    private final SVNManager svnManager = new SVNManager();
+    private File diffFile;
+    private File workFile;
+    private String fileContent;
+    private StringBuffer fileSection;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        diffFile = File.createTempFile("svn_diff_benchmark_", ".txt");
+        SyntheticDiffGenerator.generate(diffFile, files, linesPerFile, 1);
+        fileContent = SyntheticDiffGenerator.fileContent(linesPerFile, 1);
+        fileSection = new StringBuffer("Index: src/File.java\n"
+                + "===================================================================\n"
+                + "--- src/File.java\t(revision 100)\n"
+                + "+++ src/File.java\t(revision 200)\n"
+                + "@@ -1,1 +1,1 @@\n").append(fileContent);
+        // staticticsCodeAdd 会逐个文件输出到控制台,测试时丢弃这部分输出
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Setup(Level.Invocation)
+    public void copyDiffFile() throws Exception {
+        // staticticsCodeAdd 结束后会删除文件,每次调用前复制一份
+        workFile = new File(diffFile.getPath() + ".work");
+        Files.copy(diffFile.toPath(), workFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+        diffFile.delete();
+        workFile.delete();
+    }
+
+    @Benchmark
+    public int countAddLine() {
+        return svnManager.countAddLine(fileContent);
+    }
+
+    @Benchmark
+    public ChangeFile parseChangeFile() {
+        return svnManager.parseChangeFile(fileSection);
+    }
+
+    @Benchmark
+    public int staticticsCodeAdd() throws Exception {
+        return svnManager.staticticsCodeAdd(workFile);
+    }
+
+    @Benchmark
+    public void diffStatParser(Blackhole blackhole) throws Exception {
+        DiffStatParser.parse(diffFile, blackhole::consume);
+    }
+
+    @Benchmark
+    public ChangeLogStatistics analyzeChangeLog() throws Exception {
+        return svnManager.analyzeChangeLog(diffFile, ChangeFileSink.discard());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.svnkit.benchmark;
+
+import com.example.svnkit.SVNManager;
+import org.openjdk.jmh.annotations.*;
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNLogEntry;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.SVNURL;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 针对本地 file:// FSFS 存储库的端到端基准测试,存储库由 {@link SyntheticRepositoryGenerator} 生成
+ *
+ * @author dengzm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"200"})
+    public int revisions;
+
+    @Param({"10"})
+    public int filesPerCommit;
+
+    @Param({"4096"})
+    public int fileSize;
+
+    @Param({"0.1"})
+    public double binaryRatio;
+
+    private File repositoryDir;
+    private SVNManager svnManager;
+    private long latestRevision;
+    private List<String> changedFiles;
+    private String textFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repositoryDir = Files.createTempDirectory("svn_benchmark_repo_").toFile();
+        SVNURL projectUrl = new SyntheticRepositoryGenerator()
+                .setRevisions(revisions)
+                .setFilesPerCommit(filesPerCommit)
+                .setFileSize(fileSize)
+                .setBinaryRatio(binaryRatio)
+                .generate(repositoryDir);
+        svnManager = new SVNManager();
+        svnManager.createSession(projectUrl.toString(), SyntheticRepositoryGenerator.AUTHORS[0], "");
+        latestRevision = revisions;
+        String rootUrl = projectUrl.toString().substring(0, projectUrl.toString().length() - SyntheticRepositoryGenerator.PROJECT_PATH.length() - 1);
+        // 取后一半版本中变更的文件作为比较对象
+        changedFiles = svnManager.getLogs(latestRevision / 2, latestRevision).stream()
+                .flatMap(log -> log.getChangedPaths().values().stream())
+                .filter(path -> path.getKind() != SVNNodeKind.DIR && path.getType() == 'M')
+                .map(path -> rootUrl + path.getPath())
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        textFile = svnManager.listFolder("src/pkg0").stream()
+                .filter(entry -> entry.getName().endsWith(".java"))
+                .map(entry -> "src/pkg0/" + entry.getName())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        svnManager.closeSession();
+        try (var paths = Files.walk(repositoryDir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public List<SVNLogEntry> getLogs() throws Exception {
+        return svnManager.getLogs(1, latestRevision);
+    }
+
+    @Benchmark
+    public long getChangeLog() {
+        File changeLog = svnManager.getChangeLog(latestRevision / 2, latestRevision, changedFiles);
+        long length = changeLog.length();
+        changeLog.delete();
+        return length;
+    }
+
+    @Benchmark
+    public String checkoutFileToString() throws Exception {
+        return svnManager.checkoutFileToString(textFile);
+    }
+
+    @Benchmark
+    public List<SVNDirEntry> listFolder() throws Exception {
+        return svnManager.listFolder("src/pkg0");
+    }
+}
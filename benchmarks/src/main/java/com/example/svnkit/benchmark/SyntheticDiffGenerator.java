@@ -0,0 +1,72 @@
+package com.example.svnkit.benchmark;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * 生成与 SVNManager#getChangeLog 输出格式相同的比较日志文件,供统计相关的基准测试使用
+ *
+ * @author dengzm
+ */
+public class SyntheticDiffGenerator {
+
+    private SyntheticDiffGenerator() {
+    }
+
+    /**
+     * 生成比较日志文件
+     *
+     * @param file         输出文件
+     * @param files        文件数
+     * @param linesPerFile 每个文件的变更行数
+     * @param seed         随机种子
+     * @throws IOException 写入文件失败
+     */
+    public static void generate(File file, int files, int linesPerFile, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024)) {
+            for (int i = 0; i < files; i++) {
+                String path = "src/pkg" + (i % 10) + "/File" + i + (i % 4 == 0 ? ".xml" : ".java");
+                int kind = random.nextInt(10);
+                String oldRevision = kind == 0 ? "(nonexistent)" : "(revision 100)";
+                String newRevision = kind == 1 ? "(nonexistent)" : "(revision 200)";
+                writer.write("Index: " + path + "\n");
+                writer.write("===================================================================\n");
+                writer.write("--- " + path + "\t" + oldRevision + "\n");
+                writer.write("+++ " + path + "\t" + newRevision + "\n");
+                writer.write("@@ -1," + linesPerFile + " +1," + linesPerFile + " @@\n");
+                for (int j = 0; j < linesPerFile; j++) {
+                    int type = random.nextInt(6);
+                    char prefix = kind == 0 ? '+' : kind == 1 ? '-' : type == 0 ? '+' : type == 1 ? '-' : ' ';
+                    writer.write(prefix);
+                    if (type != 5) {
+                        writer.write("    int value" + j + " = count + " + random.nextInt(1000) + ";");
+                    }
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成单个文件的变更内容(第一个"@@"行之后的部分),供 SVNManager#countAddLine 使用
+     *
+     * @param lines 行数
+     * @param seed  随机种子
+     * @return 变更内容
+     */
+    public static String fileContent(int lines, long seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(lines * 40);
+        for (int j = 0; j < lines; j++) {
+            int type = random.nextInt(6);
+            builder.append(type == 0 ? '+' : type == 1 ? '-' : ' ');
+            if (type != 5) {
+                builder.append("    int value").append(j).append(" = count + ").append(random.nextInt(1000)).append(';');
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+}
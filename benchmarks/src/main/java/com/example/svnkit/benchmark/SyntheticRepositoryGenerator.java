@@ -0,0 +1,250 @@
+package com.example.svnkit.benchmark;
+
+import org.tmatesoft.svn.core.SVNCommitInfo;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperty;
+import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 通过SVNKit生成本地FSFS存储库,供基准测试离线使用
+ * <p>
+ * 生成的目录结构为 /trunk/project/src/pkgN/FileM.java(二进制文件为 .bin),
+ * 第1个版本创建目录,之后每个版本修改已有文件或新增文件,提交者在几个用户之间轮换
+ *
+ * @author dengzm
+ */
+public class SyntheticRepositoryGenerator {
+
+    public static final String PROJECT_PATH = "trunk/project";
+    public static final String[] AUTHORS = {"alice", "bob", "carol"};
+    private static final String[] WORDS = {"int", "long", "String", "return", "value", "count", "if", "for", "while",
+            "new", "list", "map", "result", "index", "name", "+", "-", "=", ";", "{", "}", "(", ")"};
+
+    private int revisions = 100;
+    private int filesPerCommit = 10;
+    private int fileSize = 4 * 1024;
+    private double binaryRatio = 0.1;
+    private int packages = 10;
+    private long seed = 42;
+
+    /**
+     * 生成存储库
+     *
+     * @param dir 存储库目录(会被覆盖)
+     * @return 项目目录(/trunk/project)的svn地址
+     * @throws SVNException 异常
+     */
+    public SVNURL generate(File dir) throws SVNException {
+        Random random = new Random(seed);
+        SVNURL url = SVNRepositoryFactory.createLocalRepository(dir, true, true);
+        SVNRepository[] sessions = new SVNRepository[AUTHORS.length];
+        for (int i = 0; i < AUTHORS.length; i++) {
+            sessions[i] = SVNRepositoryFactory.create(url);
+            sessions[i].setAuthenticationManager(SVNWCUtil.createDefaultAuthenticationManager(AUTHORS[i], new char[0]));
+        }
+        try {
+            createLayout(sessions[0]);
+            Map<String, byte[]> files = new TreeMap<>();
+            List<String> textFiles = new ArrayList<>();
+            for (int revision = 2; revision <= revisions; revision++) {
+                Map<String, byte[]> changes = new TreeMap<>();
+                Set<String> added = new HashSet<>();
+                for (int i = 0; i < filesPerCommit; i++) {
+                    if (textFiles.isEmpty() || random.nextInt(10) < 3) {
+                        boolean binary = random.nextDouble() < binaryRatio;
+                        String path = "src/pkg" + random.nextInt(packages) + "/File" + files.size() + (binary ? ".bin" : ".java");
+                        byte[] content = binary ? randomBytes(random) : randomText(random);
+                        files.put(path, content);
+                        changes.put(path, content);
+                        added.add(path);
+                        if (!binary) {
+                            textFiles.add(path);
+                        }
+                    } else {
+                        String path = textFiles.get(random.nextInt(textFiles.size()));
+                        byte[] content = modifyText(random, files.get(path));
+                        files.put(path, content);
+                        changes.put(path, content);
+                    }
+                }
+                commit(sessions[revision % AUTHORS.length], "commit " + revision, changes, added);
+            }
+        } finally {
+            for (SVNRepository session : sessions) {
+                session.closeSession();
+            }
+        }
+        return url.appendPath(PROJECT_PATH, false);
+    }
+
+    private void createLayout(SVNRepository repository) throws SVNException {
+        ISVNEditor editor = repository.getCommitEditor("create layout", null);
+        editor.openRoot(-1);
+        editor.addDir("trunk", null, -1);
+        editor.addDir(PROJECT_PATH, null, -1);
+        editor.addDir(PROJECT_PATH + "/src", null, -1);
+        for (int i = 0; i < packages; i++) {
+            editor.addDir(PROJECT_PATH + "/src/pkg" + i, null, -1);
+            editor.closeDir();
+        }
+        editor.closeDir();
+        editor.closeDir();
+        editor.closeDir();
+        editor.closeDir();
+        editor.closeEdit();
+    }
+
+    private SVNCommitInfo commit(SVNRepository repository, String message, Map<String, byte[]> changes, Set<String> added) throws SVNException {
+        ISVNEditor editor = repository.getCommitEditor(message, null);
+        SVNDeltaGenerator deltaGenerator = new SVNDeltaGenerator();
+        editor.openRoot(-1);
+        editor.openDir("trunk", -1);
+        editor.openDir(PROJECT_PATH, -1);
+        editor.openDir(PROJECT_PATH + "/src", -1);
+        String openDir = null;
+        for (Map.Entry<String, byte[]> change : changes.entrySet()) {
+            String path = PROJECT_PATH + "/" + change.getKey();
+            String dir = path.substring(0, path.lastIndexOf('/'));
+            if (!dir.equals(openDir)) {
+                if (openDir != null) {
+                    editor.closeDir();
+                }
+                editor.openDir(dir, -1);
+                openDir = dir;
+            }
+            if (added.contains(change.getKey())) {
+                editor.addFile(path, null, -1);
+                if (path.endsWith(".bin")) {
+                    editor.changeFileProperty(path, SVNProperty.MIME_TYPE, SVNPropertyValue.create("application/octet-stream"));
+                }
+            } else {
+                editor.openFile(path, -1);
+            }
+            editor.applyTextDelta(path, null);
+            String checksum = deltaGenerator.sendDelta(path, new ByteArrayInputStream(change.getValue()), editor, true);
+            editor.closeFile(path, checksum);
+        }
+        if (openDir != null) {
+            editor.closeDir();
+        }
+        editor.closeDir();
+        editor.closeDir();
+        editor.closeDir();
+        editor.closeDir();
+        return editor.closeEdit();
+    }
+
+    private byte[] randomText(Random random) {
+        StringBuilder builder = new StringBuilder(fileSize + 64);
+        while (builder.length() < fileSize) {
+            appendLine(random, builder);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 随机替换、删除或插入若干行
+     */
+    private byte[] modifyText(Random random, byte[] content) {
+        List<String> lines = new ArrayList<>(Arrays.asList(new String(content, StandardCharsets.UTF_8).split("\n", -1)));
+        int edits = 1 + random.nextInt(5);
+        for (int i = 0; i < edits; i++) {
+            int index = random.nextInt(lines.size());
+            StringBuilder line = new StringBuilder();
+            appendLine(random, line);
+            line.setLength(line.length() - 1);
+            switch (random.nextInt(3)) {
+                case 0:
+                    lines.set(index, line.toString());
+                    break;
+                case 1:
+                    if (lines.size() > 1) {
+                        lines.remove(index);
+                    }
+                    break;
+                default:
+                    lines.add(index, line.toString());
+            }
+        }
+        return String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void appendLine(Random random, StringBuilder builder) {
+        int indent = random.nextInt(3) * 4;
+        for (int i = 0; i < indent; i++) {
+            builder.append(' ');
+        }
+        int words = random.nextInt(10);
+        for (int i = 0; i < words; i++) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        builder.append('\n');
+    }
+
+    private byte[] randomBytes(Random random) {
+        byte[] bytes = new byte[fileSize];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    public SyntheticRepositoryGenerator setRevisions(int revisions) {
+        this.revisions = revisions;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setFilesPerCommit(int filesPerCommit) {
+        this.filesPerCommit = filesPerCommit;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setFileSize(int fileSize) {
+        this.fileSize = fileSize;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setBinaryRatio(double binaryRatio) {
+        this.binaryRatio = binaryRatio;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setPackages(int packages) {
+        this.packages = packages;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * 命令行生成存储库: 目录 [版本数] [每次提交的文件数] [文件大小] [二进制文件比例]
+     */
+    public static void main(String[] args) throws SVNException {
+        SyntheticRepositoryGenerator generator = new SyntheticRepositoryGenerator();
+        if (args.length > 1) {
+            generator.setRevisions(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            generator.setFilesPerCommit(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            generator.setFileSize(Integer.parseInt(args[3]));
+        }
+        if (args.length > 4) {
+            generator.setBinaryRatio(Double.parseDouble(args[4]));
+        }
+        System.out.println("生成的项目地址: " + generator.generate(new File(args[0])));
+    }
+}
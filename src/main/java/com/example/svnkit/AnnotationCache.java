@@ -0,0 +1,153 @@
+package com.example.svnkit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 文件逐行追溯结果的缓存,按(路径, 版本)保存该版本文件中各版本、各提交人的非空行数
+ * <p>
+ * 追溯时只区分起始版本之后的修改(起始版本及之前的行不再细分),因此缓存的结果只能用于起始版本不早于它的查询;
+ * 超过最大条目数时淘汰最久未使用的条目
+ *
+ * @author dengzm
+ */
+public class AnnotationCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Annotation> entries;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @param maxEntries 最大缓存的文件数
+     */
+    public AnnotationCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<Key, Annotation>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Annotation> eldest) {
+                return size() > AnnotationCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存的追溯结果
+     *
+     * @param path          存储库中的文件路径
+     * @param revision      文件版本
+     * @param startRevision 查询的起始版本,缓存结果的起始版本晚于该版本时不能使用
+     * @return 追溯结果,没有可用的缓存时为null
+     */
+    public synchronized Annotation get(String path, long revision, long startRevision) {
+        Annotation annotation = entries.get(new Key(path, revision));
+        if (annotation == null || annotation.getStartRevision() > startRevision) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return annotation;
+    }
+
+    /**
+     * 缓存追溯结果,同一文件版本已有起始版本更早的结果时保留原结果
+     *
+     * @param path       存储库中的文件路径
+     * @param revision   文件版本
+     * @param annotation 追溯结果
+     */
+    public synchronized void put(String path, long revision, Annotation annotation) {
+        Key key = new Key(path, revision);
+        Annotation existing = entries.get(key);
+        if (existing == null || existing.getStartRevision() > annotation.getStartRevision()) {
+            entries.put(key, annotation);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 一个文件版本的追溯结果: 按版本号排序的(版本, 提交人, 行数)
+     */
+    public static class Annotation {
+        private final long startRevision;
+        private final long[] revisions;
+        private final String[] authors;
+        private final int[] lineCounts;
+
+        /**
+         * @param startRevision 追溯的起始版本,该版本及之前的行的版本号不准确
+         * @param revisions     版本号,递增
+         * @param authors       对应版本的提交人
+         * @param lineCounts    文件中最后由该版本修改的非空行数
+         */
+        public Annotation(long startRevision, long[] revisions, String[] authors, int[] lineCounts) {
+            this.startRevision = startRevision;
+            this.revisions = revisions;
+            this.authors = authors;
+            this.lineCounts = lineCounts;
+        }
+
+        public long getStartRevision() {
+            return startRevision;
+        }
+
+        public int size() {
+            return revisions.length;
+        }
+
+        public long getRevision(int index) {
+            return revisions[index];
+        }
+
+        public String getAuthor(int index) {
+            return authors[index];
+        }
+
+        public int getLineCount(int index) {
+            return lineCounts[index];
+        }
+    }
+
+    private static final class Key {
+        private final String path;
+        private final long revision;
+
+        Key(String path, long revision) {
+            this.path = path;
+            this.revision = revision;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return revision == key.revision && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, revision);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.svnkit;
+
+import org.joda.time.LocalDateTime;
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNLogEntry;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SVNManager的异步接口,查询在执行器中运行并立即返回CompletableFuture,多个查询可以同时发出,
+ * 总耗时取决于最慢的一个而不是全部之和
+ * <p>
+ * 默认执行器在运行环境支持时使用虚拟线程(每个调用一个线程,并发的连接数仍受会话池限制),否则使用固定大小的线程池;
+ * 调用超时或被取消(CompletableFuture.cancel)时关闭该调用正在使用的svn会话的连接并中断执行线程,
+ * 服务器上的请求随之中止,见 {@link SVNCancellation}
+ *
+ * @author dengzm
+ */
+public class AsyncSVNManager implements AutoCloseable {
+
+    /**
+     * 不支持虚拟线程时默认线程池的大小
+     */
+    public static final int DEFAULT_POOL_SIZE = 16;
+
+    private final SVNManager manager;
+    private final Executor executor;
+    private final boolean ownExecutor;
+    private final long timeoutMillis;
+
+    /**
+     * 使用默认执行器,关闭时一并关闭
+     *
+     * @param manager 已连接存储库的SVNManager
+     */
+    public AsyncSVNManager(SVNManager manager) {
+        this(manager, createDefaultExecutor(DEFAULT_POOL_SIZE), true, 0);
+    }
+
+    /**
+     * 使用调用方提供的执行器,关闭时不关闭该执行器
+     *
+     * @param manager  已连接存储库的SVNManager
+     * @param executor 执行器
+     */
+    public AsyncSVNManager(SVNManager manager, Executor executor) {
+        this(manager, executor, false, 0);
+    }
+
+    private AsyncSVNManager(SVNManager manager, Executor executor, boolean ownExecutor, long timeoutMillis) {
+        this.manager = manager;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 创建默认执行器: 运行环境支持虚拟线程时每个任务一个虚拟线程,否则为固定大小的守护线程池
+     *
+     * @param poolSize 不支持虚拟线程时的线程数
+     * @return 执行器
+     */
+    public static ExecutorService createDefaultExecutor(int poolSize) {
+        try {
+            // 编译目标版本不包含虚拟线程,通过反射调用
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(1, poolSize), runnable -> {
+                Thread thread = new Thread(runnable, "svn-async-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 返回使用同一执行器、调用超时为指定时间的接口,例如 async.withTimeout(5, TimeUnit.SECONDS).getLogs(...)
+     *
+     * @param timeout 超时时间,小于等于0时不限时
+     * @param unit    时间单位
+     * @return 异步接口
+     */
+    public AsyncSVNManager withTimeout(long timeout, TimeUnit unit) {
+        return new AsyncSVNManager(manager, executor, false, timeout <= 0 ? 0 : unit.toMillis(timeout));
+    }
+
+    /**
+     * 根据起始结束时间及操作人用户名查询提交记录
+     *
+     * @see SVNManager#getLogs(LocalDateTime, LocalDateTime, String)
+     */
+    public CompletableFuture<List<SVNLogEntry>> getLogs(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author) {
+        return submit(manager -> manager.getLogs(beginDateTime, endDateTime, author));
+    }
+
+    /**
+     * 根据起始结束时间查询提交记录
+     *
+     * @see SVNManager#getLogs(LocalDateTime, LocalDateTime)
+     */
+    public CompletableFuture<List<SVNLogEntry>> getLogs(LocalDateTime beginDateTime, LocalDateTime endDateTime) {
+        return submit(manager -> manager.getLogs(beginDateTime, endDateTime));
+    }
+
+    /**
+     * 根据开始结束日期及用户名获取比较日志,并存入临时文件
+     *
+     * @see SVNManager#getChangeLog(LocalDateTime, LocalDateTime, String)
+     */
+    public CompletableFuture<File> getChangeLog(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author) {
+        return submit(manager -> manager.getChangeLog(beginDateTime, endDateTime, author));
+    }
+
+    /**
+     * 获取指定文件最新内容
+     *
+     * @see SVNManager#checkoutFileToString(String)
+     */
+    public CompletableFuture<String> checkoutFileToString(String filePath) {
+        return submit(manager -> manager.checkoutFileToString(filePath));
+    }
+
+    /**
+     * 获取指定文件在指定版本的内容
+     *
+     * @see SVNManager#checkoutFileToString(String, long)
+     */
+    public CompletableFuture<String> checkoutFileToString(String filePath, long revision) {
+        return submit(manager -> manager.checkoutFileToString(filePath, revision));
+    }
+
+    /**
+     * 列出指定SVN目录下的子目录或文件
+     *
+     * @see SVNManager#listFolder(String)
+     */
+    public CompletableFuture<List<SVNDirEntry>> listFolder(String folderPath) {
+        return submit(manager -> manager.listFolder(folderPath));
+    }
+
+    /**
+     * 检查路径是否存在,1：存在    0：不存在   -1：出错
+     *
+     * @see SVNManager#checkPath(String)
+     */
+    public CompletableFuture<Integer> checkPath(String path) {
+        return submit(manager -> manager.checkPath(path));
+    }
+
+    /**
+     * 异步执行任意SVNManager操作,超时及取消的处理与其它方法相同
+     *
+     * @param call 操作
+     * @param <T>  返回值类型
+     * @return 操作结果
+     */
+    public <T> CompletableFuture<T> submit(Call<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        SVNCancellation cancellation = new SVNCancellation();
+        // 超时、被取消都会使future异常结束,此时中止还在执行的调用; 调用自身结束后再取消没有影响
+        future.whenComplete((result, e) -> {
+            if (e != null) {
+                cancellation.cancel();
+            }
+        });
+        try {
+            executor.execute(new Task<>(call, future, cancellation));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        if (timeoutMillis > 0) {
+            future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * 关闭默认执行器(使用调用方提供的执行器时不关闭),未完成的调用被中止
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            for (Runnable task : ((ExecutorService) executor).shutdownNow()) {
+                if (task instanceof Task) {
+                    ((Task<?>) task).future.cancel(false);
+                }
+            }
+        }
+    }
+
+    private class Task<T> implements Runnable {
+        private final Call<T> call;
+        private final CompletableFuture<T> future;
+        private final SVNCancellation cancellation;
+
+        Task(Call<T> call, CompletableFuture<T> future, SVNCancellation cancellation) {
+            this.call = call;
+            this.future = future;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                // 排队期间已超时或被取消
+                return;
+            }
+            T result = null;
+            Throwable error = null;
+            cancellation.enter();
+            try {
+                cancellation.checkCancelled();
+                result = call.call(manager);
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                cancellation.exit();
+            }
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    /**
+     * 异步执行的SVNManager操作
+     *
+     * @param <T> 返回值类型
+     */
+    public interface Call<T> {
+        T call(SVNManager manager) throws Exception;
+    }
+}
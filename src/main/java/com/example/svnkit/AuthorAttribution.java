@@ -0,0 +1,96 @@
+package com.example.svnkit;
+
+import java.util.*;
+
+/**
+ * 按逐行追溯统计的新增行归属: 起始结束版本间新增(或最后修改)且在结束版本中仍存在的非空行,按实际编写的提交人汇总
+ *
+ * @author dengzm
+ */
+public class AuthorAttribution {
+
+    private final Map<String, Long> byAuthor = new TreeMap<>();
+    private final Map<String, Map<String, Integer>> byPath = new TreeMap<>();
+    private final List<String> skippedPaths = new ArrayList<>();
+    private int annotatedFiles;
+    private int cachedFiles;
+
+    /**
+     * 添加一个文件中某提交人的行数
+     *
+     * @param path   文件路径
+     * @param author 提交人
+     * @param lines  行数
+     */
+    public void add(String path, String author, int lines) {
+        if (lines <= 0) {
+            return;
+        }
+        byAuthor.merge(author, (long) lines, Long::sum);
+        byPath.computeIfAbsent(path, key -> new TreeMap<>()).merge(author, lines, Integer::sum);
+    }
+
+    void addSkipped(String path) {
+        skippedPaths.add(path);
+    }
+
+    void countFile(boolean cached) {
+        if (cached) {
+            cachedFiles++;
+        } else {
+            annotatedFiles++;
+        }
+    }
+
+    /**
+     * @return 各提交人的新增行数
+     */
+    public Map<String, Long> getByAuthor() {
+        return byAuthor;
+    }
+
+    /**
+     * @return 各文件中各提交人的新增行数
+     */
+    public Map<String, Map<String, Integer>> getByPath() {
+        return byPath;
+    }
+
+    /**
+     * @return 未统计的文件(二进制文件)
+     */
+    public List<String> getSkippedPaths() {
+        return skippedPaths;
+    }
+
+    /**
+     * @return 本次请求服务器追溯的文件数
+     */
+    public int getAnnotatedFiles() {
+        return annotatedFiles;
+    }
+
+    /**
+     * @return 使用缓存结果的文件数
+     */
+    public int getCachedFiles() {
+        return cachedFiles;
+    }
+
+    /**
+     * @return 新增行总数
+     */
+    public long getTotal() {
+        long total = 0;
+        for (long lines : byAuthor.values()) {
+            total += lines;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "files=" + byPath.size() + "  annotated=" + annotatedFiles + "  cached=" + cachedFiles
+                + "  skipped=" + skippedPaths.size() + "  " + byAuthor;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.wc.ISVNAnnotateHandler;
+import org.tmatesoft.svn.core.wc.ISVNOptions;
+import org.tmatesoft.svn.core.wc.SVNLogClient;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 通过逐行追溯(annotate)统计新增行的实际编写人,多个文件并行追溯,结果按(路径, 版本)缓存
+ * <p>
+ * 每个文件只追溯起始版本到文件在结束版本前最后修改的版本,起始版本及之前的行不再细分;
+ * 之后的查询中文件没有再修改且起始版本不早于缓存结果时直接使用缓存
+ *
+ * @author dengzm
+ */
+public class AuthorAttributor {
+
+    private final SVNURL rootUrl;
+    private final SVNRepositoryPool pool;
+    private final ISVNAuthenticationManager authManager;
+    private final ISVNOptions options;
+    private final AnnotationCache cache;
+    private final int concurrency;
+
+    /**
+     * @param rootUrl     存储库根地址
+     * @param pool        追溯时借用会话的共享会话池
+     * @param authManager 认证信息
+     * @param options     svn选项
+     * @param cache       追溯结果缓存,为null时不缓存
+     * @param concurrency 并行追溯的文件数
+     */
+    public AuthorAttributor(SVNURL rootUrl, SVNRepositoryPool pool, ISVNAuthenticationManager authManager,
+                            ISVNOptions options, AnnotationCache cache, int concurrency) {
+        this.rootUrl = rootUrl;
+        this.pool = pool;
+        this.authManager = authManager;
+        this.options = options;
+        this.cache = cache;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * 统计文件中起始版本之后新增的非空行的编写人
+     *
+     * @param files         存储库中的文件路径 -> 文件在结束版本前最后修改的版本
+     * @param startRevision 起始版本,该版本及之前的行不统计
+     * @return 统计结果
+     * @throws SVNException 异常
+     */
+    public AuthorAttribution attribute(Map<String, Long> files, long startRevision) throws SVNException {
+        AuthorAttribution attribution = new AuthorAttribution();
+        Map<String, AnnotationCache.Annotation> annotations = new TreeMap<>();
+        List<String> pending = new ArrayList<>();
+        for (Map.Entry<String, Long> file : files.entrySet()) {
+            AnnotationCache.Annotation cached = cache == null ? null : cache.get(file.getKey(), file.getValue(), startRevision);
+            if (cached != null) {
+                annotations.put(file.getKey(), cached);
+                attribution.countFile(true);
+            } else {
+                pending.add(file.getKey());
+            }
+        }
+        if (!pending.isEmpty()) {
+            annotateAll(pending, files, startRevision, annotations, attribution);
+        }
+        for (Map.Entry<String, AnnotationCache.Annotation> entry : annotations.entrySet()) {
+            AnnotationCache.Annotation annotation = entry.getValue();
+            for (int i = 0; i < annotation.size(); i++) {
+                if (annotation.getRevision(i) > startRevision) {
+                    attribution.add(entry.getKey(), annotation.getAuthor(i), annotation.getLineCount(i));
+                }
+            }
+        }
+        return attribution;
+    }
+
+    private void annotateAll(List<String> paths, Map<String, Long> files, long startRevision,
+                             Map<String, AnnotationCache.Annotation> annotations, AuthorAttribution attribution) throws SVNException {
+        int threads = Math.min(concurrency, paths.size());
+        // SVNLogClient及其会话不是线程安全的,每个线程使用独立的实例
+        BlockingQueue<SVNLogClient> clients = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            clients.add(createLogClient());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<AnnotationCache.Annotation>> futures = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                long revision = files.get(path);
+                futures.add(executor.submit(SVNCancellation.propagate(NetworkTraffic.attribute(() -> {
+                    SVNLogClient client = clients.take();
+                    try {
+                        return annotate(client, path, revision, startRevision);
+                    } finally {
+                        clients.put(client);
+                    }
+                }))));
+            }
+            for (int i = 0; i < paths.size(); i++) {
+                String path = paths.get(i);
+                AnnotationCache.Annotation annotation = futures.get(i).get();
+                attribution.countFile(false);
+                if (annotation == null) {
+                    attribution.addSkipped(path);
+                    continue;
+                }
+                annotations.put(path, annotation);
+                if (cache != null) {
+                    cache.put(path, files.get(path), annotation);
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SVNException) {
+                throw (SVNException) e.getCause();
+            }
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.UNKNOWN, e.getCause()), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, e), e);
+        } finally {
+            executor.shutdownNow();
+            for (SVNLogClient client : clients) {
+                client.getOperationsFactory().dispose();
+                client.getOperationsFactory().getRepositoryPool().dispose();
+            }
+        }
+    }
+
+    private SVNLogClient createLogClient() {
+        return new SVNLogClient(new ClientRepositoryPool(pool, authManager), options);
+    }
+
+    /**
+     * 追溯单个文件
+     *
+     * @return 追溯结果,二进制文件为null
+     */
+    private AnnotationCache.Annotation annotate(SVNLogClient client, String path, long revision, long startRevision) throws SVNException {
+        SVNURL url = rootUrl.appendPath(path, false);
+        // 版本号 -> 非空行数,提交人按版本记录
+        TreeMap<Long, int[]> counts = new TreeMap<>();
+        Map<Long, String> authors = new HashMap<>();
+        ISVNAnnotateHandler handler = new ISVNAnnotateHandler() {
+            @Override
+            @Deprecated
+            public void handleLine(Date date, long lineRevision, String author, String line) {
+            }
+
+            @Override
+            public void handleLine(Date date, long lineRevision, String author, String line, Date mergedDate,
+                                   long mergedRevision, String mergedAuthor, String mergedPath, int lineNumber) {
+                if (line == null || line.trim().isEmpty()) {
+                    return;
+                }
+                counts.computeIfAbsent(lineRevision, key -> new int[1])[0]++;
+                authors.putIfAbsent(lineRevision, author == null ? "" : author);
+            }
+
+            @Override
+            public boolean handleRevision(Date date, long fileRevision, String author, File contents) {
+                return false;
+            }
+
+            @Override
+            public void handleEOF() {
+            }
+        };
+        try {
+            client.doAnnotate(url, SVNRevision.create(revision), SVNRevision.create(Math.max(0, startRevision)),
+                    SVNRevision.create(revision), false, false, handler, null);
+        } catch (SVNException e) {
+            if (e.getErrorMessage().getErrorCode() == SVNErrorCode.CLIENT_IS_BINARY_FILE) {
+                return null;
+            }
+            throw e;
+        }
+        long[] revisions = new long[counts.size()];
+        String[] lineAuthors = new String[counts.size()];
+        int[] lineCounts = new int[counts.size()];
+        int i = 0;
+        for (Map.Entry<Long, int[]> entry : counts.entrySet()) {
+            revisions[i] = entry.getKey();
+            lineAuthors[i] = authors.get(entry.getKey());
+            lineCounts[i] = entry.getValue()[0];
+            i++;
+        }
+        return new AnnotationCache.Annotation(startRevision, revisions, lineAuthors, lineCounts);
+    }
+}
@@ -10,6 +10,16 @@ public class ChangeFile {
     // A表示增加文件，M表示修改文件，D表示删除文件，U表示末知
     private Character changeType;
     private String fileContent;
+    // 新增、删除的非空行数,以及修改的行数(同一处变更中删除行与新增行一一对应的部分)
+    private int addLines;
+    private int deleteLines;
+    private int changeLines;
+    // 比较前跳过的文件(见 DiffFilter)的原因及文件大小变化,正常比较的文件原因为null
+    private String skipReason;
+    private long sizeDelta;
+    // 二进制文件(没有行级变更)及属性是否有变更,只有结构化比较(见 DiffEventGenerator)时才有
+    private boolean binary;
+    private boolean propertyChanged;
 
     public ChangeFile() {
     }
@@ -58,6 +68,62 @@ public class ChangeFile {
         this.fileContent = fileContent;
     }
 
+    public int getAddLines() {
+        return addLines;
+    }
+
+    public void setAddLines(int addLines) {
+        this.addLines = addLines;
+    }
+
+    public int getDeleteLines() {
+        return deleteLines;
+    }
+
+    public void setDeleteLines(int deleteLines) {
+        this.deleteLines = deleteLines;
+    }
+
+    public int getChangeLines() {
+        return changeLines;
+    }
+
+    public void setChangeLines(int changeLines) {
+        this.changeLines = changeLines;
+    }
+
+    public String getSkipReason() {
+        return skipReason;
+    }
+
+    public void setSkipReason(String skipReason) {
+        this.skipReason = skipReason;
+    }
+
+    public long getSizeDelta() {
+        return sizeDelta;
+    }
+
+    public void setSizeDelta(long sizeDelta) {
+        this.sizeDelta = sizeDelta;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    public boolean isPropertyChanged() {
+        return propertyChanged;
+    }
+
+    public void setPropertyChanged(boolean propertyChanged) {
+        this.propertyChanged = propertyChanged;
+    }
+
     private static String getFileTypeFromPath(String path) {
         String FileType = "";
         int idx = path.lastIndexOf(".");
@@ -0,0 +1,59 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.SVNProperties;
+
+/**
+ * 将结构化的比较结果直接汇总为 {@link ChangeFile} 及 {@link ChangeLogStatistics},
+ * 行数的统计规则与 {@link DiffStatParser} 解析比较日志文本时相同,但变更类型来自svn而不是文本的头部
+ *
+ * @author dengzm
+ */
+public class ChangeFileCollector implements DiffListener {
+
+    private final ChangeLogStatistics statistics = new ChangeLogStatistics();
+    private ChangeFile current;
+
+    @Override
+    public void fileStarted(String path, char changeType, boolean binary) {
+        current = new ChangeFile(path, changeType, null);
+        current.setBinary(binary);
+    }
+
+    @Override
+    public void changed(int oldStart, int oldLength, int newStart, int newLength, int deletedLines, int addedLines) {
+        current.setAddLines(current.getAddLines() + addedLines);
+        current.setDeleteLines(current.getDeleteLines() + deletedLines);
+        current.setChangeLines(current.getChangeLines() + Math.min(addedLines, deletedLines));
+    }
+
+    @Override
+    public void propertiesChanged(SVNProperties changes) {
+        current.setPropertyChanged(true);
+    }
+
+    @Override
+    public void fileFinished() {
+        statistics.add(current);
+        current = null;
+    }
+
+    /**
+     * 添加比较前跳过的文件(见 {@link DiffFilter})
+     *
+     * @param path     相对存储库根的路径
+     * @param decision 跳过的原因、变更类型及文件大小
+     */
+    public void skipped(String path, DiffFilter.Decision decision) {
+        ChangeFile changeFile = new ChangeFile(path, decision.getChangeType(), null);
+        changeFile.setSkipReason(decision.getReason());
+        changeFile.setSizeDelta(decision.getNewSize() - decision.getOldSize());
+        statistics.add(changeFile);
+    }
+
+    /**
+     * @return 已结束的文件的统计结果,按接收顺序排列
+     */
+    public ChangeLogStatistics getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.svnkit;
+
+/**
+ * 变更文件统计结果的接收者,分析完成后按文件在比较日志中的顺序依次接收每个文件的统计结果
+ *
+ * @author dengzm
+ */
+public interface ChangeFileSink {
+
+    /**
+     * 接收单个文件的统计结果
+     *
+     * @param changeFile 变更文件
+     */
+    void accept(ChangeFile changeFile);
+
+    /**
+     * 全部文件接收完毕
+     *
+     * @param statistics 汇总结果
+     */
+    default void complete(ChangeLogStatistics statistics) {
+    }
+
+    /**
+     * @return 不做任何处理的接收者
+     */
+    static ChangeFileSink discard() {
+        return changeFile -> {
+        };
+    }
+
+    /**
+     * @return 将每个文件的统计结果输出到控制台的接收者
+     */
+    static ChangeFileSink console() {
+        return changeFile -> System.out.println("filePath=" + changeFile.getFilePath()
+                + "  changeType=" + changeFile.getChangeType() + "  addLines=" + changeFile.getAddLines());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.svnkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 并行分析版本比较日志文件
+ * <p>
+ * 将文件按"Index:"行切分成若干段,每段在 {@link ForkJoinPool} 中用 {@link DiffStatParser} 独立解析,
+ * 再按原顺序合并为 {@link ChangeLogStatistics}; 解析过程中不做任何输出,结果最后统一交给 {@link ChangeFileSink}
+ *
+ * @author dengzm
+ */
+public class ChangeLogAnalyzer {
+
+    private static final long MIN_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int SCAN_WINDOW_SIZE = 1024 * 1024;
+    private static final byte[] INDEX = "Index:".getBytes(StandardCharsets.US_ASCII);
+
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+
+    public ChangeLogAnalyzer() {
+        this(ForkJoinPool.commonPool(), 0);
+    }
+
+    /**
+     * @param pool      线程池
+     * @param chunkSize 每段的目标大小(字节),小于等于0时根据文件大小及并行度自动计算
+     */
+    public ChangeLogAnalyzer(ForkJoinPool pool, long chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 分析比较日志文件
+     *
+     * @param file 比较日志文件
+     * @param sink 统计结果接收者
+     * @return 统计结果
+     * @throws IOException 读取文件失败
+     */
+    public ChangeLogStatistics analyze(File file, ChangeFileSink sink) throws IOException {
+        ChangeLogStatistics statistics;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] boundaries = split(channel);
+            try {
+                statistics = pool.invoke(new AnalyzeTask(channel, boundaries, 0, boundaries.length - 1));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        for (ChangeFile changeFile : statistics.getFiles()) {
+            sink.accept(changeFile);
+        }
+        sink.complete(statistics);
+        return statistics;
+    }
+
+    /**
+     * 计算各段的起止位置,除第一段外每段都从"Index:"行开始
+     */
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = chunkSize > 0 ? chunkSize : Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4L));
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = target;
+        while (position < size) {
+            long boundary = nextSection(channel, position, size);
+            if (boundary >= size) {
+                break;
+            }
+            if (boundary > boundaries.get(boundaries.size() - 1)) {
+                boundaries.add(boundary);
+            }
+            position = boundary + target;
+        }
+        boundaries.add(size);
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * 从position开始查找下一个以"Index:"开头的行,找不到时返回文件大小
+     */
+    private long nextSection(FileChannel channel, long position, long size) throws IOException {
+        // 从前一个字节开始扫描,以便判断行首
+        long start = position - 1;
+        while (start < size) {
+            long length = Math.min(SCAN_WINDOW_SIZE + INDEX.length, size - start);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            int limit = (int) length - INDEX.length;
+            for (int i = 0; i < limit; i++) {
+                byte b = buffer.get(i);
+                if ((b == '\n' || b == '\r') && matchesIndex(buffer, i + 1)) {
+                    return start + i + 1;
+                }
+            }
+            if (length < SCAN_WINDOW_SIZE + INDEX.length) {
+                break;
+            }
+            start += SCAN_WINDOW_SIZE;
+        }
+        return size;
+    }
+
+    private static boolean matchesIndex(MappedByteBuffer buffer, int offset) {
+        for (int i = 0; i < INDEX.length; i++) {
+            if (buffer.get(offset + i) != INDEX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析第from到第to段,段数多于一段时拆成两半并行处理
+     */
+    private static class AnalyzeTask extends RecursiveTask<ChangeLogStatistics> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+
+        AnalyzeTask(FileChannel channel, long[] boundaries, int from, int to) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ChangeLogStatistics compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                AnalyzeTask right = new AnalyzeTask(channel, boundaries, middle, to);
+                right.fork();
+                ChangeLogStatistics left = new AnalyzeTask(channel, boundaries, from, middle).compute();
+                left.merge(right.join());
+                return left;
+            }
+            ChangeLogStatistics statistics = new ChangeLogStatistics();
+            DiffStatParser parser = new DiffStatParser(statistics::add);
+            try {
+                parser.feed(channel, boundaries[from], boundaries[to] - boundaries[from]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            parser.finish();
+            return statistics;
+        }
+    }
+}
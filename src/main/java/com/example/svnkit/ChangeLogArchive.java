@@ -0,0 +1,540 @@
+package com.example.svnkit;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 压缩并带索引的版本比较日志文件
+ * <p>
+ * 每个文件的比较结果单独用Deflater压缩成一个数据块,文件末尾是索引: 每个文件的路径、变更类型、增删改行数及数据块位置。
+ * 打开时只读取索引,统计结果直接来自索引不需要解压; 单个文件的比较结果按位置定位后只解压该数据块。
+ * <pre>
+ * 文件头   MAGIC
+ * 数据块   每个文件的比较结果(Deflater压缩)
+ * 索引     开始版本, 结束版本, 文件数, 每个文件: 路径, 变更类型, 新增/删除/修改行数, 跳过原因, 大小变化, 位置, 压缩后长度, 原始长度
+ * 文件尾   索引位置, MAGIC
+ * </pre>
+ *
+ * @author dengzm
+ */
+public class ChangeLogArchive implements Closeable {
+
+    private static final byte[] MAGIC = "SVNCLOG1".getBytes(StandardCharsets.US_ASCII);
+    private static final int TRAILER_SIZE = 8 + MAGIC.length;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean deleteOnClose;
+    private final long startVersion;
+    private final long endVersion;
+    private final List<Entry> entries;
+    private final Map<String, Entry> byPath = new HashMap<>();
+
+    private ChangeLogArchive(Path file, FileChannel channel, boolean deleteOnClose,
+                             long startVersion, long endVersion, List<Entry> entries) {
+        this.file = file;
+        this.channel = channel;
+        this.deleteOnClose = deleteOnClose;
+        this.startVersion = startVersion;
+        this.endVersion = endVersion;
+        this.entries = entries;
+        for (Entry entry : entries) {
+            byPath.put(entry.changeFile.getFilePath(), entry);
+        }
+    }
+
+    /**
+     * 打开比较日志文件,只读取索引
+     *
+     * @param file 文件
+     * @return 比较日志
+     * @throws IOException 读取失败或不是比较日志文件
+     */
+    public static ChangeLogArchive open(Path file) throws IOException {
+        return open(file, false);
+    }
+
+    /**
+     * 打开比较日志文件,只读取索引
+     *
+     * @param file          文件
+     * @param deleteOnClose 关闭时是否删除文件(临时文件)
+     * @return 比较日志
+     * @throws IOException 读取失败或不是比较日志文件
+     */
+    public static ChangeLogArchive open(Path file, boolean deleteOnClose) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < MAGIC.length + TRAILER_SIZE) {
+                throw new IOException("不是比较日志文件: " + file);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            readFully(channel, trailer, size - TRAILER_SIZE);
+            trailer.flip();
+            long indexOffset = trailer.getLong();
+            byte[] magic = new byte[MAGIC.length];
+            trailer.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || indexOffset < MAGIC.length || indexOffset > size - TRAILER_SIZE) {
+                throw new IOException("不是比较日志文件或文件不完整: " + file);
+            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new RegionInputStream(channel, indexOffset, size - TRAILER_SIZE - indexOffset), BUFFER_SIZE));
+            long startVersion = in.readLong();
+            long endVersion = in.readLong();
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                entries.add(Entry.read(in));
+            }
+            return new ChangeLogArchive(file, channel, deleteOnClose, startVersion, endVersion, entries);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 创建比较日志文件
+     *
+     * @param file         文件,已存在时覆盖
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @return 写入器,全部文件写入后调用 {@link Writer#finish()}
+     * @throws IOException 创建失败
+     */
+    public static Writer create(Path file, long startVersion, long endVersion) throws IOException {
+        return new Writer(file, startVersion, endVersion);
+    }
+
+    /**
+     * 创建一个独立的数据块,压缩后写入指定输出流(如并行比较时各文件的临时文件),之后通过 {@link Writer#append(Block, FileChannel)} 合并
+     *
+     * @param path 文件路径
+     * @param out  输出流,数据块关闭时一并关闭
+     * @return 数据块
+     */
+    public static Block newBlock(String path, OutputStream out) {
+        return new Block(path, out, true, null);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getStartVersion() {
+        return startVersion;
+    }
+
+    public long getEndVersion() {
+        return endVersion;
+    }
+
+    /**
+     * @return 各文件的统计结果(来自索引,文件内容为null),按写入顺序排列
+     */
+    public List<ChangeFile> getFiles() {
+        List<ChangeFile> files = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            files.add(entry.changeFile);
+        }
+        return files;
+    }
+
+    /**
+     * @param path 文件路径
+     * @return 文件的统计结果,不存在时为null
+     */
+    public ChangeFile getFile(String path) {
+        Entry entry = byPath.get(path);
+        return entry == null ? null : entry.changeFile;
+    }
+
+    /**
+     * @return 全部文件的统计结果,不解压比较内容
+     */
+    public ChangeLogStatistics getStatistics() {
+        ChangeLogStatistics statistics = new ChangeLogStatistics();
+        for (Entry entry : entries) {
+            statistics.add(entry.changeFile);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return 压缩前的比较结果总长度(字节)
+     */
+    public long getRawLength() {
+        long length = 0;
+        for (Entry entry : entries) {
+            length += entry.rawLength;
+        }
+        return length;
+    }
+
+    /**
+     * 读取单个文件的比较结果,只解压该文件的数据块(可以多个线程同时读取不同文件)
+     *
+     * @param path 文件路径
+     * @return 比较结果的输入流,文件不存在时为null
+     */
+    public InputStream openDiff(String path) {
+        Entry entry = byPath.get(path);
+        if (entry == null) {
+            return null;
+        }
+        return new InflaterInputStream(new BufferedInputStream(new RegionInputStream(channel, entry.offset, entry.compressedLength), BUFFER_SIZE));
+    }
+
+    /**
+     * 读取单个文件的比较结果
+     *
+     * @param path 文件路径
+     * @return 比较结果,文件不存在时为null
+     * @throws IOException 读取失败
+     */
+    public String readDiff(String path) throws IOException {
+        Entry entry = byPath.get(path);
+        if (entry == null) {
+            return null;
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream((int) Math.min(entry.rawLength, Integer.MAX_VALUE - 8));
+        try (InputStream in = openDiff(path)) {
+            copy(in, os);
+        }
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 按写入顺序解压全部文件,输出与文本格式的比较日志相同的内容
+     *
+     * @param os 输出流,不关闭
+     * @throws IOException 读取或写入失败
+     */
+    public void writeText(OutputStream os) throws IOException {
+        for (Entry entry : entries) {
+            try (InputStream in = openDiff(entry.changeFile.getFilePath())) {
+                copy(in, os);
+            }
+        }
+    }
+
+    /**
+     * 关闭文件,临时文件同时删除
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if (deleteOnClose) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream os) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            os.write(buffer, 0, n);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * 写入比较日志文件: 依次写入各文件的数据块,最后写入索引
+     */
+    public static class Writer implements Closeable {
+        private final Path file;
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final long startVersion;
+        private final long endVersion;
+        private final List<Entry> entries = new ArrayList<>();
+        private final Set<String> paths = new HashSet<>();
+        private long position;
+        private boolean finished;
+
+        private Writer(Path file, long startVersion, long endVersion) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) {
+                @Override
+                public void close() {
+                    // 数据块关闭时不关闭文件
+                }
+            };
+            this.startVersion = startVersion;
+            this.endVersion = endVersion;
+            out.write(MAGIC);
+            position = MAGIC.length;
+        }
+
+        /**
+         * 开始写入一个文件的比较结果,直接压缩写入当前文件,数据块关闭时登记到索引
+         *
+         * @param path 文件路径
+         * @return 数据块,写入完成后关闭
+         */
+        public Block newBlock(String path) {
+            return new Block(path, out, false, this);
+        }
+
+        /**
+         * 将独立写入临时文件的数据块(见 {@link ChangeLogArchive#newBlock(String, OutputStream)})拷贝到当前文件并登记到索引
+         *
+         * @param block 已关闭的数据块
+         * @param part  数据块所在的文件
+         * @throws IOException 读取或写入失败
+         */
+        public void append(Block block, FileChannel part) throws IOException {
+            out.flush();
+            long size = part.size();
+            long copied = 0;
+            while (copied < size) {
+                copied += part.transferTo(copied, size - copied, channel);
+            }
+            add(block);
+        }
+
+        private void add(Block block) {
+            if (block.rawLength == 0 || !paths.add(block.changeFile.getFilePath())) {
+                // 没有比较结果(文件未变化)或同一文件重复写入时只占用空间,不登记到索引
+                position += block.compressedLength;
+                return;
+            }
+            entries.add(new Entry(block.changeFile, position, block.compressedLength, block.rawLength));
+            position += block.compressedLength;
+        }
+
+        /**
+         * 写入索引并关闭文件
+         *
+         * @throws IOException 写入失败
+         */
+        public void finish() throws IOException {
+            DataOutputStream data = new DataOutputStream(out);
+            long indexOffset = position;
+            data.writeLong(startVersion);
+            data.writeLong(endVersion);
+            data.writeInt(entries.size());
+            for (Entry entry : entries) {
+                entry.write(data);
+            }
+            data.writeLong(indexOffset);
+            data.write(MAGIC);
+            data.flush();
+            channel.force(false);
+            channel.close();
+            finished = true;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * 关闭文件,未调用 {@link #finish()} 时文件不完整,不能打开
+         */
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 单个文件的数据块: 写入的比较结果一边压缩一边统计行数
+     */
+    public static class Block extends OutputStream {
+        private final OutputStream target;
+        private final boolean closeTarget;
+        private final Writer writer;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final DeflaterOutputStream deflate;
+        private final DiffStatParser parser;
+        private final ChangeFile changeFile;
+        private boolean sawSection;
+        private long rawLength;
+        private long compressedLength;
+        private boolean closed;
+
+        private Block(String path, OutputStream target, boolean closeTarget, Writer writer) {
+            this.target = target;
+            this.closeTarget = closeTarget;
+            this.writer = writer;
+            this.changeFile = new ChangeFile(path, 'U', null);
+            OutputStream counting = new FilterOutputStream(target) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    compressedLength++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    compressedLength += len;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            this.deflate = new DeflaterOutputStream(counting, deflater, BUFFER_SIZE);
+            this.parser = new DiffStatParser(this::merge);
+        }
+
+        /**
+         * 合并比较结果中各段的统计(文件只有一段,目录的比较结果包含其下的各个文件),变更类型以第一段为准
+         */
+        private void merge(ChangeFile section) {
+            if (!sawSection) {
+                sawSection = true;
+                changeFile.setChangeType(section.getChangeType());
+                changeFile.setSkipReason(section.getSkipReason());
+                changeFile.setSizeDelta(section.getSizeDelta());
+            }
+            changeFile.setAddLines(changeFile.getAddLines() + section.getAddLines());
+            changeFile.setDeleteLines(changeFile.getDeleteLines() + section.getDeleteLines());
+            changeFile.setChangeLines(changeFile.getChangeLines() + section.getChangeLines());
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            parser.feed(ByteBuffer.wrap(b, off, len));
+            deflate.write(b, off, len);
+            rawLength += len;
+        }
+
+        /**
+         * 结束压缩及统计,直接写入比较日志文件的数据块登记到索引
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                parser.finish();
+                deflate.finish();
+                target.flush();
+            } finally {
+                deflater.end();
+                if (closeTarget) {
+                    target.close();
+                }
+            }
+            if (writer != null) {
+                writer.add(this);
+            }
+        }
+
+        /**
+         * @return 统计结果,关闭后有效
+         */
+        public ChangeFile getChangeFile() {
+            return changeFile;
+        }
+    }
+
+    /**
+     * 索引中的一项
+     */
+    private static final class Entry {
+        private final ChangeFile changeFile;
+        private final long offset;
+        private final long compressedLength;
+        private final long rawLength;
+
+        Entry(ChangeFile changeFile, long offset, long compressedLength, long rawLength) {
+            this.changeFile = changeFile;
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(changeFile.getFilePath());
+            out.writeChar(changeFile.getChangeType());
+            out.writeInt(changeFile.getAddLines());
+            out.writeInt(changeFile.getDeleteLines());
+            out.writeInt(changeFile.getChangeLines());
+            out.writeUTF(changeFile.getSkipReason() == null ? "" : changeFile.getSkipReason());
+            out.writeLong(changeFile.getSizeDelta());
+            out.writeLong(offset);
+            out.writeLong(compressedLength);
+            out.writeLong(rawLength);
+        }
+
+        static Entry read(DataInputStream in) throws IOException {
+            ChangeFile changeFile = new ChangeFile(in.readUTF(), in.readChar(), null);
+            changeFile.setAddLines(in.readInt());
+            changeFile.setDeleteLines(in.readInt());
+            changeFile.setChangeLines(in.readInt());
+            String skipReason = in.readUTF();
+            changeFile.setSkipReason(skipReason.isEmpty() ? null : skipReason);
+            changeFile.setSizeDelta(in.readLong());
+            return new Entry(changeFile, in.readLong(), in.readLong(), in.readLong());
+        }
+    }
+
+    /**
+     * 按位置读取文件的一段,不改变通道的当前位置,多个线程可以同时读取
+     */
+    private static final class RegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RegionInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.end = position + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n < 0) {
+                return -1;
+            }
+            position += n;
+            return n;
+        }
+    }
+}
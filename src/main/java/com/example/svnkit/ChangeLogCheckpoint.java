@@ -0,0 +1,229 @@
+package com.example.svnkit;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 生成比较日志的断点记录: 已完成的单个文件比较结果及每次生成的进度日志
+ * <p>
+ * 目录结构:
+ * <pre>
+ * 存储库UUID_开始版本_结束版本/
+ *     文件地址的SHA-1.diff              单个文件的完整比较结果,先写临时文件再原子地改名,不会出现写了一半的结果
+ *     文件列表的SHA-1.journal           该文件列表的进度日志,每完成(或失败)一个文件追加一行
+ * </pre>
+ * 比较结果只与(开始版本, 结束版本, 文件)有关,文件列表不同但版本相同的生成过程可以互相复用;
+ * 一次生成的全部文件都比较成功后由调用方通过 {@link #delete(long, long)} 删除
+ *
+ * @author dengzm
+ */
+public class ChangeLogCheckpoint {
+
+    private final Path dir;
+    private final String uuid;
+
+    /**
+     * @param dir  断点记录目录
+     * @param uuid 存储库UUID,不同存储库的记录互不影响
+     * @throws IOException 创建目录失败
+     */
+    public ChangeLogCheckpoint(File dir, String uuid) throws IOException {
+        this.dir = dir.toPath();
+        this.uuid = uuid;
+        Files.createDirectories(this.dir);
+    }
+
+    /**
+     * 获取已完成的比较结果
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param filePath     svn中完整文件名
+     * @return 比较结果文件,没有时为null
+     */
+    public Path getDiff(long startVersion, long endVersion, String filePath) {
+        Path file = versionDir(startVersion, endVersion).resolve(digest(filePath) + ".diff");
+        return Files.exists(file) ? file : null;
+    }
+
+    /**
+     * 创建写入比较结果的临时文件,写完后通过 {@link #store(long, long, String, Path)} 保存
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @return 临时文件
+     * @throws IOException 创建失败
+     */
+    public Path createTempFile(long startVersion, long endVersion) throws IOException {
+        Path versionDir = Files.createDirectories(versionDir(startVersion, endVersion));
+        return Files.createTempFile(versionDir, "part_", ".tmp");
+    }
+
+    /**
+     * 保存完整的比较结果
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param filePath     svn中完整文件名
+     * @param tempFile     {@link #createTempFile(long, long)} 创建并已写完的临时文件
+     * @throws IOException 保存失败
+     */
+    public void store(long startVersion, long endVersion, String filePath, Path tempFile) throws IOException {
+        Path file = versionDir(startVersion, endVersion).resolve(digest(filePath) + ".diff");
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 打开(不存在时创建)文件列表的进度日志
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param filePathList 文件列表(svn中完整文件名)
+     * @return 进度日志,用完后关闭
+     * @throws IOException 读写失败
+     */
+    public Journal openJournal(long startVersion, long endVersion, List<String> filePathList) throws IOException {
+        Path versionDir = Files.createDirectories(versionDir(startVersion, endVersion));
+        List<String> sorted = new ArrayList<>(filePathList);
+        Collections.sort(sorted);
+        return new Journal(versionDir.resolve(digest(String.join("\n", sorted)) + ".journal"));
+    }
+
+    /**
+     * 删除版本间的全部断点记录
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @throws IOException 删除失败
+     */
+    public void delete(long startVersion, long endVersion) throws IOException {
+        Path versionDir = versionDir(startVersion, endVersion);
+        if (!Files.isDirectory(versionDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(versionDir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(versionDir);
+    }
+
+    private Path versionDir(long startVersion, long endVersion) {
+        return dir.resolve(uuid + "_" + startVersion + "_" + endVersion);
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+            for (byte b : hash) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 一个文件列表的进度日志,每行为 "D\t文件" (已完成) 或 "F\t文件\t失败次数\t原因" (失败),同一文件以最后一行为准
+     */
+    public static class Journal implements Closeable {
+        private final Path file;
+        private final Map<String, Integer> failures = new HashMap<>();
+        private final Set<String> completed = new HashSet<>();
+        private final Writer writer;
+
+        private Journal(Path file) throws IOException {
+            this.file = file;
+            boolean partial = false;
+            if (Files.exists(file)) {
+                String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                // 最后一行没有换行符时是写入过程中中断的行,忽略
+                int end = content.lastIndexOf('\n') + 1;
+                partial = end < content.length();
+                for (String line : content.substring(0, end).split("\n")) {
+                    String[] fields = line.split("\t");
+                    if (fields.length >= 2 && "D".equals(fields[0])) {
+                        completed.add(fields[1]);
+                        failures.remove(fields[1]);
+                    } else if (fields.length >= 3 && "F".equals(fields[0])) {
+                        completed.remove(fields[1]);
+                        try {
+                            failures.put(fields[1], Integer.parseInt(fields[2]));
+                        } catch (NumberFormatException ignored) {
+                            // 格式错误的行
+                        }
+                    }
+                }
+            }
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (partial) {
+                // 结束中断的行,之后追加的行不会与其连在一起
+                writer.write('\n');
+                writer.flush();
+            }
+        }
+
+        /**
+         * 记录文件已完成
+         *
+         * @param filePath svn中完整文件名
+         * @throws IOException 写入失败
+         */
+        public synchronized void completed(String filePath) throws IOException {
+            completed.add(filePath);
+            failures.remove(filePath);
+            append("D\t" + filePath);
+        }
+
+        /**
+         * 记录文件比较失败
+         *
+         * @param filePath svn中完整文件名
+         * @param reason   失败原因
+         * @throws IOException 写入失败
+         */
+        public synchronized void failed(String filePath, String reason) throws IOException {
+            completed.remove(filePath);
+            int count = failures.merge(filePath, 1, Integer::sum);
+            append("F\t" + filePath + "\t" + count + "\t" + (reason == null ? "" : reason.replaceAll("\\s+", " ")));
+        }
+
+        private void append(String line) throws IOException {
+            writer.write(line);
+            writer.write('\n');
+            // 每行立即写入,进程中断后可以从该处继续
+            writer.flush();
+        }
+
+        public synchronized boolean isCompleted(String filePath) {
+            return completed.contains(filePath);
+        }
+
+        /**
+         * @return 之前失败过且尚未完成的文件及失败次数
+         */
+        public synchronized Map<String, Integer> getFailures() {
+            return new HashMap<>(failures);
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            writer.close();
+        }
+    }
+}
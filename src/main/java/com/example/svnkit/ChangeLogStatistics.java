@@ -0,0 +1,97 @@
+package com.example.svnkit;
+
+import java.util.*;
+
+/**
+ * 版本比较日志的统计结果,包含每个文件的统计、合计以及按文件扩展名的分类统计
+ *
+ * @author dengzm
+ */
+public class ChangeLogStatistics {
+
+    private final List<ChangeFile> files = new ArrayList<>();
+    private final Summary total = new Summary();
+    private final Map<String, Summary> byFileType = new TreeMap<>();
+
+    /**
+     * 添加单个文件的统计结果
+     *
+     * @param changeFile 变更文件
+     */
+    public void add(ChangeFile changeFile) {
+        files.add(changeFile);
+        total.add(changeFile);
+        byFileType.computeIfAbsent(changeFile.getFileType(), type -> new Summary()).add(changeFile);
+    }
+
+    /**
+     * 将另一份统计结果追加到当前结果之后
+     *
+     * @param other 排在当前结果之后的统计结果
+     */
+    public void merge(ChangeLogStatistics other) {
+        files.addAll(other.files);
+        total.merge(other.total);
+        other.byFileType.forEach((type, summary) -> byFileType.computeIfAbsent(type, key -> new Summary()).merge(summary));
+    }
+
+    public List<ChangeFile> getFiles() {
+        return files;
+    }
+
+    public Summary getTotal() {
+        return total;
+    }
+
+    /**
+     * @return 按文件扩展名(见 {@link ChangeFile#getFileType()})分类的统计
+     */
+    public Map<String, Summary> getByFileType() {
+        return byFileType;
+    }
+
+    /**
+     * 一组文件的合计
+     */
+    public static class Summary {
+        private int fileCount;
+        private long addLines;
+        private long deleteLines;
+        private long changeLines;
+
+        void add(ChangeFile changeFile) {
+            fileCount++;
+            addLines += changeFile.getAddLines();
+            deleteLines += changeFile.getDeleteLines();
+            changeLines += changeFile.getChangeLines();
+        }
+
+        void merge(Summary other) {
+            fileCount += other.fileCount;
+            addLines += other.addLines;
+            deleteLines += other.deleteLines;
+            changeLines += other.changeLines;
+        }
+
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        public long getAddLines() {
+            return addLines;
+        }
+
+        public long getDeleteLines() {
+            return deleteLines;
+        }
+
+        public long getChangeLines() {
+            return changeLines;
+        }
+
+        @Override
+        public String toString() {
+            return "files=" + fileCount + "  addLines=" + addLines + "  deleteLines=" + deleteLines + "  changeLines=" + changeLines;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.svnkit;
+
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 按天累计的代码变更行数,用于随时查询任意时间段的合计,不需要重新比较
+ * <p>
+ * 合计、每个提交人、每个路径(包括其上级目录)各保存一组按天的前缀和(截止到某天的累计变更文件数、新增行数、删除行数),
+ * 时间段 [from, to] 的合计为 累计(to) - 累计(from前一天)。合计及提交人按天连续保存,查询为常数时间;
+ * 路径数量多且大多只在少数几天有变更,只保存有变更的天,查询时二分查找。
+ * 新版本的提交时间通常不早于已统计的版本,追加时只更新最后一天
+ *
+ * @author dengzm
+ */
+public class ChurnAggregates {
+
+    private static final LocalDate EPOCH = new LocalDate(1970, 1, 1);
+
+    private final Series total = new Series(true);
+    private final Map<String, Series> byAuthor = new TreeMap<>();
+    private final Map<String, Series> byPath = new HashMap<>();
+    private long revision = -1;
+
+    /**
+     * 添加一个版本中单个文件的变更
+     *
+     * @param day 提交日期
+     * @param row 变更行数
+     */
+    public synchronized void add(LocalDate day, ChurnTable.Row row) {
+        int index = toIndex(day);
+        total.add(index, row.getAddLines(), row.getDeleteLines());
+        byAuthor.computeIfAbsent(row.getAuthor(), key -> new Series(true)).add(index, row.getAddLines(), row.getDeleteLines());
+        String path = row.getPath();
+        while (true) {
+            byPath.computeIfAbsent(path, key -> new Series(false)).add(index, row.getAddLines(), row.getDeleteLines());
+            int slash = path.lastIndexOf('/');
+            if (slash < 0) {
+                break;
+            }
+            path = path.substring(0, slash);
+        }
+    }
+
+    /**
+     * 时间段内的合计
+     *
+     * @param from 开始日期(包含)
+     * @param to   结束日期(包含)
+     * @return 变更文件数及新增、删除行数
+     */
+    public synchronized ChurnTable.Churn getTotal(LocalDate from, LocalDate to) {
+        return total.range(toIndex(from), toIndex(to));
+    }
+
+    /**
+     * 时间段内指定提交人的合计
+     *
+     * @param author 提交人
+     * @param from   开始日期(包含)
+     * @param to     结束日期(包含)
+     * @return 变更文件数及新增、删除行数,没有该提交人时为0
+     */
+    public synchronized ChurnTable.Churn getByAuthor(String author, LocalDate from, LocalDate to) {
+        Series series = byAuthor.get(author);
+        return series == null ? new ChurnTable.Churn() : series.range(toIndex(from), toIndex(to));
+    }
+
+    /**
+     * 时间段内指定文件或目录(包括其下全部文件)的合计
+     *
+     * @param path 相对项目地址的路径,如 "src/main"
+     * @param from 开始日期(包含)
+     * @param to   结束日期(包含)
+     * @return 变更文件数及新增、删除行数,没有该路径时为0
+     */
+    public synchronized ChurnTable.Churn getByPath(String path, LocalDate from, LocalDate to) {
+        Series series = byPath.get(path);
+        return series == null ? new ChurnTable.Churn() : series.range(toIndex(from), toIndex(to));
+    }
+
+    /**
+     * 时间段内各提交人的合计
+     *
+     * @param from 开始日期(包含)
+     * @param to   结束日期(包含)
+     * @return 提交人 -> 合计,按提交人排序,不含该时间段内没有变更的提交人
+     */
+    public synchronized Map<String, ChurnTable.Churn> getByAuthor(LocalDate from, LocalDate to) {
+        Map<String, ChurnTable.Churn> result = new TreeMap<>();
+        byAuthor.forEach((author, series) -> {
+            ChurnTable.Churn churn = series.range(toIndex(from), toIndex(to));
+            if (churn.getFileCount() > 0) {
+                result.put(author, churn);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return 已统计的最新版本号,未统计时为-1
+     */
+    public synchronized long getRevision() {
+        return revision;
+    }
+
+    public synchronized void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    synchronized void write(DataOutputStream out) throws IOException {
+        out.writeLong(revision);
+        total.write(out);
+        writeSeries(out, byAuthor);
+        writeSeries(out, byPath);
+    }
+
+    synchronized void read(DataInputStream in) throws IOException {
+        revision = in.readLong();
+        total.read(in);
+        readSeries(in, byAuthor, true);
+        readSeries(in, byPath, false);
+    }
+
+    private static void writeSeries(DataOutputStream out, Map<String, Series> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, Series> entry : map.entrySet()) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().write(out);
+        }
+    }
+
+    private static void readSeries(DataInputStream in, Map<String, Series> map, boolean dense) throws IOException {
+        map.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            Series series = new Series(dense);
+            series.read(in);
+            map.put(key, series);
+        }
+    }
+
+    private static int toIndex(LocalDate day) {
+        return Days.daysBetween(EPOCH, day).getDays();
+    }
+
+    /**
+     * 一组按天的前缀和,每天依次保存累计变更文件数、新增行数、删除行数
+     */
+    private static final class Series {
+        private final boolean dense;
+        // 连续保存时为第一天,之后每个元素对应一天; 只保存有变更的天时为每个元素对应的天
+        private int start;
+        private int[] days = new int[0];
+        private long[] values = new long[0];
+        private int length;
+
+        Series(boolean dense) {
+            this.dense = dense;
+        }
+
+        void add(int day, long addLines, long deleteLines) {
+            int index = dense ? denseIndex(day) : sparseIndex(day);
+            for (int i = index; i < length; i++) {
+                values[i * 3]++;
+                values[i * 3 + 1] += addLines;
+                values[i * 3 + 2] += deleteLines;
+            }
+        }
+
+        /**
+         * 连续保存时第day天的下标,需要时在开头或末尾补充天数(补充的天沿用前一天的累计值)
+         */
+        private int denseIndex(int day) {
+            if (length == 0) {
+                start = day;
+            } else if (day < start) {
+                int shift = start - day;
+                long[] grown = new long[(length + shift) * 3];
+                System.arraycopy(values, 0, grown, shift * 3, length * 3);
+                values = grown;
+                length += shift;
+                start = day;
+            }
+            int index = day - start;
+            if (index >= length) {
+                ensureCapacity(index + 1);
+                for (int i = length; i <= index; i++) {
+                    for (int k = 0; k < 3; k++) {
+                        values[i * 3 + k] = i > 0 ? values[(i - 1) * 3 + k] : 0;
+                    }
+                }
+                length = index + 1;
+            }
+            return index;
+        }
+
+        /**
+         * 只保存有变更的天时第day天的下标,没有时插入(累计值沿用前一天)
+         */
+        private int sparseIndex(int day) {
+            if (length > 0 && days[length - 1] == day) {
+                return length - 1;
+            }
+            int index = length > 0 && days[length - 1] < day ? length : Arrays.binarySearch(days, 0, length, day);
+            if (index >= 0 && index < length) {
+                return index;
+            }
+            if (index < 0) {
+                index = -index - 1;
+            }
+            ensureCapacity(length + 1);
+            System.arraycopy(days, index, days, index + 1, length - index);
+            System.arraycopy(values, index * 3, values, (index + 1) * 3, (length - index) * 3);
+            days[index] = day;
+            for (int k = 0; k < 3; k++) {
+                values[index * 3 + k] = index > 0 ? values[(index - 1) * 3 + k] : 0;
+            }
+            length++;
+            return index;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (values.length < capacity * 3) {
+                int size = Math.max(capacity, length * 2);
+                values = Arrays.copyOf(values, size * 3);
+                if (!dense) {
+                    days = Arrays.copyOf(days, size);
+                }
+            }
+        }
+
+        ChurnTable.Churn range(int from, int to) {
+            if (to < from) {
+                return new ChurnTable.Churn();
+            }
+            int high = find(to);
+            int low = find(from - 1);
+            return new ChurnTable.Churn(
+                    (int) (value(high, 0) - value(low, 0)),
+                    value(high, 1) - value(low, 1),
+                    value(high, 2) - value(low, 2));
+        }
+
+        /**
+         * 不晚于day的最后一个元素的下标,没有时为-1
+         */
+        private int find(int day) {
+            if (length == 0) {
+                return -1;
+            }
+            if (dense) {
+                return day < start ? -1 : Math.min(day - start, length - 1);
+            }
+            int index = Arrays.binarySearch(days, 0, length, day);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        private long value(int index, int k) {
+            return index < 0 ? 0 : values[index * 3 + k];
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(start);
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                if (!dense) {
+                    out.writeInt(days[i]);
+                }
+                for (int k = 0; k < 3; k++) {
+                    out.writeLong(values[i * 3 + k]);
+                }
+            }
+        }
+
+        void read(DataInputStream in) throws IOException {
+            start = in.readInt();
+            length = in.readInt();
+            days = new int[dense ? 0 : length];
+            values = new long[length * 3];
+            for (int i = 0; i < length; i++) {
+                if (!dense) {
+                    days[i] = in.readInt();
+                }
+                for (int k = 0; k < 3; k++) {
+                    values[i * 3 + k] = in.readLong();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.svnkit;
+
+import java.util.*;
+
+/**
+ * 按版本统计的代码变更行数结果表,每行为一个版本中一个文件的新增、删除行数,并按版本、提交人、文件汇总
+ *
+ * @author dengzm
+ */
+public class ChurnTable {
+
+    private final List<Row> rows = new ArrayList<>();
+    private final Churn total = new Churn();
+    private final Map<Long, Churn> byRevision = new TreeMap<>();
+    private final Map<String, Churn> byAuthor = new TreeMap<>();
+    private final Map<String, Churn> byPath = new TreeMap<>();
+
+    /**
+     * 添加一行
+     *
+     * @param row 版本中单个文件的变更行数
+     */
+    public void add(Row row) {
+        rows.add(row);
+        total.add(row);
+        byRevision.computeIfAbsent(row.getRevision(), key -> new Churn()).add(row);
+        byAuthor.computeIfAbsent(row.getAuthor(), key -> new Churn()).add(row);
+        byPath.computeIfAbsent(row.getPath(), key -> new Churn()).add(row);
+    }
+
+    /**
+     * 将另一份结果并入当前结果
+     *
+     * @param other 另一份结果
+     */
+    public void merge(ChurnTable other) {
+        for (Row row : other.rows) {
+            add(row);
+        }
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    public Churn getTotal() {
+        return total;
+    }
+
+    public Map<Long, Churn> getByRevision() {
+        return byRevision;
+    }
+
+    public Map<String, Churn> getByAuthor() {
+        return byAuthor;
+    }
+
+    public Map<String, Churn> getByPath() {
+        return byPath;
+    }
+
+    /**
+     * 版本中单个文件的变更行数
+     */
+    public static class Row {
+        private final long revision;
+        private final String author;
+        private final String path;
+        private final char changeType;
+        private final int addLines;
+        private final int deleteLines;
+
+        /**
+         * @param revision    版本号
+         * @param author      提交人,匿名提交时为空字符串
+         * @param path        相对项目地址的文件路径
+         * @param changeType  变更类型 A/M/D
+         * @param addLines    新增的非空行数
+         * @param deleteLines 删除的非空行数
+         */
+        public Row(long revision, String author, String path, char changeType, int addLines, int deleteLines) {
+            this.revision = revision;
+            this.author = author == null ? "" : author;
+            this.path = path;
+            this.changeType = changeType;
+            this.addLines = addLines;
+            this.deleteLines = deleteLines;
+        }
+
+        public long getRevision() {
+            return revision;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public char getChangeType() {
+            return changeType;
+        }
+
+        public int getAddLines() {
+            return addLines;
+        }
+
+        public int getDeleteLines() {
+            return deleteLines;
+        }
+
+        @Override
+        public String toString() {
+            return "r" + revision + "  " + author + "  " + changeType + " " + path + "  +" + addLines + " -" + deleteLines;
+        }
+    }
+
+    /**
+     * 一组行的合计
+     */
+    public static class Churn {
+        private int fileCount;
+        private long addLines;
+        private long deleteLines;
+
+        public Churn() {
+        }
+
+        Churn(int fileCount, long addLines, long deleteLines) {
+            this.fileCount = fileCount;
+            this.addLines = addLines;
+            this.deleteLines = deleteLines;
+        }
+
+        void add(Row row) {
+            fileCount++;
+            addLines += row.getAddLines();
+            deleteLines += row.getDeleteLines();
+        }
+
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        public long getAddLines() {
+            return addLines;
+        }
+
+        public long getDeleteLines() {
+            return deleteLines;
+        }
+
+        @Override
+        public String toString() {
+            return "files=" + fileCount + "  addLines=" + addLines + "  deleteLines=" + deleteLines;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.ISVNCanceller;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.ISVNRepositoryPool;
+import org.tmatesoft.svn.util.ISVNDebugLog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * svn客户端(SVNDiffClient、SVNLogClient等)使用的会话池,从共享的 {@link SVNRepositoryPool} 借用会话,
+ * 使客户端复用已认证的连接而不是每个客户端各自建立连接
+ * <p>
+ * 客户端可复用的会话从共享池借用一个,客户端释放时归还(下次借出前先测试连接); 共享池已全部借出时不等待,
+ * 改为单独创建会话(客户端在任务中持有会话直到释放,等待其它客户端归还可能互相等待);
+ * 不可复用的会话(如比较时的第二个会话)由svn客户端在操作结束时关闭,单独创建。
+ * 会话与共享池的会话一样登记到当前调用的 {@link SVNCancellation}。一个实例只供一个客户端使用
+ *
+ * @author dengzm
+ */
+class ClientRepositoryPool implements ISVNRepositoryPool {
+
+    private final SVNRepositoryPool pool;
+    private final ISVNAuthenticationManager authManager;
+    private SVNRepository reusable;
+    private boolean borrowed;
+    private final List<SVNRepository> created = new ArrayList<>();
+
+    /**
+     * @param pool        共享的会话池
+     * @param authManager 单独创建会话时使用的认证信息
+     */
+    ClientRepositoryPool(SVNRepositoryPool pool, ISVNAuthenticationManager authManager) {
+        this.pool = pool;
+        this.authManager = authManager;
+    }
+
+    @Override
+    public synchronized SVNRepository createRepository(SVNURL url, boolean mayReuse) throws SVNException {
+        SVNRepository repository;
+        if (mayReuse && reusable != null) {
+            repository = reusable;
+        } else if (mayReuse) {
+            repository = pool.tryBorrow();
+            borrowed = repository != null;
+            if (repository == null) {
+                repository = create(url);
+            }
+            reusable = repository;
+        } else {
+            repository = create(url);
+        }
+        repository.setLocation(url, false);
+        return repository;
+    }
+
+    private SVNRepository create(SVNURL url) throws SVNException {
+        SVNRepository repository = SVNRepositoryFactory.create(url);
+        repository.setAuthenticationManager(authManager);
+        repository.setDebugLog(new MeteredDebugLog());
+        created.add(repository);
+        SVNCancellation cancellation = SVNCancellation.current();
+        if (cancellation != null) {
+            repository.setCanceller(cancellation);
+            cancellation.attach(repository, repository::closeSession);
+        }
+        return repository;
+    }
+
+    @Override
+    @Deprecated
+    public synchronized void shutdownConnections(boolean shutdownAll) {
+        if (borrowed) {
+            reusable.closeSession();
+        }
+        for (SVNRepository repository : created) {
+            repository.closeSession();
+        }
+    }
+
+    /**
+     * 归还借用的会话并关闭单独创建的会话
+     */
+    @Override
+    public synchronized void dispose() {
+        if (borrowed) {
+            try {
+                reusable.setLocation(pool.getUrl(), false);
+                pool.release(reusable, true);
+            } catch (SVNException e) {
+                pool.invalidate(reusable);
+            }
+        }
+        for (SVNRepository repository : created) {
+            repository.closeSession();
+            ISVNCanceller canceller = repository.getCanceller();
+            if (canceller instanceof SVNCancellation) {
+                ((SVNCancellation) canceller).detach(repository);
+            }
+        }
+        created.clear();
+        reusable = null;
+        borrowed = false;
+    }
+
+    @Override
+    public void setAuthenticationManager(ISVNAuthenticationManager authManager) {
+        // 会话的认证信息由共享池决定
+    }
+
+    @Override
+    public void setCanceller(ISVNCanceller canceller) {
+        // 取消由 SVNCancellation 处理
+    }
+
+    @Override
+    public void setDebugLog(ISVNDebugLog log) {
+        // 会话统计网络流量,见 MeteredDebugLog
+    }
+}
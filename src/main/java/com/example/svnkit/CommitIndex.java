@@ -0,0 +1,476 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.SVNLogEntry;
+
+import java.util.*;
+
+/**
+ * 内存中的按列存储的提交记录索引,用于按提交人、路径、时间组合查询
+ * <p>
+ * 每个提交为一行,版本号、提交时间、提交人编号分别存于基本类型数组(按版本号递增追加);
+ * 提交人按忽略大小写的用户名编码为整数,每个提交人有一个包含其提交行号的倒排表;
+ * 变更路径按"/"拆分存入前缀树,每个节点记录变更了该路径的行号,目录节点还记录其下所有路径被变更的行号,
+ * 查询时先由版本或时间范围、提交人求出行号位图,再在前缀树中跳过与位图没有交集的子树。
+ * <p>
+ * 倒排表在行数较少时为有序整数数组,较多时转为位图。新版本通过 {@link #add(SVNLogEntry)} 追加,不需要重建
+ *
+ * @author dengzm
+ */
+public class CommitIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] revisions = new long[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] authorIds = new int[INITIAL_CAPACITY];
+    private int size;
+    /**
+     * 已索引到的版本号(包括没有变更项目路径、因而没有对应行的版本)
+     */
+    private long indexedRevision = -1;
+
+    private final Map<String, Integer> authorDictionary = new HashMap<>();
+    private final List<String> authorNames = new ArrayList<>();
+    private final List<Postings> authorRows = new ArrayList<>();
+    private final Node root = new Node(null, "");
+
+    /**
+     * 追加一个提交记录,版本号不大于已索引版本的记录被忽略
+     *
+     * @param logEntry 提交记录,需要包含变更路径
+     */
+    public synchronized void add(SVNLogEntry logEntry) {
+        long revision = logEntry.getRevision();
+        if (revision <= indexedRevision) {
+            return;
+        }
+        if (size == revisions.length) {
+            int capacity = size * 2;
+            revisions = Arrays.copyOf(revisions, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            authorIds = Arrays.copyOf(authorIds, capacity);
+        }
+        int row = size++;
+        revisions[row] = revision;
+        timestamps[row] = logEntry.getDate() == null ? 0 : logEntry.getDate().getTime();
+        int authorId = authorIdOf(logEntry.getAuthor());
+        authorIds[row] = authorId;
+        authorRows.get(authorId).add(row);
+        if (logEntry.getChangedPaths() != null) {
+            for (String path : logEntry.getChangedPaths().keySet()) {
+                addPath(path, row);
+            }
+        }
+        indexedRevision = revision;
+    }
+
+    /**
+     * 记录已索引到的版本号(该版本之前没有提交记录的版本不再重新获取)
+     *
+     * @param revision 版本号
+     */
+    public synchronized void setIndexedRevision(long revision) {
+        indexedRevision = Math.max(indexedRevision, revision);
+    }
+
+    public synchronized long getIndexedRevision() {
+        return indexedRevision;
+    }
+
+    /**
+     * @return 索引中的提交数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return 所有提交人(保留第一次出现时的大小写)
+     */
+    public synchronized List<String> getAuthors() {
+        return new ArrayList<>(authorNames);
+    }
+
+    /**
+     * @param revision 版本号
+     * @return 该版本的提交人,版本不在索引中时为null
+     */
+    public synchronized String getAuthor(long revision) {
+        int row = lowerBound(revisions, size, revision);
+        return row < size && revisions[row] == revision ? authorNames.get(authorIds[row]) : null;
+    }
+
+    /**
+     * 创建查询,未设置的条件不过滤
+     *
+     * @return 查询
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    private int authorIdOf(String author) {
+        String key = author == null ? "" : author.toLowerCase(Locale.ROOT);
+        Integer id = authorDictionary.get(key);
+        if (id == null) {
+            id = authorNames.size();
+            authorDictionary.put(key, id);
+            authorNames.add(author == null ? "" : author);
+            authorRows.add(new Postings());
+        }
+        return id;
+    }
+
+    private void addPath(String path, int row) {
+        Node node = root;
+        int start = path.startsWith("/") ? 1 : 0;
+        while (start < path.length()) {
+            node.markSubtree(row);
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                node = node.child(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        node.mark(row);
+    }
+
+    private Node find(String path) {
+        Node node = root;
+        for (String name : path.split("/")) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            node = node.children == null ? null : node.children.get(name);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private static int lowerBound(long[] values, int size, long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 组合查询,条件之间为"且"的关系,多个提交人之间为"或"的关系
+     */
+    public class Query {
+        private long startRevision = Long.MIN_VALUE;
+        private long endRevision = Long.MAX_VALUE;
+        private long startTime = Long.MIN_VALUE;
+        private long endTime = Long.MAX_VALUE;
+        private Set<String> authors;
+        private String pathPrefix;
+
+        /**
+         * 只查询指定提交人(忽略大小写)的提交
+         */
+        public Query authors(String... authors) {
+            if (this.authors == null) {
+                this.authors = new HashSet<>();
+            }
+            for (String author : authors) {
+                this.authors.add(author == null ? "" : author.toLowerCase(Locale.ROOT));
+            }
+            return this;
+        }
+
+        /**
+         * 只查询变更了该路径或其下路径的提交
+         *
+         * @param pathPrefix 存储库中的绝对路径,如 "/trunk/module-a"
+         */
+        public Query under(String pathPrefix) {
+            this.pathPrefix = pathPrefix;
+            return this;
+        }
+
+        /**
+         * 只查询版本号在起始结束版本之间(包括两端)的提交
+         */
+        public Query revisions(long startRevision, long endRevision) {
+            this.startRevision = Math.min(startRevision, endRevision);
+            this.endRevision = Math.max(startRevision, endRevision);
+            return this;
+        }
+
+        /**
+         * 只查询提交时间在开始时间(包括)与结束时间(不包括)之间的提交
+         */
+        public Query between(Date from, Date to) {
+            this.startTime = from == null ? Long.MIN_VALUE : from.getTime();
+            this.endTime = to == null ? Long.MAX_VALUE : to.getTime();
+            return this;
+        }
+
+        /**
+         * @return 符合条件的提交的版本号,按版本号递增
+         */
+        public long[] getRevisions() {
+            synchronized (CommitIndex.this) {
+                BitSet rows = matchRows();
+                long[] result = new long[rows.cardinality()];
+                int i = 0;
+                for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                    result[i++] = revisions[row];
+                }
+                return result;
+            }
+        }
+
+        /**
+         * @return 符合条件的提交数
+         */
+        public int count() {
+            synchronized (CommitIndex.this) {
+                return matchRows().cardinality();
+            }
+        }
+
+        /**
+         * @return 符合条件的提交中变更的路径(限定路径时只包括该路径及其下的路径),按字符串排序
+         */
+        public List<String> getPaths() {
+            synchronized (CommitIndex.this) {
+                List<String> paths = new ArrayList<>();
+                BitSet rows = matchRows();
+                if (rows.isEmpty()) {
+                    return paths;
+                }
+                Node node = pathPrefix == null ? root : find(pathPrefix);
+                if (node != null) {
+                    collectPaths(node, rows, rows.nextSetBit(0), rows.length(), paths);
+                }
+                Collections.sort(paths);
+                return paths;
+            }
+        }
+
+        private void collectPaths(Node node, BitSet rows, int low, int high, List<String> paths) {
+            if (node.rows != null && node.rows.intersects(rows, low, high)) {
+                paths.add(node.getPath());
+            }
+            if (node.children == null) {
+                return;
+            }
+            for (Node child : node.children.values()) {
+                if (child.anyRows().intersects(rows, low, high)) {
+                    collectPaths(child, rows, low, high, paths);
+                }
+            }
+        }
+
+        /**
+         * 求出符合条件的行号
+         */
+        private BitSet matchRows() {
+            BitSet rows = new BitSet();
+            int low = 0;
+            int high = size;
+            if (startRevision != Long.MIN_VALUE || endRevision != Long.MAX_VALUE) {
+                low = Math.max(low, lowerBound(revisions, size, startRevision));
+                high = Math.min(high, endRevision == Long.MAX_VALUE ? size : lowerBound(revisions, size, endRevision + 1));
+            }
+            if (startTime != Long.MIN_VALUE || endTime != Long.MAX_VALUE) {
+                // 提交时间随版本号递增,可以二分查找
+                low = Math.max(low, lowerBound(timestamps, size, startTime));
+                high = Math.min(high, lowerBound(timestamps, size, endTime));
+            }
+            if (low >= high) {
+                return rows;
+            }
+            if (authors != null) {
+                for (String author : authors) {
+                    Integer id = authorDictionary.get(author);
+                    if (id != null) {
+                        authorRows.get(id).orInto(rows, low, high);
+                    }
+                }
+            } else {
+                rows.set(low, high);
+            }
+            if (pathPrefix != null && !rows.isEmpty()) {
+                Node node = find(pathPrefix);
+                if (node == null) {
+                    rows.clear();
+                } else {
+                    BitSet pathRows = new BitSet();
+                    node.anyRows().orInto(pathRows, low, high);
+                    rows.and(pathRows);
+                }
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * 前缀树节点,rows 为变更了该路径本身的行号,subtree 为变更了该路径或其下路径的行号(只有目录节点有)
+     */
+    private static class Node {
+        final Node parent;
+        final String name;
+        Map<String, Node> children;
+        Postings rows;
+        Postings subtree;
+
+        Node(Node parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        Node child(String childName) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            Node child = children.get(childName);
+            if (child == null) {
+                child = new Node(this, childName);
+                children.put(childName, child);
+            }
+            return child;
+        }
+
+        void mark(int row) {
+            if (rows == null) {
+                rows = new Postings();
+            }
+            rows.add(row);
+            if (subtree != null) {
+                subtree.add(row);
+            }
+        }
+
+        void markSubtree(int row) {
+            if (subtree == null) {
+                subtree = rows == null ? new Postings() : rows.copy();
+            }
+            subtree.add(row);
+        }
+
+        Postings anyRows() {
+            return subtree != null ? subtree : rows != null ? rows : Postings.EMPTY;
+        }
+
+        String getPath() {
+            if (parent == null) {
+                return "/";
+            }
+            StringBuilder path = new StringBuilder();
+            for (Node node = this; node.parent != null; node = node.parent) {
+                path.insert(0, node.name).insert(0, '/');
+            }
+            return path.toString();
+        }
+    }
+
+    /**
+     * 行号倒排表,行号按递增顺序追加; 行数较少时为有序数组,数组占用超过位图时转为位图
+     */
+    private static class Postings {
+        static final Postings EMPTY = new Postings();
+
+        private int[] array = new int[2];
+        private int count;
+        private BitSet bits;
+
+        void add(int row) {
+            if (bits != null) {
+                bits.set(row);
+                return;
+            }
+            if (count > 0 && array[count - 1] == row) {
+                return;
+            }
+            if (count == array.length) {
+                // 数组每个行号占32位,位图每个行号占1位,数组更大时改用位图
+                if ((long) count * 32 > row) {
+                    bits = new BitSet(row + 1);
+                    for (int i = 0; i < count; i++) {
+                        bits.set(array[i]);
+                    }
+                    bits.set(row);
+                    array = null;
+                    return;
+                }
+                array = Arrays.copyOf(array, count * 2);
+            }
+            array[count++] = row;
+        }
+
+        Postings copy() {
+            Postings copy = new Postings();
+            if (bits != null) {
+                copy.bits = (BitSet) bits.clone();
+                copy.array = null;
+            } else {
+                copy.array = Arrays.copyOf(array, Math.max(2, count));
+                copy.count = count;
+            }
+            return copy;
+        }
+
+        /**
+         * 是否包含 [low, high) 范围内在mask中的行号
+         */
+        boolean intersects(BitSet mask, int low, int high) {
+            if (bits != null) {
+                for (int row = bits.nextSetBit(low); row >= 0 && row < high; row = bits.nextSetBit(row + 1)) {
+                    if (mask.get(row)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            for (int i = firstIndex(low); i < count && array[i] < high; i++) {
+                if (mask.get(array[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 将 [low, high) 范围内的行号加入target
+         */
+        void orInto(BitSet target, int low, int high) {
+            if (bits != null) {
+                for (int row = bits.nextSetBit(low); row >= 0 && row < high; row = bits.nextSetBit(row + 1)) {
+                    target.set(row);
+                }
+                return;
+            }
+            for (int i = firstIndex(low); i < count && array[i] < high; i++) {
+                target.set(array[i]);
+            }
+        }
+
+        private int firstIndex(int row) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (array[mid] < row) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.svnkit;
+
+import de.regnis.q.sequence.QSequenceDifferenceBlock;
+import de.regnis.q.sequence.core.QSequenceException;
+import de.regnis.q.sequence.line.*;
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
+import org.tmatesoft.svn.core.internal.wc2.ng.SvnDiffCallback;
+import org.tmatesoft.svn.core.internal.wc2.ng.SvnDiffGenerator;
+import org.tmatesoft.svn.core.wc2.SvnTarget;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+/**
+ * 输出结构化事件的比较结果生成器,通过 {@code SVNDiffClient.setDiffGenerator(new SvnNewDiffGenerator(generator))} 使用
+ * <p>
+ * svn比较时对每个文件提供新旧内容的临时文件及变更类型,这里直接用svn自身使用的行比较算法求出变更的行,
+ * 按文件、变更块、变更依次通知 {@link DiffListener},不生成比较日志文本,也就不需要再从文本中解析变更类型及行数;
+ * 需要比较日志文本时可以同时输出(见 {@link #setTextOutput(boolean)}),文本与不使用本生成器时相同
+ *
+ * @author dengzm
+ */
+public class DiffEventGenerator extends SvnDiffGenerator {
+
+    private static final int CONTEXT_LINES = 3;
+    private static final File WORKING_DIR = new File("").getAbsoluteFile();
+
+    private DiffListener listener;
+    private boolean textOutput;
+    private String rootPath = "";
+    private String anchorPath = "";
+    // 当前文件的路径,没有时为null
+    private String currentPath;
+
+    /**
+     * @param listener 比较结果接收者
+     */
+    public DiffEventGenerator(DiffListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 更换比较结果接收者,之前的文件先结束
+     *
+     * @param listener 比较结果接收者
+     */
+    public void setListener(DiffListener listener) {
+        finish();
+        this.listener = listener;
+    }
+
+    /**
+     * 设置是否同时向比较输出流写入比较日志文本,默认不写入
+     *
+     * @param textOutput 是否写入文本
+     */
+    public void setTextOutput(boolean textOutput) {
+        this.textOutput = textOutput;
+    }
+
+    /**
+     * 比较完成后调用,结束最后一个文件
+     */
+    public void finish() {
+        if (currentPath != null) {
+            currentPath = null;
+            listener.fileFinished();
+        }
+    }
+
+    @Override
+    public void setRepositoryRoot(SvnTarget repositoryRoot) {
+        super.setRepositoryRoot(repositoryRoot);
+        if (repositoryRoot != null && repositoryRoot.isURL()) {
+            rootPath = repositoryRoot.getURL().getPath();
+        }
+    }
+
+    @Override
+    public void setAnchors(SvnTarget anchor1, SvnTarget anchor2) {
+        super.setAnchors(anchor1, anchor2);
+        SvnTarget anchor = anchor2 != null ? anchor2 : anchor1;
+        if (anchor != null && anchor.isURL()) {
+            anchorPath = anchor.getURL().getPath();
+        }
+    }
+
+    @Override
+    public void displayContentChanged(SvnTarget target, File leftFile, File rightFile, String leftRevision, String rightRevision,
+                                      String mimeType1, String mimeType2, SvnDiffCallback.OperationKind operation, File copyFromPath,
+                                      SVNProperties originalProperties, SVNProperties propChanges, OutputStream outputStream) throws SVNException {
+        if (textOutput) {
+            super.displayContentChanged(target, leftFile, rightFile, leftRevision, rightRevision, mimeType1, mimeType2,
+                    operation, copyFromPath, originalProperties, propChanges, outputStream);
+        }
+        boolean binary = !isForcedBinaryDiff() && (SVNProperty.isBinaryMimeType(mimeType1) || SVNProperty.isBinaryMimeType(mimeType2));
+        startFile(getPath(target), getChangeType(operation), binary);
+        if (!binary) {
+            try {
+                fireChanges(leftFile, rightFile);
+            } catch (IOException | QSequenceException e) {
+                throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+            }
+        }
+    }
+
+    @Override
+    public void displayPropsChanged(SvnTarget target, String revision1, String revision2, boolean dirWasAdded,
+                                    SVNProperties originalProps, SVNProperties propChanges, OutputStream outputStream) throws SVNException {
+        if (textOutput) {
+            super.displayPropsChanged(target, revision1, revision2, dirWasAdded, originalProps, propChanges, outputStream);
+        }
+        SVNProperties changes = propChanges == null ? null : propChanges.getRegularProperties();
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
+        String path = getPath(target);
+        if (!path.equals(currentPath)) {
+            // 只修改了属性,之前没有内容变更的事件
+            startFile(path, dirWasAdded ? 'A' : 'M', false);
+        }
+        listener.propertiesChanged(changes);
+    }
+
+    private void startFile(String path, char changeType, boolean binary) {
+        finish();
+        currentPath = path;
+        listener.fileStarted(path, changeType, binary);
+    }
+
+    /**
+     * 比较新旧内容,相距不超过两倍上下文行数的变更合并为一个变更块
+     */
+    private void fireChanges(File leftFile, File rightFile) throws IOException, QSequenceException {
+        try (RandomAccessFile left = open(leftFile); RandomAccessFile right = open(rightFile)) {
+            QSequenceLineResult result = QSequenceLineMedia.createBlocks(data(left), data(right));
+            try {
+                @SuppressWarnings("unchecked")
+                List<QSequenceDifferenceBlock> blocks = result.getBlocks();
+                QSequenceLineCache oldLines = result.getLeftCache();
+                QSequenceLineCache newLines = result.getRightCache();
+                int i = 0;
+                while (i < blocks.size()) {
+                    int j = i;
+                    while (j + 1 < blocks.size()
+                            && blocks.get(j + 1).getLeftFrom() - blocks.get(j).getLeftTo() - 1 <= 2 * CONTEXT_LINES) {
+                        j++;
+                    }
+                    QSequenceDifferenceBlock first = blocks.get(i);
+                    QSequenceDifferenceBlock last = blocks.get(j);
+                    int oldFrom = Math.max(0, first.getLeftFrom() - CONTEXT_LINES);
+                    int oldTo = Math.min(oldLines.getLineCount(), last.getLeftTo() + 1 + CONTEXT_LINES);
+                    int newFrom = Math.max(0, first.getRightFrom() - CONTEXT_LINES);
+                    int newTo = Math.min(newLines.getLineCount(), last.getRightTo() + 1 + CONTEXT_LINES);
+                    listener.hunk(start(oldFrom, oldTo - oldFrom), oldTo - oldFrom, start(newFrom, newTo - newFrom), newTo - newFrom);
+                    for (int k = i; k <= j; k++) {
+                        QSequenceDifferenceBlock block = blocks.get(k);
+                        listener.changed(start(block.getLeftFrom(), block.getLeftSize()), block.getLeftSize(),
+                                start(block.getRightFrom(), block.getRightSize()), block.getRightSize(),
+                                countNotBlank(oldLines, block.getLeftFrom(), block.getLeftTo()),
+                                countNotBlank(newLines, block.getRightFrom(), block.getRightTo()));
+                    }
+                    i = j + 1;
+                }
+            } finally {
+                result.close();
+            }
+        }
+    }
+
+    /**
+     * 与 unified diff 相同: 行数为0时起始行为其前一行
+     */
+    private static int start(int from, int length) {
+        return length == 0 ? from : from + 1;
+    }
+
+    /**
+     * 统计行范围内(含两端)的非空行数,与 {@link DiffStatParser} 的规则一致
+     */
+    private static int countNotBlank(QSequenceLineCache lines, int from, int to) throws IOException {
+        int count = 0;
+        for (int i = from; i <= to; i++) {
+            for (byte b : lines.getLine(i).getContentBytes()) {
+                if ((b & 0xFF) > ' ') {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static RandomAccessFile open(File file) throws IOException {
+        return file == null ? null : new RandomAccessFile(file, "r");
+    }
+
+    private static QSequenceLineRAData data(RandomAccessFile file) {
+        return file == null ? new QSequenceLineRAByteData(new byte[0]) : new QSequenceLineRAFileData(file);
+    }
+
+    private static char getChangeType(SvnDiffCallback.OperationKind operation) {
+        switch (operation) {
+            case Added:
+            case Copied:
+            case Moved:
+                return 'A';
+            case Deleted:
+                return 'D';
+            default:
+                return 'M';
+        }
+    }
+
+    /**
+     * 比较目标相对存储库根的路径: 比较的锚点地址加上目标相对锚点的路径(svn以当前目录为基础构造目标)
+     */
+    private String getPath(SvnTarget target) {
+        if (target.isURL()) {
+            return SVNPathUtil.getRelativePath(rootPath, target.getURL().getPath());
+        }
+        String relative = WORKING_DIR.toPath().relativize(target.getFile().getAbsoluteFile().toPath())
+                .toString().replace(File.separatorChar, '/');
+        return SVNPathUtil.append(SVNPathUtil.getRelativePath(rootPath, anchorPath), relative);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 生成比较日志前的文件过滤规则: 按扩展名(见 {@link ChangeFile#getFileType()})、svn:mime-type及文件大小
+ * 决定每个文件是正常比较、只列出变更类型及大小变化(不下载内容),还是比较后截断输出
+ * <p>
+ * 文件的类型及大小按所在目录批量获取(每个目录每个版本一次请求); 扩展名既不是二进制也不是已知文本类型({@link #DEFAULT_TEXT_FILE_TYPES})、
+ * 带有属性且二进制文件不按正常比较处理时,才单独读取该文件的属性判断svn:mime-type
+ *
+ * @author dengzm
+ */
+public class DiffFilter {
+
+    /**
+     * 跳过的文件在比较日志中的说明行前缀,说明行之后没有内容
+     */
+    public static final String SKIPPED_MARKER = "@@ skipped: ";
+
+    /**
+     * 默认跳过的扩展名: 压缩包、编译结果、图片、文档等二进制文件
+     */
+    public static final String[] DEFAULT_SKIP_FILE_TYPES = {"jar", "war", "ear", "zip", "gz", "tar", "tgz", "7z", "rar",
+            "class", "so", "dll", "exe", "png", "jpg", "jpeg", "gif", "bmp", "ico", "pdf", "doc", "docx", "xls", "xlsx",
+            "ppt", "pptx", "mp3", "mp4", "ttf", "woff", "woff2"};
+
+    /**
+     * 默认视为文本的扩展名,这些文件不读取svn:mime-type
+     */
+    public static final String[] DEFAULT_TEXT_FILE_TYPES = {"java", "kt", "groovy", "scala", "c", "h", "cpp", "hpp", "cs",
+            "go", "py", "rb", "php", "js", "ts", "jsx", "tsx", "vue", "css", "scss", "less", "html", "htm", "jsp", "ftl",
+            "vm", "xml", "xsd", "json", "yml", "yaml", "properties", "sql", "sh", "bat", "cmd", "gradle", "md", "txt", "csv"};
+
+    /**
+     * 文件的处理方式
+     */
+    public enum Action {
+        /**
+         * 正常比较
+         */
+        DIFF,
+        /**
+         * 不比较,只列出变更类型及大小变化
+         */
+        SKIP,
+        /**
+         * 比较,只保留前若干行
+         */
+        TRUNCATE
+    }
+
+    private final Set<String> skipFileTypes = new HashSet<>(Arrays.asList(DEFAULT_SKIP_FILE_TYPES));
+    private final Set<String> textFileTypes = new HashSet<>(Arrays.asList(DEFAULT_TEXT_FILE_TYPES));
+    private Action binaryAction = Action.SKIP;
+    private long maxFileSize = 1024 * 1024;
+    private Action oversizedAction = Action.SKIP;
+    private int maxDiffLines = 2000;
+
+    /**
+     * 设置按扩展名视为二进制的文件类型,替换默认值
+     *
+     * @param fileTypes 扩展名(小写,不含点)
+     * @return 当前对象
+     */
+    public DiffFilter setSkipFileTypes(String... fileTypes) {
+        skipFileTypes.clear();
+        for (String fileType : fileTypes) {
+            skipFileTypes.add(fileType.toLowerCase());
+        }
+        return this;
+    }
+
+    /**
+     * 设置视为文本、不读取svn:mime-type的文件类型,替换默认值
+     *
+     * @param fileTypes 扩展名(小写,不含点)
+     * @return 当前对象
+     */
+    public DiffFilter setTextFileTypes(String... fileTypes) {
+        textFileTypes.clear();
+        for (String fileType : fileTypes) {
+            textFileTypes.add(fileType.toLowerCase());
+        }
+        return this;
+    }
+
+    /**
+     * @param binaryAction 按扩展名或svn:mime-type判断为二进制的文件的处理方式
+     * @return 当前对象
+     */
+    public DiffFilter setBinaryAction(Action binaryAction) {
+        this.binaryAction = binaryAction;
+        return this;
+    }
+
+    /**
+     * @param maxFileSize     文件大小上限(字节,比较前后两个版本中较大的一个),小于等于0时不限制
+     * @param oversizedAction 超过上限的文件的处理方式
+     * @return 当前对象
+     */
+    public DiffFilter setMaxFileSize(long maxFileSize, Action oversizedAction) {
+        this.maxFileSize = maxFileSize;
+        this.oversizedAction = oversizedAction;
+        return this;
+    }
+
+    /**
+     * @param maxDiffLines 截断时保留的比较结果行数
+     * @return 当前对象
+     */
+    public DiffFilter setMaxDiffLines(int maxDiffLines) {
+        this.maxDiffLines = Math.max(1, maxDiffLines);
+        return this;
+    }
+
+    public int getMaxDiffLines() {
+        return maxDiffLines;
+    }
+
+    /**
+     * 批量获取文件在两个版本的类型、大小及mime-type并决定处理方式
+     *
+     * @param repository    存储库根地址的会话
+     * @param paths         相对存储库根的文件路径
+     * @param startRevision 开始版本
+     * @param endRevision   结束版本
+     * @return 路径 -> 处理结果,目录及无法获取信息的路径不在结果中(按正常比较处理)
+     * @throws SVNException 异常
+     */
+    public Map<String, Decision> decide(SVNRepository repository, Collection<String> paths,
+                                        long startRevision, long endRevision) throws SVNException {
+        Map<String, List<String>> byParent = new TreeMap<>();
+        for (String path : paths) {
+            byParent.computeIfAbsent(SVNPathUtil.removeTail(path), key -> new ArrayList<>()).add(path);
+        }
+        Map<String, SVNDirEntry> oldEntries = new HashMap<>();
+        Map<String, SVNDirEntry> newEntries = new HashMap<>();
+        for (Map.Entry<String, List<String>> parent : byParent.entrySet()) {
+            listEntries(repository, parent.getKey(), parent.getValue(), startRevision, oldEntries);
+            listEntries(repository, parent.getKey(), parent.getValue(), endRevision, newEntries);
+        }
+        Map<String, Decision> decisions = new HashMap<>();
+        for (String path : paths) {
+            SVNDirEntry oldEntry = oldEntries.get(path);
+            SVNDirEntry newEntry = newEntries.get(path);
+            if (oldEntry == null && newEntry == null
+                    || oldEntry != null && oldEntry.getKind() != SVNNodeKind.FILE
+                    || newEntry != null && newEntry.getKind() != SVNNodeKind.FILE) {
+                continue;
+            }
+            char changeType = oldEntry == null ? 'A' : newEntry == null ? 'D' : 'M';
+            long oldSize = oldEntry == null ? 0 : oldEntry.getSize();
+            long newSize = newEntry == null ? 0 : newEntry.getSize();
+            Action action = Action.DIFF;
+            String reason = null;
+            String fileType = new ChangeFile(path).getFileType();
+            if (skipFileTypes.contains(fileType)) {
+                action = binaryAction;
+                reason = "binary";
+            } else if (binaryAction != Action.DIFF && !textFileTypes.contains(fileType)) {
+                // 以文件存在的最后一个版本的mime-type为准
+                SVNDirEntry entry = newEntry != null ? newEntry : oldEntry;
+                if (entry.hasProperties() && isBinary(repository, path, newEntry != null ? endRevision : startRevision)) {
+                    action = binaryAction;
+                    reason = "binary";
+                }
+            }
+            if (action == Action.DIFF && maxFileSize > 0 && Math.max(oldSize, newSize) > maxFileSize) {
+                action = oversizedAction;
+                reason = "oversized";
+            }
+            decisions.put(path, new Decision(path, action, reason, changeType, oldSize, newSize));
+        }
+        return decisions;
+    }
+
+    /**
+     * 列出目录在指定版本中的文件,只保留需要的路径; 目录不存在时没有结果
+     */
+    private static void listEntries(SVNRepository repository, String dir, List<String> paths, long revision,
+                                    Map<String, SVNDirEntry> entries) throws SVNException {
+        Set<String> names = new HashSet<>();
+        for (String path : paths) {
+            names.add(SVNPathUtil.tail(path));
+        }
+        try {
+            repository.getDir(dir, revision, null, SVNDirEntry.DIRENT_KIND | SVNDirEntry.DIRENT_SIZE | SVNDirEntry.DIRENT_HAS_PROPERTIES,
+                    entry -> {
+                        if (names.contains(entry.getName())) {
+                            entries.put(SVNPathUtil.append(dir, entry.getName()), entry);
+                        }
+                    });
+        } catch (SVNException e) {
+            SVNErrorCode code = e.getErrorMessage().getErrorCode();
+            if (code != SVNErrorCode.FS_NOT_FOUND && code != SVNErrorCode.FS_NOT_DIRECTORY && code != SVNErrorCode.RA_DAV_PATH_NOT_FOUND) {
+                throw e;
+            }
+        }
+    }
+
+    private static boolean isBinary(SVNRepository repository, String path, long revision) throws SVNException {
+        SVNProperties properties = new SVNProperties();
+        repository.getFile(path, revision, properties, null);
+        return SVNProperty.isBinaryMimeType(properties.getStringValue(SVNProperty.MIME_TYPE));
+    }
+
+    /**
+     * 单个文件的处理方式及比较前后的大小
+     */
+    public static class Decision {
+        private final String path;
+        private final Action action;
+        private final String reason;
+        private final char changeType;
+        private final long oldSize;
+        private final long newSize;
+
+        Decision(String path, Action action, String reason, char changeType, long oldSize, long newSize) {
+            this.path = path;
+            this.action = action;
+            this.reason = reason;
+            this.changeType = changeType;
+            this.oldSize = oldSize;
+            this.newSize = newSize;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        /**
+         * @return 跳过或截断的原因: binary 或 oversized,正常比较时为null
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * @return A表示增加文件，M表示修改文件，D表示删除文件
+         */
+        public char getChangeType() {
+            return changeType;
+        }
+
+        public long getOldSize() {
+            return oldSize;
+        }
+
+        public long getNewSize() {
+            return newSize;
+        }
+
+        /**
+         * 生成跳过的文件在比较日志中的记录,格式与比较结果的文件头相同,"@@"行为说明,例如:
+         * <pre>
+         * Index: a.jar
+         * ===================================================================
+         * --- a.jar	(revision 10)
+         * +++ a.jar	(revision 20)
+         * &#64;&#64; skipped: binary, size 1024 -&gt; 2048 (+1024) &#64;&#64;
+         * </pre>
+         *
+         * @param startRevision 开始版本
+         * @param endRevision   结束版本
+         * @return 记录内容
+         */
+        public byte[] toSkippedSection(long startRevision, long endRevision) {
+            // 与按文件比较的结果一致,文件头中只有文件名
+            String name = SVNPathUtil.tail(path);
+            long delta = newSize - oldSize;
+            String section = "Index: " + name + "\n"
+                    + "===================================================================\n"
+                    + "--- " + name + "\t" + (changeType == 'A' ? "(nonexistent)" : "(revision " + startRevision + ")") + "\n"
+                    + "+++ " + name + "\t" + (changeType == 'D' ? "(nonexistent)" : "(revision " + endRevision + ")") + "\n"
+                    + SKIPPED_MARKER + reason + ", size " + oldSize + " -> " + newSize + " (" + (delta >= 0 ? "+" : "") + delta + ") @@\n";
+            return section.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
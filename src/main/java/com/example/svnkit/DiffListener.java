@@ -0,0 +1,59 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.SVNProperties;
+
+/**
+ * 结构化的比较结果接收者,由 {@link DiffEventGenerator} 按文件依次通知,不经过比较日志文本
+ * <p>
+ * 每个文件的事件顺序为: {@link #fileStarted} -> ({@link #hunk} -> {@link #changed}...)... -> {@link #propertiesChanged}
+ * -> {@link #fileFinished}; 行号从1开始,与 unified diff 的"@@ -旧起始行,旧行数 +新起始行,新行数 @@"含义相同
+ *
+ * @author dengzm
+ */
+public interface DiffListener {
+
+    /**
+     * 开始一个文件
+     *
+     * @param path       相对存储库根的路径
+     * @param changeType A表示增加文件，M表示修改文件(包括只修改属性)，D表示删除文件
+     * @param binary     是否为二进制文件(svn:mime-type),二进制文件没有行级的变更
+     */
+    void fileStarted(String path, char changeType, boolean binary);
+
+    /**
+     * 一个变更块(包含上下各3行未变更内容),之后是块内的各处变更
+     *
+     * @param oldStart  旧内容起始行
+     * @param oldLength 旧内容行数
+     * @param newStart  新内容起始行
+     * @param newLength 新内容行数
+     */
+    default void hunk(int oldStart, int oldLength, int newStart, int newLength) {
+    }
+
+    /**
+     * 一处连续的变更: 删除旧内容的若干行并替换为新内容的若干行(一方行数可以为0)
+     *
+     * @param oldStart     删除的起始行(没有删除时为插入位置之前的行)
+     * @param oldLength    删除的行数
+     * @param newStart     新增的起始行(没有新增时为删除位置之前的行)
+     * @param newLength    新增的行数
+     * @param deletedLines 删除的非空行数
+     * @param addedLines   新增的非空行数
+     */
+    void changed(int oldStart, int oldLength, int newStart, int newLength, int deletedLines, int addedLines);
+
+    /**
+     * 文件(或目录)的属性变更,不含svn内部属性
+     *
+     * @param changes 变更的属性,值为null表示删除该属性
+     */
+    default void propertiesChanged(SVNProperties changes) {
+    }
+
+    /**
+     * 当前文件的事件结束
+     */
+    void fileFinished();
+}
@@ -0,0 +1,119 @@
+package com.example.svnkit;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * 按文件过滤比较日志的输出流,只有"Index: 路径"中的路径在指定集合内的文件才写入下游输出流
+ * <p>
+ * 只缓存"Index:"行本身,其它内容逐字节直接写入或丢弃
+ *
+ * @author dengzm
+ */
+public class DiffSectionFilterOutputStream extends FilterOutputStream {
+
+    private static final byte[] INDEX = "Index: ".getBytes(StandardCharsets.US_ASCII);
+
+    private final Set<String> paths;
+    private boolean pass;
+    private boolean lineStart = true;
+    // 当前行与"Index: "前缀已匹配的字节数,-1表示当前行不是"Index:"行
+    private int indexMatch = -1;
+    private byte[] line = new byte[256];
+    private int lineLength;
+
+    /**
+     * @param out   下游输出流
+     * @param paths 需要保留的文件路径(与"Index:"行中的路径一致)
+     */
+    public DiffSectionFilterOutputStream(OutputStream out, Set<String> paths) {
+        super(out);
+        this.paths = paths;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (lineStart) {
+            lineStart = false;
+            indexMatch = 0;
+            lineLength = 0;
+        }
+        if (indexMatch >= 0) {
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, lineLength * 2);
+            }
+            line[lineLength++] = (byte) b;
+            if (indexMatch < INDEX.length) {
+                if (b == INDEX[indexMatch]) {
+                    indexMatch++;
+                } else {
+                    // 不是"Index:"行,已缓存的部分按当前文件的过滤结果处理
+                    indexMatch = -1;
+                    if (pass) {
+                        out.write(line, 0, lineLength);
+                    }
+                }
+            } else if (b == '\n') {
+                endIndexLine();
+            }
+        } else if (pass) {
+            out.write(b);
+        }
+        if (b == '\n') {
+            lineStart = true;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int end = off + len;
+        int i = off;
+        while (i < end) {
+            if (!lineStart && indexMatch < 0) {
+                // 普通行的剩余部分整段写入或丢弃
+                int newline = i;
+                while (newline < end && b[newline] != '\n') {
+                    newline++;
+                }
+                int stop = newline < end ? newline + 1 : end;
+                if (pass) {
+                    out.write(b, i, stop - i);
+                }
+                lineStart = newline < end;
+                i = stop;
+            } else {
+                write(b[i++]);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (indexMatch >= INDEX.length) {
+            endIndexLine();
+        }
+        super.close();
+    }
+
+    private void endIndexLine() throws IOException {
+        int end = lineLength;
+        while (end > INDEX.length && (line[end - 1] == '\n' || line[end - 1] == '\r')) {
+            end--;
+        }
+        String path = new String(line, INDEX.length, end - INDEX.length, StandardCharsets.UTF_8);
+        pass = paths.contains(path);
+        if (pass) {
+            out.write(line, 0, lineLength);
+        }
+        indexMatch = -1;
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.svnkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 版本比较日志的字节级统计解析器
+ * <p>
+ * 直接在原始字节上用状态机逐字节扫描一遍,不为文件内容构造字符串,统计每个文件的变更类型及新增、删除、修改行数。
+ * 统计规则与 {@link SVNManager#parseChangeFile(StringBuffer)} 和 {@link SVNManager#countAddLine(String)} 一致:
+ * 以"Index:"开头的行开始一个文件,第一个"@@"行之后以+号(-号)开头且其余字符不全为空白的行计为新增(删除)行
+ * <p>
+ * 解析器是有状态的,可以分多次调用 {@link #feed(ByteBuffer)} 输入任意切分的数据,最后调用 {@link #finish()}
+ *
+ * @author dengzm
+ */
+public class DiffStatParser {
+
+    private static final int MAP_WINDOW_SIZE = 256 * 1024 * 1024;
+    private static final byte[] INDEX = "Index:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NONEXISTENT = "(nonexistent)".getBytes(StandardCharsets.US_ASCII);
+
+    private final Consumer<ChangeFile> consumer;
+
+    private boolean inSection;
+    private boolean inBody;
+    private boolean lineStart = true;
+    // 上一个字节是否为'\r',用于将"\r\n"视为一个换行
+    private boolean afterCR;
+    private int lineNo;
+    // 当前行与"Index:"前缀已匹配的字节数,-1表示不匹配
+    private int indexMatch;
+    // 文件头部的行(非文件内容)保存在可复用的数组中
+    private byte[] headerLine = new byte[256];
+    private int headerLength;
+    private String filePath;
+    private boolean sawHunk;
+    private boolean oldExist;
+    private boolean newExist;
+    // 当前行的首字符及是否含非空白字符
+    private byte lineKind;
+    private boolean notSpace;
+    private int addLines;
+    private int deleteLines;
+    private int changeLines;
+    private int runAdd;
+    private int runDelete;
+    private String skipReason;
+    private long sizeDelta;
+
+    public DiffStatParser(Consumer<ChangeFile> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * 解析整个比较日志文件
+     *
+     * @param file     比较日志文件
+     * @param consumer 每个文件的统计结果
+     * @throws IOException 读取文件失败
+     */
+    public static void parse(File file, Consumer<ChangeFile> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            DiffStatParser parser = new DiffStatParser(consumer);
+            parser.feed(channel, 0, channel.size());
+            parser.finish();
+        }
+    }
+
+    /**
+     * 以内存映射的方式分段读取文件的指定区域
+     *
+     * @param channel  文件通道
+     * @param position 开始位置
+     * @param size     长度
+     * @throws IOException 读取文件失败
+     */
+    public void feed(FileChannel channel, long position, long size) throws IOException {
+        long end = position + size;
+        while (position < end) {
+            long length = Math.min(MAP_WINDOW_SIZE, end - position);
+            feed(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+            position += length;
+        }
+    }
+
+    /**
+     * 输入一段数据,消费缓冲区中剩余的全部字节
+     *
+     * @param buffer 数据
+     */
+    public void feed(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        for (int i = buffer.position(); i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                if (b == '\r' || !afterCR) {
+                    endLine();
+                }
+                afterCR = b == '\r';
+                continue;
+            }
+            afterCR = false;
+            if (lineStart) {
+                lineStart = false;
+                indexMatch = 0;
+                lineKind = b;
+                notSpace = false;
+                headerLength = 0;
+            } else if (inBody && (b & 0xFF) > ' ') {
+                notSpace = true;
+            }
+            if (indexMatch >= 0) {
+                if (b == INDEX[indexMatch]) {
+                    if (++indexMatch == INDEX.length) {
+                        startSection();
+                        indexMatch = -1;
+                        continue;
+                    }
+                } else {
+                    indexMatch = -1;
+                }
+            }
+            if (!inBody) {
+                if (headerLength == headerLine.length) {
+                    headerLine = Arrays.copyOf(headerLine, headerLength * 2);
+                }
+                headerLine[headerLength++] = b;
+            }
+        }
+        buffer.position(limit);
+    }
+
+    /**
+     * 输入结束,输出最后一个文件的统计结果
+     */
+    public void finish() {
+        if (!lineStart) {
+            endLine();
+        }
+        endSection();
+    }
+
+    private void startSection() {
+        endSection();
+        inSection = true;
+        inBody = false;
+        lineNo = 0;
+        headerLength = 0;
+        filePath = null;
+        sawHunk = false;
+        oldExist = true;
+        newExist = true;
+        addLines = 0;
+        deleteLines = 0;
+        changeLines = 0;
+        runAdd = 0;
+        runDelete = 0;
+        skipReason = null;
+        sizeDelta = 0;
+    }
+
+    private void endLine() {
+        if (lineStart) {
+            // 空行
+            lineKind = 0;
+            notSpace = false;
+            headerLength = 0;
+        }
+        if (inSection) {
+            if (inBody) {
+                if (lineKind == '+') {
+                    if (notSpace) {
+                        addLines++;
+                        runAdd++;
+                    }
+                } else if (lineKind == '-') {
+                    if (notSpace) {
+                        deleteLines++;
+                        runDelete++;
+                    }
+                } else {
+                    endRun();
+                }
+            } else {
+                endHeaderLine();
+            }
+        }
+        lineNo++;
+        lineStart = true;
+    }
+
+    private void endHeaderLine() {
+        if (lineNo == 0) {
+            // "Index: "之后为文件路径,"Index:"已在匹配时跳过
+            int offset = headerLength > 0 ? 1 : 0;
+            filePath = new String(headerLine, offset, headerLength - offset, StandardCharsets.UTF_8);
+        } else if (headerLength >= 2 && headerLine[0] == '@' && headerLine[1] == '@') {
+            sawHunk = true;
+            inBody = true;
+            if (startsWith(DiffFilter.SKIPPED_MARKER)) {
+                parseSkipped();
+            }
+        } else if (startsWith("--- ")) {
+            oldExist = !endsWithNonexistent();
+        } else if (startsWith("+++ ")) {
+            newExist = !endsWithNonexistent();
+        }
+    }
+
+    /**
+     * 解析跳过的文件的说明行: "@@ skipped: 原因, size 原大小 -> 新大小 (变化) @@"
+     */
+    private void parseSkipped() {
+        String line = new String(headerLine, 0, headerLength, StandardCharsets.UTF_8);
+        int reasonEnd = line.indexOf(',', DiffFilter.SKIPPED_MARKER.length());
+        int deltaStart = line.lastIndexOf('(');
+        int deltaEnd = line.lastIndexOf(')');
+        if (reasonEnd < 0 || deltaStart < 0 || deltaEnd < deltaStart) {
+            return;
+        }
+        skipReason = line.substring(DiffFilter.SKIPPED_MARKER.length(), reasonEnd);
+        try {
+            sizeDelta = Long.parseLong(line.substring(deltaStart + 1, deltaEnd).replace("+", ""));
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    private void endRun() {
+        changeLines += Math.min(runAdd, runDelete);
+        runAdd = 0;
+        runDelete = 0;
+    }
+
+    private void endSection() {
+        if (!inSection) {
+            return;
+        }
+        endRun();
+        char changeType = 'U';
+        if (sawHunk) {
+            if (oldExist && !newExist) {
+                changeType = 'D';
+            } else if (!oldExist && newExist) {
+                changeType = 'A';
+            } else if (oldExist) {
+                changeType = 'M';
+            }
+        }
+        ChangeFile changeFile = new ChangeFile(filePath == null ? "" : filePath, changeType, null);
+        changeFile.setAddLines(addLines);
+        changeFile.setDeleteLines(deleteLines);
+        changeFile.setChangeLines(changeLines);
+        changeFile.setSkipReason(skipReason);
+        changeFile.setSizeDelta(sizeDelta);
+        inSection = false;
+        consumer.accept(changeFile);
+    }
+
+    private boolean startsWith(String prefix) {
+        if (headerLength < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (headerLine[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean endsWithNonexistent() {
+        if (headerLength < NONEXISTENT.length) {
+            return false;
+        }
+        int offset = headerLength - NONEXISTENT.length;
+        for (int i = 0; i < NONEXISTENT.length; i++) {
+            if (headerLine[offset + i] != NONEXISTENT[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
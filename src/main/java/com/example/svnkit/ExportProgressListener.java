@@ -0,0 +1,53 @@
+package com.example.svnkit;
+
+/**
+ * 批量导出文件的进度监听器
+ *
+ * @author dengzm
+ */
+public interface ExportProgressListener {
+
+    /**
+     * 一个文件已写入磁盘
+     *
+     * @param path          相对项目地址的文件路径
+     * @param size          文件字节数
+     * @param exportedFiles 已导出的文件数
+     * @param totalFiles    请求导出的文件数
+     * @param exportedBytes 已导出的总字节数
+     */
+    void fileExported(String path, long size, int exportedFiles, int totalFiles, long exportedBytes);
+
+    /**
+     * 文件在指定版本中不存在
+     *
+     * @param path 相对项目地址的文件路径
+     */
+    default void fileMissing(String path) {
+    }
+
+    /**
+     * @return 不做任何处理的监听器
+     */
+    static ExportProgressListener none() {
+        return (path, size, exportedFiles, totalFiles, exportedBytes) -> {
+        };
+    }
+
+    /**
+     * @return 在控制台输出进度的监听器
+     */
+    static ExportProgressListener console() {
+        return new ExportProgressListener() {
+            @Override
+            public void fileExported(String path, long size, int exportedFiles, int totalFiles, long exportedBytes) {
+                System.out.println("导出文件(" + exportedFiles + "/" + totalFiles + ", " + exportedBytes + "字节): " + path);
+            }
+
+            @Override
+            public void fileMissing(String path) {
+                System.out.println("文件不存在: " + path);
+            }
+        };
+    }
+}
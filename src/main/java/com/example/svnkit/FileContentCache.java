@@ -0,0 +1,159 @@
+package com.example.svnkit;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按(文件路径, 版本号)缓存文件内容,保存原始字节,按内容总字节数淘汰最久未使用的文件
+ * <p>
+ * 内容可以保存在堆内,也可以保存在堆外的直接内存中(减少大量缓存内容对垃圾回收的影响),
+ * 同一版本的文件内容不会改变,因此缓存项不需要过期
+ *
+ * @author dengzm
+ */
+public class FileContentCache {
+
+    private final long maxBytes;
+    private final boolean offHeap;
+    private final LinkedHashMap<Key, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param maxBytes 缓存内容的最大总字节数
+     * @param offHeap  是否保存在堆外内存中
+     */
+    public FileContentCache(long maxBytes, boolean offHeap) {
+        this.maxBytes = maxBytes;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * 获取缓存的文件内容
+     *
+     * @param path     文件路径
+     * @param revision 版本号
+     * @return 文件内容的副本,未缓存时返回null
+     */
+    public byte[] get(String path, long revision) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = entries.get(new Key(path, revision));
+        }
+        if (buffer == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        byte[] content = new byte[buffer.remaining()];
+        buffer.duplicate().get(content);
+        return content;
+    }
+
+    /**
+     * 缓存文件内容,超过最大字节数时淘汰最久未使用的文件; 单个文件超过最大字节数时不缓存
+     *
+     * @param path     文件路径
+     * @param revision 版本号
+     * @param content  文件内容
+     */
+    public void put(String path, long revision, byte[] content) {
+        if (content.length > maxBytes) {
+            return;
+        }
+        ByteBuffer buffer;
+        if (offHeap) {
+            buffer = ByteBuffer.allocateDirect(content.length);
+            buffer.put(content).flip();
+        } else {
+            buffer = ByteBuffer.wrap(content.clone());
+        }
+        ByteBuffer readOnly = buffer.asReadOnlyBuffer();
+        synchronized (this) {
+            ByteBuffer previous = entries.put(new Key(path, revision), readOnly);
+            if (previous != null) {
+                size -= previous.capacity();
+            }
+            size += readOnly.capacity();
+            Iterator<ByteBuffer> iterator = entries.values().iterator();
+            while (size > maxBytes && iterator.hasNext()) {
+                size -= iterator.next().capacity();
+                iterator.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 清空缓存(不清零计数)
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * @return 缓存内容的总字节数
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "entries=" + getEntryCount() + "  size=" + getSize() + "  hits=" + getHitCount()
+                + "  misses=" + getMissCount() + "  evictions=" + getEvictionCount();
+    }
+
+    private static final class Key {
+        private final String path;
+        private final long revision;
+
+        Key(String path, long revision) {
+            this.path = path;
+            this.revision = revision;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return revision == other.revision && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Long.hashCode(revision);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.ISVNReporter;
+import org.tmatesoft.svn.core.io.ISVNReporterBaton;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaProcessor;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 通过一次更新请求批量导出指定版本中的多个文件
+ * <p>
+ * 向服务器报告: 项目目录在该版本中完整存在,只有所需文件不存在,
+ * 服务器即在一次编辑过程中只发送这些文件的完整内容; 收到的文本增量窗口逐个直接写入磁盘文件,不在内存中保留整个文件
+ *
+ * @author dengzm
+ */
+public class FileExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * 按路径层级比较,使同一目录下的路径排在一起("a/b" 在 "a-b" 之前)
+     */
+    private static final Comparator<String> PATH_ORDER = Comparator.comparing(path -> path.replace('/', '\0'));
+
+    private final SVNRepository repository;
+    private int receivedFiles;
+
+    /**
+     * @param repository 项目地址的svn会话
+     */
+    public FileExporter(SVNRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * 导出文件
+     *
+     * @param paths     相对项目地址的文件路径
+     * @param revision  版本号
+     * @param targetDir 目标目录,文件按相对路径写入该目录
+     * @param listener  进度监听器
+     * @return 导出的总字节数
+     * @throws SVNException 异常
+     */
+    public long export(Collection<String> paths, long revision, Path targetDir, ExportProgressListener listener) throws SVNException {
+        TreeSet<String> files = new TreeSet<>();
+        for (String path : paths) {
+            String file = path.startsWith("/") ? path.substring(1) : path;
+            if (!file.isEmpty()) {
+                files.add(file);
+            }
+        }
+        Set<String> requested = new TreeSet<>();
+        for (String file : files) {
+            // 同时是其它文件上级目录的路径不是文件
+            String prefix = file + "/";
+            String child = files.ceiling(prefix);
+            if (child != null && child.startsWith(prefix)) {
+                listener.fileMissing(file);
+            } else {
+                requested.add(file);
+            }
+        }
+        ExportEditor editor = new ExportEditor(targetDir, requested, files.size(), listener);
+        if (!requested.isEmpty()) {
+            ISVNReporterBaton reporter = new ISVNReporterBaton() {
+                @Override
+                public void report(ISVNReporter reporter) throws SVNException {
+                    reporter.setPath("", null, revision, SVNDepth.INFINITY, false);
+                    // 报告的路径必须按深度优先的顺序排列;不存在的路径服务器直接忽略
+                    TreeSet<String> reported = new TreeSet<>(PATH_ORDER);
+                    reported.addAll(requested);
+                    for (String file : reported) {
+                        reporter.deletePath(file);
+                    }
+                    reporter.finishReport();
+                }
+            };
+            try {
+                repository.update(revision, null, SVNDepth.INFINITY, false, reporter, editor);
+            } catch (SVNException e) {
+                // 请求的文件的上级目录在该版本中不存在时服务器拒绝报告,只在请求了不存在的路径时发生,
+                // 此时改为逐个获取尚未收到的文件
+                if (e.getErrorMessage().getErrorCode() != SVNErrorCode.FS_NOT_FOUND) {
+                    throw e;
+                }
+                editor.closeCurrent();
+                for (String file : requested) {
+                    if (!editor.exported.contains(file)) {
+                        editor.fetchFile(repository, file, revision);
+                    }
+                }
+            } finally {
+                editor.closeCurrent();
+            }
+        }
+        receivedFiles = editor.receivedFiles;
+        for (String file : requested) {
+            if (!editor.exported.contains(file)) {
+                listener.fileMissing(file);
+            }
+        }
+        return editor.exportedBytes;
+    }
+
+    /**
+     * @return 上次导出时服务器发送的文件数(包括未请求的文件),正常情况下不超过请求的文件数
+     */
+    int getReceivedFiles() {
+        return receivedFiles;
+    }
+
+    /**
+     * 将服务器发送的文件内容写入目标目录,只处理请求的文件
+     */
+    private static class ExportEditor implements ISVNEditor {
+        private final Path targetDir;
+        private final Set<String> requested;
+        private final int totalFiles;
+        private final ExportProgressListener listener;
+        private final SVNDeltaProcessor deltaProcessor = new SVNDeltaProcessor();
+        private final Set<String> exported = new HashSet<>();
+        private long exportedBytes;
+        private int receivedFiles;
+
+        private String currentPath;
+        private Path currentTarget;
+        private OutputStream os;
+
+        ExportEditor(Path targetDir, Set<String> requested, int totalFiles, ExportProgressListener listener) {
+            this.targetDir = targetDir;
+            this.requested = requested;
+            this.totalFiles = totalFiles;
+            this.listener = listener;
+        }
+
+        @Override
+        public void addFile(String path, String copyFromPath, long copyFromRevision) throws SVNException {
+            receivedFiles++;
+            if (requested.contains(path)) {
+                openTarget(path);
+            }
+        }
+
+        /**
+         * 单独获取一个文件,文件不存在时不写入
+         */
+        void fetchFile(SVNRepository repository, String path, long revision) throws SVNException {
+            openTarget(path);
+            Path target = currentTarget;
+            try {
+                repository.getFile(path, revision, null, os);
+            } catch (SVNException e) {
+                closeCurrent();
+                try {
+                    Files.deleteIfExists(target);
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+                if (repository.checkPath(path, revision) != SVNNodeKind.FILE) {
+                    return;
+                }
+                throw e;
+            }
+            receivedFiles++;
+            closeFile(path, null);
+        }
+
+        private void openTarget(String path) throws SVNException {
+            try {
+                Path target = targetDir.resolve(path);
+                Files.createDirectories(target.getParent());
+                FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                os = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                currentPath = path;
+                currentTarget = target;
+            } catch (IOException e) {
+                throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+            }
+        }
+
+        @Override
+        public void applyTextDelta(String path, String baseChecksum) throws SVNException {
+            if (path.equals(currentPath)) {
+                deltaProcessor.applyTextDelta(new ByteArrayInputStream(new byte[0]), os, false);
+            }
+        }
+
+        @Override
+        public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+            if (path.equals(currentPath)) {
+                return deltaProcessor.textDeltaChunk(diffWindow);
+            }
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public void textDeltaEnd(String path) {
+            if (path.equals(currentPath)) {
+                deltaProcessor.textDeltaEnd();
+            }
+        }
+
+        @Override
+        public void closeFile(String path, String textChecksum) throws SVNException {
+            if (!path.equals(currentPath)) {
+                return;
+            }
+            // 按写入后的文件大小计算字节数(应用增量结束时输出流已被关闭)
+            Path target = currentTarget;
+            closeCurrent();
+            long size;
+            try {
+                size = Files.size(target);
+            } catch (IOException e) {
+                throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+            }
+            exported.add(path);
+            exportedBytes += size;
+            listener.fileExported(path, size, exported.size(), totalFiles, exportedBytes);
+        }
+
+        void closeCurrent() {
+            if (os != null) {
+                try {
+                    os.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            os = null;
+            currentPath = null;
+            currentTarget = null;
+        }
+
+        @Override
+        public void targetRevision(long revision) {
+        }
+
+        @Override
+        public void openRoot(long revision) {
+        }
+
+        @Override
+        public void deleteEntry(String path, long revision) {
+        }
+
+        @Override
+        public void absentDir(String path) {
+        }
+
+        @Override
+        public void absentFile(String path) {
+        }
+
+        @Override
+        public void addDir(String path, String copyFromPath, long copyFromRevision) {
+        }
+
+        @Override
+        public void openDir(String path, long revision) {
+        }
+
+        @Override
+        public void changeDirProperty(String name, SVNPropertyValue value) {
+        }
+
+        @Override
+        public void closeDir() {
+        }
+
+        @Override
+        public void openFile(String path, long revision) {
+        }
+
+        @Override
+        public void changeFileProperty(String path, String propertyName, SVNPropertyValue propertyValue) {
+        }
+
+        @Override
+        public SVNCommitInfo closeEdit() {
+            return null;
+        }
+
+        @Override
+        public void abortEdit() {
+            closeCurrent();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.svnkit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 统计两个版本文件内容之间新增、删除的非空行数,不生成比较日志文本
+ * <p>
+ * 先去掉空行(只含空白字符的行)并将每行映射为整数,去掉相同的首尾部分后用 Myers 算法求最长公共子序列,
+ * 新增行数 = 新内容行数 - 公共行数,删除行数 = 旧内容行数 - 公共行数;
+ * 差异过大时退化为按行计数比较,避免耗时过长
+ *
+ * @author dengzm
+ */
+public final class LineDiff {
+
+    private static final int MAX_EDIT_DISTANCE = 20000;
+    private static final int BINARY_CHECK_SIZE = 8000;
+
+    private LineDiff() {
+    }
+
+    /**
+     * 统计新增、删除的非空行数
+     *
+     * @param oldContent 旧内容,文件不存在时为空数组
+     * @param newContent 新内容,文件不存在时为空数组
+     * @return {新增行数, 删除行数}
+     */
+    public static int[] count(byte[] oldContent, byte[] newContent) {
+        Map<LineKey, Integer> ids = new HashMap<>();
+        int[] a = lines(oldContent, ids);
+        int[] b = lines(newContent, ids);
+        int common = commonLines(a, b);
+        return new int[]{b.length - common, a.length - common};
+    }
+
+    /**
+     * 与svn相同,前8000个字节中含有0字节的视为二进制文件
+     *
+     * @param content 文件内容
+     * @return 是否为二进制文件
+     */
+    public static boolean isBinary(byte[] content) {
+        int length = Math.min(content.length, BINARY_CHECK_SIZE);
+        for (int i = 0; i < length; i++) {
+            if (content[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 统计内容中的非空行数
+     *
+     * @param content 文件内容
+     * @return 非空行数
+     */
+    public static int countLines(byte[] content) {
+        return lines(content, new HashMap<>()).length;
+    }
+
+    /**
+     * 将内容拆分为非空行,相同的行映射为相同的整数
+     */
+    private static int[] lines(byte[] content, Map<LineKey, Integer> ids) {
+        int[] result = new int[16];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= content.length; i++) {
+            if (i == content.length || content[i] == '\n' || content[i] == '\r') {
+                if (notBlank(content, start, i)) {
+                    LineKey key = new LineKey(content, start, i);
+                    Integer id = ids.get(key);
+                    if (id == null) {
+                        id = ids.size();
+                        ids.put(key, id);
+                    }
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = id;
+                }
+                start = i + 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static boolean notBlank(byte[] content, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if ((content[i] & 0xFF) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 最长公共子序列的长度
+     */
+    private static int commonLines(int[] a, int[] b) {
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix] == b[b.length - 1 - suffix]) {
+            suffix++;
+        }
+        int n = a.length - prefix - suffix;
+        int m = b.length - prefix - suffix;
+        if (n == 0 || m == 0) {
+            return prefix + suffix;
+        }
+        int distance = editDistance(a, prefix, n, b, prefix, m);
+        if (distance < 0) {
+            return prefix + suffix + multisetCommon(a, prefix, n, b, prefix, m);
+        }
+        return prefix + suffix + (n + m - distance) / 2;
+    }
+
+    /**
+     * Myers 算法求只含插入、删除的最短编辑距离,超过上限时返回-1
+     */
+    private static int editDistance(int[] a, int aOffset, int n, int[] b, int bOffset, int m) {
+        int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        for (int d = 0; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[aOffset + x] == b[bOffset + y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return d;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 不考虑顺序时两组行的公共行数
+     */
+    private static int multisetCommon(int[] a, int aOffset, int n, int[] b, int bOffset, int m) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            counts.merge(a[aOffset + i], 1, Integer::sum);
+        }
+        int common = 0;
+        for (int i = 0; i < m; i++) {
+            Integer count = counts.get(b[bOffset + i]);
+            if (count != null && count > 0) {
+                counts.put(b[bOffset + i], count - 1);
+                common++;
+            }
+        }
+        return common;
+    }
+
+    /**
+     * 字节数组中一行内容的引用,用于按内容比较行
+     */
+    private static final class LineKey {
+        private final byte[] content;
+        private final int from;
+        private final int to;
+        private final int hash;
+
+        LineKey(byte[] content, int from, int to) {
+            this.content = content;
+            this.from = from;
+            this.to = to;
+            int h = 1;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + content[i];
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof LineKey)) {
+                return false;
+            }
+            LineKey other = (LineKey) o;
+            return hash == other.hash && Arrays.equals(content, from, to, other.content, other.from, other.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.svnkit;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 只将前若干行写入下游输出流,之后的内容丢弃,用于截断过大文件的比较结果
+ * <p>
+ * 写入结束后调用 {@link #finish()},内容被截断时追加一行以"\"开头的说明(与"\ No newline at end of file"相同,不计入增删行数)
+ *
+ * @author dengzm
+ */
+public class LineLimitOutputStream extends FilterOutputStream {
+
+    private final int maxLines;
+    private long lines;
+    private boolean lineStart = true;
+
+    /**
+     * @param out      下游输出流
+     * @param maxLines 保留的行数
+     */
+    public LineLimitOutputStream(OutputStream out, int maxLines) {
+        super(out);
+        this.maxLines = maxLines;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (lines < maxLines) {
+            out.write(b);
+        }
+        countLines(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int end = off + len;
+        int keep = off;
+        while (keep < end && lines < maxLines) {
+            countLines(b[keep++]);
+        }
+        out.write(b, off, keep - off);
+        for (int i = keep; i < end; i++) {
+            countLines(b[i]);
+        }
+    }
+
+    private void countLines(int b) {
+        if (b == '\n') {
+            lines++;
+            lineStart = true;
+        } else {
+            lineStart = false;
+        }
+    }
+
+    /**
+     * 写入结束,内容被截断时追加说明行,不关闭下游输出流
+     *
+     * @throws IOException 写入失败
+     */
+    public void finish() throws IOException {
+        long total = lineStart ? lines : lines + 1;
+        if (total > maxLines) {
+            out.write(("\\ truncated: " + maxLines + " of " + total + " lines\n").getBytes(StandardCharsets.UTF_8));
+        }
+        out.flush();
+    }
+}
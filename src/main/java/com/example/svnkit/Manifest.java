@@ -0,0 +1,194 @@
+package com.example.svnkit;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 一组文件的 MD5 清单,按目录组织成 Merkle 树: 文件节点的哈希为文件内容的 MD5,
+ * 目录节点的哈希由其下所有子节点的名称及哈希计算得到,两个目录哈希相同即可认为其下所有文件都相同
+ * <p>
+ * 每个文件还可以附带一个标记(如文件大小及修改时间),用于判断本地文件是否需要重新计算 MD5
+ *
+ * @author dengzm
+ */
+public class Manifest {
+
+    private static final String MAGIC = "MANIFEST1";
+
+    private final Node root = new Node("", null, null);
+
+    /**
+     * 添加文件
+     *
+     * @param path  相对路径,以"/"分隔
+     * @param md5   文件内容的 MD5(十六进制小写)
+     * @param stamp 文件标记,可为null
+     */
+    public void add(String path, String md5, String stamp) {
+        Node node = root;
+        // 路径上各级目录的哈希需要重新计算
+        node.hash = null;
+        String[] names = path.split("/");
+        for (int i = 0; i < names.length - 1; i++) {
+            if (names[i].isEmpty()) {
+                continue;
+            }
+            node = node.children.computeIfAbsent(names[i], name -> new Node(name, null, null));
+            node.hash = null;
+        }
+        String name = names[names.length - 1];
+        node.children.put(name, new Node(name, md5, stamp));
+    }
+
+    /**
+     * @return 根节点,目录哈希在第一次访问时计算
+     */
+    public Node getRoot() {
+        root.computeHash();
+        return root;
+    }
+
+    /**
+     * @return 所有文件的相对路径及对应节点,按路径排序
+     */
+    public Map<String, Node> getFiles() {
+        Map<String, Node> files = new TreeMap<>();
+        collectFiles(root, "", files);
+        return files;
+    }
+
+    static void collectFiles(Node node, String path, Map<String, Node> files) {
+        if (!node.isDirectory()) {
+            files.put(path, node);
+            return;
+        }
+        for (Node child : node.children.values()) {
+            collectFiles(child, path.isEmpty() ? child.name : path + "/" + child.name, files);
+        }
+    }
+
+    /**
+     * 保存到文件(先写临时文件再替换,避免中断时留下不完整的清单)
+     *
+     * @param file 清单文件
+     * @throws IOException 写入失败
+     */
+    public void save(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            writer.write(MAGIC);
+            writer.newLine();
+            for (Map.Entry<String, Node> entry : getFiles().entrySet()) {
+                Node node = entry.getValue();
+                writer.write(node.hash + "\t" + (node.stamp == null ? "" : node.stamp) + "\t" + entry.getKey());
+                writer.newLine();
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 从文件读取清单
+     *
+     * @param file 清单文件
+     * @return 清单,文件不存在或格式不正确时返回null
+     */
+    public static Manifest load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        Manifest manifest = new Manifest();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!MAGIC.equals(reader.readLine())) {
+                return null;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 3);
+                if (parts.length < 3) {
+                    return null;
+                }
+                manifest.add(parts[2], parts[0], parts[1].isEmpty() ? null : parts[1]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return manifest;
+    }
+
+    /**
+     * 清单中的文件或目录
+     */
+    public static class Node {
+        private final String name;
+        private final String stamp;
+        private final TreeMap<String, Node> children;
+        private String hash;
+
+        Node(String name, String md5, String stamp) {
+            this.name = name;
+            this.hash = md5;
+            this.stamp = stamp;
+            this.children = md5 == null ? new TreeMap<>() : null;
+        }
+
+        private String computeHash() {
+            if (hash != null) {
+                return hash;
+            }
+            MessageDigest digest = md5();
+            for (Node child : children.values()) {
+                String childHash = child.computeHash();
+                digest.update((child.name + '\0' + (child.isDirectory() ? 'd' : 'f') + childHash + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            hash = toHex(digest.digest());
+            return hash;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHash() {
+            return computeHash();
+        }
+
+        public String getStamp() {
+            return stamp;
+        }
+
+        public boolean isDirectory() {
+            return children != null;
+        }
+
+        /**
+         * @return 子节点(按名称排序),文件返回null
+         */
+        public Map<String, Node> getChildren() {
+            return children;
+        }
+    }
+
+    static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+            chars[i * 2 + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.util.ISVNDebugLog;
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+
+/**
+ * 统计网络流量的svn调试日志,设置到会话上后,svn://及http(s)://连接的输入输出流都会经过这里
+ * <p>
+ * 日志输出仍交给SVNKit默认的调试日志; 连接上先发送再接收记为一次往返。每个会话使用独立的实例
+ *
+ * @author dengzm
+ */
+class MeteredDebugLog implements ISVNDebugLog {
+
+    /**
+     * 已发送请求,尚未收到响应
+     */
+    private volatile boolean requestPending;
+
+    private static ISVNDebugLog delegate() {
+        return SVNDebugLog.getDefaultLog();
+    }
+
+    @Override
+    public InputStream createLogStream(SVNLogType logType, InputStream is) {
+        InputStream in = delegate().createLogStream(logType, is);
+        return logType == SVNLogType.NETWORK ? new CountingInputStream(in) : in;
+    }
+
+    @Override
+    public OutputStream createLogStream(SVNLogType logType, OutputStream os) {
+        OutputStream out = delegate().createLogStream(logType, os);
+        return logType == SVNLogType.NETWORK ? new CountingOutputStream(out) : out;
+    }
+
+    @Override
+    public void flushStream(Object stream) {
+        // 默认日志按自己创建的流类型刷新缓冲,需要传入被包装的流
+        if (stream instanceof CountingInputStream) {
+            stream = ((CountingInputStream) stream).getDelegate();
+        } else if (stream instanceof CountingOutputStream) {
+            stream = ((CountingOutputStream) stream).getDelegate();
+        }
+        delegate().flushStream(stream);
+    }
+
+    @Override
+    public OutputStream createOutputLogStream() {
+        return delegate().createOutputLogStream();
+    }
+
+    @Override
+    public OutputStream createInputLogStream() {
+        return delegate().createInputLogStream();
+    }
+
+    @Override
+    public void logError(SVNLogType logType, String message) {
+        delegate().logError(logType, message);
+    }
+
+    @Override
+    public void logError(SVNLogType logType, Throwable th) {
+        delegate().logError(logType, th);
+    }
+
+    @Override
+    public void logSevere(SVNLogType logType, String message) {
+        delegate().logSevere(logType, message);
+    }
+
+    @Override
+    public void logSevere(SVNLogType logType, Throwable th) {
+        delegate().logSevere(logType, th);
+    }
+
+    @Override
+    public void logFine(SVNLogType logType, Throwable th) {
+        delegate().logFine(logType, th);
+    }
+
+    @Override
+    public void logFine(SVNLogType logType, String message) {
+        delegate().logFine(logType, message);
+    }
+
+    @Override
+    public void logFiner(SVNLogType logType, Throwable th) {
+        delegate().logFiner(logType, th);
+    }
+
+    @Override
+    public void logFiner(SVNLogType logType, String message) {
+        delegate().logFiner(logType, message);
+    }
+
+    @Override
+    public void logFinest(SVNLogType logType, Throwable th) {
+        delegate().logFinest(logType, th);
+    }
+
+    @Override
+    public void logFinest(SVNLogType logType, String message) {
+        delegate().logFinest(logType, message);
+    }
+
+    @Override
+    public void log(SVNLogType logType, Throwable th, Level logLevel) {
+        delegate().log(logType, th, logLevel);
+    }
+
+    @Override
+    public void log(SVNLogType logType, String message, Level logLevel) {
+        delegate().log(logType, message, logLevel);
+    }
+
+    @Override
+    public void log(SVNLogType logType, String message, byte[] data) {
+        delegate().log(logType, message, data);
+    }
+
+    private void received(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        if (requestPending) {
+            requestPending = false;
+            NetworkTraffic.addRoundTrip();
+        }
+        NetworkTraffic.addRead(bytes);
+    }
+
+    private void sent(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        requestPending = true;
+        NetworkTraffic.addWritten(bytes);
+    }
+
+    private class CountingInputStream extends FilterInputStream {
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        InputStream getDelegate() {
+            return in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                received(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            received(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            received(skipped);
+            return skipped;
+        }
+    }
+
+    private class CountingOutputStream extends FilterOutputStream {
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        OutputStream getDelegate() {
+            return out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            sent(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            sent(len);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.svnkit;
+
+/**
+ * 操作完成时的通知,在执行操作的线程中调用,实现不应阻塞
+ *
+ * @author dengzm
+ */
+public interface MetricsListener {
+
+    /**
+     * 一次操作完成
+     *
+     * @param operation     操作名,如 "log"、"getFile"、"diff"
+     * @param durationNanos 耗时(纳秒)
+     * @param failed        是否出错
+     * @param roundTrips    与服务器的往返次数(本地 file:// 存储库为0)
+     * @param bytesRead     从服务器接收的字节数
+     * @param bytesWritten  发送到服务器的字节数
+     */
+    void operationCompleted(String operation, long durationNanos, boolean failed,
+                            long roundTrips, long bytesRead, long bytesWritten);
+}
@@ -0,0 +1,148 @@
+package com.example.svnkit;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按线程统计svn会话的网络流量及往返次数
+ * <p>
+ * 每个线程有一个计数器,操作开始、结束时计数器的差值即为该操作产生的流量。
+ * 操作提交到线程池的并行任务需用 {@link #attribute(Callable)} 包装,任务执行期间的流量同时计入提交任务的线程的计数器;
+ * 计数器不随线程创建继承,线程池的线程被复用时不会计入无关的操作
+ *
+ * @author dengzm
+ */
+final class NetworkTraffic {
+
+    private static final AtomicLong TOTAL_BYTES_READ = new AtomicLong();
+    private static final AtomicLong TOTAL_BYTES_WRITTEN = new AtomicLong();
+    private static final AtomicLong TOTAL_ROUND_TRIPS = new AtomicLong();
+
+    private static final ThreadLocal<Counter> CURRENT = ThreadLocal.withInitial(() -> new Counter(null));
+
+    private NetworkTraffic() {
+    }
+
+    static Counter current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 包装提交到线程池的任务,任务执行期间的流量同时计入当前线程的计数器
+     *
+     * @param task 任务
+     * @param <T>  返回值类型
+     * @return 包装后的任务,在执行线程上使用以当前线程计数器为上级的临时计数器,执行完恢复原计数器
+     */
+    static <T> Callable<T> attribute(Callable<T> task) {
+        Counter parent = CURRENT.get();
+        return () -> {
+            Counter previous = CURRENT.get();
+            CURRENT.set(new Counter(parent));
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @see #attribute(Callable)
+     */
+    static Runnable attribute(Runnable task) {
+        Counter parent = CURRENT.get();
+        return () -> {
+            Counter previous = CURRENT.get();
+            CURRENT.set(new Counter(parent));
+            try {
+                task.run();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    static void addRead(long bytes) {
+        TOTAL_BYTES_READ.addAndGet(bytes);
+        for (Counter counter = CURRENT.get(); counter != null; counter = counter.parent) {
+            counter.bytesRead.addAndGet(bytes);
+        }
+    }
+
+    static void addWritten(long bytes) {
+        TOTAL_BYTES_WRITTEN.addAndGet(bytes);
+        for (Counter counter = CURRENT.get(); counter != null; counter = counter.parent) {
+            counter.bytesWritten.addAndGet(bytes);
+        }
+    }
+
+    static void addRoundTrip() {
+        TOTAL_ROUND_TRIPS.incrementAndGet();
+        for (Counter counter = CURRENT.get(); counter != null; counter = counter.parent) {
+            counter.roundTrips.incrementAndGet();
+        }
+    }
+
+    static long getTotalBytesRead() {
+        return TOTAL_BYTES_READ.get();
+    }
+
+    static long getTotalBytesWritten() {
+        return TOTAL_BYTES_WRITTEN.get();
+    }
+
+    static long getTotalRoundTrips() {
+        return TOTAL_ROUND_TRIPS.get();
+    }
+
+    /**
+     * 线程的流量计数器,及该线程中正在进行的操作开始时的计数(嵌套操作按栈保存,只由所属线程访问)
+     */
+    static final class Counter {
+        private static final int MAX_DEPTH = 16;
+
+        final Counter parent;
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong bytesWritten = new AtomicLong();
+        final AtomicLong roundTrips = new AtomicLong();
+        private final long[] marks = new long[MAX_DEPTH * 3];
+        private int depth;
+        long lastRoundTrips;
+        long lastBytesRead;
+        long lastBytesWritten;
+
+        Counter(Counter parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * 记录操作开始时的计数
+         */
+        void push() {
+            if (depth < MAX_DEPTH) {
+                int i = depth * 3;
+                marks[i] = roundTrips.get();
+                marks[i + 1] = bytesRead.get();
+                marks[i + 2] = bytesWritten.get();
+            }
+            depth++;
+        }
+
+        /**
+         * 结束操作,操作期间的往返次数、接收及发送字节数存入 lastRoundTrips、lastBytesRead、lastBytesWritten
+         */
+        void pop() {
+            depth--;
+            if (depth < 0 || depth >= MAX_DEPTH) {
+                depth = Math.max(depth, 0);
+                lastRoundTrips = lastBytesRead = lastBytesWritten = 0;
+                return;
+            }
+            int i = depth * 3;
+            lastRoundTrips = roundTrips.get() - marks[i];
+            lastBytesRead = bytesRead.get() - marks[i + 1];
+            lastBytesWritten = bytesWritten.get() - marks[i + 2];
+        }
+    }
+}
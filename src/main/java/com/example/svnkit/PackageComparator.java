@@ -0,0 +1,390 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.ISVNReporter;
+import org.tmatesoft.svn.core.io.ISVNReporterBaton;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 比较本地发布包(目录或 zip/jar/war 文件)与svn指定版本中的文件
+ * <p>
+ * 本地文件在线程池中并行计算 MD5(目录中的文件通过内存映射读取);
+ * svn端不下载文件内容,只通过一次状态请求获取存储库中记录的每个文件的 MD5;
+ * 两边的清单组织成 Merkle 树逐层比较,哈希相同的目录整体跳过。
+ * 启用缓存目录时,svn版本的清单按版本缓存(同一版本的内容不会改变),
+ * 本地清单记录每个文件的大小及修改时间(压缩包中为大小及CRC),再次比较时未变化的文件不重新计算 MD5
+ * <p>
+ * 设置了 svn:keywords 或 svn:eol-style 属性的文件,导出后的内容可能与存储库中的 MD5 不同
+ *
+ * @author dengzm
+ */
+public class PackageComparator {
+
+    private static final long MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SVNSessionManager sessionManager;
+    private final SVNURL url;
+    private final File cacheDir;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param sessionManager 会话管理器
+     * @param url            与发布包根目录对应的svn目录地址
+     * @param cacheDir       清单缓存目录,为null时不缓存
+     * @param pool           计算本地文件 MD5 的线程池
+     */
+    public PackageComparator(SVNSessionManager sessionManager, SVNURL url, File cacheDir, ForkJoinPool pool) {
+        this.sessionManager = sessionManager;
+        this.url = url;
+        this.cacheDir = cacheDir;
+        this.pool = pool;
+    }
+
+    /**
+     * 比较发布包与svn版本
+     *
+     * @param localPackage 本地发布包目录或 zip/jar/war 文件
+     * @param revision     版本号,小于0时为最新版本
+     * @return 比较结果
+     * @throws SVNException 访问svn出错
+     * @throws IOException  读取本地文件出错
+     */
+    public PackageComparison compare(Path localPackage, long revision) throws SVNException, IOException {
+        Manifest svnManifest = getSvnManifest(revision);
+        Manifest localManifest = getLocalManifest(localPackage);
+        PackageComparison comparison = new PackageComparison();
+        compare(localManifest.getRoot(), svnManifest.getRoot(), "", comparison);
+        return comparison;
+    }
+
+    /**
+     * 获取svn版本中所有文件的 MD5 清单
+     *
+     * @param revision 版本号,小于0时为最新版本
+     * @return 清单
+     * @throws SVNException 异常
+     */
+    public Manifest getSvnManifest(long revision) throws SVNException {
+        return sessionManager.execute(url, repository -> {
+            long targetRevision = revision < 0 ? repository.getLatestRevision() : revision;
+            File cacheFile = cacheDir == null ? null
+                    : new File(cacheDir, "svn_" + repository.getRepositoryUUID(true) + "_" + sha1(url.toString()) + "_" + targetRevision + ".manifest");
+            if (cacheFile != null) {
+                Manifest cached = Manifest.load(cacheFile);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            Manifest manifest = new Manifest();
+            ISVNReporterBaton reporter = new ISVNReporterBaton() {
+                @Override
+                public void report(ISVNReporter reporter) throws SVNException {
+                    reporter.setPath("", null, targetRevision, SVNDepth.INFINITY, true);
+                    reporter.finishReport();
+                }
+            };
+            // 状态请求不发送文件内容,关闭文件时带有文件的 MD5
+            repository.status(targetRevision, null, SVNDepth.INFINITY, reporter, new ChecksumEditor(manifest));
+            if (cacheFile != null) {
+                try {
+                    Files.createDirectories(cacheDir.toPath());
+                    manifest.save(cacheFile);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            return manifest;
+        });
+    }
+
+    /**
+     * 计算本地发布包中所有文件的 MD5 清单
+     *
+     * @param localPackage 本地发布包目录或 zip/jar/war 文件
+     * @return 清单
+     * @throws IOException 读取文件出错
+     */
+    public Manifest getLocalManifest(Path localPackage) throws IOException {
+        File cacheFile = cacheDir == null ? null
+                : new File(cacheDir, "local_" + sha1(localPackage.toAbsolutePath().normalize().toString()) + ".manifest");
+        Manifest previous = cacheFile == null ? null : Manifest.load(cacheFile);
+        Map<String, Manifest.Node> previousFiles = previous == null ? Collections.emptyMap() : previous.getFiles();
+        Manifest manifest;
+        try {
+            manifest = pool.submit(() -> Files.isDirectory(localPackage)
+                    ? hashDirectory(localPackage, previousFiles) : hashArchive(localPackage, previousFiles)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        if (cacheFile != null) {
+            Files.createDirectories(cacheDir.toPath());
+            manifest.save(cacheFile);
+        }
+        return manifest;
+    }
+
+    private Manifest hashDirectory(Path dir, Map<String, Manifest.Node> previousFiles) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        Map<String, String[]> hashes = files.parallelStream().collect(Collectors.toConcurrentMap(
+                file -> relativePath(dir, file),
+                file -> {
+                    try {
+                        String stamp = Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+                        Manifest.Node node = previousFiles.get(relativePath(dir, file));
+                        if (node != null && stamp.equals(node.getStamp())) {
+                            return new String[]{node.getHash(), stamp};
+                        }
+                        return new String[]{md5(file), stamp};
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        return toManifest(hashes);
+    }
+
+    private Manifest hashArchive(Path archive, Map<String, Manifest.Node> previousFiles) throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            List<? extends ZipEntry> entries = zip.stream().filter(entry -> !entry.isDirectory()).collect(Collectors.toList());
+            Map<String, String[]> hashes = entries.parallelStream().collect(Collectors.toConcurrentMap(
+                    ZipEntry::getName,
+                    entry -> {
+                        String stamp = entry.getSize() + ":" + Long.toHexString(entry.getCrc());
+                        Manifest.Node node = previousFiles.get(entry.getName());
+                        if (node != null && stamp.equals(node.getStamp())) {
+                            return new String[]{node.getHash(), stamp};
+                        }
+                        try (InputStream is = zip.getInputStream(entry)) {
+                            return new String[]{md5(is), stamp};
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    },
+                    (first, second) -> second));
+            return toManifest(hashes);
+        }
+    }
+
+    private static Manifest toManifest(Map<String, String[]> hashes) {
+        Manifest manifest = new Manifest();
+        new TreeMap<>(hashes).forEach((path, hash) -> manifest.add(path, hash[0], hash[1]));
+        return manifest;
+    }
+
+    private static String relativePath(Path dir, Path file) {
+        return dir.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * 逐层比较两棵 Merkle 树,哈希相同的目录不再向下比较
+     */
+    private static void compare(Manifest.Node local, Manifest.Node svn, String path, PackageComparison comparison) {
+        if (local.getHash().equals(svn.getHash()) && local.isDirectory() == svn.isDirectory()) {
+            if (local.isDirectory()) {
+                comparison.addSkippedDir();
+                comparison.addSame(countFiles(local));
+            } else {
+                comparison.addSame(1);
+            }
+            return;
+        }
+        if (!local.isDirectory() && !svn.isDirectory()) {
+            comparison.getDifferent().add(path);
+            return;
+        }
+        if (!local.isDirectory() || !svn.isDirectory()) {
+            // 一边是文件一边是目录
+            collect(local, path, comparison.getExtra());
+            collect(svn, path, comparison.getMissing());
+            return;
+        }
+        Set<String> names = new TreeSet<>(local.getChildren().keySet());
+        names.addAll(svn.getChildren().keySet());
+        for (String name : names) {
+            String childPath = path.isEmpty() ? name : path + "/" + name;
+            Manifest.Node localChild = local.getChildren().get(name);
+            Manifest.Node svnChild = svn.getChildren().get(name);
+            if (localChild == null) {
+                collect(svnChild, childPath, comparison.getMissing());
+            } else if (svnChild == null) {
+                collect(localChild, childPath, comparison.getExtra());
+            } else {
+                compare(localChild, svnChild, childPath, comparison);
+            }
+        }
+    }
+
+    private static void collect(Manifest.Node node, String path, List<String> result) {
+        Map<String, Manifest.Node> files = new TreeMap<>();
+        Manifest.collectFiles(node, path, files);
+        result.addAll(files.keySet());
+    }
+
+    private static int countFiles(Manifest.Node node) {
+        if (!node.isDirectory()) {
+            return 1;
+        }
+        int count = 0;
+        for (Manifest.Node child : node.getChildren().values()) {
+            count += countFiles(child);
+        }
+        return count;
+    }
+
+    /**
+     * 通过内存映射分段读取文件并计算 MD5
+     */
+    private static String md5(Path file) throws IOException {
+        MessageDigest digest = Manifest.md5();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW_SIZE, size - position));
+                digest.update(buffer);
+            }
+        }
+        return Manifest.toHex(digest.digest());
+    }
+
+    private static String md5(InputStream is) throws IOException {
+        MessageDigest digest = Manifest.md5();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return Manifest.toHex(digest.digest());
+    }
+
+    private static String sha1(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return Manifest.toHex(digest.digest(value.getBytes(StandardCharsets.UTF_8))).substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 接收状态请求的结果,记录每个文件的 MD5
+     */
+    private static class ChecksumEditor implements ISVNEditor {
+        private final Manifest manifest;
+
+        ChecksumEditor(Manifest manifest) {
+            this.manifest = manifest;
+        }
+
+        @Override
+        public void closeFile(String path, String textChecksum) {
+            if (textChecksum != null) {
+                manifest.add(path, textChecksum, null);
+            }
+        }
+
+        @Override
+        public void applyTextDelta(String path, String baseChecksum) {
+        }
+
+        @Override
+        public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public void textDeltaEnd(String path) {
+        }
+
+        @Override
+        public void targetRevision(long revision) {
+        }
+
+        @Override
+        public void openRoot(long revision) {
+        }
+
+        @Override
+        public void deleteEntry(String path, long revision) {
+        }
+
+        @Override
+        public void absentDir(String path) {
+        }
+
+        @Override
+        public void absentFile(String path) {
+        }
+
+        @Override
+        public void addDir(String path, String copyFromPath, long copyFromRevision) {
+        }
+
+        @Override
+        public void openDir(String path, long revision) {
+        }
+
+        @Override
+        public void changeDirProperty(String name, SVNPropertyValue value) {
+        }
+
+        @Override
+        public void closeDir() {
+        }
+
+        @Override
+        public void addFile(String path, String copyFromPath, long copyFromRevision) {
+        }
+
+        @Override
+        public void openFile(String path, long revision) {
+        }
+
+        @Override
+        public void changeFileProperty(String path, String propertyName, SVNPropertyValue propertyValue) {
+        }
+
+        @Override
+        public SVNCommitInfo closeEdit() {
+            return null;
+        }
+
+        @Override
+        public void abortEdit() {
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.svnkit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 发布包与svn版本的比较结果,路径均为相对发布包根目录的路径
+ *
+ * @author dengzm
+ */
+public class PackageComparison {
+
+    private final List<String> missing = new ArrayList<>();
+    private final List<String> extra = new ArrayList<>();
+    private final List<String> different = new ArrayList<>();
+    private int sameFiles;
+    private int skippedDirs;
+
+    /**
+     * @return svn中有、发布包中没有的文件
+     */
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    /**
+     * @return 发布包中有、svn中没有的文件
+     */
+    public List<String> getExtra() {
+        return extra;
+    }
+
+    /**
+     * @return 两边都有但内容不同的文件
+     */
+    public List<String> getDifferent() {
+        return different;
+    }
+
+    /**
+     * @return 内容相同的文件数
+     */
+    public int getSameFiles() {
+        return sameFiles;
+    }
+
+    /**
+     * @return 因哈希相同而整体跳过的目录数
+     */
+    public int getSkippedDirs() {
+        return skippedDirs;
+    }
+
+    /**
+     * @return 发布包与svn版本是否完全一致
+     */
+    public boolean isIdentical() {
+        return missing.isEmpty() && extra.isEmpty() && different.isEmpty();
+    }
+
+    void addSame(int count) {
+        sameFiles += count;
+    }
+
+    void addSkippedDir() {
+        skippedDirs++;
+    }
+
+    @Override
+    public String toString() {
+        return "same=" + sameFiles + "  missing=" + missing.size() + "  extra=" + extra.size()
+                + "  different=" + different.size() + "  skippedDirs=" + skippedDirs;
+    }
+}
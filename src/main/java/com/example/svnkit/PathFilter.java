@@ -0,0 +1,100 @@
+package com.example.svnkit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 按包含、排除的通配符过滤相对路径,在创建目录项对象之前只根据路径字符串判断
+ * <p>
+ * 通配符: "*" 匹配除"/"以外的任意字符,"**" 匹配任意字符(包括"/"),"?" 匹配除"/"以外的单个字符;
+ * 被排除的目录不再向下遍历; 设置了包含规则时只输出匹配的路径,但仍会遍历所有未被排除的目录
+ *
+ * @author dengzm
+ */
+public class PathFilter {
+
+    private final List<Pattern> includes = new ArrayList<>();
+    private final List<Pattern> excludes = new ArrayList<>();
+
+    /**
+     * @return 不过滤任何路径的过滤器
+     */
+    public static PathFilter all() {
+        return new PathFilter();
+    }
+
+    /**
+     * 添加包含规则
+     *
+     * @param glob 通配符,如 "**.java"
+     * @return 当前过滤器
+     */
+    public PathFilter include(String glob) {
+        includes.add(toPattern(glob));
+        return this;
+    }
+
+    /**
+     * 添加排除规则
+     *
+     * @param glob 通配符,如 "target" 或 "**.class"
+     * @return 当前过滤器
+     */
+    public PathFilter exclude(String glob) {
+        excludes.add(toPattern(glob));
+        return this;
+    }
+
+    /**
+     * @param path 相对路径
+     * @return 路径是否被排除(被排除的目录不再向下遍历)
+     */
+    public boolean isExcluded(String path) {
+        for (Pattern pattern : excludes) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param path 相对路径
+     * @return 是否输出该路径
+     */
+    public boolean accept(String path) {
+        if (isExcluded(path)) {
+            return false;
+        }
+        if (includes.isEmpty()) {
+            return true;
+        }
+        for (Pattern pattern : includes) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern toPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i++;
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.ISVNReporter;
+import org.tmatesoft.svn.core.io.ISVNReporterBaton;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaProcessor;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 逐版本统计代码变更行数
+ * <p>
+ * 每个版本通过 {@link SVNRepository#update} 由上一版本更新到该版本,用自定义的 {@link ISVNEditor} 接收变更:
+ * 在内存中把文本增量窗口应用到上一版本的文件内容上,得到新内容后直接用 {@link LineDiff} 统计新增、删除的非空行数,
+ * 不生成比较日志文本; 各版本互不依赖,在线程池中并行处理,每个线程从会话池借用两个会话(一个接收变更,一个读取上一版本的文件)
+ *
+ * @author dengzm
+ */
+public class RevisionChurnEngine {
+
+    private final SVNRepositoryPool pool;
+    private final int concurrency;
+
+    /**
+     * @param pool        项目地址的会话池,大小至少为2,并行数不超过其一半
+     * @param concurrency 并行处理的版本数
+     */
+    public RevisionChurnEngine(SVNRepositoryPool pool, int concurrency) {
+        this.pool = pool;
+        // 每个任务同时占用两个会话
+        this.concurrency = Math.max(1, Math.min(concurrency, pool.getMaxSize() / 2));
+    }
+
+    /**
+     * 统计多个版本的变更行数
+     *
+     * @param entries 提交记录(需包含版本号及提交人)
+     * @return 结果表,行按版本顺序排列
+     * @throws SVNException 异常
+     */
+    public ChurnTable compute(List<SVNLogEntry> entries) throws SVNException {
+        ChurnTable table = new ChurnTable();
+        if (entries.isEmpty()) {
+            return table;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, entries.size()));
+        try {
+            List<Future<List<ChurnTable.Row>>> futures = new ArrayList<>(entries.size());
+            for (SVNLogEntry entry : entries) {
+                futures.add(executor.submit(SVNCancellation.propagate(NetworkTraffic.attribute(
+                        () -> computeRevision(entry.getRevision(), entry.getAuthor())))));
+            }
+            for (Future<List<ChurnTable.Row>> future : futures) {
+                for (ChurnTable.Row row : future.get()) {
+                    table.add(row);
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SVNException) {
+                throw (SVNException) e.getCause();
+            }
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.UNKNOWN, e.getCause()), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, e), e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return table;
+    }
+
+    /**
+     * 统计单个版本的变更行数
+     *
+     * @param revision 版本号
+     * @param author   提交人
+     * @return 该版本中每个文件的变更行数
+     * @throws SVNException 异常
+     * @throws InterruptedException 等待会话时被中断
+     */
+    public List<ChurnTable.Row> computeRevision(long revision, String author) throws SVNException, InterruptedException {
+        // 两个会话同时借出,避免并行任务各持有一个而互相等待
+        SVNRepository[] repositories = pool.borrow(2);
+        SVNRepository repository = repositories[0];
+        SVNRepository baseRepository = repositories[1];
+        try {
+            List<ChurnTable.Row> rows = new ArrayList<>();
+            if (repository.checkPath("", revision) != SVNNodeKind.DIR) {
+                return rows;
+            }
+            long baseRevision = revision - 1;
+            boolean startEmpty = baseRevision < 0 || baseRepository.checkPath("", baseRevision) != SVNNodeKind.DIR;
+            ChurnEditor editor = new ChurnEditor(baseRepository, revision, baseRevision, author, rows);
+            ISVNReporterBaton reporter = new ISVNReporterBaton() {
+                @Override
+                public void report(ISVNReporter reporter) throws SVNException {
+                    reporter.setPath("", null, startEmpty ? revision : baseRevision, SVNDepth.INFINITY, startEmpty);
+                    reporter.finishReport();
+                }
+            };
+            repository.update(revision, null, SVNDepth.INFINITY, false, reporter, editor);
+            return rows;
+        } finally {
+            pool.release(baseRepository);
+            pool.release(repository);
+        }
+    }
+
+    /**
+     * 接收一个版本的变更,统计每个文件的新增、删除行数
+     */
+    private static class ChurnEditor implements ISVNEditor {
+        private final SVNRepository baseRepository;
+        private final long revision;
+        private final long baseRevision;
+        private final String author;
+        private final List<ChurnTable.Row> rows;
+        private final SVNDeltaProcessor deltaProcessor = new SVNDeltaProcessor();
+
+        private boolean fileAdded;
+        private boolean binary;
+        private byte[] baseContent;
+        private ByteArrayOutputStream newContent;
+
+        ChurnEditor(SVNRepository baseRepository, long revision, long baseRevision, String author, List<ChurnTable.Row> rows) {
+            this.baseRepository = baseRepository;
+            this.revision = revision;
+            this.baseRevision = baseRevision;
+            this.author = author;
+            this.rows = rows;
+        }
+
+        @Override
+        public void deleteEntry(String path, long revision) throws SVNException {
+            SVNNodeKind kind = baseRepository.checkPath(path, baseRevision);
+            if (kind == SVNNodeKind.FILE) {
+                deleteFile(path);
+            } else if (kind == SVNNodeKind.DIR) {
+                deleteDir(path);
+            }
+        }
+
+        private void deleteDir(String path) throws SVNException {
+            // 先取得全部子项再逐个处理,处理子项时会再次使用同一会话
+            List<SVNDirEntry> entries = new ArrayList<>();
+            baseRepository.getDir(path, baseRevision, null, entries::add);
+            for (SVNDirEntry entry : entries) {
+                String childPath = path + "/" + entry.getName();
+                if (entry.getKind() == SVNNodeKind.DIR) {
+                    deleteDir(childPath);
+                } else if (entry.getKind() == SVNNodeKind.FILE) {
+                    deleteFile(childPath);
+                }
+            }
+        }
+
+        private void deleteFile(String path) throws SVNException {
+            byte[] content = readBase(path);
+            if (content != null) {
+                rows.add(new ChurnTable.Row(revision, author, path, 'D', 0, LineDiff.countLines(content)));
+            }
+        }
+
+        /**
+         * 读取文件在上一版本的内容,二进制文件返回null
+         */
+        private byte[] readBase(String path) throws SVNException {
+            SVNProperties properties = new SVNProperties();
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            baseRepository.getFile(path, baseRevision, properties, os);
+            byte[] content = os.toByteArray();
+            if (SVNProperty.isBinaryMimeType(properties.getStringValue(SVNProperty.MIME_TYPE)) || LineDiff.isBinary(content)) {
+                return null;
+            }
+            return content;
+        }
+
+        @Override
+        public void addFile(String path, String copyFromPath, long copyFromRevision) {
+            fileAdded = true;
+            binary = false;
+            baseContent = new byte[0];
+            newContent = null;
+        }
+
+        @Override
+        public void openFile(String path, long revision) {
+            fileAdded = false;
+            binary = false;
+            baseContent = null;
+            newContent = null;
+        }
+
+        @Override
+        public void changeFileProperty(String path, String propertyName, SVNPropertyValue propertyValue) {
+            if (SVNProperty.MIME_TYPE.equals(propertyName)
+                    && SVNProperty.isBinaryMimeType(SVNPropertyValue.getPropertyAsString(propertyValue))) {
+                binary = true;
+            }
+        }
+
+        @Override
+        public void applyTextDelta(String path, String baseChecksum) throws SVNException {
+            // 属性变更先于文本增量发送,本版本设为二进制类型的文件不读取上一版本;
+            // 上一版本的内容只在收到文本增量时读取,只修改属性的文件不需要
+            if (!binary && !fileAdded) {
+                baseContent = readBase(path);
+                binary = baseContent == null;
+            }
+            if (binary) {
+                newContent = null;
+                return;
+            }
+            newContent = new ByteArrayOutputStream();
+            deltaProcessor.applyTextDelta(new ByteArrayInputStream(baseContent), newContent, false);
+        }
+
+        @Override
+        public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+            // 二进制文件不应用增量
+            return newContent == null ? SVNFileUtil.DUMMY_OUT : deltaProcessor.textDeltaChunk(diffWindow);
+        }
+
+        @Override
+        public void textDeltaEnd(String path) {
+            if (newContent != null) {
+                deltaProcessor.textDeltaEnd();
+            }
+        }
+
+        @Override
+        public void closeFile(String path, String textChecksum) {
+            // 只修改了属性的文件没有文本增量
+            if (newContent != null && !binary) {
+                byte[] content = newContent.toByteArray();
+                if (!LineDiff.isBinary(content)) {
+                    int[] counts = LineDiff.count(baseContent, content);
+                    rows.add(new ChurnTable.Row(revision, author, path, fileAdded ? 'A' : 'M', counts[0], counts[1]));
+                }
+            }
+            baseContent = null;
+            newContent = null;
+        }
+
+        @Override
+        public void targetRevision(long revision) {
+        }
+
+        @Override
+        public void openRoot(long revision) {
+        }
+
+        @Override
+        public void absentDir(String path) {
+        }
+
+        @Override
+        public void absentFile(String path) {
+        }
+
+        @Override
+        public void addDir(String path, String copyFromPath, long copyFromRevision) {
+        }
+
+        @Override
+        public void openDir(String path, long revision) {
+        }
+
+        @Override
+        public void changeDirProperty(String name, SVNPropertyValue value) {
+        }
+
+        @Override
+        public void closeDir() {
+        }
+
+        @Override
+        public SVNCommitInfo closeEdit() {
+            return null;
+        }
+
+        @Override
+        public void abortEdit() {
+        }
+    }
+}
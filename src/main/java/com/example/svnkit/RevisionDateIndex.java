@@ -0,0 +1,177 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNRevisionProperty;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * 版本号与提交时间的本地索引,用于代替 {@link SVNRepository#getDatedRevision(Date)} 的服务器请求
+ * <p>
+ * 以版本号为下标保存每个版本的提交时间(毫秒),按时间查版本号时在本地二分查找;
+ * 只有查询时间晚于索引中最新版本的时间时才向服务器增量获取新版本的时间
+ *
+ * @author dengzm
+ */
+public class RevisionDateIndex {
+
+    private static final int MAGIC = 0x53564E45;
+    private static final String[] DATE_PROPERTY = {SVNRevisionProperty.DATE};
+
+    private final File persistFile;
+    private final String uuid;
+    // dates[r] 为版本r的提交时间
+    private long[] dates = new long[0];
+    private long indexedRevision = -1;
+
+    /**
+     * @param persistFile 索引持久化文件,为null时只保存在内存中
+     * @param uuid        存储库UUID,文件中保存的索引属于其它存储库时丢弃
+     */
+    public RevisionDateIndex(File persistFile, String uuid) {
+        this.persistFile = persistFile;
+        this.uuid = uuid;
+        if (persistFile != null && persistFile.isFile()) {
+            load();
+        }
+    }
+
+    /**
+     * 获取指定时间时存储库中最新的版本号,语义与 {@link SVNRepository#getDatedRevision(Date)} 一致
+     *
+     * @param repository 存储库根路径的svn会话
+     * @param date       时间
+     * @return 版本号
+     * @throws SVNException 异常
+     */
+    public synchronized long getDatedRevision(SVNRepository repository, Date date) throws SVNException {
+        return getDatedRevisions(repository, date)[0];
+    }
+
+    /**
+     * 批量获取多个时间对应的版本号,最多只向服务器请求一次
+     *
+     * @param repository 存储库根路径的svn会话
+     * @param dates      时间
+     * @return 与时间一一对应的版本号
+     * @throws SVNException 异常
+     */
+    public synchronized long[] getDatedRevisions(SVNRepository repository, Date... dates) throws SVNException {
+        long max = Long.MIN_VALUE;
+        for (Date date : dates) {
+            max = Math.max(max, date.getTime());
+        }
+        // 只要查询时间早于已索引的最新版本时间,之后的新版本就不会影响结果,无需访问服务器
+        if (indexedRevision < 0 || max >= this.dates[(int) indexedRevision]) {
+            refresh(repository);
+        }
+        long[] revisions = new long[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            revisions[i] = search(dates[i].getTime());
+        }
+        return revisions;
+    }
+
+    /**
+     * 从服务器增量获取索引之后新增版本的提交时间
+     *
+     * @param repository 存储库根路径的svn会话
+     * @throws SVNException 异常
+     */
+    public synchronized void refresh(SVNRepository repository) throws SVNException {
+        long latest = repository.getLatestRevision();
+        if (latest <= indexedRevision) {
+            return;
+        }
+        long[] grown = Arrays.copyOf(dates, (int) latest + 1);
+        long from = indexedRevision + 1;
+        Arrays.fill(grown, (int) from, grown.length, -1);
+        repository.log(new String[]{""}, from, latest, false, false, 0, false, DATE_PROPERTY, logEntry -> {
+            if (logEntry.getDate() != null) {
+                grown[(int) logEntry.getRevision()] = logEntry.getDate().getTime();
+            }
+        });
+        // 未返回时间的版本(如空提交)沿用前一个版本的时间,保证数组有序
+        for (int r = (int) from; r < grown.length; r++) {
+            if (grown[r] < 0) {
+                grown[r] = r > 0 ? grown[r - 1] : 0;
+            }
+        }
+        dates = grown;
+        indexedRevision = latest;
+        if (persistFile != null) {
+            save();
+        }
+    }
+
+    /**
+     * @return 已索引的最新版本号,未索引时为-1
+     */
+    public synchronized long getIndexedRevision() {
+        return indexedRevision;
+    }
+
+    /**
+     * 提交时间不晚于time的最大版本号
+     */
+    private long search(long time) {
+        int low = 0;
+        int high = (int) indexedRevision;
+        if (high < 0 || time < dates[0]) {
+            return 0;
+        }
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (dates[mid] <= time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(persistFile)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(uuid)) {
+                return;
+            }
+            int count = in.readInt();
+            long[] loaded = new long[count];
+            for (int i = 0; i < count; i++) {
+                loaded[i] = in.readLong();
+            }
+            dates = loaded;
+            indexedRevision = count - 1;
+        } catch (IOException e) {
+            // 索引文件损坏时丢弃,重新从服务器获取
+            e.printStackTrace();
+        }
+    }
+
+    private void save() {
+        Path target = persistFile.toPath();
+        try {
+            Path parent = target.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, persistFile.getName(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(uuid);
+                out.writeInt(dates.length);
+                for (long date : dates) {
+                    out.writeLong(date);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
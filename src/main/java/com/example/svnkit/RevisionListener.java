@@ -0,0 +1,30 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntry;
+
+import java.util.List;
+
+/**
+ * 持续统计新版本时的事件监听器,在统计线程中按版本号顺序调用
+ *
+ * @author dengzm
+ */
+public interface RevisionListener {
+
+    /**
+     * 一个新版本已计入统计
+     *
+     * @param logEntry 提交记录
+     * @param rows     该版本中各文件的变更行数,没有变更项目目录下的文本文件时为空
+     */
+    void revisionProcessed(SVNLogEntry logEntry, List<ChurnTable.Row> rows);
+
+    /**
+     * 定时或钩子触发的统计失败,下次触发时从上次成功的版本之后重新统计
+     *
+     * @param e 异常
+     */
+    default void pollFailed(SVNException e) {
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.svnkit;
+
+import com.sun.net.httpserver.HttpServer;
+import org.joda.time.LocalDate;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntry;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 持续统计存储库的新版本,维护按天、提交人、路径累计的变更行数 {@link ChurnAggregates},任意时间段的统计直接从累计结果中查询
+ * <p>
+ * 每次只统计上次统计之后的新版本,可以定时检查最新版本号({@link #start}),也可以由存储库的post-commit钩子
+ * 通过本地地址触发({@link #startHookServer}),例如钩子脚本中执行 curl -s -X POST http://127.0.0.1:端口/commit ;
+ * 每批版本统计完后保存状态文件,重启后从上次统计的版本之后继续; 没有状态时从构造时指定的起始版本开始,默认只统计之后的新版本
+ *
+ * @author dengzm
+ */
+public class RevisionWatcher implements AutoCloseable {
+
+    private static final int MAGIC = 0x53564E57;
+    /**
+     * 每批统计的最大版本数,每批完成后保存一次状态
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final SVNManager manager;
+    private final File stateFile;
+    private final long startRevision;
+    private ChurnAggregates aggregates = new ChurnAggregates();
+    private final List<RevisionListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "svn-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * 是否已有等待执行的触发,统计期间的多次触发合并为一次
+     */
+    private final AtomicBoolean triggered = new AtomicBoolean();
+    private final Object hookLock = new Object();
+    private HttpServer hookServer;
+
+    /**
+     * 没有状态时从第一次统计时的最新版本之后开始,只统计之后的新版本
+     *
+     * @param manager   已连接存储库的SVNManager
+     * @param stateFile 状态文件,为null时只保存在内存中;文件中的项目地址与manager不同时丢弃原有状态
+     */
+    public RevisionWatcher(SVNManager manager, File stateFile) {
+        this(manager, stateFile, -1);
+    }
+
+    /**
+     * @param manager       已连接存储库的SVNManager
+     * @param stateFile     状态文件,为null时只保存在内存中;文件中的项目地址与manager不同时丢弃原有状态
+     * @param startRevision 没有状态时统计的起始版本(包含),如0为统计全部历史; 小于0时从第一次统计时的最新版本之后开始。
+     *                      已有状态时从上次统计的版本之后继续,忽略该参数
+     */
+    public RevisionWatcher(SVNManager manager, File stateFile, long startRevision) {
+        this.manager = manager;
+        this.stateFile = stateFile;
+        this.startRevision = startRevision;
+        if (stateFile != null && stateFile.isFile()) {
+            load();
+        }
+    }
+
+    public void addListener(RevisionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(RevisionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return 累计结果,可以在统计过程中随时查询
+     */
+    public ChurnAggregates getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * 在后台线程中立即统计一次,之后每隔一段时间检查并统计新版本
+     *
+     * @param interval 间隔
+     * @param unit     间隔单位
+     */
+    public void start(long interval, TimeUnit unit) {
+        executor.scheduleWithFixedDelay(this::pollQuietly, 0, interval, unit);
+    }
+
+    /**
+     * 启动只接受本机请求的HTTP服务,收到 POST /commit 请求时在后台线程中统计新版本,其它请求方法返回405
+     *
+     * @param port 端口,为0时自动选择
+     * @return 实际监听的端口
+     * @throws SVNException 异常
+     */
+    public int startHookServer(int port) throws SVNException {
+        synchronized (hookLock) {
+            if (hookServer != null) {
+                return hookServer.getAddress().getPort();
+            }
+            try {
+                HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+                server.createContext("/commit", exchange -> {
+                    if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                        trigger();
+                        exchange.sendResponseHeaders(202, -1);
+                    } else {
+                        exchange.getResponseHeaders().set("Allow", "POST");
+                        exchange.sendResponseHeaders(405, -1);
+                    }
+                    exchange.close();
+                });
+                server.start();
+                hookServer = server;
+                return server.getAddress().getPort();
+            } catch (IOException e) {
+                throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+            }
+        }
+    }
+
+    /**
+     * 在后台线程中统计新版本,已有等待执行的统计时忽略
+     */
+    public void trigger() {
+        if (!executor.isShutdown() && triggered.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                triggered.set(false);
+                pollQuietly();
+            });
+        }
+    }
+
+    /**
+     * 在当前线程中统计上次统计之后的全部新版本
+     *
+     * @return 统计的版本数(只计项目目录有变更的版本)
+     * @throws SVNException 异常
+     */
+    public synchronized int poll() throws SVNException {
+        long latest = manager.getLatestRevision();
+        if (aggregates.getRevision() < 0) {
+            // 第一次统计,之前的版本视为已统计
+            aggregates.setRevision(startRevision < 0 ? latest : startRevision - 1);
+        }
+        int count = 0;
+        while (aggregates.getRevision() < latest) {
+            long start = aggregates.getRevision() + 1;
+            long end = Math.min(latest, start + BATCH_SIZE - 1);
+            List<SVNLogEntry> entries = new ArrayList<>();
+            manager.forEachLog(start, end, null, false, entries::add);
+            Map<Long, List<ChurnTable.Row>> rows = new HashMap<>();
+            for (ChurnTable.Row row : manager.getRevisionChurn(entries).getRows()) {
+                rows.computeIfAbsent(row.getRevision(), key -> new ArrayList<>()).add(row);
+            }
+            entries.sort(Comparator.comparingLong(SVNLogEntry::getRevision));
+            for (SVNLogEntry entry : entries) {
+                List<ChurnTable.Row> revisionRows = rows.getOrDefault(entry.getRevision(), Collections.emptyList());
+                if (entry.getDate() != null) {
+                    LocalDate day = LocalDate.fromDateFields(entry.getDate());
+                    for (ChurnTable.Row row : revisionRows) {
+                        aggregates.add(day, row);
+                    }
+                }
+            }
+            aggregates.setRevision(end);
+            if (stateFile != null) {
+                save();
+            }
+            // 状态保存后再通知,监听器出错不影响统计
+            for (SVNLogEntry entry : entries) {
+                List<ChurnTable.Row> revisionRows = rows.getOrDefault(entry.getRevision(), Collections.emptyList());
+                for (RevisionListener listener : listeners) {
+                    try {
+                        listener.revisionProcessed(entry, revisionRows);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            count += entries.size();
+        }
+        return count;
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (SVNException e) {
+            if (listeners.isEmpty()) {
+                e.printStackTrace();
+            }
+            for (RevisionListener listener : listeners) {
+                try {
+                    listener.pollFailed(e);
+                } catch (RuntimeException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        } catch (RuntimeException e) {
+            // 定时任务抛出异常后不会再执行,这里吞掉以便下次继续统计
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 停止定时统计及HTTP服务,中断正在进行的统计(已保存的批次不受影响)
+     */
+    @Override
+    public void close() {
+        synchronized (hookLock) {
+            if (hookServer != null) {
+                hookServer.stop(0);
+                hookServer = null;
+            }
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(manager.getUrl())) {
+                return;
+            }
+            ChurnAggregates loaded = new ChurnAggregates();
+            loaded.read(in);
+            aggregates = loaded;
+        } catch (IOException e) {
+            // 状态文件损坏时丢弃,重新统计
+            e.printStackTrace();
+        }
+    }
+
+    private void save() {
+        Path target = stateFile.toPath();
+        try {
+            Path parent = target.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, stateFile.getName(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeUTF(manager.getUrl());
+                    aggregates.write(out);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
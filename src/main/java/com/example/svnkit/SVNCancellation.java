@@ -0,0 +1,191 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.SVNCancelException;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.wc.ISVNEventHandler;
+import org.tmatesoft.svn.core.wc.SVNEvent;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 一次调用的取消标记,调用执行期间绑定到执行线程; 调用提交到线程池的并行任务需用 {@link #propagate(Callable)} 包装,
+ * 任务执行期间绑定同一标记。标记不随线程创建继承,线程池的线程被复用时不会带着已结束调用的标记
+ * <p>
+ * 调用期间借用的svn会话(包括svn客户端通过 {@link ClientRepositoryPool} 借用的)登记到该标记上,并以它作为取消检查器;
+ * 取消时除设置标记外还会关闭这些会话的连接(阻塞在网络读写上的请求立即失败)并中断执行线程,
+ * 使服务器端的请求真正中止,而不只是丢弃结果
+ *
+ * @author dengzm
+ */
+public class SVNCancellation implements ISVNEventHandler {
+
+    private static final ThreadLocal<SVNCancellation> CURRENT = new ThreadLocal<>();
+
+    private final Map<Object, Runnable> resources = new IdentityHashMap<>();
+    private volatile boolean cancelled;
+    private Thread thread;
+
+    /**
+     * @return 当前线程正在执行的调用的取消标记,没有时为null
+     */
+    public static SVNCancellation current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前调用已取消时抛出异常
+     *
+     * @throws SVNCancelException 已取消
+     */
+    public static void checkCurrent() throws SVNCancelException {
+        SVNCancellation cancellation = CURRENT.get();
+        if (cancellation != null) {
+            cancellation.checkCancelled();
+        }
+    }
+
+    /**
+     * 包装当前调用提交到线程池的任务,任务执行期间绑定当前调用的取消标记(不替换调用的执行线程,取消时由调用负责中止线程池)
+     *
+     * @param task 任务
+     * @param <T>  返回值类型
+     * @return 包装后的任务,当前线程没有取消标记时为原任务
+     */
+    static <T> Callable<T> propagate(Callable<T> task) {
+        SVNCancellation cancellation = CURRENT.get();
+        if (cancellation == null) {
+            return task;
+        }
+        return () -> {
+            SVNCancellation previous = CURRENT.get();
+            CURRENT.set(cancellation);
+            try {
+                cancellation.checkCancelled();
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * @see #propagate(Callable)
+     */
+    static Runnable propagate(Runnable task) {
+        SVNCancellation cancellation = CURRENT.get();
+        if (cancellation == null) {
+            return task;
+        }
+        return () -> {
+            SVNCancellation previous = CURRENT.get();
+            CURRENT.set(cancellation);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(SVNCancellation previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 将标记绑定到当前线程,之后借用的会话都登记到该标记上
+     */
+    synchronized void enter() {
+        CURRENT.set(this);
+        thread = Thread.currentThread();
+    }
+
+    /**
+     * 解除与当前线程的绑定,并清除取消时设置的中断状态(线程可能被线程池复用)
+     */
+    void exit() {
+        synchronized (this) {
+            thread = null;
+            resources.clear();
+        }
+        CURRENT.remove();
+        Thread.interrupted();
+    }
+
+    /**
+     * 登记调用期间使用的资源,取消时执行其中止操作
+     *
+     * @param resource 资源(如svn会话)
+     * @param abort    中止操作(如关闭连接)
+     */
+    void attach(Object resource, Runnable abort) throws SVNCancelException {
+        synchronized (this) {
+            if (!cancelled) {
+                resources.put(resource, abort);
+                return;
+            }
+        }
+        throw cancelException();
+    }
+
+    /**
+     * 资源使用完毕,取消登记
+     *
+     * @param resource 资源
+     */
+    synchronized void detach(Object resource) {
+        resources.remove(resource);
+    }
+
+    /**
+     * 取消调用: 关闭登记的会话连接并中断执行线程,重复调用无影响
+     */
+    public void cancel() {
+        List<Runnable> aborts;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            aborts = new ArrayList<>(resources.values());
+            resources.clear();
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+        for (Runnable abort : aborts) {
+            try {
+                abort.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void checkCancelled() throws SVNCancelException {
+        if (cancelled) {
+            throw cancelException();
+        }
+    }
+
+    @Override
+    public void handleEvent(SVNEvent event, double progress) {
+    }
+
+    private static SVNCancelException cancelException() {
+        return new SVNCancelException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, "操作已取消"));
+    }
+}
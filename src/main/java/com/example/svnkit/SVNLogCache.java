@@ -0,0 +1,472 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 本地提交记录缓存,以追加方式将提交记录保存到磁盘,查询时只从服务器获取缓存中没有的新版本
+ * <p>
+ * 文件格式: 文件头(魔数) + 若干条记录, 每条记录为 [varint 长度][内容][CRC32],内容的第一个字节为记录类型:
+ * <ul>
+ *     <li>'S' 字符串字典(路径、用户名),编号按出现顺序递增</li>
+ *     <li>'E' 提交记录,版本号以与上一条记录的差值保存</li>
+ *     <li>'H' 已同步到的版本号</li>
+ * </ul>
+ * 打开时逐条校验记录,遇到不完整或校验失败的记录(写入过程中崩溃)即从该处截断文件
+ *
+ * @author dengzm
+ */
+public class SVNLogCache implements Closeable {
+
+    private static final byte[] MAGIC = "SVNLOGC1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte RECORD_STRING = 'S';
+    private static final byte RECORD_ENTRY = 'E';
+    private static final byte RECORD_SYNCED = 'H';
+    private static final int MAX_MAP_SIZE = 256 * 1024 * 1024;
+    private static final SVNNodeKind[] KINDS = {SVNNodeKind.UNKNOWN, SVNNodeKind.NONE, SVNNodeKind.FILE, SVNNodeKind.DIR};
+
+    private final Path file;
+    private final FileChannel channel;
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(4096);
+    // 提交记录的版本号及其在文件中的起止位置,按版本号升序
+    private long[] revisions = new long[1024];
+    private long[] starts = new long[1024];
+    private long[] ends = new long[1024];
+    private int size;
+    private long lastRevision = -1;
+    private long syncedRevision = -1;
+    private long writePosition;
+
+    private SVNLogCache(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+    }
+
+    /**
+     * 打开(不存在时创建)指定存储库路径的提交记录缓存
+     *
+     * @param cacheDir 缓存目录
+     * @param uuid     存储库UUID
+     * @param url      查询提交记录的svn地址
+     * @return 提交记录缓存
+     * @throws IOException 读写缓存文件失败
+     */
+    public static SVNLogCache open(File cacheDir, String uuid, SVNURL url) throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        String name = "svn_log_" + uuid + "_" + digest(url.toString()) + ".cache";
+        return new SVNLogCache(cacheDir.toPath().resolve(name));
+    }
+
+    /**
+     * 从服务器获取缓存中没有的新版本提交记录并追加到缓存
+     *
+     * @param repository 与缓存地址对应的svn会话
+     * @return 新增的提交记录数
+     * @throws SVNException 异常
+     */
+    public synchronized long sync(SVNRepository repository) throws SVNException {
+        long latest = repository.getLatestRevision();
+        if (latest <= syncedRevision) {
+            return 0;
+        }
+        long count;
+        try {
+            count = repository.log(new String[]{""}, syncedRevision + 1, latest, true, true, logEntry -> {
+                try {
+                    append(logEntry);
+                } catch (IOException e) {
+                    throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+                }
+            });
+            writeSynced(latest);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+        }
+        return count;
+    }
+
+    /**
+     * 从缓存中查询版本区间内的提交记录
+     *
+     * @param startVersion         开始版本号
+     * @param endVersion           结束版本号(大于开始版本号时按升序返回,否则按降序返回)
+     * @param discoverChangedPaths 是否需要每次提交变更的文件,不需要时跳过解码,返回的记录中变更文件为空
+     * @param handler              提交记录处理器
+     * @throws SVNException 异常
+     */
+    public synchronized void forEachLog(long startVersion, long endVersion, boolean discoverChangedPaths,
+                                        ISVNLogEntryHandler handler) throws SVNException {
+        boolean ascending = startVersion <= endVersion;
+        int from = lowerBound(Math.min(startVersion, endVersion));
+        int to = lowerBound(Math.max(startVersion, endVersion) + 1) - 1;
+        if (from > to) {
+            return;
+        }
+        // 按不超过MAX_MAP_SIZE的区段映射文件,区段内按顺序解码
+        List<int[]> segments = new ArrayList<>();
+        for (int i = from; i <= to; ) {
+            int j = i;
+            while (j < to && ends[j + 1] - starts[i] <= MAX_MAP_SIZE) {
+                j++;
+            }
+            segments.add(new int[]{i, j});
+            i = j + 1;
+        }
+        if (!ascending) {
+            Collections.reverse(segments);
+        }
+        try {
+            for (int[] segment : segments) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, starts[segment[0]], ends[segment[1]] - starts[segment[0]]);
+                int count = segment[1] - segment[0] + 1;
+                for (int k = 0; k < count; k++) {
+                    int i = ascending ? segment[0] + k : segment[1] - k;
+                    buffer.position((int) (starts[i] - starts[segment[0]]));
+                    handler.handleLogEntry(readEntry(buffer, revisions[i], discoverChangedPaths));
+                }
+            }
+        } catch (IOException e) {
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+        }
+    }
+
+    /**
+     * @return 已同步到的版本号,未同步过时为-1
+     */
+    public synchronized long getSyncedRevision() {
+        return syncedRevision;
+    }
+
+    /**
+     * @return 缓存中的提交记录数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void load() throws IOException {
+        long length = channel.size();
+        if (length < MAGIC.length) {
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(MAGIC), 0);
+            writePosition = MAGIC.length;
+            return;
+        }
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+        channel.read(magic, 0);
+        if (!Arrays.equals(magic.array(), MAGIC)) {
+            throw new IOException("不是有效的提交记录缓存文件: " + file);
+        }
+        long position = MAGIC.length;
+        long valid = position;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file.toFile()), 64 * 1024))) {
+            in.skipBytes(MAGIC.length);
+            while (position < length) {
+                long recordStart = position;
+                long payloadLength = readVarLong(in, length - position);
+                if (payloadLength < 1 || payloadLength > Integer.MAX_VALUE) {
+                    break;
+                }
+                position += varLongSize(payloadLength);
+                if (position + payloadLength + 4 > length) {
+                    break;
+                }
+                byte[] payload = new byte[(int) payloadLength];
+                in.readFully(payload);
+                int checksum = in.readInt();
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                position += payloadLength + 4;
+                applyRecord(ByteBuffer.wrap(payload), recordStart, position);
+                valid = position;
+            }
+        }
+        if (valid < length) {
+            // 最后一条记录不完整,说明上次写入时中断,截断到最后一条完整的记录
+            channel.truncate(valid);
+        }
+        writePosition = valid;
+    }
+
+    private void applyRecord(ByteBuffer payload, long start, long end) {
+        byte type = payload.get();
+        if (type == RECORD_STRING) {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            dictionaryIds.put(value, dictionary.size());
+            dictionary.add(value);
+        } else if (type == RECORD_ENTRY) {
+            lastRevision += getVarLong(payload);
+            addIndex(lastRevision, start, end);
+        } else if (type == RECORD_SYNCED) {
+            syncedRevision = getVarLong(payload);
+        }
+    }
+
+    private void append(SVNLogEntry logEntry) throws IOException {
+        if (logEntry.getRevision() <= lastRevision) {
+            return;
+        }
+        int authorId = intern(logEntry.getAuthor());
+        Map<String, SVNLogEntryPath> changedPaths = logEntry.getChangedPaths();
+        int[] pathIds = new int[changedPaths.size() * 2];
+        int p = 0;
+        for (SVNLogEntryPath entryPath : changedPaths.values()) {
+            pathIds[p++] = intern(entryPath.getPath());
+            pathIds[p++] = intern(entryPath.getCopyPath());
+        }
+        byte[] message = logEntry.getMessage() == null ? null : logEntry.getMessage().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = beginRecord(RECORD_ENTRY);
+        buffer = putVarLong(buffer, logEntry.getRevision() - lastRevision);
+        buffer = putVarLong(buffer, logEntry.getDate() == null ? 0 : logEntry.getDate().getTime() + 1);
+        buffer = putVarLong(buffer, authorId);
+        buffer = putBytes(buffer, message);
+        buffer = putVarLong(buffer, changedPaths.size());
+        p = 0;
+        for (SVNLogEntryPath entryPath : changedPaths.values()) {
+            buffer = ensure(buffer, 2);
+            buffer.put((byte) entryPath.getType());
+            buffer.put((byte) kindIndex(entryPath.getKind()));
+            buffer = putVarLong(buffer, pathIds[p++]);
+            buffer = putVarLong(buffer, pathIds[p++]);
+            buffer = putVarLong(buffer, entryPath.getCopyRevision() + 1);
+        }
+        long start = writePosition;
+        writeRecord(buffer);
+        lastRevision = logEntry.getRevision();
+        addIndex(lastRevision, start, writePosition);
+    }
+
+    private void writeSynced(long revision) throws IOException {
+        ByteBuffer buffer = beginRecord(RECORD_SYNCED);
+        writeRecord(putVarLong(buffer, revision));
+        syncedRevision = revision;
+    }
+
+    /**
+     * 获取字符串在字典中的编号(从1开始,0表示null),新字符串先写入一条字典记录
+     */
+    private int intern(String value) throws IOException {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = dictionaryIds.get(value);
+        if (id == null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ensure(beginRecord(RECORD_STRING), bytes.length);
+            buffer.put(bytes);
+            writeRecord(buffer);
+            id = dictionary.size();
+            dictionaryIds.put(value, id);
+            dictionary.add(value);
+        }
+        return id + 1;
+    }
+
+    private SVNLogEntry readEntry(ByteBuffer buffer, long revision, boolean discoverChangedPaths) {
+        getVarLong(buffer);
+        buffer.get();
+        getVarLong(buffer);
+        long time = getVarLong(buffer);
+        String author = lookup(getVarLong(buffer));
+        String message = getString(buffer);
+        int count = discoverChangedPaths ? (int) getVarLong(buffer) : 0;
+        Map<String, SVNLogEntryPath> changedPaths = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            char type = (char) buffer.get();
+            SVNNodeKind kind = KINDS[buffer.get()];
+            String path = lookup(getVarLong(buffer));
+            String copyPath = lookup(getVarLong(buffer));
+            long copyRevision = getVarLong(buffer) - 1;
+            changedPaths.put(path, new SVNLogEntryPath(path, type, copyPath, copyRevision, kind));
+        }
+        return new SVNLogEntry(changedPaths, revision, author, time == 0 ? null : new Date(time - 1), message);
+    }
+
+    private String lookup(long id) {
+        return id == 0 ? null : dictionary.get((int) id - 1);
+    }
+
+    private ByteBuffer beginRecord(byte type) {
+        recordBuffer.clear();
+        recordBuffer.put(type);
+        return recordBuffer;
+    }
+
+    private void writeRecord(ByteBuffer payload) throws IOException {
+        payload.flip();
+        crc.reset();
+        crc.update(payload.array(), 0, payload.limit());
+        ByteBuffer record = ByteBuffer.allocate(varLongSize(payload.limit()) + payload.limit() + 4);
+        writeVarLong(record, payload.limit());
+        record.put(payload.array(), 0, payload.limit());
+        record.putInt((int) crc.getValue());
+        record.flip();
+        while (record.hasRemaining()) {
+            writePosition += channel.write(record, writePosition);
+        }
+    }
+
+    private ByteBuffer ensure(ByteBuffer buffer, int required) {
+        if (buffer.remaining() < required) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + required));
+            buffer.flip();
+            larger.put(buffer);
+            recordBuffer = larger;
+            return larger;
+        }
+        return buffer;
+    }
+
+    private ByteBuffer putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            return putVarLong(buffer, 0);
+        }
+        buffer = putVarLong(buffer, bytes.length + 1L);
+        buffer = ensure(buffer, bytes.length);
+        buffer.put(bytes);
+        return buffer;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        long length = getVarLong(buffer);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) length - 1];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer putVarLong(ByteBuffer buffer, long value) {
+        buffer = ensure(buffer, 10);
+        writeVarLong(buffer, value);
+        return buffer;
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long readVarLong(DataInputStream in, long available) throws IOException {
+        long value = 0;
+        int shift = 0;
+        for (int i = 0; i < available && shift < 64; i++) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+        return -1;
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private void addIndex(long revision, long start, long end) {
+        if (size == revisions.length) {
+            revisions = Arrays.copyOf(revisions, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        revisions[size] = revision;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /**
+     * 第一个版本号不小于revision的记录下标
+     */
+    private int lowerBound(long revision) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (revisions[mid] < revision) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int kindIndex(SVNNodeKind kind) {
+        for (int i = 0; i < KINDS.length; i++) {
+            if (KINDS[i] == kind) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                builder.append(String.format("%02x", hash[i]));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
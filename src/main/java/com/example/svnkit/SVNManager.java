@@ -4,167 +4,1341 @@ import org.joda.time.LocalDateTime;
 import org.tmatesoft.svn.core.*;
 import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
 import org.tmatesoft.svn.core.internal.wc.DefaultSVNOptions;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.internal.wc2.ng.SvnNewDiffGenerator;
 import org.tmatesoft.svn.core.io.SVNRepository;
-import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.ISVNRepositoryPool;
+import org.tmatesoft.svn.core.wc.SVNBasicClient;
 import org.tmatesoft.svn.core.wc.SVNDiffClient;
 import org.tmatesoft.svn.core.wc.SVNLogClient;
 import org.tmatesoft.svn.core.wc.SVNRevision;
 import org.tmatesoft.svn.core.wc.SVNWCUtil;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
  * 该件提供 SVN 管理及相关应用的功能
+ * <p>
+ * 连接创建后可以被多个线程同时使用: 每个操作从 {@link SVNSessionManager} 借用独立的svn会话,完成后归还
  *
  * @author dengzm
  */
 public class SVNManager {
 
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    /**
+     * 自行创建会话管理器时每个地址的最大会话数
+     */
+    private static final int DEFAULT_MAX_SESSIONS = 8;
     boolean readonly = true;
-    private final String tempDir = System.getProperty("java.io.tmpdir");
     private final DefaultSVNOptions options = SVNWCUtil.createDefaultOptions(readonly);
-    private final Random random = new Random();
-    private SVNDiffClient diffClient;
-    private SVNRepository repository;
+    private SVNSessionManager sessionManager;
+    /**
+     * 会话管理器是否由本对象创建(关闭连接时一并关闭)
+     */
+    private boolean ownSessionManager;
     private ISVNAuthenticationManager authManager;
     private String url = null;
-    private SVNLogClient logClient;
     private SVNURL rootUrl;
     private SVNURL projectUrl;
+    /**
+     * 生成比较日志时并行比较的文件数(每个线程独占一个svn会话),小于等于1时逐个文件比较
+     */
+    private volatile int diffConcurrency = 1;
+    /**
+     * 比较日志及并行比较时各文件中间结果的临时文件目录,为null时使用系统临时目录
+     */
+    private volatile File tempDir;
+    /**
+     * 分批查询提交记录时每次请求返回的最大记录数
+     */
+    private volatile int logWindowSize = 1000;
+    /**
+     * 统计各版本代码变更行数时并行处理的版本数
+     */
+    private volatile int churnConcurrency = 4;
+    /**
+     * 文件内容缓存,未启用时为null
+     */
+    private volatile FileContentCache fileContentCache;
+    /**
+     * 递归列出目录时并行请求的目录数
+     */
+    private volatile int listConcurrency = 4;
+    /**
+     * 比较发布包时缓存文件清单的目录,未启用时为null
+     */
+    private volatile File manifestCacheDir;
+    /**
+     * 本地提交记录缓存,未启用时为null
+     */
+    private volatile SVNLogCache logCache;
+    /**
+     * 版本号与提交时间的本地索引,未启用时为null
+     */
+    private volatile RevisionDateIndex revisionDateIndex;
+    /**
+     * 各操作的耗时、出错次数及网络流量统计
+     */
+    private volatile SVNMetrics metrics = new SVNMetrics();
+    /**
+     * 内存中的提交记录索引,未启用时为null
+     */
+    private volatile CommitIndex commitIndex;
+    /**
+     * 逐行追溯时并行处理的文件数
+     */
+    private volatile int annotateConcurrency = 4;
+    /**
+     * 逐行追溯结果缓存
+     */
+    private final AnnotationCache annotationCache = new AnnotationCache(10000);
+    /**
+     * 生成比较日志前的文件过滤规则,未设置时为null(全部比较)
+     */
+    private volatile DiffFilter diffFilter;
+    /**
+     * 生成比较日志的断点记录,未启用时为null
+     */
+    private volatile ChangeLogCheckpoint changeLogCheckpoint;
+    /**
+     * 启用断点记录时单个文件因连接问题比较失败的最大尝试次数及第一次重试前的等待时间(毫秒),之后每次加倍
+     */
+    private volatile int diffRetryAttempts = 3;
+    private volatile long diffRetryBackoff = 1000;
+
+    /**
+     * 连接到svn存储库
+     *
+     * @param url      存储库地址
+     * @param username 用户名
+     * @param password 密码
+     */
+    public void createSession(String url, String username, String password) throws SVNException {
+        // 设定登录svn存储库的用户名和密码
+        SVNSessionManager sessionManager = new SVNSessionManager(username, password, DEFAULT_MAX_SESSIONS);
+        try {
+            createSession(sessionManager, url);
+        } catch (SVNException | RuntimeException e) {
+            sessionManager.close();
+            throw e;
+        }
+        ownSessionManager = true;
+    }
+
+    /**
+     * 使用共享的会话管理器连接到svn存储库,多个SVNManager可以共用同一个会话管理器中的连接
+     *
+     * @param sessionManager 会话管理器
+     * @param url            存储库地址
+     */
+    public void createSession(SVNSessionManager sessionManager, String url) throws SVNException {
+        options.setDiffCommand("-x -w");
+        this.sessionManager = sessionManager;
+        this.authManager = sessionManager.getAuthManager();
+        projectUrl = SVNURL.parseURIEncoded(url);
+        // 第一次连接该地址时查询存储库根地址(同时测试是否可以正常连接),之后直接使用缓存
+        rootUrl = sessionManager.getRepositoryRoot(projectUrl);
+        this.url = url;
+    }
+
+    /**
+     * @return 连接的项目地址,未连接时为null
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * 借用项目地址的svn会话执行操作,并记录操作的耗时及流量
+     */
+    private <T> T execute(String operation, SVNSessionManager.SessionCallback<T> callback) throws SVNException {
+        return execute(operation, projectUrl, callback);
+    }
+
+    private <T> T execute(String operation, SVNURL url, SVNSessionManager.SessionCallback<T> callback) throws SVNException {
+        SVNMetrics metrics = this.metrics;
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            T result = sessionManager.execute(url, callback);
+            failed = false;
+            return result;
+        } finally {
+            metrics.end(operation, start, failed);
+        }
+    }
+
+    /**
+     * 根据起始结束时间及操作人用户名查询提交记录
+     *
+     * @param beginDateTime 开始时间
+     * @param endDateTime   结束时间
+     * @return 提交记录对象集合
+     * @throws SVNException 异常
+     */
+    public List<SVNLogEntry> getLogs(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author) throws SVNException {
+        long[] versions = getDatedRevisions(beginDateTime, endDateTime);
+        long startVersion = versions[0];
+        long endVersion = versions[1] + 1;
+        List<SVNLogEntry> logs = new ArrayList<>();
+        CommitIndex index = getCommitIndex();
+        if (author != null && index != null && index.query().revisions(startVersion, endVersion).authors(author).count() == 0) {
+            // 该用户在这段时间内没有提交,不再请求服务器
+            return logs;
+        }
+        forEachLog(startVersion, endVersion, author, true, logs::add);
+        logs.sort(Comparator.comparing(SVNLogEntry::getDate));
+        return logs;
+    }
+
+    /**
+     * 据起始结束日查询提交记录
+     *
+     * @param beginDateTime 开始时间
+     * @param endDateTime   结束时间
+     * @return 提交记录对象集合
+     * @throws SVNException 异常
+     */
+    public List<SVNLogEntry> getLogs(LocalDateTime beginDateTime, LocalDateTime endDateTime) throws SVNException {
+        long[] versions = getDatedRevisions(beginDateTime, endDateTime);
+        long startVersion = versions[0];
+        long endVersion = versions[1] + 1;
+        return getLogs(startVersion, endVersion);
+    }
+
+    /**
+     * 据起始结束日查询提交记录
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @return 提交记录对象集合
+     * @throws SVNException 异常
+     */
+    public List<SVNLogEntry> getLogs(long startVersion, long endVersion) throws SVNException {
+        List<SVNLogEntry> logs = new ArrayList<>();
+        forEachLog(startVersion, endVersion, null, true, logs::add);
+        return logs;
+    }
+
+    /**
+     * 分批查询提交记录,每条记录到达时即交给处理器,不在内存中保留整个结果集
+     *
+     * @param startVersion         开始版本号
+     * @param endVersion           结束版本号
+     * @param author               用户名,为null时不过滤
+     * @param discoverChangedPaths 是否需要获取每次提交变更的文件
+     * @param handler              提交记录处理器
+     * @throws SVNException 异常
+     */
+    public void forEachLog(long startVersion, long endVersion, String author, boolean discoverChangedPaths,
+                           ISVNLogEntryHandler handler) throws SVNException {
+        forEachLog(startVersion, endVersion, author, discoverChangedPaths, logWindowSize, handler);
+    }
+
+    /**
+     * 分批查询提交记录,每条记录到达时即交给处理器,不在内存中保留整个结果集
+     *
+     * @param startVersion         开始版本号
+     * @param endVersion           结束版本号
+     * @param author               用户名,为null时不过滤
+     * @param discoverChangedPaths 是否需要获取每次提交变更的文件
+     * @param windowSize           每次请求返回的最大记录数
+     * @param handler              提交记录处理器
+     * @throws SVNException 异常
+     */
+    public void forEachLog(long startVersion, long endVersion, String author, boolean discoverChangedPaths,
+                           int windowSize, ISVNLogEntryHandler handler) throws SVNException {
+        ISVNLogEntryHandler filter = author == null ? handler : logEntry -> {
+            if (author.equalsIgnoreCase(logEntry.getAuthor())) {
+                handler.handleLogEntry(logEntry);
+            }
+        };
+        SVNLogCache logCache = this.logCache;
+        if (logCache != null) {
+            execute("logCacheSync", logCache::sync);
+            logCache.forEachLog(startVersion, endVersion, discoverChangedPaths, filter);
+            return;
+        }
+        // 每批都以结束版本为准定位路径,用limit限制单次返回的记录数,下一批从上一批最后的版本之后开始
+        long limit = Math.max(1, windowSize);
+        boolean ascending = startVersion <= endVersion;
+        execute("log", repository -> {
+            long from = startVersion;
+            long[] last = new long[1];
+            while (true) {
+                last[0] = -1;
+                long received = repository.log(new String[]{""}, from, endVersion, discoverChangedPaths, true, limit, logEntry -> {
+                    last[0] = logEntry.getRevision();
+                    filter.handleLogEntry(logEntry);
+                });
+                if (received < limit || last[0] < 0 || last[0] == endVersion) {
+                    break;
+                }
+                from = ascending ? last[0] + 1 : last[0] - 1;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 获取各个时间点时存储库中最新的版本号,启用版本时间索引时在本地查找
+     *
+     * @param dateTimes 时间
+     * @return 与时间一一对应的版本号
+     * @throws SVNException 异常
+     */
+    public long[] getDatedRevisions(LocalDateTime... dateTimes) throws SVNException {
+        Date[] dates = new Date[dateTimes.length];
+        for (int i = 0; i < dateTimes.length; i++) {
+            dates[i] = dateTimes[i].toDate();
+        }
+        RevisionDateIndex revisionDateIndex = this.revisionDateIndex;
+        if (revisionDateIndex != null) {
+            return execute("getDatedRevision", rootUrl, repository -> revisionDateIndex.getDatedRevisions(repository, dates));
+        }
+        return execute("getDatedRevision", repository -> {
+            long[] versions = new long[dates.length];
+            for (int i = 0; i < dates.length; i++) {
+                versions[i] = repository.getDatedRevision(dates[i]);
+            }
+            return versions;
+        });
+    }
+
+    /**
+     * 根据开始结束日期及用户名获取比较日志,并存入临时文件
+     *
+     * @param beginDateTime 开始时间
+     * @param endDateTime   结束时间
+     * @param author        用户名
+     * @return 比较日志文件对象
+     * @throws SVNException 异常
+     */
+    public File getChangeLog(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author) throws SVNException {
+        long[] versions = getDatedRevisions(beginDateTime, endDateTime);
+        long startVersion = versions[0];
+        long endVersion = versions[1] + 1;
+        return getChangeLog(startVersion, endVersion, getChangedFileList(startVersion, endVersion, author));
+    }
+
+    /**
+     * 根据开始结束日期及用户名获取压缩并带索引的比较日志,存入临时文件,关闭时删除
+     * (统计结果直接来自索引,单个文件的比较结果可以单独读取,见 {@link ChangeLogArchive})
+     *
+     * @param beginDateTime 开始时间
+     * @param endDateTime   结束时间
+     * @param author        用户名
+     * @return 比较日志,用完后关闭
+     * @throws SVNException 异常
+     */
+    public ChangeLogArchive getChangeLogArchive(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author) throws SVNException {
+        long[] versions = getDatedRevisions(beginDateTime, endDateTime);
+        long startVersion = versions[0];
+        long endVersion = versions[1] + 1;
+        List<String> filePathList = getChangedFileList(startVersion, endVersion, author);
+        Path file = null;
+        try {
+            file = Files.createTempFile("svn_change_log_" + startVersion + "_" + endVersion + "_", ".clog");
+            writeChangeLogArchive(startVersion, endVersion, filePathList, file);
+            return ChangeLogArchive.open(file, true);
+        } catch (IOException e) {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                }
+            }
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+        }
+    }
+
+    /**
+     * 根据开始结束日期及用户名统计变更文件的变更类型及行数
+     * (与 {@link #getChangeLog(LocalDateTime, LocalDateTime, String)} 比较相同的文件,但直接接收svn的结构化比较结果,
+     * 不生成比较日志文本,也不再解析文本; 文件路径为相对存储库根的完整路径)
+     *
+     * @param beginDateTime 开始时间
+     * @param endDateTime   结束时间
+     * @param author        用户名,为null时不过滤
+     * @param sink          统计结果接收者,按文件列表的顺序接收
+     * @return 统计结果
+     * @throws SVNException 异常
+     */
+    public ChangeLogStatistics getChangeStatistics(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author,
+                                                   ChangeFileSink sink) throws SVNException {
+        long[] versions = getDatedRevisions(beginDateTime, endDateTime);
+        long startVersion = versions[0];
+        long endVersion = versions[1] + 1;
+        return getChangeStatistics(startVersion, endVersion, getChangedFileList(startVersion, endVersion, author), sink);
+    }
+
+    /**
+     * 根据起始结束版本号统计指定文件集合的变更类型及行数,不生成比较日志文本
+     * (多个文件并行比较,单个文件比较失败不影响其它文件; 按过滤规则跳过的文件只记录变更类型及大小变化)
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param filePathList 文件列表(svn中完整文件名)
+     * @param sink         统计结果接收者,按文件列表的顺序接收
+     * @return 统计结果
+     * @throws SVNException 异常
+     */
+    public ChangeLogStatistics getChangeStatistics(long startVersion, long endVersion, List<String> filePathList,
+                                                   ChangeFileSink sink) throws SVNException {
+        Map<String, DiffFilter.Decision> decisions = filterDiffFiles(startVersion, endVersion, filePathList);
+        String root = rootUrl.toString() + "/";
+        int threads = Math.max(1, Math.min(diffConcurrency, filePathList.size()));
+        BlockingQueue<SVNDiffClient> clients = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            clients.add(createStructuredDiffClient());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        SVNMetrics metrics = this.metrics;
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            List<Future<ChangeLogStatistics>> futures = new ArrayList<>(filePathList.size());
+            for (String filePath : filePathList) {
+                futures.add(executor.submit(SVNCancellation.propagate(NetworkTraffic.attribute(() -> {
+                    ChangeFileCollector collector = new ChangeFileCollector();
+                    DiffFilter.Decision decision = decisions.get(filePath);
+                    if (decision != null && decision.getAction() == DiffFilter.Action.SKIP) {
+                        collector.skipped(filePath.startsWith(root) ? filePath.substring(root.length()) : filePath, decision);
+                        return collector.getStatistics();
+                    }
+                    SVNDiffClient client = clients.take();
+                    try {
+                        diffFile(client, filePath, startVersion, endVersion, collector);
+                    } finally {
+                        clients.put(client);
+                    }
+                    return collector.getStatistics();
+                }))));
+            }
+            ChangeLogStatistics statistics = new ChangeLogStatistics();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    statistics.merge(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof SVNCancelException) {
+                        throw (SVNCancelException) e.getCause();
+                    }
+                    System.out.println("比较文件出错: " + filePathList.get(i));
+                    e.getCause().printStackTrace();
+                }
+            }
+            for (ChangeFile changeFile : statistics.getFiles()) {
+                sink.accept(changeFile);
+            }
+            sink.complete(statistics);
+            failed = false;
+            return statistics;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, e), e);
+        } finally {
+            metrics.end("changeStatistics", start, failed);
+            executor.shutdownNow();
+            clients.forEach(SVNManager::dispose);
+        }
+    }
+
+    /**
+     * 查询时间段内(指定用户)变更的文件
+     *
+     * @return 文件列表(svn中完整文件名),按路径排序
+     */
+    private List<String> getChangedFileList(long startVersion, long endVersion, String author) throws SVNException {
+        CommitIndex index = getCommitIndex();
+        Collection<String> changedPaths;
+        if (index != null) {
+            CommitIndex.Query query = index.query().revisions(startVersion, endVersion);
+            if (author != null) {
+                query.authors(author);
+            }
+            changedPaths = query.getPaths();
+        } else {
+            // 边接收提交记录边去重排序,只保留变更的文件路径
+            Set<String> paths = new TreeSet<>();
+            forEachLog(startVersion, endVersion, author, true, log -> paths.addAll(log.getChangedPaths().keySet()));
+            changedPaths = paths;
+        }
+        return changedPaths.stream()
+                .map(key -> rootUrl + key)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 根据开始结束日期及用户名获取比较日志,并存入临时文件
+     * (对项目目录只发起一次递归比较,在客户端按该用户提交过的文件过滤,不再逐个文件请求;
+     * 只包含项目目录下的文件,文件按服务器返回的顺序排列)
+     *
+     * @param beginDateTime 开始时间
+     * @param endDateTime   结束时间
+     * @param author        用户名
+     * @return 比较日志文件对象
+     * @throws SVNException 异常
+     */
+    public File getChangeLogByTreeDiff(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author) throws SVNException {
+        long[] versions = getDatedRevisions(beginDateTime, endDateTime);
+        long startVersion = versions[0];
+        long endVersion = versions[1] + 1;
+        // 提交记录中的路径相对于存储库根目录,比较日志中的路径相对于项目目录
+        String projectPath = projectUrl.getPath().substring(rootUrl.getPath().length()) + "/";
+        Set<String> changedPaths = new HashSet<>();
+        CommitIndex index = getCommitIndex();
+        if (index != null) {
+            CommitIndex.Query query = index.query().revisions(startVersion, endVersion).under(projectPath);
+            if (author != null) {
+                query.authors(author);
+            }
+            for (String path : query.getPaths()) {
+                if (path.startsWith(projectPath)) {
+                    changedPaths.add(path.substring(projectPath.length()));
+                }
+            }
+        } else {
+            forEachLog(startVersion, endVersion, author, true, log -> {
+                for (String path : log.getChangedPaths().keySet()) {
+                    if (path.startsWith(projectPath)) {
+                        changedPaths.add(path.substring(projectPath.length()));
+                    }
+                }
+            });
+        }
+        File tempLogFile = createTempLogFile(startVersion, endVersion);
+        if (changedPaths.isEmpty()) {
+            return tempLogFile;
+        }
+        SVNDiffClient diffClient = createDiffClient();
+        SVNMetrics metrics = this.metrics;
+        long start = metrics.begin();
+        boolean failed = true;
+        try (OutputStream os = new DiffSectionFilterOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempLogFile), STREAM_BUFFER_SIZE), changedPaths)) {
+            diffClient.doDiff(projectUrl, SVNRevision.create(startVersion),
+                    projectUrl, SVNRevision.create(endVersion),
+                    SVNDepth.INFINITY, true, os);
+            failed = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            metrics.end("diff", start, failed);
+            dispose(diffClient);
+        }
+        return tempLogFile;
+    }
+
+    /**
+     * 根据起始结束版本号获取指定文件集合的版本比较日志,并存入临时文件
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param filePathList 文件列表(svn中完整文件名)
+     * @return 比较日志文件对象
+     * @throws SVNException 创建比较日志文件失败
+     */
+    public File getChangeLog(long startVersion, long endVersion, List<String> filePathList) throws SVNException {
+        return getChangeLog(startVersion, endVersion, filePathList, diffConcurrency);
+    }
+
+    /**
+     * 根据起始结束版本号获取指定文件集合的版本比较日志,并存入临时文件
+     * (多个文件并行比较,每个线程使用独立的svn会话;日志仍按文件列表的顺序写入,单个文件比较失败不影响其它文件)
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param filePathList 文件列表(svn中完整文件名)
+     * @param concurrency  并行数,小于等于1时逐个文件比较
+     * @return 比较日志文件对象
+     * @throws SVNException 创建比较日志文件失败
+     */
+    public File getChangeLog(long startVersion, long endVersion, List<String> filePathList, int concurrency) throws SVNException {
+        File tempLogFile = createTempLogFile(startVersion, endVersion);
+        try (FileChannel channel = FileChannel.open(tempLogFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeChangeLog(startVersion, endVersion, filePathList, concurrency, channel);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return tempLogFile;
+    }
+
+    /**
+     * 在临时目录中创建比较日志文件
+     *
+     * @throws SVNException 创建文件失败
+     */
+    private File createTempLogFile(long startVersion, long endVersion) throws SVNException {
+        try {
+            // 由Files.createTempFile原子地创建唯一文件名,不会与其它进程的文件冲突
+            return createTempFile("svn_diff_file_" + startVersion + "_" + endVersion + "_", ".txt").toFile();
+        } catch (IOException e) {
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+        }
+    }
+
+    private Path createTempFile(String prefix, String suffix) throws IOException {
+        File dir = this.tempDir;
+        return dir == null ? Files.createTempFile(prefix, suffix) : Files.createTempFile(dir.toPath(), prefix, suffix);
+    }
+
+    /**
+     * 根据起始结束版本号获取指定文件集合的版本比较日志,并写入调用方提供的输出流(不会关闭该输出流)
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param filePathList 文件列表(svn中完整文件名)
+     * @param os           输出流
+     * @throws IOException 写入输出流失败
+     */
+    public void writeChangeLog(long startVersion, long endVersion, List<String> filePathList, OutputStream os) throws IOException {
+        writeChangeLog(startVersion, endVersion, filePathList, Channels.newChannel(os));
+    }
+
+    /**
+     * 根据起始结束版本号获取指定文件集合的版本比较日志,并写入调用方提供的通道(不会关闭该通道)
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param filePathList 文件列表(svn中完整文件名)
+     * @param channel      输出通道
+     * @throws IOException 写入输出通道失败
+     */
+    public void writeChangeLog(long startVersion, long endVersion, List<String> filePathList, WritableByteChannel channel) throws IOException {
+        writeChangeLog(startVersion, endVersion, filePathList, diffConcurrency, channel);
+    }
+
+    private void writeChangeLog(long startVersion, long endVersion, List<String> filePathList,
+                                int concurrency, WritableByteChannel channel) throws IOException {
+        writeChangeLog(startVersion, endVersion, filePathList, concurrency, new ChannelDiffSink(channel));
+    }
+
+    /**
+     * 根据起始结束版本号获取指定文件集合的版本比较日志,写入压缩并带索引的比较日志文件(见 {@link ChangeLogArchive})
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param filePathList 文件列表(svn中完整文件名)
+     * @param file         比较日志文件,已存在时覆盖
+     * @throws IOException 写入文件失败
+     */
+    public void writeChangeLogArchive(long startVersion, long endVersion, List<String> filePathList, Path file) throws IOException {
+        try (ChangeLogArchive.Writer writer = ChangeLogArchive.create(file, startVersion, endVersion)) {
+            writeChangeLog(startVersion, endVersion, filePathList, diffConcurrency, new ArchiveDiffSink(writer));
+        }
+    }
+
+    private void writeChangeLog(long startVersion, long endVersion, List<String> filePathList,
+                                int concurrency, DiffSink sink) throws IOException {
+        Map<String, DiffFilter.Decision> decisions = filterDiffFiles(startVersion, endVersion, filePathList);
+        ChangeLogCheckpoint checkpoint = this.changeLogCheckpoint;
+        if (checkpoint != null) {
+            writeChangeLogCheckpointed(startVersion, endVersion, filePathList, decisions, concurrency, sink, checkpoint);
+            return;
+        }
+        int threads = Math.min(concurrency, filePathList.size());
+        if (threads <= 1) {
+            // 比较结果直接流式写入,内存占用与文件大小无关
+            SVNDiffClient diffClient = createDiffClient();
+            try {
+                for (String filePath : filePathList) {
+                    try (OutputStream os = sink.open(filePath)) {
+                        diffFile(diffClient, filePath, decisions.get(filePath), startVersion, endVersion, os);
+                    } catch (SVNCancelException e) {
+                        throw new InterruptedIOException("生成比较日志已取消");
+                    } catch (SVNException e) {
+                        System.out.println("比较文件出错: " + filePath);
+                        e.printStackTrace();
+                    }
+                }
+            } finally {
+                dispose(diffClient);
+            }
+        } else {
+            try {
+                writeChangeLogParallel(startVersion, endVersion, filePathList, decisions, threads, sink);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("生成比较日志被中断");
+            }
+        }
+        sink.finish();
+    }
+
+    /**
+     * 使用线程池并行比较文件,并按文件列表顺序写入
+     * (每个文件的比较结果先写入临时文件,再按顺序合并)
+     */
+    private void writeChangeLogParallel(long startVersion, long endVersion, List<String> filePathList,
+                                        Map<String, DiffFilter.Decision> decisions, int threads,
+                                        DiffSink sink) throws IOException, InterruptedException {
+        // SVNDiffClient及其持有的SVNRepository都不是线程安全的,每个线程需要独立的实例
+        BlockingQueue<SVNDiffClient> clients = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            clients.add(createDiffClient());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<DiffPart>> futures = new ArrayList<>(filePathList.size());
+        try {
+            for (String filePath : filePathList) {
+                futures.add(executor.submit(SVNCancellation.propagate(NetworkTraffic.attribute(() -> {
+                    // 先创建临时文件,创建失败时不占用比较客户端
+                    Path part = createTempFile("svn_diff_part_", ".txt");
+                    OutputStream os;
+                    try {
+                        SVNDiffClient client = clients.take();
+                        try {
+                            os = sink.openPart(filePath, new BufferedOutputStream(Files.newOutputStream(part), STREAM_BUFFER_SIZE));
+                            try {
+                                diffFile(client, filePath, decisions.get(filePath), startVersion, endVersion, os);
+                            } finally {
+                                os.close();
+                            }
+                        } finally {
+                            clients.put(client);
+                        }
+                    } catch (Exception e) {
+                        Files.deleteIfExists(part);
+                        throw e;
+                    }
+                    return new DiffPart(part, os);
+                }))));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                DiffPart part;
+                try {
+                    part = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    System.out.println("比较文件出错: " + filePathList.get(i));
+                    e.getCause().printStackTrace();
+                    continue;
+                }
+                try (FileChannel in = FileChannel.open(part.file, StandardOpenOption.READ)) {
+                    sink.appendPart(part.stream, in);
+                } finally {
+                    Files.deleteIfExists(part.file);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            // 清理因出错而未被拷贝的临时文件
+            for (Future<DiffPart> future : futures) {
+                if (future.isDone() && !future.isCancelled()) {
+                    try {
+                        Files.deleteIfExists(future.get().file);
+                    } catch (ExecutionException ignored) {
+                    }
+                }
+            }
+            clients.forEach(SVNManager::dispose);
+        }
+    }
+
+    /**
+     * 启用断点记录时生成比较日志: 先将断点记录中没有的文件逐个比较并保存(可并行,因连接问题失败时等待后重试),
+     * 再按文件列表顺序合并; 中途失败或进程退出后重新生成时,已完成的文件直接使用保存的结果。
+     * 全部文件都比较成功并合并后删除该版本间的断点记录
+     */
+    private void writeChangeLogCheckpointed(long startVersion, long endVersion, List<String> filePathList,
+                                            Map<String, DiffFilter.Decision> decisions, int concurrency,
+                                            DiffSink sink, ChangeLogCheckpoint checkpoint) throws IOException {
+        List<String> pending = new ArrayList<>();
+        try (ChangeLogCheckpoint.Journal journal = checkpoint.openJournal(startVersion, endVersion, filePathList)) {
+            for (String filePath : filePathList) {
+                DiffFilter.Decision decision = decisions.get(filePath);
+                if (decision != null && decision.getAction() == DiffFilter.Action.SKIP) {
+                    continue;
+                }
+                if (checkpoint.getDiff(startVersion, endVersion, filePath) != null) {
+                    // 之前的生成过程(包括文件列表不同但版本相同的)已完成
+                    if (!journal.isCompleted(filePath)) {
+                        journal.completed(filePath);
+                    }
+                } else {
+                    pending.add(filePath);
+                }
+            }
+            diffToCheckpoint(startVersion, endVersion, pending, concurrency, checkpoint, journal);
+        }
+        boolean complete = true;
+        for (String filePath : filePathList) {
+            DiffFilter.Decision decision = decisions.get(filePath);
+            if (decision != null && decision.getAction() == DiffFilter.Action.SKIP) {
+                try (OutputStream os = sink.open(filePath)) {
+                    os.write(decision.toSkippedSection(startVersion, endVersion));
+                }
+                continue;
+            }
+            Path stored = checkpoint.getDiff(startVersion, endVersion, filePath);
+            if (stored == null) {
+                // 比较失败的文件,重新生成时再比较
+                complete = false;
+                continue;
+            }
+            try (OutputStream os = sink.open(filePath)) {
+                if (decision != null && decision.getAction() == DiffFilter.Action.TRUNCATE) {
+                    // 保存的是完整结果,合并时再截断
+                    LineLimitOutputStream limited = new LineLimitOutputStream(os, diffFilter == null ? Integer.MAX_VALUE : diffFilter.getMaxDiffLines());
+                    Files.copy(stored, limited);
+                    limited.finish();
+                } else {
+                    Files.copy(stored, os);
+                }
+            }
+        }
+        sink.finish();
+        if (complete) {
+            checkpoint.delete(startVersion, endVersion);
+        }
+    }
+
+    /**
+     * 比较文件并保存到断点记录,每完成或失败一个文件记入进度日志
+     */
+    private void diffToCheckpoint(long startVersion, long endVersion, List<String> filePathList, int concurrency,
+                                  ChangeLogCheckpoint checkpoint, ChangeLogCheckpoint.Journal journal) throws IOException {
+        if (filePathList.isEmpty()) {
+            return;
+        }
+        int threads = Math.max(1, Math.min(concurrency, filePathList.size()));
+        BlockingQueue<SVNDiffClient> clients = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            clients.add(createDiffClient());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>(filePathList.size());
+        try {
+            for (String filePath : filePathList) {
+                futures.add(executor.submit(SVNCancellation.propagate(NetworkTraffic.attribute(() -> {
+                    SVNDiffClient client = clients.take();
+                    try {
+                        diffToCheckpoint(client, filePath, startVersion, endVersion, checkpoint);
+                        journal.completed(filePath);
+                    } catch (SVNCancelException e) {
+                        throw e;
+                    } catch (SVNException | IOException e) {
+                        // 取消导致的失败不记入进度日志
+                        SVNCancellation.checkCurrent();
+                        journal.failed(filePath, e.getMessage());
+                        throw e;
+                    } finally {
+                        clients.put(client);
+                    }
+                    return null;
+                }))));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof SVNCancelException) {
+                        throw new InterruptedIOException("生成比较日志已取消");
+                    }
+                    System.out.println("比较文件出错: " + filePathList.get(i));
+                    e.getCause().printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("生成比较日志被中断");
+        } finally {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            clients.forEach(SVNManager::dispose);
+        }
+    }
+
+    /**
+     * 比较单个文件并保存完整结果,因连接问题失败时按退避时间等待后重试
+     */
+    private void diffToCheckpoint(SVNDiffClient client, String filePath, long startVersion, long endVersion,
+                                  ChangeLogCheckpoint checkpoint) throws SVNException, IOException, InterruptedException {
+        long backoff = diffRetryBackoff;
+        for (int attempt = 1; ; attempt++) {
+            Path temp = checkpoint.createTempFile(startVersion, endVersion);
+            try {
+                try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(temp), STREAM_BUFFER_SIZE)) {
+                    diffFile(client, filePath, startVersion, endVersion, os);
+                }
+                checkpoint.store(startVersion, endVersion, filePath, temp);
+                return;
+            } catch (SVNException e) {
+                Files.deleteIfExists(temp);
+                if (attempt >= diffRetryAttempts || !SVNSessionManager.isConnectionError(e.getErrorMessage().getErrorCode())) {
+                    throw e;
+                }
+                Thread.sleep(backoff);
+                backoff *= 2;
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 并行比较时单个文件的临时文件及写入该文件的输出流
+     */
+    private static final class DiffPart {
+        private final Path file;
+        private final OutputStream stream;
+
+        DiffPart(Path file, OutputStream stream) {
+            this.file = file;
+            this.stream = stream;
+        }
+    }
+
+    /**
+     * 比较结果的写入目标: 逐个比较时各文件直接写入,并行比较时各文件先写入临时文件,再按文件列表顺序合并
+     */
+    private interface DiffSink {
+        /**
+         * 逐个比较时获取单个文件的输出流,关闭该输出流表示该文件结束
+         */
+        OutputStream open(String filePath);
+
+        /**
+         * 并行比较时包装单个文件写入临时文件的输出流(在比较线程中调用),关闭时一并关闭临时文件
+         */
+        OutputStream openPart(String filePath, OutputStream part);
+
+        /**
+         * 并行比较时按文件列表顺序合并临时文件
+         *
+         * @param opened {@link #openPart(String, OutputStream)} 返回的输出流(已关闭)
+         * @param part   临时文件
+         */
+        void appendPart(OutputStream opened, FileChannel part) throws IOException;
+
+        /**
+         * 全部文件写入后调用
+         */
+        void finish() throws IOException;
+    }
+
+    /**
+     * 写入文本格式的比较日志
+     */
+    private static final class ChannelDiffSink implements DiffSink {
+        private final WritableByteChannel channel;
+        private final OutputStream os;
+
+        ChannelDiffSink(WritableByteChannel channel) {
+            this.channel = channel;
+            this.os = new BufferedOutputStream(Channels.newOutputStream(channel), STREAM_BUFFER_SIZE);
+        }
+
+        @Override
+        public OutputStream open(String filePath) {
+            return new FilterOutputStream(os) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    // 各文件共用同一个输出流,全部写入后才刷新
+                }
+            };
+        }
+
+        @Override
+        public OutputStream openPart(String filePath, OutputStream part) {
+            return part;
+        }
+
+        @Override
+        public void appendPart(OutputStream opened, FileChannel part) throws IOException {
+            os.flush();
+            long position = 0;
+            long size = part.size();
+            while (position < size) {
+                position += part.transferTo(position, size - position, channel);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            os.flush();
+        }
+    }
+
+    /**
+     * 写入压缩并带索引的比较日志,索引中的路径为相对存储库根的路径
+     */
+    private final class ArchiveDiffSink implements DiffSink {
+        private final ChangeLogArchive.Writer writer;
+
+        ArchiveDiffSink(ChangeLogArchive.Writer writer) {
+            this.writer = writer;
+        }
+
+        private String toPath(String filePath) {
+            String root = rootUrl.toString();
+            return filePath.startsWith(root) ? filePath.substring(root.length()) : filePath;
+        }
+
+        @Override
+        public OutputStream open(String filePath) {
+            return writer.newBlock(toPath(filePath));
+        }
+
+        @Override
+        public OutputStream openPart(String filePath, OutputStream part) {
+            return ChangeLogArchive.newBlock(toPath(filePath), part);
+        }
+
+        @Override
+        public void appendPart(OutputStream opened, FileChannel part) throws IOException {
+            writer.append((ChangeLogArchive.Block) opened, part);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.finish();
+        }
+    }
+
+    /**
+     * 按过滤规则比较单个文件: 跳过的文件只写入变更类型及大小变化,需要截断的文件只保留比较结果的前若干行
+     */
+    private void diffFile(SVNDiffClient client, String filePath, DiffFilter.Decision decision,
+                          long startVersion, long endVersion, OutputStream os) throws SVNException, IOException {
+        if (decision == null || decision.getAction() == DiffFilter.Action.DIFF) {
+            diffFile(client, filePath, startVersion, endVersion, os);
+        } else if (decision.getAction() == DiffFilter.Action.SKIP) {
+            os.write(decision.toSkippedSection(startVersion, endVersion));
+        } else {
+            LineLimitOutputStream limited = new LineLimitOutputStream(os, diffFilter == null ? Integer.MAX_VALUE : diffFilter.getMaxDiffLines());
+            diffFile(client, filePath, startVersion, endVersion, limited);
+            limited.finish();
+        }
+    }
+
+    /**
+     * 按过滤规则批量获取文件信息并决定每个文件的处理方式,获取失败时全部正常比较
+     *
+     * @return svn中完整文件名 -> 处理方式
+     */
+    private Map<String, DiffFilter.Decision> filterDiffFiles(long startVersion, long endVersion, List<String> filePathList) {
+        DiffFilter filter = this.diffFilter;
+        if (filter == null || filePathList.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // 完整文件名 -> 相对存储库根的路径
+        String root = rootUrl.toString() + "/";
+        Map<String, String> paths = new LinkedHashMap<>();
+        for (String filePath : filePathList) {
+            if (filePath.startsWith(root)) {
+                paths.put(filePath, filePath.substring(root.length()));
+            }
+        }
+        Map<String, DiffFilter.Decision> decisions = new HashMap<>();
+        try {
+            Map<String, DiffFilter.Decision> byPath = execute("diffFilter", rootUrl,
+                    repository -> filter.decide(repository, paths.values(), startVersion, endVersion));
+            paths.forEach((filePath, path) -> {
+                DiffFilter.Decision decision = byPath.get(path);
+                if (decision != null) {
+                    decisions.put(filePath, decision);
+                }
+            });
+        } catch (SVNException e) {
+            System.out.println("获取文件信息出错,全部文件正常比较");
+            e.printStackTrace();
+        }
+        return decisions;
+    }
+
+    /**
+     * 比较单个文件在起始结束版本间的差异,并写入输出流
+     */
+    private void diffFile(SVNDiffClient client, String filePath, long startVersion, long endVersion, OutputStream os) throws SVNException {
+        SVNMetrics metrics = this.metrics;
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            client.doDiff(SVNURL.parseURIEncoded(filePath),
+                    SVNRevision.create(startVersion),
+                    SVNURL.parseURIEncoded(filePath),
+                    SVNRevision.create(endVersion),
+                    SVNDepth.UNKNOWN, true, os);
+            failed = false;
+        } finally {
+            metrics.end("diffFile", start, failed);
+        }
+    }
+
+    /**
+     * 比较单个文件,结构化的比较结果交给接收者,不生成文本
+     */
+    private void diffFile(SVNDiffClient client, String filePath, long startVersion, long endVersion, DiffListener listener) throws SVNException {
+        DiffEventGenerator generator = (DiffEventGenerator) ((SvnNewDiffGenerator) client.getDiffGenerator()).getDelegate();
+        generator.setListener(listener);
+        diffFile(client, filePath, startVersion, endVersion, SVNFileUtil.DUMMY_OUT);
+        generator.finish();
+    }
+
+    /**
+     * 创建输出结构化比较结果的svn比较客户端,接收者在每次比较前设置
+     */
+    private SVNDiffClient createStructuredDiffClient() {
+        SVNDiffClient client = createDiffClient();
+        client.setDiffGenerator(new SvnNewDiffGenerator(new DiffEventGenerator(null)));
+        return client;
+    }
+
+    private SVNDiffClient createDiffClient() {
+        SVNDiffClient client = new SVNDiffClient(createRepositoryPool(), options);
+        client.setGitDiffFormat(true);
+        SVNCancellation cancellation = SVNCancellation.current();
+        if (cancellation != null) {
+            client.setEventHandler(cancellation);
+        }
+        return client;
+    }
+
+    /**
+     * 创建svn客户端使用的会话池,从项目地址的共享会话池借用会话
+     */
+    private ISVNRepositoryPool createRepositoryPool() {
+        return new ClientRepositoryPool(sessionManager.getPool(projectUrl), authManager);
+    }
+
+    /**
+     * 释放svn客户端并归还其借用的会话
+     */
+    private static void dispose(SVNBasicClient client) {
+        client.getOperationsFactory().dispose();
+        client.getOperationsFactory().getRepositoryPool().dispose();
+    }
+
+    /**
+     * 启用本地提交记录缓存,之后查询提交记录时只从服务器获取缓存中没有的新版本,其余直接从本地缓存读取
+     *
+     * @param cacheDir 缓存目录
+     * @throws SVNException 异常
+     */
+    public void enableLogCache(File cacheDir) throws SVNException {
+        try {
+            logCache = SVNLogCache.open(cacheDir, sessionManager.getRepositoryUUID(projectUrl), projectUrl);
+        } catch (IOException e) {
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
+        }
+    }
 
     /**
-     * 连接到svn存储库
+     * 启用版本号与提交时间的本地索引,按时间查询版本号时不再每次请求服务器
      *
-     * @param url      存储库地址
-     * @param username 用户名
-     * @param password 密码
+     * @param persistFile 索引持久化文件,为null时只保存在内存中;文件中保存的是其它存储库的索引时丢弃重建
+     * @throws SVNException 异常
      */
-    public void createSession(String url, String username, String password) throws SVNException {
-        // 设定svn存储库地址
-        repository = SVNRepositoryFactory.create(SVNURL.parseURIEncoded(url));
-        options.setDiffCommand("-x -w");
-        // 设定登录svn存储库的用户名和密码
-        authManager = SVNWCUtil.createDefaultAuthenticationManager(username, password.toCharArray());
-        repository.setAuthenticationManager(authManager);
-        // 尝试连接svn,测试是否可以正常连接
-        repository.testConnection();
+    public void enableRevisionDateIndex(File persistFile) throws SVNException {
+        revisionDateIndex = new RevisionDateIndex(persistFile, sessionManager.getRepositoryUUID(projectUrl));
+    }
 
-        diffClient = new SVNDiffClient(authManager, options);
-        diffClient.setGitDiffFormat(true);
+    /**
+     * 启用内存中的提交记录索引(获取项目目录的全部提交记录建立索引),
+     * 之后按时间及用户名查找变更文件时只获取索引之后的新版本,其余直接查询索引
+     *
+     * @throws SVNException 异常
+     */
+    public void enableCommitIndex() throws SVNException {
+        CommitIndex index = new CommitIndex();
+        refreshCommitIndex(index);
+        commitIndex = index;
+    }
 
-        logClient = new SVNLogClient(authManager, options);
+    /**
+     * 获取提交记录索引,先将服务器上的新版本加入索引
+     *
+     * @return 提交记录索引,未启用时为null
+     * @throws SVNException 异常
+     */
+    public CommitIndex getCommitIndex() throws SVNException {
+        CommitIndex index = commitIndex;
+        if (index != null) {
+            refreshCommitIndex(index);
+        }
+        return index;
+    }
 
-        rootUrl = repository.getRepositoryRoot(false);
-        projectUrl = SVNURL.parseURIEncoded(url);
-        this.url = url;
+    /**
+     * @return 存储库的最新版本号
+     * @throws SVNException 异常
+     */
+    public long getLatestRevision() throws SVNException {
+        return execute("getLatestRevision", SVNRepository::getLatestRevision);
+    }
+
+    private void refreshCommitIndex(CommitIndex index) throws SVNException {
+        synchronized (index) {
+            long latestRevision = getLatestRevision();
+            long startRevision = index.getIndexedRevision() + 1;
+            if (startRevision > latestRevision) {
+                return;
+            }
+            forEachLog(startRevision, latestRevision, null, true, index::add);
+            index.setIndexedRevision(latestRevision);
+        }
     }
 
     /**
-     * 根据起始结束时间及操作人用户名查询提交记录
+     * 启用文件内容缓存,按(文件路径, 版本号)缓存文件的原始内容
      *
-     * @param beginDateTime 开始时间
-     * @param endDateTime   结束时间
-     * @return 提交记录对象集合
-     * @throws SVNException 异常
+     * @param maxBytes 缓存内容的最大总字节数,超过时淘汰最久未使用的文件
+     * @param offHeap  是否保存在堆外内存中
      */
-    public List<SVNLogEntry> getLogs(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author) throws SVNException {
-        return getLogs(beginDateTime, endDateTime).stream()
-                .filter(log -> author == null || log.getAuthor().equalsIgnoreCase(author))
-                .sorted(Comparator.comparing(SVNLogEntry::getDate))
-                .collect(Collectors.toList());
+    public void enableFileContentCache(long maxBytes, boolean offHeap) {
+        fileContentCache = new FileContentCache(maxBytes, offHeap);
     }
 
     /**
-     * 据起始结束日查询提交记录
+     * @return 文件内容缓存(可查看命中、未命中、淘汰次数),未启用时为null
+     */
+    public FileContentCache getFileContentCache() {
+        return fileContentCache;
+    }
+
+    /**
+     * 启用发布包比较的清单缓存,svn各版本的文件清单及本地发布包上次计算的 MD5 保存在该目录中
      *
-     * @param beginDateTime 开始时间
-     * @param endDateTime   结束时间
-     * @return 提交记录对象集合
-     * @throws SVNException 异常
+     * @param cacheDir 缓存目录
      */
-    public List<SVNLogEntry> getLogs(LocalDateTime beginDateTime, LocalDateTime endDateTime) throws SVNException {
-        long startVersion = repository.getDatedRevision(beginDateTime.toDate());
-        long endVersion = repository.getDatedRevision(endDateTime.toDate()) + 1;
-        return getLogs(startVersion, endVersion);
+    public void enablePackageManifestCache(File cacheDir) {
+        this.manifestCacheDir = cacheDir;
     }
 
     /**
-     * 据起始结束日查询提交记录
+     * 设置分批查询提交记录时每次请求返回的最大记录数
      *
-     * @param startVersion 开始版本号
-     * @param endVersion   结束版本号
-     * @return 提交记录对象集合
-     * @throws SVNException 异常
+     * @param logWindowSize 每次请求返回的最大记录数
      */
-    @SuppressWarnings("unchecked")
-    public List<SVNLogEntry> getLogs(long startVersion, long endVersion) throws SVNException {
-        return (List<SVNLogEntry>) repository.log(new String[]{""}, null, startVersion, endVersion, true, true);
+    public void setLogWindowSize(int logWindowSize) {
+        this.logWindowSize = logWindowSize;
     }
 
     /**
-     * 根据开始结束日期及用户名获取比较日志,并存入临时文件
+     * 设置生成比较日志时的并行数
      *
-     * @param beginDateTime 开始时间
-     * @param endDateTime   结束时间
-     * @param author        用户名
-     * @return 比较日志文件对象
-     * @throws SVNException 异常
+     * @param diffConcurrency 并行数,小于等于1时逐个文件比较
      */
-    public File getChangeLog(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author) throws SVNException {
-        long startVersion = repository.getDatedRevision(beginDateTime.toDate());
-        long endVersion = repository.getDatedRevision(endDateTime.toDate()) + 1;
-        List<SVNLogEntry> logs = getLogs(startVersion, endVersion);
-        List<String> filePathList = logs.parallelStream()
-                .filter(item -> author == null || item.getAuthor().equalsIgnoreCase(author))
-                .map(log -> log.getChangedPaths().keySet().toArray(new String[0]))
-                .flatMap(Arrays::stream)
-                .map(key -> rootUrl + key)
-                .distinct()
-                .sorted(Comparator.naturalOrder())
-                .collect(Collectors.toList());
-        return getChangeLog(startVersion, endVersion, filePathList);
+    public void setDiffConcurrency(int diffConcurrency) {
+        this.diffConcurrency = diffConcurrency;
     }
 
     /**
-     * 根据起始结束版本号获取指定文件集合的版本比较日志,并存入临时文件
+     * 设置比较日志及并行比较时各文件中间结果的临时文件目录
      *
-     * @param startVersion 开始版本号
-     * @param endVersion   结束版本号
-     * @param filePathList 文件列表(svn中完整文件名)
-     * @return 比较日志文件对象
+     * @param tempDir 临时文件目录,为null时使用系统临时目录
+     */
+    public void setTempDir(File tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * 设置递归列出目录时的并行数
+     *
+     * @param listConcurrency 并行请求的目录数
+     */
+    public void setListConcurrency(int listConcurrency) {
+        this.listConcurrency = Math.max(1, listConcurrency);
+    }
+
+    /**
+     * 设置统计各版本代码变更行数时的并行数
+     *
+     * @param churnConcurrency 并行处理的版本数
+     */
+    public void setChurnConcurrency(int churnConcurrency) {
+        this.churnConcurrency = Math.max(1, churnConcurrency);
+    }
+
+    /**
+     * 设置逐行追溯时的并行数
+     *
+     * @param annotateConcurrency 并行追溯的文件数
+     */
+    public void setAnnotateConcurrency(int annotateConcurrency) {
+        this.annotateConcurrency = Math.max(1, annotateConcurrency);
+    }
+
+    /**
+     * 启用生成比较日志的断点记录: 每个文件的比较结果保存到断点目录,生成中途失败或进程退出后重新生成时,
+     * 只比较未完成及失败的文件; 版本相同的其它文件列表也复用已保存的结果。全部文件比较成功后删除该版本间的断点记录
+     *
+     * @param checkpointDir 断点记录目录
+     * @throws SVNException 异常
      */
-    public File getChangeLog(long startVersion, long endVersion, List<String> filePathList) {
-        File tempLogFile = null;
-        String svnDiffFile;
+    public void enableChangeLogCheckpoint(File checkpointDir) throws SVNException {
         try {
-            do {
-                svnDiffFile = tempDir + "/svn_diff_file_" + startVersion + "_" + endVersion + "_" + random.nextInt(10000) + ".txt";
-                tempLogFile = new File(svnDiffFile);
-            } while (tempLogFile.exists());
-            tempLogFile.createNewFile();
+            changeLogCheckpoint = new ChangeLogCheckpoint(checkpointDir, sessionManager.getRepositoryUUID(projectUrl));
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e);
         }
-        try (OutputStream os = new FileOutputStream(tempLogFile)) {
-            for (String filePath : filePathList) {
-                byte[] bytes;
-                try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-                    diffClient.doDiff(SVNURL.parseURIEncoded(filePath),
-                            SVNRevision.create(startVersion),
-                            SVNURL.parseURIEncoded(filePath),
-                            SVNRevision.create(endVersion),
-                            SVNDepth.UNKNOWN, true, bos);
-                    bytes = bos.toByteArray();
-                }
-                os.write(bytes);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return tempLogFile;
+    }
+
+    /**
+     * @return 生成比较日志的断点记录,未启用时为null
+     */
+    public ChangeLogCheckpoint getChangeLogCheckpoint() {
+        return changeLogCheckpoint;
+    }
+
+    /**
+     * 设置启用断点记录时单个文件因连接问题比较失败的重试方式
+     *
+     * @param maxAttempts 最大尝试次数(包括第一次)
+     * @param backoff     第一次重试前的等待时间(毫秒),之后每次加倍
+     */
+    public void setDiffRetry(int maxAttempts, long backoff) {
+        this.diffRetryAttempts = Math.max(1, maxAttempts);
+        this.diffRetryBackoff = Math.max(0, backoff);
+    }
+
+    /**
+     * 设置生成比较日志前的文件过滤规则,二进制文件及过大的文件不再下载比较,只列出变更类型及大小变化(或截断比较结果)
+     *
+     * @param diffFilter 过滤规则,为null时全部比较
+     */
+    public void setDiffFilter(DiffFilter diffFilter) {
+        this.diffFilter = diffFilter;
+    }
+
+    /**
+     * 获取各操作的耗时、出错次数及网络流量统计,可添加监听器或导出 JSON 快照
+     *
+     * @return 统计
+     */
+    public SVNMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 设置统计对象,多个SVNManager可以共用同一个统计
+     *
+     * @param metrics 统计
+     */
+    public void setMetrics(SVNMetrics metrics) {
+        this.metrics = metrics;
     }
 
     /**
@@ -176,39 +1350,53 @@ public class SVNManager {
      */
     public int staticticsCodeAdd(File file) throws Exception {
         System.out.println("开始统计代码的变更类型及变更行数");
-        int sum = 0;
-        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
-            StringBuffer buffer = new StringBuffer(1024);
-            boolean start = false;
-            String line;
-            while ((line = in.readLine()) != null) {
-                if (line.startsWith("Index:")) {
-                    if (start) {
-                        ChangeFile changeFile = parseChangeFile(buffer);
-                        int oneSize = countAddLine(changeFile.getFileContent());
-                        System.out.println("filePath=" + changeFile.getFilePath() + "  changeType=" + changeFile.getChangeType() + "  addLines=" + oneSize);
-                        sum += oneSize;
-                        buffer.setLength(0);
-                    }
-                    start = true;
-                }
-                buffer.append(line).append('\n');
-            }
-            // 统计最后一个文件的代码增量
-            if (buffer.length() > 0) {
-                ChangeFile changeFile = parseChangeFile(buffer);
-                int oneSize = countAddLine(changeFile.getFileContent());
-                System.out.println("filePath=" + changeFile.getFilePath() + "  changeType=" + changeFile.getChangeType() + "  addLines=" + oneSize);
-                sum += oneSize;
-            }
-        }
+        ChangeLogStatistics statistics = analyzeChangeLog(file, ChangeFileSink.console());
         boolean deleteFile = file.delete();
         System.out.println("统计结束，删除版本计较日志文件：" + (deleteFile ? "成功" : "失败"));
-        return sum;
+        return (int) statistics.getTotal().getAddLines();
+    }
+
+    /**
+     * 并行分析版本比较日志文件,统计每个文件的变更类型及变更行数,并按文件扩展名分类汇总(不删除日志文件)
+     *
+     * @param file 变更日志文件
+     * @param sink 统计结果接收者,按文件在日志中的顺序接收
+     * @return 统计结果
+     * @throws IOException 读取文件失败
+     */
+    public ChangeLogStatistics analyzeChangeLog(File file, ChangeFileSink sink) throws IOException {
+        SVNMetrics metrics = this.metrics;
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            ChangeLogStatistics statistics = new ChangeLogAnalyzer().analyze(file, sink);
+            failed = false;
+            return statistics;
+        } finally {
+            metrics.end("analyzeChangeLog", start, failed);
+        }
+    }
+
+    /**
+     * 统计压缩并带索引的比较日志,结果直接来自索引,不解压比较内容
+     *
+     * @param archive 比较日志
+     * @param sink    统计结果接收者,按文件在日志中的顺序接收
+     * @return 统计结果
+     */
+    public ChangeLogStatistics analyzeChangeLog(ChangeLogArchive archive, ChangeFileSink sink) {
+        ChangeLogStatistics statistics = archive.getStatistics();
+        for (ChangeFile changeFile : statistics.getFiles()) {
+            sink.accept(changeFile);
+        }
+        sink.complete(statistics);
+        return statistics;
     }
 
     /**
      * 解析单个文件变更日志
+     * (变更类型由文本头部推断,只修改属性及二进制文件无法识别; 需要准确的变更类型时使用
+     * {@link #getChangeStatistics(LocalDateTime, LocalDateTime, String, ChangeFileSink)})
      *
      * @param str 变更文件对象的内容
      * @return 单个文件对象
@@ -288,18 +1476,146 @@ public class SVNManager {
      * @throws Exception 异常
      */
     public int staticticsCodeAddByTime(LocalDateTime beginDateTime, LocalDateTime endDateTime) throws Exception {
-        int sum = 0;
-        List<SVNLogEntry> entryList = getLogs(beginDateTime, endDateTime);
-        if (entryList.size() > 0) {
-            long lastVersion = entryList.get(0).getRevision();
-            for (SVNLogEntry log : entryList) {
-                File logFile = getChangeLog(lastVersion, log.getRevision(), new ArrayList<>());
-                int addSize = staticticsCodeAdd(logFile);
-                sum += addSize;
-                lastVersion = log.getRevision();
+        ChurnTable table = getRevisionChurn(beginDateTime, endDateTime, null);
+        return (int) table.getTotal().getAddLines();
+    }
+
+    /**
+     * 统计一段时间内每个版本的代码变更行数
+     *
+     * @param beginDateTime 开始时间
+     * @param endDateTime   结束时间
+     * @param author        用户名,为null时不过滤
+     * @return 按版本、提交人、文件汇总的变更行数
+     * @throws SVNException 异常
+     */
+    public ChurnTable getRevisionChurn(LocalDateTime beginDateTime, LocalDateTime endDateTime, String author) throws SVNException {
+        long[] versions = getDatedRevisions(beginDateTime, endDateTime);
+        // 开始时间对应的版本是开始时间之前的最后一个版本,不计入统计
+        long startVersion = versions[0] + 1;
+        long endVersion = versions[1];
+        if (startVersion > endVersion) {
+            return new ChurnTable();
+        }
+        return getRevisionChurn(startVersion, endVersion, author);
+    }
+
+    /**
+     * 统计起始结束版本间每个版本的代码变更行数(只统计项目目录下的文本文件,不计空行)
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param author       用户名,为null时不过滤
+     * @return 按版本、提交人、文件汇总的变更行数
+     * @throws SVNException 异常
+     */
+    public ChurnTable getRevisionChurn(long startVersion, long endVersion, String author) throws SVNException {
+        List<SVNLogEntry> entries = new ArrayList<>();
+        forEachLog(startVersion, endVersion, author, false, entries::add);
+        return getRevisionChurn(entries);
+    }
+
+    /**
+     * 统计指定提交记录中每个版本的代码变更行数(只统计项目目录下的文本文件,不计空行)
+     *
+     * @param entries 提交记录,不需要包含变更路径
+     * @return 按版本、提交人、文件汇总的变更行数
+     * @throws SVNException 异常
+     */
+    public ChurnTable getRevisionChurn(List<SVNLogEntry> entries) throws SVNException {
+        SVNMetrics metrics = this.metrics;
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            ChurnTable table = new RevisionChurnEngine(sessionManager.getPool(projectUrl), churnConcurrency).compute(entries);
+            failed = false;
+            return table;
+        } finally {
+            metrics.end("revisionChurn", start, failed);
+        }
+    }
+
+    /**
+     * 按逐行追溯统计起始结束时间之间新增的代码行的实际编写人(只统计项目目录下在结束时间仍存在的非空行)
+     *
+     * @param beginDateTime 开始时间
+     * @param endDateTime   结束时间
+     * @return 各提交人及各文件的新增行数
+     * @throws SVNException 异常
+     */
+    public AuthorAttribution getAuthorAttribution(LocalDateTime beginDateTime, LocalDateTime endDateTime) throws SVNException {
+        long[] versions = getDatedRevisions(beginDateTime, endDateTime);
+        // 开始时间对应的版本是开始时间之前的最后一个版本,不计入统计
+        return getAuthorAttribution(versions[0] + 1, versions[1]);
+    }
+
+    /**
+     * 按逐行追溯统计起始结束版本之间新增的代码行的实际编写人: 对这些版本中修改过的文件并行追溯,
+     * 其他人对同一文件的修改计入其本人; 追溯结果按(文件, 版本)缓存,之后查询稍晚的时间段时只追溯新修改的文件
+     *
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @return 各提交人及各文件的新增行数
+     * @throws SVNException 异常
+     */
+    public AuthorAttribution getAuthorAttribution(long startVersion, long endVersion) throws SVNException {
+        if (startVersion > endVersion) {
+            return new AuthorAttribution();
+        }
+        String projectPath = projectUrl.getPath().substring(rootUrl.getPath().length()) + "/";
+        // 文件路径 -> 范围内最后修改的版本,被删除的文件(包括之后被删除的目录下的文件)不统计
+        TreeMap<String, Long> files = new TreeMap<>();
+        // 无法从提交记录确定在结束版本是否仍为文件的路径: 类型未知,或之后上级目录被替换
+        Set<String> unverified = new HashSet<>();
+        forEachLog(startVersion, endVersion, null, true, log -> {
+            for (SVNLogEntryPath path : log.getChangedPaths().values()) {
+                if (!path.getPath().startsWith(projectPath)) {
+                    continue;
+                }
+                boolean file = path.getKind() == SVNNodeKind.FILE;
+                if (!file) {
+                    // 目录或类型未知的路径被删除、替换时,之前记录的其下的文件可能已不存在
+                    SortedMap<String, Long> children = files.subMap(path.getPath() + "/", path.getPath() + "0");
+                    if (path.getType() == SVNLogEntryPath.TYPE_DELETED) {
+                        children.clear();
+                    } else if (path.getType() == SVNLogEntryPath.TYPE_REPLACED) {
+                        unverified.addAll(children.keySet());
+                    }
+                }
+                if (path.getType() == SVNLogEntryPath.TYPE_DELETED) {
+                    files.remove(path.getPath());
+                    unverified.remove(path.getPath());
+                } else if (path.getKind() != SVNNodeKind.DIR) {
+                    files.put(path.getPath(), log.getRevision());
+                    if (file) {
+                        unverified.remove(path.getPath());
+                    } else {
+                        unverified.add(path.getPath());
+                    }
+                }
             }
+        });
+        if (!unverified.isEmpty()) {
+            execute("checkPath", rootUrl, repository -> {
+                for (String path : unverified) {
+                    if (repository.checkPath(path, endVersion) != SVNNodeKind.FILE) {
+                        files.remove(path);
+                    }
+                }
+                return null;
+            });
+        }
+        SVNMetrics metrics = this.metrics;
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            AuthorAttribution attribution = new AuthorAttributor(rootUrl, sessionManager.getPool(projectUrl), authManager, options, annotationCache, annotateConcurrency)
+                    .attribute(files, startVersion - 1);
+            failed = false;
+            return attribution;
+        } finally {
+            metrics.end("annotate", start, failed);
         }
-        return sum;
     }
 
     public List<SVNLogEntryPath> getChangeFileList(long version) throws SVNException {
@@ -327,7 +1643,17 @@ public class SVNManager {
         };
 
         try {
-            logClient.doLog(projectUrl, paths, pegRevision, startRevision, endRevision, stopOnCopy, discoverChangedPaths, limit, handler);
+            SVNLogClient logClient = new SVNLogClient(createRepositoryPool(), options);
+            SVNMetrics metrics = this.metrics;
+            long start = metrics.begin();
+            boolean failed = true;
+            try {
+                logClient.doLog(projectUrl, paths, pegRevision, startRevision, endRevision, stopOnCopy, discoverChangedPaths, limit, handler);
+                failed = false;
+            } finally {
+                metrics.end("log", start, failed);
+                dispose(logClient);
+            }
         } catch (SVNException e) {
             System.out.println("Error in doLog() ");
             e.printStackTrace();
@@ -342,12 +1668,108 @@ public class SVNManager {
      * @return 文件内容
      */
     public String checkoutFileToString(String filePath) throws SVNException {
-        SVNDirEntry entry = repository.getDir(filePath, -1, false, null);
-        int size = (int) entry.getSize();
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(size);
-        SVNProperties properties = new SVNProperties();
-        repository.getFile(filePath, -1, properties, outputStream);
-        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        return checkoutFileToString(filePath, -1);
+    }
+
+    /**
+     * 获取指定文件在指定版本的内容
+     *
+     * @param filePath 文件全路径
+     * @param revision 版本号,小于0时为最新版本
+     * @return 文件内容
+     */
+    public String checkoutFileToString(String filePath, long revision) throws SVNException {
+        return new String(checkoutFile(filePath, revision), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 获取指定文件在指定版本的原始内容,启用文件内容缓存时优先从缓存读取;
+     * 读取最新版本时先查询文件最后修改的版本号,该版本已缓存时不再下载
+     *
+     * @param filePath 文件全路径
+     * @param revision 版本号,小于0时为最新版本
+     * @return 文件内容
+     */
+    public byte[] checkoutFile(String filePath, long revision) throws SVNException {
+        FileContentCache fileContentCache = this.fileContentCache;
+        if (fileContentCache == null) {
+            return readFile(filePath, revision);
+        }
+        if (revision < 0) {
+            SVNDirEntry entry = execute("info", repository -> repository.info(filePath, -1));
+            if (entry == null || entry.getKind() != SVNNodeKind.FILE) {
+                return readFile(filePath, -1);
+            }
+            revision = entry.getRevision();
+        }
+        byte[] content = fileContentCache.get(filePath, revision);
+        if (content == null) {
+            content = readFile(filePath, revision);
+            fileContentCache.put(filePath, revision, content);
+        }
+        return content;
+    }
+
+    private byte[] readFile(String filePath, long revision) throws SVNException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        execute("getFile", repository -> repository.getFile(filePath, revision, null, outputStream));
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 批量导出指定版本中的多个文件到本地目录,所有文件通过一次请求获取(请求的文件所在目录不存在时改为逐个获取),
+     * 文件内容直接写入磁盘
+     *
+     * @param paths     相对项目目录的文件路径
+     * @param revision  版本号,小于0时为最新版本
+     * @param targetDir 目标目录
+     * @param listener  进度监听器
+     * @return 导出的总字节数
+     * @throws SVNException 异常
+     */
+    public long exportFiles(Collection<String> paths, long revision, Path targetDir, ExportProgressListener listener) throws SVNException {
+        return execute("export", repository -> {
+            long targetRevision = revision < 0 ? repository.getLatestRevision() : revision;
+            return new FileExporter(repository).export(paths, targetRevision, targetDir, listener);
+        });
+    }
+
+    /**
+     * 批量导出指定版本中的多个文件到本地目录,在控制台输出进度
+     *
+     * @param paths     相对项目目录的文件路径
+     * @param revision  版本号,小于0时为最新版本
+     * @param targetDir 目标目录
+     * @return 导出的总字节数
+     * @throws SVNException 异常
+     */
+    public long exportFiles(Collection<String> paths, long revision, Path targetDir) throws SVNException {
+        return exportFiles(paths, revision, targetDir, ExportProgressListener.console());
+    }
+
+    /**
+     * 比较本地发布包与svn指定版本中的文件,找出缺少、多出及内容不同的文件(按 MD5 比较,不下载svn中的文件内容)
+     *
+     * @param localPackage 本地发布包目录或 zip/jar/war 文件
+     * @param svnPath      与发布包根目录对应的svn目录,相对项目目录的路径,为空字符串时为项目目录
+     * @param revision     版本号,小于0时为最新版本
+     * @return 比较结果
+     * @throws SVNException 访问svn出错
+     * @throws IOException  读取本地文件出错
+     */
+    public PackageComparison comparePackage(Path localPackage, String svnPath, long revision) throws SVNException, IOException {
+        SVNURL packageUrl = svnPath == null || svnPath.isEmpty() ? projectUrl : projectUrl.appendPath(svnPath, false);
+        SVNMetrics metrics = this.metrics;
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            PackageComparison comparison = new PackageComparator(sessionManager, packageUrl, manifestCacheDir, ForkJoinPool.commonPool())
+                    .compare(localPackage, revision);
+            failed = false;
+            return comparison;
+        } finally {
+            metrics.end("comparePackage", start, failed);
+        }
     }
 
     /**
@@ -357,13 +1779,43 @@ public class SVNManager {
      * @return 子目录或文件
      */
     public List<SVNDirEntry> listFolder(String folderPath) throws SVNException {
-        if (checkPath(folderPath) == 1) {
-            Collection<SVNDirEntry> list = repository.getDir(folderPath, -1, null, (List<SVNDirEntry>) null);
-            List<SVNDirEntry> dirs = new ArrayList<>(list.size());
-            dirs.addAll(list);
-            return dirs;
+        List<SVNDirEntry> dirs = new ArrayList<>();
+        try {
+            execute("getDir", repository -> repository.getDir(folderPath, -1, null, dirs));
+        } catch (SVNException e) {
+            // 目录不存在或不是目录时返回空集合,不再预先检查路径
+            SVNErrorCode code = e.getErrorMessage().getErrorCode();
+            if (code == SVNErrorCode.FS_NOT_FOUND || code == SVNErrorCode.FS_NOT_DIRECTORY || code == SVNErrorCode.RA_DAV_PATH_NOT_FOUND) {
+                return new ArrayList<>();
+            }
+            throw e;
+        }
+        return dirs;
+    }
+
+    /**
+     * 按深度列出SVN目录下的文件及子目录,每个目录项到达时即交给处理器
+     * (不需要文件大小、是否有属性及提交说明时整个子树通过一次请求获取,否则并行逐个目录请求)
+     *
+     * @param folderPath  svn目录,相对项目目录的路径,空字符串为项目目录
+     * @param revision    版本号,小于0时为最新版本
+     * @param depth       深度: FILES 只列出直接包含的文件, IMMEDIATES 列出直接包含的文件及目录, INFINITY 递归列出
+     * @param entryFields 需要的目录项字段,见 {@link SVNDirEntry#DIRENT_ALL}
+     * @param filter      包含、排除规则,按相对folderPath的路径判断
+     * @param handler     目录项处理器,目录项的 getRelativePath() 为相对folderPath的路径
+     * @throws SVNException 异常
+     */
+    public void listTree(String folderPath, long revision, SVNDepth depth, int entryFields, PathFilter filter,
+                         ISVNDirEntryHandler handler) throws SVNException {
+        SVNMetrics metrics = this.metrics;
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            new TreeLister(sessionManager.getPool(projectUrl), listConcurrency).list(folderPath, revision, depth, entryFields, filter, handler);
+            failed = false;
+        } finally {
+            metrics.end("listTree", start, failed);
         }
-        return new ArrayList<>();
     }
 
     /**
@@ -375,7 +1827,7 @@ public class SVNManager {
     public int checkPath(String path) {
         SVNNodeKind nodeKind;
         try {
-            nodeKind = repository.checkPath(path, -1);
+            nodeKind = execute("checkPath", repository -> repository.checkPath(path, -1));
             boolean result = nodeKind != SVNNodeKind.NONE;
             if (result) {
                 return 1;
@@ -391,7 +1843,17 @@ public class SVNManager {
      * 关闭连接
      */
     public void closeSession() {
-        repository.closeSession();
+        if (ownSessionManager) {
+            sessionManager.close();
+        }
+        if (logCache != null) {
+            try {
+                logCache.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            logCache = null;
+        }
     }
 
     Map<Character, String> map = new HashMap<>() {{
@@ -0,0 +1,272 @@
+package com.example.svnkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按操作统计调用次数、出错次数、耗时分布、与服务器的往返次数及收发字节数
+ * <p>
+ * 使用方式:
+ * <pre>
+ * long start = metrics.begin();
+ * boolean failed = true;
+ * try {
+ *     ...
+ *     failed = false;
+ * } finally {
+ *     metrics.end("log", start, failed);
+ * }
+ * </pre>
+ * begin、end 必须在同一线程中成对调用; 往返次数及字节数来自会话上的 {@link MeteredDebugLog},
+ * 包括操作期间该线程及其用 {@link NetworkTraffic#attribute(java.util.concurrent.Callable)} 提交的并行任务产生的流量。记录时(除每种操作第一次出现外)不分配对象
+ *
+ * @author dengzm
+ */
+public class SVNMetrics {
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private volatile MetricsListener[] listeners = new MetricsListener[0];
+
+    /**
+     * 操作开始
+     *
+     * @return 开始时间,传给 {@link #end(String, long, boolean)}
+     */
+    public long begin() {
+        NetworkTraffic.current().push();
+        return System.nanoTime();
+    }
+
+    /**
+     * 操作结束,记录耗时及流量并通知监听器
+     *
+     * @param operation  操作名
+     * @param startNanos {@link #begin()} 的返回值
+     * @param failed     是否出错
+     */
+    public void end(String operation, long startNanos, boolean failed) {
+        long duration = System.nanoTime() - startNanos;
+        NetworkTraffic.Counter counter = NetworkTraffic.current();
+        counter.pop();
+        long roundTrips = counter.lastRoundTrips;
+        long bytesRead = counter.lastBytesRead;
+        long bytesWritten = counter.lastBytesWritten;
+        OperationStats stats = operations.get(operation);
+        if (stats == null) {
+            stats = operations.computeIfAbsent(operation, OperationStats::new);
+        }
+        stats.record(duration, failed, roundTrips, bytesRead, bytesWritten);
+        MetricsListener[] current = listeners;
+        for (MetricsListener listener : current) {
+            try {
+                listener.operationCompleted(operation, duration, failed, roundTrips, bytesRead, bytesWritten);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 添加监听器
+     *
+     * @param listener 监听器
+     */
+    public synchronized void addListener(MetricsListener listener) {
+        MetricsListener[] current = listeners;
+        MetricsListener[] updated = new MetricsListener[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * 移除监听器
+     *
+     * @param listener 监听器
+     */
+    public synchronized void removeListener(MetricsListener listener) {
+        MetricsListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                MetricsListener[] updated = new MetricsListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param operation 操作名
+     * @return 操作的统计,没有记录时为null
+     */
+    public OperationStats getStats(String operation) {
+        return operations.get(operation);
+    }
+
+    /**
+     * @return 按操作名排序的所有统计
+     */
+    public Map<String, OperationStats> getAllStats() {
+        return Collections.unmodifiableMap(new TreeMap<>(operations));
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        operations.clear();
+    }
+
+    /**
+     * 生成 JSON 格式的统计快照,耗时单位为毫秒; network 为本进程所有会话的流量合计
+     *
+     * @return JSON 字符串
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"timestamp\":").append(System.currentTimeMillis());
+        json.append(",\"network\":{\"roundTrips\":").append(NetworkTraffic.getTotalRoundTrips())
+                .append(",\"bytesRead\":").append(NetworkTraffic.getTotalBytesRead())
+                .append(",\"bytesWritten\":").append(NetworkTraffic.getTotalBytesWritten()).append('}');
+        json.append(",\"operations\":{");
+        boolean first = true;
+        for (OperationStats stats : getAllStats().values()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, stats.getName());
+            json.append(':');
+            stats.appendJson(json);
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * 将统计快照写入文件(先写临时文件再替换,读取方不会读到不完整的内容)
+     *
+     * @param file 文件
+     * @throws IOException 写入出错
+     */
+    public void dumpJson(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+        try {
+            Files.write(tmp.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static void appendMillis(StringBuilder json, double micros) {
+        json.append(Math.round(micros) / 1000.0);
+    }
+
+    /**
+     * 单个操作的统计
+     */
+    public static class OperationStats {
+        private final String name;
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong roundTrips = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        OperationStats(String name) {
+            this.name = name;
+        }
+
+        void record(long durationNanos, boolean failed, long roundTrips, long bytesRead, long bytesWritten) {
+            calls.incrementAndGet();
+            if (failed) {
+                errors.incrementAndGet();
+            }
+            this.roundTrips.addAndGet(roundTrips);
+            this.bytesRead.addAndGet(bytesRead);
+            this.bytesWritten.addAndGet(bytesWritten);
+            latency.record(durationNanos);
+        }
+
+        void appendJson(StringBuilder json) {
+            json.append("{\"calls\":").append(calls.get())
+                    .append(",\"errors\":").append(errors.get())
+                    .append(",\"roundTrips\":").append(roundTrips.get())
+                    .append(",\"bytesRead\":").append(bytesRead.get())
+                    .append(",\"bytesWritten\":").append(bytesWritten.get())
+                    .append(",\"latencyMillis\":{\"mean\":");
+            appendMillis(json, latency.getMeanMicros());
+            json.append(",\"p50\":");
+            appendMillis(json, latency.getPercentileMicros(0.5));
+            json.append(",\"p90\":");
+            appendMillis(json, latency.getPercentileMicros(0.9));
+            json.append(",\"p99\":");
+            appendMillis(json, latency.getPercentileMicros(0.99));
+            json.append(",\"max\":");
+            appendMillis(json, latency.getMaxMicros());
+            json.append(",\"total\":");
+            appendMillis(json, latency.getTotalMicros());
+            json.append("}}");
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls.get();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public long getRoundTrips() {
+            return roundTrips.get();
+        }
+
+        public long getBytesRead() {
+            return bytesRead.get();
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten.get();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.ISVNCanceller;
+import org.tmatesoft.svn.core.SVNCancelException;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+import java.util.*;
+
+/**
+ * 同一地址的svn会话池,供多个线程并行访问存储库(SVNRepository不是线程安全的,每个线程需借用独立的会话)
+ * <p>
+ * 会话在第一次借用时才创建(创建时不连接服务器,第一次请求时才建立连接并认证),最多创建maxSize个,全部被借出时借用方等待归还;
+ * 空闲超过检查间隔的会话在借出前先测试连接,连接已断开的会话被关闭并丢弃;
+ * 在可取消的调用中借出的会话登记到该调用的 {@link SVNCancellation},调用被取消后归还的会话直接关闭
+ *
+ * @author dengzm
+ */
+public class SVNRepositoryPool implements AutoCloseable {
+
+    private final SVNURL url;
+    private final ISVNAuthenticationManager authManager;
+    private final int maxSize;
+    private final Deque<SVNRepository> idle = new ArrayDeque<>();
+    private final Map<SVNRepository, Long> idleSince = new IdentityHashMap<>();
+    private int created;
+    private long validationInterval = 30 * 1000;
+    private boolean closed;
+
+    /**
+     * @param url         svn地址
+     * @param authManager 认证信息
+     * @param maxSize     最大会话数
+     */
+    public SVNRepositoryPool(SVNURL url, ISVNAuthenticationManager authManager, int maxSize) {
+        this.url = url;
+        this.authManager = authManager;
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * 借用一个会话,用完后必须通过 {@link #release(SVNRepository)} 归还
+     *
+     * @return svn会话
+     * @throws SVNException 创建会话失败
+     * @throws InterruptedException 等待时被中断
+     */
+    public SVNRepository borrow() throws SVNException, InterruptedException {
+        return borrow(1)[0];
+    }
+
+    /**
+     * 同时借用多个会话(全部可用时才一起借出,避免多个线程各持有一部分而互相等待),用完后逐个归还
+     *
+     * @param count 会话数,不能超过最大会话数
+     * @return svn会话
+     * @throws SVNException 创建会话失败
+     * @throws InterruptedException 等待时被中断
+     */
+    public SVNRepository[] borrow(int count) throws SVNException, InterruptedException {
+        return borrow(count, true);
+    }
+
+    /**
+     * 有空闲会话或未达到最大会话数时借用一个会话,否则不等待
+     *
+     * @return svn会话,没有可用的会话时为null
+     * @throws SVNException 创建会话失败
+     */
+    SVNRepository tryBorrow() throws SVNException {
+        try {
+            SVNRepository[] repositories = borrow(1, false);
+            return repositories == null ? null : repositories[0];
+        } catch (InterruptedException e) {
+            // 不等待时不会被中断
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private SVNRepository[] borrow(int count, boolean wait) throws SVNException, InterruptedException {
+        if (count > maxSize) {
+            throw new IllegalArgumentException("借用的会话数 " + count + " 超过最大会话数 " + maxSize);
+        }
+        SVNRepository[] repositories = new SVNRepository[count];
+        int taken = 0;
+        int toCreate;
+        List<SVNRepository> toValidate = new ArrayList<>();
+        synchronized (this) {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("会话池已关闭");
+                }
+                if (idle.size() + maxSize - created >= count) {
+                    break;
+                }
+                if (!wait) {
+                    return null;
+                }
+                wait();
+            }
+            long now = System.currentTimeMillis();
+            while (taken < count && !idle.isEmpty()) {
+                SVNRepository repository = idle.pop();
+                Long since = idleSince.remove(repository);
+                if (since != null && now - since > validationInterval) {
+                    toValidate.add(repository);
+                }
+                repositories[taken++] = repository;
+            }
+            toCreate = count - taken;
+            // 先占位,在锁外创建会话
+            created += toCreate;
+        }
+        try {
+            for (int i = 0; i < taken; i++) {
+                if (toValidate.contains(repositories[i]) && !isValid(repositories[i])) {
+                    repositories[i].closeSession();
+                    repositories[i] = create();
+                }
+            }
+            for (int i = taken; i < count; i++) {
+                repositories[i] = create();
+            }
+        } catch (SVNException | RuntimeException e) {
+            for (SVNRepository repository : repositories) {
+                if (repository != null) {
+                    invalidate(repository);
+                }
+            }
+            synchronized (this) {
+                // 未创建成功的占位
+                for (SVNRepository repository : repositories) {
+                    if (repository == null) {
+                        created--;
+                    }
+                }
+                notifyAll();
+            }
+            throw e;
+        }
+        SVNCancellation cancellation = SVNCancellation.current();
+        if (cancellation != null) {
+            try {
+                for (SVNRepository repository : repositories) {
+                    repository.setCanceller(cancellation);
+                    cancellation.attach(repository, repository::closeSession);
+                }
+            } catch (SVNCancelException e) {
+                for (SVNRepository repository : repositories) {
+                    release(repository);
+                }
+                throw e;
+            }
+        }
+        return repositories;
+    }
+
+    private SVNRepository create() throws SVNException {
+        SVNRepository repository = SVNRepositoryFactory.create(url);
+        repository.setAuthenticationManager(authManager);
+        // 统计该会话的网络流量及往返次数,见 SVNMetrics
+        repository.setDebugLog(new MeteredDebugLog());
+        return repository;
+    }
+
+    private boolean isValid(SVNRepository repository) {
+        try {
+            repository.testConnection();
+            return true;
+        } catch (SVNException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 归还会话
+     *
+     * @param repository 借用的会话
+     */
+    public void release(SVNRepository repository) {
+        release(repository, false);
+    }
+
+    /**
+     * 归还会话
+     *
+     * @param repository 借用的会话
+     * @param verify     下次借出前是否先测试连接(会话由svn客户端使用过,不确定连接状态时)
+     */
+    void release(SVNRepository repository, boolean verify) {
+        if (detach(repository)) {
+            // 调用已取消,连接上可能还有未读完的响应,不能再复用
+            invalidate(repository);
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                repository.closeSession();
+                created--;
+                return;
+            }
+            idle.push(repository);
+            idleSince.put(repository, verify ? 0L : System.currentTimeMillis());
+            notifyAll();
+        }
+    }
+
+    /**
+     * 关闭并丢弃出错的会话(如连接已断开),代替 {@link #release(SVNRepository)}
+     *
+     * @param repository 借用的会话
+     */
+    public void invalidate(SVNRepository repository) {
+        detach(repository);
+        repository.closeSession();
+        synchronized (this) {
+            created--;
+            notifyAll();
+        }
+    }
+
+    /**
+     * 取消会话在可取消调用中的登记
+     *
+     * @return 该调用是否已被取消
+     */
+    private static boolean detach(SVNRepository repository) {
+        ISVNCanceller canceller = repository.getCanceller();
+        if (!(canceller instanceof SVNCancellation)) {
+            return false;
+        }
+        SVNCancellation cancellation = (SVNCancellation) canceller;
+        cancellation.detach(repository);
+        repository.setCanceller(ISVNCanceller.NULL);
+        return cancellation.isCancelled();
+    }
+
+    /**
+     * 关闭所有空闲会话,之后不能再借用; 借出的会话在归还时关闭
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (SVNRepository repository : idle) {
+            repository.closeSession();
+        }
+        created -= idle.size();
+        idle.clear();
+        idleSince.clear();
+        notifyAll();
+    }
+
+    /**
+     * 设置空闲会话的检查间隔,空闲超过该时间的会话在借出前先测试连接
+     *
+     * @param validationInterval 检查间隔(毫秒)
+     */
+    public synchronized void setValidationInterval(long validationInterval) {
+        this.validationInterval = validationInterval;
+    }
+
+    public SVNURL getUrl() {
+        return url;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return 已创建(包括借出及空闲)的会话数
+     */
+    public synchronized int getSize() {
+        return created;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 线程安全的svn会话管理,为每个存储库地址维护一个有上限的会话池,并缓存各地址的存储库根地址及UUID
+ * <p>
+ * 多个线程可以同时借用会话,借用的会话已经认证过时不再重新建立连接及认证;
+ * 请求因连接问题失败时,该会话被关闭并从池中丢弃
+ *
+ * @author dengzm
+ */
+public class SVNSessionManager implements AutoCloseable {
+
+    private final ISVNAuthenticationManager authManager;
+    private final int maxSessionsPerUrl;
+    private final Map<SVNURL, SVNRepositoryPool> pools = new ConcurrentHashMap<>();
+    private final Map<SVNURL, RepositoryInfo> infos = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * @param username          用户名
+     * @param password          密码
+     * @param maxSessionsPerUrl 每个地址的最大会话数
+     */
+    public SVNSessionManager(String username, String password, int maxSessionsPerUrl) {
+        this(SVNWCUtil.createDefaultAuthenticationManager(username, password.toCharArray()), maxSessionsPerUrl);
+    }
+
+    /**
+     * @param authManager       认证信息
+     * @param maxSessionsPerUrl 每个地址的最大会话数,至少为2(部分操作同时使用两个会话)
+     */
+    public SVNSessionManager(ISVNAuthenticationManager authManager, int maxSessionsPerUrl) {
+        this.authManager = authManager;
+        this.maxSessionsPerUrl = Math.max(2, maxSessionsPerUrl);
+    }
+
+    /**
+     * 获取地址对应的会话池,第一次获取时创建
+     *
+     * @param url svn地址
+     * @return 会话池
+     */
+    public SVNRepositoryPool getPool(SVNURL url) {
+        if (closed) {
+            throw new IllegalStateException("会话管理器已关闭");
+        }
+        return pools.computeIfAbsent(url, key -> new SVNRepositoryPool(key, authManager, maxSessionsPerUrl));
+    }
+
+    /**
+     * 借用会话执行操作,完成后自动归还; 因连接问题失败时丢弃该会话
+     *
+     * @param url      svn地址
+     * @param callback 操作
+     * @param <T>      返回值类型
+     * @return 操作的返回值
+     * @throws SVNException 操作失败
+     */
+    public <T> T execute(SVNURL url, SessionCallback<T> callback) throws SVNException {
+        SVNRepositoryPool pool = getPool(url);
+        SVNRepository repository;
+        try {
+            repository = pool.borrow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, e), e);
+        }
+        boolean broken = false;
+        try {
+            return callback.call(repository);
+        } catch (SVNException e) {
+            broken = isConnectionError(e.getErrorMessage().getErrorCode());
+            throw e;
+        } catch (RuntimeException | Error e) {
+            broken = true;
+            throw e;
+        } finally {
+            if (broken) {
+                pool.invalidate(repository);
+            } else {
+                pool.release(repository);
+            }
+        }
+    }
+
+    /**
+     * 是否为连接问题(连接断开、读写失败等),此类错误可以重试
+     */
+    static boolean isConnectionError(SVNErrorCode code) {
+        return code == SVNErrorCode.IO_ERROR
+                || code == SVNErrorCode.RA_SVN_IO_ERROR
+                || code == SVNErrorCode.RA_SVN_CONNECTION_CLOSED
+                || code == SVNErrorCode.RA_SVN_MALFORMED_DATA
+                || code == SVNErrorCode.RA_DAV_SOCK_INIT
+                || code == SVNErrorCode.RA_DAV_REQUEST_FAILED
+                || code == SVNErrorCode.RA_DAV_MALFORMED_DATA;
+    }
+
+    /**
+     * 获取存储库根地址,同一地址只查询一次
+     *
+     * @param url svn地址
+     * @return 存储库根地址
+     * @throws SVNException 异常
+     */
+    public SVNURL getRepositoryRoot(SVNURL url) throws SVNException {
+        return getInfo(url).root;
+    }
+
+    /**
+     * 获取存储库UUID,同一地址只查询一次
+     *
+     * @param url svn地址
+     * @return 存储库UUID
+     * @throws SVNException 异常
+     */
+    public String getRepositoryUUID(SVNURL url) throws SVNException {
+        return getInfo(url).uuid;
+    }
+
+    private RepositoryInfo getInfo(SVNURL url) throws SVNException {
+        RepositoryInfo info = infos.get(url);
+        if (info == null) {
+            // 并发时可能重复查询,结果相同,不需要加锁
+            info = execute(url, repository -> new RepositoryInfo(repository.getRepositoryRoot(true), repository.getRepositoryUUID(true)));
+            infos.put(url, info);
+        }
+        return info;
+    }
+
+    public ISVNAuthenticationManager getAuthManager() {
+        return authManager;
+    }
+
+    /**
+     * 关闭所有会话池
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pools.values().forEach(SVNRepositoryPool::close);
+        pools.clear();
+    }
+
+    /**
+     * 使用会话的操作
+     *
+     * @param <T> 返回值类型
+     */
+    public interface SessionCallback<T> {
+        T call(SVNRepository repository) throws SVNException;
+    }
+
+    private static final class RepositoryInfo {
+        private final SVNURL root;
+        private final String uuid;
+
+        RepositoryInfo(SVNURL root, String uuid) {
+            this.root = root;
+            this.uuid = uuid;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.svnkit;
+
+import org.joda.time.LocalDateTime;
+
+/**
+ * 多存储库批量统计中的一项任务: 对一个存储库地址在指定版本(或时间)范围内执行一个操作,由 {@link ScanScheduler} 调度
+ *
+ * @param <T> 操作结果类型
+ * @author dengzm
+ */
+public final class ScanJob<T> {
+
+    private final String url;
+    private final LocalDateTime beginDateTime;
+    private final LocalDateTime endDateTime;
+    private final long startVersion;
+    private final long endVersion;
+    private final Scan<T> scan;
+
+    private ScanJob(String url, LocalDateTime beginDateTime, LocalDateTime endDateTime,
+                    long startVersion, long endVersion, Scan<T> scan) {
+        this.url = url;
+        this.beginDateTime = beginDateTime;
+        this.endDateTime = endDateTime;
+        this.startVersion = startVersion;
+        this.endVersion = endVersion;
+        this.scan = scan;
+    }
+
+    /**
+     * 按时间范围的任务
+     *
+     * @param url           存储库(项目)地址
+     * @param beginDateTime 开始时间
+     * @param endDateTime   结束时间
+     * @param scan          操作
+     * @param <T>           操作结果类型
+     * @return 任务
+     */
+    public static <T> ScanJob<T> of(String url, LocalDateTime beginDateTime, LocalDateTime endDateTime, Scan<T> scan) {
+        return new ScanJob<>(url, beginDateTime, endDateTime, -1, -1, scan);
+    }
+
+    /**
+     * 按版本范围的任务
+     *
+     * @param url          存储库(项目)地址
+     * @param startVersion 开始版本号
+     * @param endVersion   结束版本号
+     * @param scan         操作
+     * @param <T>          操作结果类型
+     * @return 任务
+     */
+    public static <T> ScanJob<T> of(String url, long startVersion, long endVersion, Scan<T> scan) {
+        return new ScanJob<>(url, null, null, startVersion, endVersion, scan);
+    }
+
+    /**
+     * 统计时间范围内(指定用户)变更文件的变更类型及行数
+     *
+     * @see SVNManager#getChangeStatistics(LocalDateTime, LocalDateTime, String, ChangeFileSink)
+     */
+    public static ScanJob<ChangeLogStatistics> changeStatistics(String url, LocalDateTime beginDateTime,
+                                                                LocalDateTime endDateTime, String author) {
+        return of(url, beginDateTime, endDateTime,
+                (manager, job) -> manager.getChangeStatistics(job.beginDateTime, job.endDateTime, author, ChangeFileSink.discard()));
+    }
+
+    /**
+     * 统计时间范围内每个版本的代码变更行数
+     *
+     * @see SVNManager#getRevisionChurn(LocalDateTime, LocalDateTime, String)
+     */
+    public static ScanJob<ChurnTable> revisionChurn(String url, LocalDateTime beginDateTime,
+                                                    LocalDateTime endDateTime, String author) {
+        return of(url, beginDateTime, endDateTime,
+                (manager, job) -> manager.getRevisionChurn(job.beginDateTime, job.endDateTime, author));
+    }
+
+    T run(SVNManager manager) throws Exception {
+        return scan.scan(manager, this);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return 开始时间,按版本范围时为null
+     */
+    public LocalDateTime getBeginDateTime() {
+        return beginDateTime;
+    }
+
+    /**
+     * @return 结束时间,按版本范围时为null
+     */
+    public LocalDateTime getEndDateTime() {
+        return endDateTime;
+    }
+
+    /**
+     * @return 开始版本号,按时间范围时为-1
+     */
+    public long getStartVersion() {
+        return startVersion;
+    }
+
+    /**
+     * @return 结束版本号,按时间范围时为-1
+     */
+    public long getEndVersion() {
+        return endVersion;
+    }
+
+    @Override
+    public String toString() {
+        return url + (beginDateTime != null ? " [" + beginDateTime + ", " + endDateTime + "]" : " [r" + startVersion + ", r" + endVersion + "]");
+    }
+
+    /**
+     * 任务的操作,在已连接该存储库的SVNManager上执行
+     *
+     * @param <T> 操作结果类型
+     */
+    public interface Scan<T> {
+        T scan(SVNManager manager, ScanJob<T> job) throws Exception;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.svnkit;
+
+/**
+ * 一批任务的进度快照
+ * <p>
+ * 各服务器的任务互不影响地并行执行,预计剩余时间取各服务器中最晚完成的一个:
+ * 服务器剩余任务数 / 该服务器的并发数 * 该服务器已完成任务的平均耗时(还没有完成的任务时使用全部服务器的平均耗时)
+ *
+ * @author dengzm
+ */
+public class ScanProgress {
+
+    private final int totalJobs;
+    private final int finishedJobs;
+    private final int failedJobs;
+    private final int runningJobs;
+    private final long elapsedMillis;
+    private final long remainingMillis;
+
+    ScanProgress(int totalJobs, int finishedJobs, int failedJobs, int runningJobs, long elapsedMillis, long remainingMillis) {
+        this.totalJobs = totalJobs;
+        this.finishedJobs = finishedJobs;
+        this.failedJobs = failedJobs;
+        this.runningJobs = runningJobs;
+        this.elapsedMillis = elapsedMillis;
+        this.remainingMillis = remainingMillis;
+    }
+
+    public int getTotalJobs() {
+        return totalJobs;
+    }
+
+    /**
+     * @return 已完成的任务数(包括失败的)
+     */
+    public int getFinishedJobs() {
+        return finishedJobs;
+    }
+
+    public int getFailedJobs() {
+        return failedJobs;
+    }
+
+    public int getRunningJobs() {
+        return runningJobs;
+    }
+
+    /**
+     * @return 排队等待的任务数
+     */
+    public int getQueuedJobs() {
+        return totalJobs - finishedJobs - runningJobs;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return 预计剩余时间(毫秒),还没有完成的任务时为-1
+     */
+    public long getRemainingMillis() {
+        return remainingMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "进度: " + finishedJobs + "/" + totalJobs + "  失败: " + failedJobs + "  执行中: " + runningJobs
+                + "  已用: " + elapsedMillis / 1000 + "s  预计剩余: " + (remainingMillis < 0 ? "未知" : remainingMillis / 1000 + "s");
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.svnkit;
+
+/**
+ * 多存储库批量统计的进度监听器,在执行任务的线程中调用
+ *
+ * @author dengzm
+ */
+public interface ScanProgressListener {
+
+    /**
+     * 一个任务开始执行
+     *
+     * @param job      任务
+     * @param progress 当前进度
+     */
+    default void jobStarted(ScanJob<?> job, ScanProgress progress) {
+    }
+
+    /**
+     * 一个任务执行完毕(成功或失败)
+     *
+     * @param result   任务结果
+     * @param progress 当前进度
+     */
+    void jobFinished(ScanReport.Result<?> result, ScanProgress progress);
+
+    /**
+     * @return 不做任何处理的监听器
+     */
+    static ScanProgressListener none() {
+        return (result, progress) -> {
+        };
+    }
+
+    /**
+     * @return 在控制台输出进度的监听器
+     */
+    static ScanProgressListener console() {
+        return (result, progress) -> System.out.println(progress + "  " + result);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.svnkit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 一批任务的执行结果,按提交任务的顺序排列,失败的任务不影响其它任务
+ *
+ * @param <T> 操作结果类型
+ * @author dengzm
+ */
+public class ScanReport<T> {
+
+    private final List<Result<T>> results;
+    private final long elapsedMillis;
+
+    ScanReport(List<Result<T>> results, long elapsedMillis) {
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Result<T>> getResults() {
+        return results;
+    }
+
+    /**
+     * @return 失败的任务
+     */
+    public List<Result<T>> getFailures() {
+        return results.stream().filter(result -> result.getError() != null).collect(Collectors.toList());
+    }
+
+    /**
+     * 合并全部成功任务的结果,例如 report.merge(ChangeLogStatistics::new, ChangeLogStatistics::merge)
+     *
+     * @param supplier    创建合并结果
+     * @param accumulator 将单个任务的结果并入合并结果
+     * @param <R>         合并结果类型
+     * @return 合并结果
+     */
+    public <R> R merge(Supplier<R> supplier, BiConsumer<R, ? super T> accumulator) {
+        R merged = supplier.get();
+        for (Result<T> result : results) {
+            if (result.getError() == null) {
+                accumulator.accept(merged, result.getValue());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @return 整批任务的耗时(毫秒)
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("任务数: ").append(results.size())
+                .append("  失败: ").append(getFailures().size())
+                .append("  耗时: ").append(elapsedMillis).append("ms");
+        for (Result<T> result : results) {
+            builder.append('\n').append(result);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 单个任务的执行结果
+     *
+     * @param <T> 操作结果类型
+     */
+    public static class Result<T> {
+        private final ScanJob<T> job;
+        private final T value;
+        private final Throwable error;
+        private final long durationMillis;
+
+        Result(ScanJob<T> job, T value, Throwable error, long durationMillis) {
+            this.job = job;
+            this.value = value;
+            this.error = error;
+            this.durationMillis = durationMillis;
+        }
+
+        public ScanJob<T> getJob() {
+            return job;
+        }
+
+        /**
+         * @return 操作结果,失败时为null
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return 失败原因,成功时为null
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        /**
+         * @return 执行耗时(毫秒),不含排队时间
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            return job + "  " + (error == null ? "成功" : "失败: " + error) + "  " + durationMillis + "ms";
+        }
+    }
+}
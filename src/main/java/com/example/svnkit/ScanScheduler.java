@@ -0,0 +1,480 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 多存储库批量统计的调度器: 一批任务(存储库地址、版本或时间范围、操作)同时执行,结果合并为一份 {@link ScanReport}
+ * <p>
+ * 任务按服务器(主机名:端口)排队,每台服务器同时执行的任务数不超过其并发上限,各服务器之间互不影响,
+ * 总耗时随服务器数增加而缩短,不会被某一个很慢的存储库拖住;同一服务器上按存储库轮流取任务,
+ * 任务多的存储库不会让其它存储库一直等待。同一服务器的任务共用一个 {@link SVNSessionManager},
+ * 已认证的连接及存储库根地址在任务之间复用,每个存储库地址的会话数也不超过该服务器的并发上限。
+ * 任务通过 {@link AsyncSVNManager} 执行,等待结果的线程被中断或调度器关闭时,正在执行的任务被中止
+ *
+ * @author dengzm
+ */
+public class ScanScheduler implements AutoCloseable {
+
+    /**
+     * 每台服务器默认的并发任务数
+     */
+    public static final int DEFAULT_HOST_CONCURRENCY = 4;
+
+    private final String username;
+    private final String password;
+    private final Executor executor;
+    private final boolean ownExecutor;
+    private final Map<String, String[]> credentials = new ConcurrentHashMap<>();
+    private final Map<String, Integer> hostConcurrency = new ConcurrentHashMap<>();
+    private volatile int defaultHostConcurrency = DEFAULT_HOST_CONCURRENCY;
+    private volatile Consumer<SVNManager> managerConfigurer = manager -> {
+    };
+    private volatile ScanProgressListener progressListener = ScanProgressListener.none();
+
+    // 以下字段由 this 保护
+    private final Map<String, Host> hosts = new LinkedHashMap<>();
+    private final Set<Entry<?>> running = new HashSet<>();
+    private boolean closed;
+
+    /**
+     * 使用默认执行器(见 {@link AsyncSVNManager#createDefaultExecutor(int)}),关闭时一并关闭
+     *
+     * @param username 默认用户名
+     * @param password 默认密码
+     */
+    public ScanScheduler(String username, String password) {
+        this(username, password, AsyncSVNManager.createDefaultExecutor(AsyncSVNManager.DEFAULT_POOL_SIZE), true);
+    }
+
+    /**
+     * 使用调用方提供的执行器,关闭时不关闭该执行器
+     *
+     * @param username 默认用户名
+     * @param password 默认密码
+     * @param executor 执行器,线程数不应少于各服务器并发数之和
+     */
+    public ScanScheduler(String username, String password, Executor executor) {
+        this(username, password, executor, false);
+    }
+
+    private ScanScheduler(String username, String password, Executor executor, boolean ownExecutor) {
+        this.username = username;
+        this.password = password;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+    }
+
+    /**
+     * 设置指定服务器的用户名及密码,需在第一次提交该服务器的任务之前设置
+     *
+     * @param host     主机名(带端口时为"主机名:端口")
+     * @param username 用户名
+     * @param password 密码
+     */
+    public void setCredentials(String host, String username, String password) {
+        credentials.put(host, new String[]{username, password});
+    }
+
+    /**
+     * 设置每台服务器默认的并发任务数
+     *
+     * @param concurrency 并发任务数
+     */
+    public void setHostConcurrency(int concurrency) {
+        this.defaultHostConcurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * 设置指定服务器的并发任务数,需在第一次提交该服务器的任务之前设置
+     *
+     * @param host        主机名(带端口时为"主机名:端口")
+     * @param concurrency 并发任务数
+     */
+    public void setHostConcurrency(String host, int concurrency) {
+        hostConcurrency.put(host, Math.max(1, concurrency));
+    }
+
+    /**
+     * 设置每个任务的SVNManager在连接前的配置,例如缓存、过滤规则、任务内的并行数
+     * (任务内的并行比较使用独立的连接,不计入服务器的并发任务数)
+     *
+     * @param managerConfigurer 配置
+     */
+    public void setManagerConfigurer(Consumer<SVNManager> managerConfigurer) {
+        this.managerConfigurer = managerConfigurer;
+    }
+
+    public void setProgressListener(ScanProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * 执行一批任务并等待全部完成,单个任务失败不影响其它任务
+     *
+     * @param jobs 任务
+     * @param <T>  操作结果类型
+     * @return 按任务顺序排列的执行结果
+     * @throws InterruptedException 等待时被中断,未完成的任务被取消
+     */
+    public <T> ScanReport<T> run(List<ScanJob<T>> jobs) throws InterruptedException {
+        Batch<T> batch = new Batch<>(jobs);
+        Map<Integer, SVNException> invalid = new LinkedHashMap<>();
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("调度器已关闭");
+            }
+            for (int i = 0; i < jobs.size(); i++) {
+                String hostName;
+                try {
+                    hostName = getHostName(jobs.get(i).getUrl());
+                } catch (SVNException e) {
+                    invalid.put(i, e);
+                    continue;
+                }
+                Host host = getHost(hostName);
+                batch.queued(hostName, host.concurrency);
+                host.add(new Entry<>(batch, i, host));
+            }
+        }
+        invalid.forEach((index, e) -> batch.finished(index, null, false, null, e, 0));
+        dispatch();
+        try {
+            batch.await();
+        } catch (InterruptedException e) {
+            cancel(batch);
+            throw e;
+        }
+        return batch.report();
+    }
+
+    /**
+     * 取消排队及正在执行的任务,关闭各服务器的会话; 使用默认执行器时一并关闭
+     */
+    @Override
+    public void close() {
+        List<Entry<?>> cancelled = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Host host : hosts.values()) {
+                cancelled.addAll(host.removeAll(null));
+                host.sessionManager.close();
+            }
+            cancelled.addAll(running);
+            running.forEach(entry -> entry.cancelled = true);
+        }
+        cancelEntries(cancelled);
+        if (ownExecutor) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private void cancel(Batch<?> batch) {
+        List<Entry<?>> cancelled = new ArrayList<>();
+        synchronized (this) {
+            for (Host host : hosts.values()) {
+                cancelled.addAll(host.removeAll(batch));
+            }
+            for (Entry<?> entry : running) {
+                if (entry.batch == batch) {
+                    entry.cancelled = true;
+                    cancelled.add(entry);
+                }
+            }
+        }
+        cancelEntries(cancelled);
+    }
+
+    /**
+     * 排队的任务直接记为已取消,正在执行的任务中止其调用(还没有提交到执行器的在提交后中止)
+     */
+    private void cancelEntries(List<Entry<?>> entries) {
+        for (Entry<?> entry : entries) {
+            CompletableFuture<?> future;
+            synchronized (this) {
+                future = entry.future;
+            }
+            if (future != null) {
+                future.cancel(true);
+            } else if (!entry.cancelled) {
+                entry.batch.finished(entry.index, entry.host.name, false, null, new CancellationException("任务已取消"), 0);
+            }
+        }
+    }
+
+    private static String getHostName(String url) throws SVNException {
+        SVNURL svnUrl = SVNURL.parseURIEncoded(url);
+        // 本地地址(file://)的端口为-1
+        return svnUrl.hasPort() && svnUrl.getPort() > 0 ? svnUrl.getHost() + ":" + svnUrl.getPort() : svnUrl.getHost();
+    }
+
+    private Host getHost(String name) {
+        return hosts.computeIfAbsent(name, key -> {
+            String[] credential = credentials.getOrDefault(key, new String[]{username, password});
+            int concurrency = hostConcurrency.getOrDefault(key, defaultHostConcurrency);
+            return new Host(key, new SVNSessionManager(credential[0], credential[1], concurrency), concurrency);
+        });
+    }
+
+    /**
+     * 各服务器在并发上限内开始执行排队的任务
+     */
+    private void dispatch() {
+        List<Entry<?>> started = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            for (Host host : hosts.values()) {
+                while (host.running < host.concurrency) {
+                    Entry<?> entry = host.poll();
+                    if (entry == null) {
+                        break;
+                    }
+                    host.running++;
+                    running.add(entry);
+                    started.add(entry);
+                }
+            }
+        }
+        for (Entry<?> entry : started) {
+            start(entry);
+        }
+    }
+
+    private <T> void start(Entry<T> entry) {
+        ScanJob<T> job = entry.batch.jobs.get(entry.index);
+        SVNManager manager = new SVNManager();
+        long[] startNanos = {System.nanoTime()};
+        // 占用的并发数由任务执行结束时释放(被取消时future立即结束,任务可能还在执行);
+        // 任务还没开始执行就被取消时不会再执行,由future结束时释放
+        AtomicBoolean started = new AtomicBoolean();
+        progressListener.jobStarted(job, entry.batch.started());
+        CompletableFuture<T> future = new AsyncSVNManager(manager, executor).submit(svnManager -> {
+            if (!started.compareAndSet(false, true)) {
+                throw new CancellationException("任务已取消");
+            }
+            try {
+                startNanos[0] = System.nanoTime();
+                managerConfigurer.accept(svnManager);
+                svnManager.createSession(entry.host.sessionManager, job.getUrl());
+                try {
+                    return job.run(svnManager);
+                } finally {
+                    svnManager.closeSession();
+                }
+            } finally {
+                release(entry);
+            }
+        });
+        boolean cancelled;
+        synchronized (this) {
+            entry.future = future;
+            cancelled = entry.cancelled;
+        }
+        if (cancelled) {
+            future.cancel(true);
+        }
+        future.whenComplete((value, error) -> {
+            entry.batch.finished(entry.index, entry.host.name, true, value, error,
+                    (System.nanoTime() - startNanos[0]) / 1_000_000);
+            if (started.compareAndSet(false, true)) {
+                release(entry);
+            }
+        });
+    }
+
+    /**
+     * 任务执行结束,释放其占用的并发数并开始执行排队的任务
+     */
+    private void release(Entry<?> entry) {
+        synchronized (this) {
+            entry.host.running--;
+            running.remove(entry);
+        }
+        dispatch();
+    }
+
+    /**
+     * 一台服务器的排队任务,按存储库分组轮流取出
+     */
+    private static final class Host {
+        private final String name;
+        private final SVNSessionManager sessionManager;
+        private final int concurrency;
+        private final Map<String, Deque<Entry<?>>> queues = new HashMap<>();
+        private final Deque<String> order = new ArrayDeque<>();
+        private int running;
+
+        Host(String name, SVNSessionManager sessionManager, int concurrency) {
+            this.name = name;
+            this.sessionManager = sessionManager;
+            this.concurrency = concurrency;
+        }
+
+        void add(Entry<?> entry) {
+            String url = entry.batch.jobs.get(entry.index).getUrl();
+            queues.computeIfAbsent(url, key -> {
+                order.add(key);
+                return new ArrayDeque<>();
+            }).add(entry);
+        }
+
+        Entry<?> poll() {
+            String url = order.poll();
+            if (url == null) {
+                return null;
+            }
+            Deque<Entry<?>> queue = queues.get(url);
+            Entry<?> entry = queue.poll();
+            if (queue.isEmpty()) {
+                queues.remove(url);
+            } else {
+                // 该存储库排到最后,下次先取其它存储库的任务
+                order.add(url);
+            }
+            return entry;
+        }
+
+        /**
+         * 移除指定批次(为null时全部)的排队任务
+         */
+        List<Entry<?>> removeAll(Batch<?> batch) {
+            List<Entry<?>> removed = new ArrayList<>();
+            for (Iterator<Deque<Entry<?>>> it = queues.values().iterator(); it.hasNext(); ) {
+                Deque<Entry<?>> queue = it.next();
+                queue.removeIf(entry -> {
+                    if (batch == null || entry.batch == batch) {
+                        removed.add(entry);
+                        return true;
+                    }
+                    return false;
+                });
+                if (queue.isEmpty()) {
+                    it.remove();
+                }
+            }
+            order.retainAll(queues.keySet());
+            return removed;
+        }
+    }
+
+    private static final class Entry<T> {
+        private final Batch<T> batch;
+        private final int index;
+        private final Host host;
+        // 以下字段由调度器保护
+        private CompletableFuture<T> future;
+        private boolean cancelled;
+
+        Entry(Batch<T> batch, int index, Host host) {
+            this.batch = batch;
+            this.index = index;
+            this.host = host;
+        }
+    }
+
+    /**
+     * 一次 {@link #run(List)} 提交的任务的结果及进度
+     */
+    private final class Batch<T> {
+        private final List<ScanJob<T>> jobs;
+        private final List<ScanReport.Result<T>> results;
+        private final CountDownLatch latch;
+        private final long startNanos = System.nanoTime();
+        // 服务器 -> {并发数, 未完成的任务数, 已完成的任务数, 已完成任务的总耗时}
+        private final Map<String, long[]> hostStats = new HashMap<>();
+        private int finished;
+        private int failed;
+        private int runningJobs;
+
+        Batch(List<ScanJob<T>> jobs) {
+            this.jobs = new ArrayList<>(jobs);
+            this.results = new ArrayList<>(Collections.nCopies(jobs.size(), null));
+            this.latch = new CountDownLatch(jobs.size());
+        }
+
+        synchronized void queued(String host, int concurrency) {
+            long[] stats = hostStats.computeIfAbsent(host, key -> new long[]{concurrency, 0, 0, 0});
+            stats[1]++;
+        }
+
+        synchronized ScanProgress started() {
+            runningJobs++;
+            return progress();
+        }
+
+        void finished(int index, String host, boolean started, T value, Throwable error, long durationMillis) {
+            ScanReport.Result<T> result;
+            ScanProgress progress;
+            synchronized (this) {
+                if (results.get(index) != null) {
+                    return;
+                }
+                result = new ScanReport.Result<>(jobs.get(index), value, error, durationMillis);
+                results.set(index, result);
+                finished++;
+                if (error != null) {
+                    failed++;
+                }
+                long[] stats = host == null ? null : hostStats.get(host);
+                if (stats != null) {
+                    stats[1]--;
+                    if (started) {
+                        stats[2]++;
+                        stats[3] += durationMillis;
+                    }
+                }
+                if (started) {
+                    runningJobs--;
+                }
+                progress = progress();
+            }
+            try {
+                progressListener.jobFinished(result, progress);
+            } finally {
+                latch.countDown();
+            }
+        }
+
+        /**
+         * 预计剩余时间取各服务器中最晚完成的一个
+         */
+        private ScanProgress progress() {
+            long doneJobs = 0;
+            long doneMillis = 0;
+            for (long[] stats : hostStats.values()) {
+                doneJobs += stats[2];
+                doneMillis += stats[3];
+            }
+            long remaining = 0;
+            for (long[] stats : hostStats.values()) {
+                if (stats[1] <= 0) {
+                    continue;
+                }
+                long average = stats[2] > 0 ? stats[3] / stats[2] : doneJobs > 0 ? doneMillis / doneJobs : -1;
+                if (average < 0) {
+                    remaining = -1;
+                    break;
+                }
+                long rounds = (stats[1] + stats[0] - 1) / stats[0];
+                remaining = Math.max(remaining, rounds * average);
+            }
+            return new ScanProgress(jobs.size(), finished, failed, runningJobs,
+                    (System.nanoTime() - startNanos) / 1_000_000, remaining);
+        }
+
+        void await() throws InterruptedException {
+            latch.await();
+        }
+
+        synchronized ScanReport<T> report() {
+            return new ScanReport<>(results, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+}
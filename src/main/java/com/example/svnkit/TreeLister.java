@@ -0,0 +1,370 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.ISVNReporter;
+import org.tmatesoft.svn.core.io.ISVNReporterBaton;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+import org.tmatesoft.svn.core.internal.util.SVNDate;
+
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 递归列出svn目录下的文件及子目录,每个目录项到达时即交给处理器,不在内存中保留整个结果
+ * <p>
+ * 不需要文件大小、是否有属性及提交说明时,通过一次状态请求获取整个子树(服务器不发送文件内容,只发送目录结构及最后修改信息);
+ * 否则在线程池中并行地逐个目录请求,每个线程从会话池借用独立的会话。
+ * 过滤规则在创建目录项对象之前按路径判断,被排除的目录不再请求其内容
+ *
+ * @author dengzm
+ */
+public class TreeLister {
+
+    private static final int REPORT_UNSUPPORTED_FIELDS = SVNDirEntry.DIRENT_SIZE | SVNDirEntry.DIRENT_HAS_PROPERTIES
+            | SVNDirEntry.DIRENT_COMMIT_MESSAGE;
+
+    private final SVNRepositoryPool pool;
+    private final int concurrency;
+
+    /**
+     * @param pool        会话池
+     * @param concurrency 逐个目录请求时的并行数
+     */
+    public TreeLister(SVNRepositoryPool pool, int concurrency) {
+        this.pool = pool;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * 列出目录下的文件及子目录(不包括目录本身)
+     *
+     * @param path        相对会话地址的目录路径,空字符串为会话地址本身
+     * @param revision    版本号,小于0时为最新版本
+     * @param depth       深度: FILES 只列出直接包含的文件, IMMEDIATES 列出直接包含的文件及目录, INFINITY 递归列出
+     * @param entryFields 需要的目录项字段,见 {@link SVNDirEntry#DIRENT_ALL}
+     * @param filter      过滤器,按相对列出目录的路径判断
+     * @param handler     处理器,并行请求时也不会被同时调用
+     * @throws SVNException 异常
+     */
+    public void list(String path, long revision, SVNDepth depth, int entryFields, PathFilter filter,
+                     ISVNDirEntryHandler handler) throws SVNException {
+        if (depth == SVNDepth.EMPTY) {
+            return;
+        }
+        SVNRepository repository = borrow();
+        try {
+            if (revision < 0) {
+                revision = repository.getLatestRevision();
+            }
+            if ((entryFields & REPORT_UNSUPPORTED_FIELDS) == 0) {
+                listByReport(repository, path, revision, depth, filter, handler);
+                return;
+            }
+        } finally {
+            pool.release(repository);
+        }
+        listByDirectory(path, revision, depth, entryFields, filter, handler);
+    }
+
+    /**
+     * 通过一次状态请求获取整个子树
+     */
+    private void listByReport(SVNRepository repository, String path, long revision, SVNDepth depth, PathFilter filter,
+                              ISVNDirEntryHandler handler) throws SVNException {
+        SVNURL location = repository.getLocation();
+        SVNURL baseUrl = path.isEmpty() ? location : location.appendPath(path, false);
+        SVNURL rootUrl = repository.getRepositoryRoot(true);
+        ISVNReporterBaton reporter = new ISVNReporterBaton() {
+            @Override
+            public void report(ISVNReporter reporter) throws SVNException {
+                reporter.setPath("", null, revision, depth, true);
+                reporter.finishReport();
+            }
+        };
+        // 临时将会话定位到要列出的目录,编辑器中的路径即为相对该目录的路径
+        repository.setLocation(baseUrl, false);
+        try {
+            repository.status(revision, null, depth, reporter, new ListEditor(baseUrl, rootUrl, filter, handler));
+        } finally {
+            repository.setLocation(location, false);
+        }
+    }
+
+    /**
+     * 在线程池中逐个目录请求,每个子目录作为一个新任务提交
+     */
+    private void listByDirectory(String path, long revision, SVNDepth depth, int entryFields, PathFilter filter,
+                                 ISVNDirEntryHandler handler) throws SVNException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        Progress progress = new Progress();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Object handlerLock = new Object();
+        try {
+            submit(executor, progress, error, handlerLock, path, "", revision, depth, entryFields, filter, handler);
+            progress.done.await();
+        } catch (InterruptedException e) {
+            error.compareAndSet(null, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        Exception e = error.get();
+        if (e instanceof SVNException) {
+            throw (SVNException) e;
+        }
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, e), e);
+        }
+        if (e != null) {
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.UNKNOWN, e), e);
+        }
+    }
+
+    private void submit(ExecutorService executor, Progress progress, AtomicReference<Exception> error, Object handlerLock,
+                        String basePath, String relativePath, long revision, SVNDepth depth, int entryFields,
+                        PathFilter filter, ISVNDirEntryHandler handler) {
+        progress.pending.incrementAndGet();
+        executor.execute(SVNCancellation.propagate(NetworkTraffic.attribute(() -> {
+            try {
+                if (error.get() != null) {
+                    return;
+                }
+                String dirPath = relativePath.isEmpty() ? basePath
+                        : basePath.isEmpty() ? relativePath : basePath + "/" + relativePath;
+                SVNRepository repository = pool.borrow();
+                try {
+                    repository.getDir(dirPath, revision, null, entryFields, entry -> {
+                        String childPath = relativePath.isEmpty() ? entry.getName() : relativePath + "/" + entry.getName();
+                        boolean dir = entry.getKind() == SVNNodeKind.DIR;
+                        if (dir && depth == SVNDepth.FILES) {
+                            return;
+                        }
+                        if (dir && depth == SVNDepth.INFINITY && !filter.isExcluded(childPath)) {
+                            submit(executor, progress, error, handlerLock, basePath, childPath, revision, depth, entryFields, filter, handler);
+                        }
+                        if (filter.accept(childPath)) {
+                            entry.setRelativePath(childPath);
+                            synchronized (handlerLock) {
+                                handler.handleDirEntry(entry);
+                            }
+                        }
+                    });
+                } finally {
+                    pool.release(repository);
+                }
+            } catch (Exception e) {
+                error.compareAndSet(null, e);
+            } finally {
+                progress.finish();
+            }
+        })));
+    }
+
+    /**
+     * 尚未完成的目录数,子目录总是在上级目录的任务结束前提交,计数归零即全部完成
+     */
+    private static class Progress {
+        final AtomicInteger pending = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        void finish() {
+            if (pending.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        }
+    }
+
+    private SVNRepository borrow() throws SVNException {
+        try {
+            return pool.borrow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, e), e);
+        }
+    }
+
+    /**
+     * 接收状态请求的目录结构,生成目录项; 目录项在其属性全部到达后(下一个子项开始或目录关闭时)输出
+     */
+    private static class ListEditor implements ISVNEditor {
+        private final SVNURL baseUrl;
+        private final SVNURL rootUrl;
+        private final PathFilter filter;
+        private final ISVNDirEntryHandler handler;
+        /**
+         * 当前打开的目录,被排除的目录为 Node.EXCLUDED
+         */
+        private final Deque<Node> dirs = new ArrayDeque<>();
+        private Node file;
+
+        ListEditor(SVNURL baseUrl, SVNURL rootUrl, PathFilter filter, ISVNDirEntryHandler handler) {
+            this.baseUrl = baseUrl;
+            this.rootUrl = rootUrl;
+            this.filter = filter;
+            this.handler = handler;
+        }
+
+        private boolean excludedByParent() {
+            return !dirs.isEmpty() && dirs.peek() == Node.EXCLUDED;
+        }
+
+        private void flushDir() throws SVNException {
+            Node dir = dirs.peek();
+            if (dir != null && dir != Node.EXCLUDED && !dir.visited) {
+                dir.visited = true;
+                if (dir.accepted) {
+                    handler.handleDirEntry(dir.toEntry(baseUrl, rootUrl, SVNNodeKind.DIR));
+                }
+            }
+        }
+
+        @Override
+        public void openRoot(long revision) {
+            dirs.push(Node.root());
+        }
+
+        @Override
+        public void addDir(String path, String copyFromPath, long copyFromRevision) throws SVNException {
+            flushDir();
+            if (excludedByParent() || filter.isExcluded(path)) {
+                dirs.push(Node.EXCLUDED);
+            } else {
+                dirs.push(new Node(path, filter.accept(path)));
+            }
+        }
+
+        @Override
+        public void openDir(String path, long revision) throws SVNException {
+            addDir(path, null, -1);
+        }
+
+        @Override
+        public void changeDirProperty(String name, SVNPropertyValue value) {
+            Node dir = dirs.peek();
+            if (dir != null && dir != Node.EXCLUDED) {
+                dir.setProperty(name, value);
+            }
+        }
+
+        @Override
+        public void closeDir() throws SVNException {
+            flushDir();
+            dirs.pop();
+        }
+
+        @Override
+        public void addFile(String path, String copyFromPath, long copyFromRevision) throws SVNException {
+            flushDir();
+            file = excludedByParent() || !filter.accept(path) ? null : new Node(path, true);
+        }
+
+        @Override
+        public void openFile(String path, long revision) throws SVNException {
+            addFile(path, null, -1);
+        }
+
+        @Override
+        public void changeFileProperty(String path, String propertyName, SVNPropertyValue propertyValue) {
+            if (file != null) {
+                file.setProperty(propertyName, propertyValue);
+            }
+        }
+
+        @Override
+        public void closeFile(String path, String textChecksum) throws SVNException {
+            if (file != null) {
+                handler.handleDirEntry(file.toEntry(baseUrl, rootUrl, SVNNodeKind.FILE));
+                file = null;
+            }
+        }
+
+        @Override
+        public void applyTextDelta(String path, String baseChecksum) {
+        }
+
+        @Override
+        public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public void textDeltaEnd(String path) {
+        }
+
+        @Override
+        public void targetRevision(long revision) {
+        }
+
+        @Override
+        public void deleteEntry(String path, long revision) {
+        }
+
+        @Override
+        public void absentDir(String path) {
+        }
+
+        @Override
+        public void absentFile(String path) {
+        }
+
+        @Override
+        public SVNCommitInfo closeEdit() {
+            return null;
+        }
+
+        @Override
+        public void abortEdit() {
+        }
+    }
+
+    /**
+     * 状态请求中的一个文件或目录及其最后修改信息
+     */
+    private static class Node {
+        static final Node EXCLUDED = new Node(null, false);
+
+        final String relativePath;
+        final boolean accepted;
+        boolean visited;
+        long revision = -1;
+        String author;
+        String date;
+
+        Node(String relativePath, boolean accepted) {
+            this.relativePath = relativePath;
+            this.accepted = accepted;
+        }
+
+        static Node root() {
+            Node root = new Node("", false);
+            root.visited = true;
+            return root;
+        }
+
+        void setProperty(String name, SVNPropertyValue value) {
+            if (SVNProperty.COMMITTED_REVISION.equals(name)) {
+                revision = value == null ? -1 : Long.parseLong(value.getString());
+            } else if (SVNProperty.LAST_AUTHOR.equals(name)) {
+                author = value == null ? null : value.getString();
+            } else if (SVNProperty.COMMITTED_DATE.equals(name)) {
+                date = value == null ? null : value.getString();
+            }
+        }
+
+        SVNDirEntry toEntry(SVNURL baseUrl, SVNURL rootUrl, SVNNodeKind kind) throws SVNException {
+            String name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+            SVNDirEntry entry = new SVNDirEntry(baseUrl.appendPath(relativePath, false), rootUrl, name, kind,
+                    -1, false, revision, date == null ? null : SVNDate.parseDate(date), author);
+            entry.setRelativePath(relativePath);
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+
+import java.io.IOException;
+
+public class AuthorAttributionTest {
+
+    private TestRepository repository;
+    private SVNManager svnManager;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        repository.commit("alice").put("project/keep/A.java", "a\n").done();
+        svnManager = new SVNManager();
+        svnManager.createSession(repository.getUrl("project").toString(), "", "");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    /**
+     * 范围内修改过、之后所在目录被删除的文件不统计
+     */
+    @Test
+    public void testDeletedDirectory() throws SVNException {
+        long start = repository.commit("bob").put("project/gone/B.java", "b\nb\n").put("project/keep/A.java", "a\nbob\n").done();
+        repository.commit("alice").delete("project/gone").done();
+        long end = repository.commit("carol").put("project/keep/C.java", "c\n").done();
+        AuthorAttribution attribution = svnManager.getAuthorAttribution(start, end);
+        Assert.assertEquals(2, attribution.getAnnotatedFiles());
+        Assert.assertTrue(attribution.getSkippedPaths().isEmpty());
+        Assert.assertEquals(Long.valueOf(1), attribution.getByAuthor().get("bob"));
+        Assert.assertEquals(Long.valueOf(1), attribution.getByAuthor().get("carol"));
+        Assert.assertEquals(2, attribution.getTotal());
+    }
+}
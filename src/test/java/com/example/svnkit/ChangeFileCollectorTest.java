@@ -0,0 +1,43 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNProperties;
+
+public class ChangeFileCollectorTest {
+
+    /**
+     * 按事件累计行数,只修改属性的文件及跳过的文件也计入统计
+     */
+    @Test
+    public void testCollect() {
+        ChangeFileCollector collector = new ChangeFileCollector();
+        collector.fileStarted("trunk/A.java", 'M', false);
+        collector.hunk(1, 8, 1, 9);
+        collector.changed(2, 1, 2, 2, 1, 2);
+        collector.changed(5, 2, 6, 0, 1, 0);
+        collector.fileFinished();
+        collector.fileStarted("trunk/B.java", 'M', false);
+        SVNProperties changes = new SVNProperties();
+        changes.put("svn:eol-style", "native");
+        collector.propertiesChanged(changes);
+        collector.fileFinished();
+        collector.skipped("trunk/lib/c.jar", new DiffFilter.Decision("trunk/lib/c.jar", DiffFilter.Action.SKIP, "binary", 'A', 0, 1024));
+
+        ChangeLogStatistics statistics = collector.getStatistics();
+        Assert.assertEquals(3, statistics.getFiles().size());
+        ChangeFile a = statistics.getFiles().get(0);
+        Assert.assertEquals(2, a.getAddLines());
+        Assert.assertEquals(2, a.getDeleteLines());
+        Assert.assertEquals(1, a.getChangeLines());
+        Assert.assertFalse(a.isPropertyChanged());
+        ChangeFile b = statistics.getFiles().get(1);
+        Assert.assertEquals('M', b.getChangeType().charValue());
+        Assert.assertTrue(b.isPropertyChanged());
+        Assert.assertEquals(0, b.getAddLines());
+        ChangeFile c = statistics.getFiles().get(2);
+        Assert.assertEquals("binary", c.getSkipReason());
+        Assert.assertEquals(1024, c.getSizeDelta());
+        Assert.assertEquals(2, statistics.getByFileType().get("java").getFileCount());
+    }
+}
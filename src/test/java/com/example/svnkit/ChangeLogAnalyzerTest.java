@@ -0,0 +1,51 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ChangeLogAnalyzerTest {
+
+    /**
+     * 分段并行分析的结果与顺序解析一致,且按原顺序输出
+     */
+    @Test
+    public void testSameAsSequential() throws Exception {
+        File file = File.createTempFile("svn_diff_file_", ".txt");
+        try {
+            try (Writer writer = new FileWriter(file)) {
+                for (int i = 0; i < 500; i++) {
+                    writer.write("Index: src/File" + i + (i % 2 == 0 ? ".java" : ".xml") + "\n");
+                    writer.write("===================================================================\n");
+                    writer.write("--- File" + i + "\t(revision 1)\n+++ File" + i + "\t(revision 2)\n@@ -1,2 +1,3 @@\n");
+                    for (int j = 0; j < i % 7; j++) {
+                        writer.write(" context\n-old line\n+new line\n+\n");
+                    }
+                }
+            }
+            List<ChangeFile> expected = new ArrayList<>();
+            DiffStatParser.parse(file, expected::add);
+            List<ChangeFile> received = new ArrayList<>();
+            ChangeLogStatistics statistics = new ChangeLogAnalyzer(ForkJoinPool.commonPool(), 1024).analyze(file, received::add);
+
+            Assert.assertEquals(expected.size(), statistics.getFiles().size());
+            Assert.assertEquals(expected.size(), received.size());
+            long addLines = 0;
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertEquals(expected.get(i).getFilePath(), received.get(i).getFilePath());
+                Assert.assertEquals(expected.get(i).getAddLines(), received.get(i).getAddLines());
+                addLines += expected.get(i).getAddLines();
+            }
+            Assert.assertEquals(addLines, statistics.getTotal().getAddLines());
+            Assert.assertEquals(250, statistics.getByFileType().get("java").getFileCount());
+        } finally {
+            file.delete();
+        }
+    }
+}
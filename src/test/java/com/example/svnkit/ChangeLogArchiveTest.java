@@ -0,0 +1,93 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class ChangeLogArchiveTest {
+
+    final String diffA = "Index: A.java\n"
+            + "===================================================================\n"
+            + "--- A.java\t(revision 1)\n"
+            + "+++ A.java\t(revision 2)\n"
+            + "@@ -1,2 +1,3 @@\n"
+            + " class A {\n"
+            + "-  int x;\n"
+            + "+  int y;\n"
+            + "+  int z;\n";
+    final String diffB = "Index: B.java\n"
+            + "===================================================================\n"
+            + "--- B.java\t(nonexistent)\n"
+            + "+++ B.java\t(revision 2)\n"
+            + "@@ -0,0 +1,1 @@\n"
+            + "+class B {}\n";
+
+    /**
+     * 直接写入及通过临时文件合并的数据块,重新打开后统计结果及比较内容不变
+     */
+    @Test
+    public void testWriteAndOpen() throws IOException {
+        Path file = Files.createTempFile("svn_change_log_test_", ".clog");
+        Path part = Files.createTempFile("svn_diff_part_test_", ".txt");
+        try {
+            try (ChangeLogArchive.Writer writer = ChangeLogArchive.create(file, 1, 2)) {
+                try (OutputStream os = writer.newBlock("/trunk/A.java")) {
+                    os.write(diffA.getBytes(StandardCharsets.UTF_8));
+                }
+                ChangeLogArchive.Block block = ChangeLogArchive.newBlock("/trunk/B.java", Files.newOutputStream(part));
+                block.write(diffB.getBytes(StandardCharsets.UTF_8));
+                block.close();
+                // 没有比较结果的文件不登记
+                writer.newBlock("/trunk/C.java").close();
+                try (FileChannel channel = FileChannel.open(part, StandardOpenOption.READ)) {
+                    writer.append(block, channel);
+                }
+                writer.finish();
+            }
+            try (ChangeLogArchive archive = ChangeLogArchive.open(file)) {
+                Assert.assertEquals(2, archive.getFiles().size());
+                Assert.assertEquals(2, archive.getEndVersion());
+                ChangeFile a = archive.getFile("/trunk/A.java");
+                Assert.assertEquals('M', a.getChangeType().charValue());
+                Assert.assertEquals(2, a.getAddLines());
+                Assert.assertEquals(1, a.getDeleteLines());
+                Assert.assertEquals('A', archive.getFile("/trunk/B.java").getChangeType().charValue());
+                Assert.assertNull(archive.getFile("/trunk/C.java"));
+                Assert.assertEquals(3, archive.getStatistics().getTotal().getAddLines());
+                Assert.assertEquals(diffB, archive.readDiff("/trunk/B.java"));
+                ByteArrayOutputStream os = new ByteArrayOutputStream();
+                archive.writeText(os);
+                Assert.assertEquals(diffA + diffB, os.toString("UTF-8"));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(part);
+        }
+    }
+
+    /**
+     * 未写入索引的文件不能打开
+     */
+    @Test(expected = IOException.class)
+    public void testIncomplete() throws IOException {
+        Path file = Files.createTempFile("svn_change_log_test_", ".clog");
+        try {
+            try (ChangeLogArchive.Writer writer = ChangeLogArchive.create(file, 1, 2)) {
+                try (OutputStream os = writer.newBlock("/trunk/A.java")) {
+                    os.write(diffA.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            ChangeLogArchive.open(file).close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class ChangeLogCheckpointTest {
+
+    /**
+     * 保存的比较结果按版本区分,同一版本的其它文件列表也能取到
+     */
+    @Test
+    public void testStore() throws IOException {
+        File dir = Files.createTempDirectory("svn_checkpoint_test_").toFile();
+        ChangeLogCheckpoint checkpoint = new ChangeLogCheckpoint(dir, "uuid");
+        try {
+            Assert.assertNull(checkpoint.getDiff(1, 2, "/trunk/A.java"));
+            Path temp = checkpoint.createTempFile(1, 2);
+            Files.write(temp, "diff".getBytes(StandardCharsets.UTF_8));
+            checkpoint.store(1, 2, "/trunk/A.java", temp);
+            Assert.assertFalse(Files.exists(temp));
+            Path stored = checkpoint.getDiff(1, 2, "/trunk/A.java");
+            Assert.assertNotNull(stored);
+            Assert.assertEquals("diff", new String(Files.readAllBytes(stored), StandardCharsets.UTF_8));
+            Assert.assertNull(checkpoint.getDiff(1, 3, "/trunk/A.java"));
+            Assert.assertNull(checkpoint.getDiff(1, 2, "/trunk/B.java"));
+        } finally {
+            checkpoint.delete(1, 2);
+            dir.delete();
+        }
+    }
+
+    /**
+     * 重新打开进度日志时恢复已完成及失败的文件,文件列表顺序不影响对应的进度日志
+     */
+    @Test
+    public void testJournal() throws IOException {
+        File dir = Files.createTempDirectory("svn_checkpoint_test_").toFile();
+        ChangeLogCheckpoint checkpoint = new ChangeLogCheckpoint(dir, "uuid");
+        try {
+            try (ChangeLogCheckpoint.Journal journal = checkpoint.openJournal(1, 2, Arrays.asList("A", "B", "C"))) {
+                journal.completed("A");
+                journal.failed("B", "connection\nreset");
+                journal.failed("C", "timeout");
+                journal.failed("C", "timeout");
+            }
+            try (ChangeLogCheckpoint.Journal journal = checkpoint.openJournal(1, 2, Arrays.asList("C", "A", "B"))) {
+                Assert.assertTrue(journal.isCompleted("A"));
+                Assert.assertFalse(journal.isCompleted("B"));
+                Assert.assertEquals(Integer.valueOf(1), journal.getFailures().get("B"));
+                Assert.assertEquals(Integer.valueOf(2), journal.getFailures().get("C"));
+                journal.completed("B");
+            }
+            try (ChangeLogCheckpoint.Journal journal = checkpoint.openJournal(1, 2, Arrays.asList("A", "B", "C"))) {
+                Assert.assertTrue(journal.isCompleted("B"));
+                Assert.assertEquals(1, journal.getFailures().size());
+            }
+            try (ChangeLogCheckpoint.Journal journal = checkpoint.openJournal(1, 2, Arrays.asList("A", "B"))) {
+                Assert.assertFalse(journal.isCompleted("A"));
+            }
+        } finally {
+            checkpoint.delete(1, 2);
+            dir.delete();
+        }
+    }
+
+    /**
+     * 进度日志最后一行写了一半时忽略该行,之后追加的行从新行开始
+     */
+    @Test
+    public void testPartialLine() throws IOException {
+        File dir = Files.createTempDirectory("svn_checkpoint_test_").toFile();
+        ChangeLogCheckpoint checkpoint = new ChangeLogCheckpoint(dir, "uuid");
+        try {
+            Path file;
+            try (ChangeLogCheckpoint.Journal journal = checkpoint.openJournal(1, 2, Arrays.asList("A", "B"))) {
+                journal.completed("A");
+                file = journal.getFile();
+            }
+            Files.write(file, "D\tB".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            try (ChangeLogCheckpoint.Journal journal = checkpoint.openJournal(1, 2, Arrays.asList("A", "B"))) {
+                Assert.assertTrue(journal.isCompleted("A"));
+                Assert.assertFalse(journal.isCompleted("B"));
+                journal.failed("B", "timeout");
+            }
+            try (ChangeLogCheckpoint.Journal journal = checkpoint.openJournal(1, 2, Arrays.asList("A", "B"))) {
+                Assert.assertEquals(Integer.valueOf(1), journal.getFailures().get("B"));
+            }
+        } finally {
+            checkpoint.delete(1, 2);
+            dir.delete();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.svnkit;
+
+import org.joda.time.LocalDateTime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChangeLogTest {
+
+    private TestRepository repository;
+    private SVNManager svnManager;
+    private final List<String> files = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        TestRepository.Commit first = repository.commit("alice");
+        TestRepository.Commit second = repository.commit("bob");
+        for (int i = 0; i < 6; i++) {
+            String path = "project/F" + i + ".java";
+            first.put(path, "line " + i + "\n");
+            second.put(path, "line " + i + "\nchanged\n");
+            files.add(repository.getUrl(path).toString());
+        }
+        first.done();
+        second.done();
+        svnManager = new SVNManager();
+        svnManager.createSession(repository.getUrl("project").toString(), "", "");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        svnManager.closeSession();
+        repository.close();
+    }
+
+    private String writeChangeLog() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        svnManager.writeChangeLog(1, 2, files, os);
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 并行比较的结果与逐个比较相同,按文件列表顺序写入
+     */
+    @Test
+    public void testParallel() throws IOException {
+        String sequential = writeChangeLog();
+        svnManager.setDiffConcurrency(3);
+        Assert.assertEquals(sequential, writeChangeLog());
+        Assert.assertTrue(sequential.indexOf("Index: F0.java") < sequential.indexOf("Index: F5.java"));
+    }
+
+    /**
+     * 中间结果的临时文件创建失败时跳过这些文件,不会因比较客户端未归还而一直等待
+     */
+    @Test(timeout = 60000)
+    public void testPartFileFailure() throws IOException {
+        svnManager.setDiffConcurrency(2);
+        svnManager.setTempDir(new File(repository.getUrl().getPath(), "missing"));
+        Assert.assertEquals("", writeChangeLog());
+    }
+
+    /**
+     * 比较日志文件创建失败时抛出异常,而不是返回null
+     */
+    @Test
+    public void testLogFileFailure() throws Exception {
+        // 结束时间之后还有一个版本(按日期比较时比较到结束时间所在版本的下一版本)
+        Thread.sleep(20);
+        LocalDateTime end = LocalDateTime.now();
+        Thread.sleep(20);
+        repository.commit("alice").put("project/F0.java", "line 0\n").done();
+        svnManager.setTempDir(new File(repository.getUrl().getPath(), "missing"));
+        try {
+            svnManager.getChangeLog(1, 2, files);
+            Assert.fail();
+        } catch (SVNException e) {
+            Assert.assertEquals(SVNErrorCode.IO_ERROR, e.getErrorMessage().getErrorCode());
+        }
+        try {
+            svnManager.getChangeLogByTreeDiff(end.minusDays(1), end, null);
+            Assert.fail();
+        } catch (SVNException e) {
+            Assert.assertEquals(SVNErrorCode.IO_ERROR, e.getErrorMessage().getErrorCode());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.svnkit;
+
+import org.joda.time.LocalDate;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+
+public class ChurnAggregatesTest {
+
+    private static final LocalDate DAY1 = new LocalDate(2021, 1, 22);
+    private static final LocalDate DAY2 = new LocalDate(2021, 1, 25);
+    private static final LocalDate DAY3 = new LocalDate(2021, 1, 27);
+
+    private static ChurnAggregates create() {
+        ChurnAggregates aggregates = new ChurnAggregates();
+        aggregates.add(DAY1, new ChurnTable.Row(1, "alice", "src/main/A.java", 'A', 10, 0));
+        aggregates.add(DAY2, new ChurnTable.Row(2, "bob", "src/main/B.java", 'A', 20, 0));
+        aggregates.add(DAY2, new ChurnTable.Row(3, "alice", "src/test/ATest.java", 'A', 5, 0));
+        aggregates.add(DAY3, new ChurnTable.Row(4, "bob", "src/main/A.java", 'M', 3, 2));
+        aggregates.setRevision(4);
+        return aggregates;
+    }
+
+    private static void assertChurn(ChurnTable.Churn churn, int fileCount, long addLines, long deleteLines) {
+        Assert.assertEquals(fileCount, churn.getFileCount());
+        Assert.assertEquals(addLines, churn.getAddLines());
+        Assert.assertEquals(deleteLines, churn.getDeleteLines());
+    }
+
+    /**
+     * 时间段合计按天包含首尾两天,路径包括其下全部文件
+     */
+    @Test
+    public void testWindow() {
+        ChurnAggregates aggregates = create();
+        assertChurn(aggregates.getTotal(DAY1, DAY3), 4, 38, 2);
+        assertChurn(aggregates.getTotal(DAY2, DAY2), 2, 25, 0);
+        assertChurn(aggregates.getTotal(DAY1.minusDays(10), DAY1.minusDays(1)), 0, 0, 0);
+        assertChurn(aggregates.getTotal(DAY3.plusDays(1), DAY3.plusDays(10)), 0, 0, 0);
+        assertChurn(aggregates.getByAuthor("alice", DAY1, DAY3), 2, 15, 0);
+        assertChurn(aggregates.getByAuthor("bob", DAY3, DAY3), 1, 3, 2);
+        assertChurn(aggregates.getByAuthor("nobody", DAY1, DAY3), 0, 0, 0);
+        assertChurn(aggregates.getByPath("src", DAY1, DAY3), 4, 38, 2);
+        assertChurn(aggregates.getByPath("src/main", DAY2, DAY3), 2, 23, 2);
+        assertChurn(aggregates.getByPath("src/main/A.java", DAY1, DAY2), 1, 10, 0);
+        Assert.assertEquals(1, aggregates.getByAuthor(DAY3, DAY3).size());
+    }
+
+    /**
+     * 提交日期早于已统计的日期时,之后各天的累计值一并更新
+     */
+    @Test
+    public void testOutOfOrder() {
+        ChurnAggregates aggregates = create();
+        aggregates.add(DAY1.minusDays(1), new ChurnTable.Row(5, "carol", "src/main/C.java", 'A', 7, 0));
+        aggregates.add(DAY2.minusDays(1), new ChurnTable.Row(6, "carol", "src/main/C.java", 'M', 1, 1));
+        assertChurn(aggregates.getTotal(DAY1.minusDays(1), DAY3), 6, 46, 3);
+        assertChurn(aggregates.getTotal(DAY1, DAY3), 5, 39, 3);
+        assertChurn(aggregates.getByAuthor("carol", DAY2, DAY3), 0, 0, 0);
+        assertChurn(aggregates.getByPath("src/main/C.java", DAY1, DAY2), 1, 1, 1);
+        assertChurn(aggregates.getByPath("src/main", DAY1.minusDays(1), DAY1), 2, 17, 0);
+    }
+
+    /**
+     * 保存后读取的结果与原结果一致
+     */
+    @Test
+    public void testPersist() throws IOException {
+        ChurnAggregates aggregates = create();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            aggregates.write(out);
+        }
+        ChurnAggregates loaded = new ChurnAggregates();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded.read(in);
+        }
+        Assert.assertEquals(4, loaded.getRevision());
+        assertChurn(loaded.getTotal(DAY2, DAY3), 3, 28, 2);
+        assertChurn(loaded.getByAuthor("bob", DAY1, DAY3), 2, 23, 2);
+        assertChurn(loaded.getByPath("src/test", DAY1, DAY3), 1, 5, 0);
+        loaded.add(DAY3, new ChurnTable.Row(5, "alice", "src/test/ATest.java", 'M', 1, 0));
+        assertChurn(loaded.getByPath("src/test", DAY3, DAY3), 1, 1, 0);
+    }
+}
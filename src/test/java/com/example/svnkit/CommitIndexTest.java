@@ -0,0 +1,64 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNLogEntry;
+import org.tmatesoft.svn.core.SVNLogEntryPath;
+import org.tmatesoft.svn.core.SVNNodeKind;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CommitIndexTest {
+
+    /**
+     * 按提交人、路径、版本及时间组合查询
+     */
+    @Test
+    public void testQuery() {
+        CommitIndex index = new CommitIndex();
+        index.add(entry(1, "alice", 1000, "/trunk/a/A.java", "/trunk/b/B.java"));
+        index.add(entry(2, "Bob", 2000, "/trunk/a/A.java"));
+        index.add(entry(3, "carol", 3000, "/trunk/b/C.java"));
+        index.add(entry(4, "alice", 4000, "/trunk/a"));
+        // 已索引的版本被忽略
+        index.add(entry(2, "carol", 2000, "/trunk/c/D.java"));
+
+        Assert.assertEquals(4, index.size());
+        Assert.assertEquals("Bob", index.getAuthor(2));
+        Assert.assertEquals(Arrays.asList("/trunk/a", "/trunk/a/A.java"),
+                index.query().authors("ALICE", "bob").under("/trunk/a").getPaths());
+        Assert.assertArrayEquals(new long[]{1, 3}, index.query().under("/trunk/b").getRevisions());
+        Assert.assertEquals(Arrays.asList("/trunk/a/A.java", "/trunk/b/C.java"),
+                index.query().revisions(2, 3).getPaths());
+        Assert.assertEquals(Arrays.asList("/trunk/a/A.java", "/trunk/b/B.java"),
+                index.query().between(new Date(0), new Date(2000)).getPaths());
+        Assert.assertEquals(0, index.query().authors("dave").count());
+        Assert.assertEquals(0, index.query().under("/trunk/c").count());
+    }
+
+    /**
+     * 行数较多时倒排表转为位图,查询结果不变
+     */
+    @Test
+    public void testManyRevisions() {
+        CommitIndex index = new CommitIndex();
+        for (int revision = 1; revision <= 5000; revision++) {
+            index.add(entry(revision, revision % 2 == 0 ? "alice" : "bob", revision, "/trunk/F" + revision % 7 + ".java"));
+        }
+        Assert.assertEquals(2500, index.query().authors("alice").count());
+        Assert.assertEquals(357, index.query().authors("bob").under("/trunk/F0.java").count());
+        Assert.assertEquals(Arrays.asList("/trunk/F1.java", "/trunk/F2.java"),
+                index.query().revisions(4901, 4902).getPaths());
+    }
+
+    private static SVNLogEntry entry(long revision, String author, long time, String... paths) {
+        Map<String, SVNLogEntryPath> changedPaths = new HashMap<>();
+        for (String path : paths) {
+            changedPaths.put(path, new SVNLogEntryPath(path, 'M', null, -1, SVNNodeKind.FILE));
+        }
+        return new SVNLogEntry(changedPaths, revision, author, new Date(time), "");
+    }
+}
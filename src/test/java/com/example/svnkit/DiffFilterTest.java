@@ -0,0 +1,69 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperty;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+public class DiffFilterTest {
+
+    private TestRepository repository;
+    private SVNRepository session;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        repository.commit("alice")
+                .put("project/A.java", "a\n").property("project/A.java", SVNProperty.MIME_TYPE, "application/octet-stream")
+                .put("project/data.bin", "x\n").property("project/data.bin", SVNProperty.MIME_TYPE, "application/octet-stream")
+                .put("project/lib/a.jar", "jar\n")
+                .done();
+        repository.commit("bob").put("project/A.java", "a\nb\n").put("project/data.bin", "y\n").put("project/lib/a.jar", "jar2\n").done();
+        session = repository.open();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        session.closeSession();
+        repository.close();
+    }
+
+    private Map<String, DiffFilter.Decision> decide(DiffFilter filter) throws SVNException {
+        return filter.decide(session, Arrays.asList("project/A.java", "project/data.bin", "project/lib/a.jar"), 1, 2);
+    }
+
+    /**
+     * 按扩展名判断,扩展名未知时按svn:mime-type判断,已知文本类型不读取属性
+     */
+    @Test
+    public void testBinary() throws SVNException {
+        Map<String, DiffFilter.Decision> decisions = decide(new DiffFilter());
+        Assert.assertEquals(DiffFilter.Action.DIFF, decisions.get("project/A.java").getAction());
+        Assert.assertEquals(DiffFilter.Action.SKIP, decisions.get("project/data.bin").getAction());
+        Assert.assertEquals("binary", decisions.get("project/data.bin").getReason());
+        Assert.assertEquals(DiffFilter.Action.SKIP, decisions.get("project/lib/a.jar").getAction());
+        Assert.assertEquals('M', decisions.get("project/lib/a.jar").getChangeType());
+        Assert.assertEquals(4, decisions.get("project/lib/a.jar").getOldSize());
+
+        decisions = decide(new DiffFilter().setTextFileTypes());
+        Assert.assertEquals(DiffFilter.Action.SKIP, decisions.get("project/A.java").getAction());
+    }
+
+    /**
+     * 超过大小上限的文件按设置处理
+     */
+    @Test
+    public void testOversized() throws SVNException {
+        Map<String, DiffFilter.Decision> decisions = decide(new DiffFilter().setMaxFileSize(3, DiffFilter.Action.TRUNCATE));
+        Assert.assertEquals(DiffFilter.Action.TRUNCATE, decisions.get("project/A.java").getAction());
+        Assert.assertEquals("oversized", decisions.get("project/A.java").getReason());
+        Assert.assertEquals(DiffFilter.Action.SKIP, decisions.get("project/data.bin").getAction());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DiffStatParserTest {
+
+    final String diff = "Index: A.java\n"
+            + "===================================================================\n"
+            + "--- A.java\t(revision 1)\n"
+            + "+++ A.java\t(revision 2)\n"
+            + "@@ -1,3 +1,6 @@\n"
+            + " class A {\n"
+            + "-  int x;\n"
+            + "+  int y;\n"
+            + "+\n"
+            + "+  int z;\n"
+            + " }\n"
+            + "Index: B.java\n"
+            + "===================================================================\n"
+            + "--- B.java\t(revision 1)\n"
+            + "+++ B.java\t(nonexistent)\n"
+            + "@@ -1,2 +0,0 @@\n"
+            + "-class B {\n"
+            + "-}\n"
+            + "Index: C.txt\n"
+            + "===================================================================\n"
+            + "--- C.txt\t(nonexistent)\n"
+            + "+++ C.txt\t(revision 2)\n"
+            + "@@ -0,0 +1,2 @@\n"
+            + "+hello\r\n"
+            + "++plus\r\n";
+
+    /**
+     * 按字节解析的统计结果与按字符串解析的结果一致
+     */
+    @Test
+    public void testSameAsCountAddLine() {
+        List<ChangeFile> files = parse(diff.getBytes(StandardCharsets.UTF_8), Integer.MAX_VALUE);
+        Assert.assertEquals(3, files.size());
+        SVNManager svnManager = new SVNManager();
+        String[] sections = diff.split("(?=Index:)");
+        for (int i = 0; i < sections.length; i++) {
+            ChangeFile expected = svnManager.parseChangeFile(new StringBuffer(sections[i]));
+            Assert.assertEquals(expected.getFilePath(), files.get(i).getFilePath());
+            Assert.assertEquals(expected.getChangeType(), files.get(i).getChangeType());
+            Assert.assertEquals(svnManager.countAddLine(expected.getFileContent()), files.get(i).getAddLines());
+        }
+        Assert.assertEquals(1, files.get(0).getDeleteLines());
+        Assert.assertEquals(1, files.get(0).getChangeLines());
+        Assert.assertEquals(2, files.get(1).getDeleteLines());
+    }
+
+    /**
+     * 数据被任意切分后输入,结果不变
+     */
+    @Test
+    public void testSplitInput() {
+        byte[] bytes = diff.getBytes(StandardCharsets.UTF_8);
+        List<ChangeFile> whole = parse(bytes, Integer.MAX_VALUE);
+        for (int chunk = 1; chunk < 8; chunk++) {
+            List<ChangeFile> split = parse(bytes, chunk);
+            for (int i = 0; i < whole.size(); i++) {
+                Assert.assertEquals(whole.get(i).getFilePath(), split.get(i).getFilePath());
+                Assert.assertEquals(whole.get(i).getAddLines(), split.get(i).getAddLines());
+                Assert.assertEquals(whole.get(i).getDeleteLines(), split.get(i).getDeleteLines());
+            }
+        }
+    }
+
+    /**
+     * 比较前跳过的文件保留变更类型及大小变化,截断的比较结果末尾有说明行且不计入行数
+     */
+    @Test
+    public void testFilteredSections() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        os.write(new DiffFilter.Decision("trunk/lib/a.jar", DiffFilter.Action.SKIP, "binary", 'D', 2048, 0)
+                .toSkippedSection(1, 2));
+        LineLimitOutputStream limited = new LineLimitOutputStream(os, 8);
+        limited.write(diff.getBytes(StandardCharsets.UTF_8));
+        limited.finish();
+        List<ChangeFile> files = parse(os.toByteArray(), Integer.MAX_VALUE);
+        Assert.assertEquals(2, files.size());
+        Assert.assertEquals("a.jar", files.get(0).getFilePath());
+        Assert.assertEquals('D', files.get(0).getChangeType().charValue());
+        Assert.assertEquals("binary", files.get(0).getSkipReason());
+        Assert.assertEquals(-2048, files.get(0).getSizeDelta());
+        Assert.assertEquals(1, files.get(1).getAddLines());
+        Assert.assertNull(files.get(1).getSkipReason());
+        Assert.assertTrue(os.toString("UTF-8").endsWith("\\ truncated: 8 of 25 lines\n"));
+    }
+
+    private List<ChangeFile> parse(byte[] bytes, int chunk) {
+        List<ChangeFile> files = new ArrayList<>();
+        DiffStatParser parser = new DiffStatParser(files::add);
+        for (int i = 0; i < bytes.length; i += chunk) {
+            parser.feed(ByteBuffer.wrap(bytes, i, Math.min(chunk, bytes.length - i)));
+        }
+        parser.finish();
+        return files;
+    }
+}
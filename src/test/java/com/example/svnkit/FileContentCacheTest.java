@@ -0,0 +1,29 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FileContentCacheTest {
+
+    /**
+     * 超过最大字节数时淘汰最久未使用的文件
+     */
+    @Test
+    public void testEviction() {
+        FileContentCache cache = new FileContentCache(10, true);
+        cache.put("a", 1, new byte[4]);
+        cache.put("b", 1, new byte[4]);
+        Assert.assertNotNull(cache.get("a", 1));
+        cache.put("c", 1, new byte[4]);
+        Assert.assertNull(cache.get("b", 1));
+        Assert.assertNotNull(cache.get("a", 1));
+        Assert.assertNotNull(cache.get("c", 1));
+        Assert.assertNull(cache.get("a", 2));
+        Assert.assertEquals(8, cache.getSize());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertEquals(3, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+        cache.put("d", 1, new byte[11]);
+        Assert.assertNull(cache.get("d", 1));
+    }
+}
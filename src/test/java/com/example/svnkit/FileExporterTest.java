@@ -0,0 +1,114 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+public class FileExporterTest {
+
+    private TestRepository repository;
+    private SVNRepository session;
+    private Path targetDir;
+    private long revision;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        TestRepository.Commit commit = repository.commit("alice");
+        for (int i = 0; i < 50; i++) {
+            commit.put("project/src/pkg" + i % 5 + "/File" + i + ".java", "file " + i + "\n");
+        }
+        commit.put("project/README", "readme\n");
+        revision = commit.done();
+        session = SVNRepositoryFactory.create(repository.getUrl("project"));
+        targetDir = Files.createTempDirectory("svn_export_test_");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        session.closeSession();
+        repository.close();
+        try (Stream<Path> paths = Files.walk(targetDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * 服务器只发送请求的文件
+     */
+    @Test
+    public void testExportOnlyRequested() throws SVNException, IOException {
+        RecordingListener listener = new RecordingListener();
+        FileExporter exporter = new FileExporter(session);
+        long bytes = exporter.export(Arrays.asList("src/pkg1/File1.java", "/src/pkg3/File8.java", "README"),
+                revision, targetDir, listener);
+
+        Assert.assertEquals(3, exporter.getReceivedFiles());
+        Assert.assertEquals(Arrays.asList("README", "src/pkg1/File1.java", "src/pkg3/File8.java"), sorted(listener.exported));
+        Assert.assertTrue(listener.missing.isEmpty());
+        Assert.assertEquals("file 8\n", new String(Files.readAllBytes(targetDir.resolve("src/pkg3/File8.java")), StandardCharsets.UTF_8));
+        Assert.assertEquals("file 1\n".length() + "file 8\n".length() + "readme\n".length(), bytes);
+    }
+
+    /**
+     * 不存在的文件(包括上级目录不存在的文件)通知监听器,其余文件照常导出
+     */
+    @Test
+    public void testMissing() throws SVNException {
+        RecordingListener listener = new RecordingListener();
+        FileExporter exporter = new FileExporter(session);
+        exporter.export(Arrays.asList("src/pkg1/File1.java", "src/pkg1/Missing.java", "nodir/File.java", "src/pkg4/File4.java"),
+                revision, targetDir, listener);
+
+        Assert.assertEquals(2, exporter.getReceivedFiles());
+        Assert.assertEquals(Arrays.asList("src/pkg1/File1.java", "src/pkg4/File4.java"), sorted(listener.exported));
+        Assert.assertEquals(Arrays.asList("nodir/File.java", "src/pkg1/Missing.java"), sorted(listener.missing));
+        Assert.assertFalse(Files.exists(targetDir.resolve("nodir/File.java")));
+    }
+
+    /**
+     * 同时是其它请求路径上级目录的路径不导出
+     */
+    @Test
+    public void testParentPath() throws SVNException {
+        RecordingListener listener = new RecordingListener();
+        FileExporter exporter = new FileExporter(session);
+        exporter.export(Arrays.asList("src/pkg2", "src/pkg2.java", "src/pkg2/File2.java"), revision, targetDir, listener);
+        Assert.assertEquals(1, exporter.getReceivedFiles());
+        Assert.assertEquals(Collections.singletonList("src/pkg2/File2.java"), listener.exported);
+        Assert.assertEquals(Arrays.asList("src/pkg2", "src/pkg2.java"), sorted(listener.missing));
+    }
+
+    private static List<String> sorted(List<String> list) {
+        List<String> copy = new ArrayList<>(list);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private static class RecordingListener implements ExportProgressListener {
+        private final List<String> exported = new ArrayList<>();
+        private final List<String> missing = new ArrayList<>();
+
+        @Override
+        public void fileExported(String path, long size, int exportedFiles, int totalFiles, long exportedBytes) {
+            exported.add(path);
+        }
+
+        @Override
+        public void fileMissing(String path) {
+            missing.add(path);
+        }
+    }
+}
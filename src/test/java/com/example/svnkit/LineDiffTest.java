@@ -0,0 +1,28 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class LineDiffTest {
+
+    /**
+     * 只统计非空行,空行的增删以及换行符的差异不计入
+     */
+    @Test
+    public void testCount() {
+        byte[] oldContent = "class A {\n  int x;\n\n  int y;\n}\n".getBytes(StandardCharsets.UTF_8);
+        byte[] newContent = "class A {\r\n  int y;\r\n  int z;\r\n\r\n  int w;\r\n}".getBytes(StandardCharsets.UTF_8);
+        Assert.assertArrayEquals(new int[]{2, 1}, LineDiff.count(oldContent, newContent));
+        Assert.assertArrayEquals(new int[]{0, 0}, LineDiff.count(oldContent, oldContent));
+        Assert.assertArrayEquals(new int[]{4, 0}, LineDiff.count(new byte[0], oldContent));
+        Assert.assertArrayEquals(new int[]{0, 4}, LineDiff.count(oldContent, new byte[0]));
+    }
+
+    @Test
+    public void testIsBinary() {
+        Assert.assertTrue(LineDiff.isBinary(new byte[]{'a', 0, 'b'}));
+        Assert.assertFalse(LineDiff.isBinary("a\nb".getBytes(StandardCharsets.UTF_8)));
+    }
+}
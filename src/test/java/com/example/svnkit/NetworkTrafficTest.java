@@ -0,0 +1,34 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class NetworkTrafficTest {
+
+    /**
+     * 包装的任务的流量计入提交任务的线程,线程池的线程之后的流量不再计入
+     */
+    @Test
+    public void testAttribute() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            NetworkTraffic.Counter counter = NetworkTraffic.current();
+            counter.push();
+            executor.submit(NetworkTraffic.attribute(() -> {
+                NetworkTraffic.addRead(10);
+                NetworkTraffic.addRoundTrip();
+                return null;
+            })).get();
+            executor.submit(() -> NetworkTraffic.addWritten(5)).get();
+            counter.pop();
+            Assert.assertEquals(10, counter.lastBytesRead);
+            Assert.assertEquals(1, counter.lastRoundTrips);
+            Assert.assertEquals(0, counter.lastBytesWritten);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class PackageComparatorTest {
+
+    private static final Map<String, String> FILES = new LinkedHashMap<>();
+
+    static {
+        FILES.put("web/index.html", "<html></html>\n");
+        FILES.put("web/css/a.css", "body {}\n");
+        FILES.put("web/css/b.css", "p {}\n");
+        FILES.put("lib/a.txt", "a\n");
+        FILES.put("lib/b.txt", "b\n");
+        FILES.put("conf/app.properties", "x=1\n");
+        FILES.put("docs", "file in svn, directory in the package\n");
+    }
+
+    private TestRepository repository;
+    private SVNSessionManager sessionManager;
+    private Path work;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        TestRepository.Commit commit = repository.commit("alice");
+        FILES.forEach((path, content) -> commit.put("project/" + path, content));
+        commit.done();
+        sessionManager = new SVNSessionManager(SVNWCUtil.createDefaultAuthenticationManager(), 2);
+        work = Files.createTempDirectory("svn_package_test_");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        sessionManager.close();
+        repository.close();
+        try (Stream<Path> paths = Files.walk(work)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private PackageComparator comparator(File cacheDir) throws SVNException {
+        return new PackageComparator(sessionManager, repository.getUrl("project"), cacheDir, ForkJoinPool.commonPool());
+    }
+
+    private Path writePackage(Map<String, String> files) throws IOException {
+        Path dir = Files.createTempDirectory(work, "package_");
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Path path = dir.resolve(file.getKey());
+            Files.createDirectories(path.getParent());
+            Files.write(path, file.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+        return dir;
+    }
+
+    /**
+     * 发布包与svn一致
+     */
+    @Test
+    public void testIdentical() throws IOException, SVNException {
+        PackageComparison comparison = comparator(null).compare(writePackage(FILES), -1);
+        Assert.assertTrue(comparison.toString(), comparison.isIdentical());
+        Assert.assertEquals(FILES.size(), comparison.getSameFiles());
+    }
+
+    /**
+     * 缺少、多出、内容不同的文件及一边是文件一边是目录的路径,内容相同的目录整体跳过
+     */
+    @Test
+    public void testDirectory() throws IOException, SVNException {
+        Map<String, String> local = new LinkedHashMap<>(FILES);
+        local.remove("lib/b.txt");
+        local.put("web/new.txt", "new\n");
+        local.put("conf/app.properties", "x=2\n");
+        local.remove("docs");
+        local.put("docs/readme.txt", "readme\n");
+        PackageComparison comparison = comparator(null).compare(writePackage(local), -1);
+        Assert.assertEquals(Arrays.asList("docs", "lib/b.txt"), sorted(comparison.getMissing()));
+        Assert.assertEquals(Arrays.asList("docs/readme.txt", "web/new.txt"), sorted(comparison.getExtra()));
+        Assert.assertEquals(Collections.singletonList("conf/app.properties"), comparison.getDifferent());
+        // web/css 内容相同,不再比较其中的文件
+        Assert.assertEquals(1, comparison.getSkippedDirs());
+        Assert.assertEquals(4, comparison.getSameFiles());
+    }
+
+    /**
+     * 比较 zip 文件中的内容
+     */
+    @Test
+    public void testZip() throws IOException, SVNException {
+        Map<String, String> local = new LinkedHashMap<>(FILES);
+        local.put("lib/a.txt", "changed\n");
+        Path zip = work.resolve("package.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (Map.Entry<String, String> file : local.entrySet()) {
+                out.putNextEntry(new ZipEntry(file.getKey()));
+                out.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        PackageComparison comparison = comparator(null).compare(zip, -1);
+        Assert.assertEquals(Collections.singletonList("lib/a.txt"), comparison.getDifferent());
+        Assert.assertTrue(comparison.getMissing().isEmpty());
+        Assert.assertTrue(comparison.getExtra().isEmpty());
+        Assert.assertEquals(FILES.size() - 1, comparison.getSameFiles());
+    }
+
+    /**
+     * 启用缓存时svn清单按版本缓存,本地大小及修改时间未变的文件沿用缓存的 MD5,未变化的目录在第二次比较时同样跳过
+     */
+    @Test
+    public void testCache() throws IOException, SVNException {
+        File cacheDir = work.resolve("cache").toFile();
+        Map<String, String> local = new LinkedHashMap<>(FILES);
+        local.put("conf/app.properties", "x=2\n");
+        Path dir = writePackage(local);
+        PackageComparison first = comparator(cacheDir).compare(dir, -1);
+        Assert.assertEquals(Collections.singletonList("conf/app.properties"), first.getDifferent());
+        String[] cached = cacheDir.list();
+        Assert.assertNotNull(cached);
+        Assert.assertTrue(Arrays.stream(cached).anyMatch(name -> name.startsWith("svn_")));
+        Assert.assertTrue(Arrays.stream(cached).anyMatch(name -> name.startsWith("local_")));
+
+        // 内容改变但大小及修改时间不变的文件不重新计算 MD5
+        Path file = dir.resolve("lib/a.txt");
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.write(file, "z\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, modified);
+        PackageComparison second = comparator(cacheDir).compare(dir, -1);
+        Assert.assertEquals(first.getDifferent(), second.getDifferent());
+        Assert.assertEquals(first.getSameFiles(), second.getSameFiles());
+        Assert.assertEquals(first.getSkippedDirs(), second.getSkippedDirs());
+        Assert.assertTrue(second.getSkippedDirs() > 0);
+    }
+
+    private static List<String> sorted(List<String> list) {
+        List<String> copy = new ArrayList<>(list);
+        Collections.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PathFilterTest {
+
+    /**
+     * "*" 与 "?" 不跨目录,"**" 跨目录
+     */
+    @Test
+    public void testGlob() {
+        PathFilter filter = PathFilter.all().include("src/*.java");
+        Assert.assertTrue(filter.accept("src/A.java"));
+        Assert.assertFalse(filter.accept("src/main/A.java"));
+        Assert.assertFalse(filter.accept("src/A.javax"));
+
+        filter = PathFilter.all().include("**.java");
+        Assert.assertTrue(filter.accept("A.java"));
+        Assert.assertTrue(filter.accept("src/main/A.java"));
+        Assert.assertFalse(filter.accept("src/main/A.class"));
+
+        filter = PathFilter.all().include("src/?.txt");
+        Assert.assertTrue(filter.accept("src/a.txt"));
+        Assert.assertFalse(filter.accept("src/ab.txt"));
+        Assert.assertFalse(filter.accept("src//.txt"));
+    }
+
+    /**
+     * 正则表达式中的特殊字符按字面匹配
+     */
+    @Test
+    public void testLiteral() {
+        PathFilter filter = PathFilter.all().include("lib/a+b(1).jar");
+        Assert.assertTrue(filter.accept("lib/a+b(1).jar"));
+        Assert.assertFalse(filter.accept("lib/aab1.jar"));
+        Assert.assertFalse(filter.accept("lib/a+b(1)xjar"));
+    }
+
+    /**
+     * 排除优先于包含,被排除的目录不再遍历;没有包含规则时输出全部未排除的路径
+     */
+    @Test
+    public void testExclude() {
+        PathFilter filter = PathFilter.all().include("**.java").exclude("target").exclude("**/generated/**");
+        Assert.assertTrue(filter.isExcluded("target"));
+        Assert.assertFalse(filter.isExcluded("src/target"));
+        Assert.assertFalse(filter.accept("target"));
+        Assert.assertFalse(filter.accept("src/generated/A.java"));
+        Assert.assertTrue(filter.accept("src/main/A.java"));
+        // 包含规则只决定是否输出,不影响遍历
+        Assert.assertFalse(filter.accept("src"));
+        Assert.assertFalse(filter.isExcluded("src"));
+
+        PathFilter all = PathFilter.all();
+        Assert.assertTrue(all.accept("anything/at/all"));
+        Assert.assertFalse(all.isExcluded("anything"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+
+import java.io.IOException;
+import java.util.List;
+
+public class RevisionChurnEngineTest {
+
+    private TestRepository repository;
+    private SVNRepositoryPool pool;
+    private RevisionChurnEngine engine;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        repository.commit("alice")
+                .put("project/src/A.java", "a\nb\n\nc\n")
+                .put("project/src/B.java", "x\n")
+                .put("project/lib/data.bin", "one\ntwo\n")
+                .property("project/lib/data.bin", "svn:mime-type", "application/octet-stream")
+                .done();
+        pool = new SVNRepositoryPool(repository.getUrl("project"), SVNWCUtil.createDefaultAuthenticationManager(), 4);
+        engine = new RevisionChurnEngine(pool, 2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pool.close();
+        repository.close();
+    }
+
+    private List<ChurnTable.Row> compute(long revision) throws SVNException, InterruptedException {
+        return engine.computeRevision(revision, "bob");
+    }
+
+    /**
+     * 新增的文本文件按非空行计数,二进制类型的文件不统计
+     */
+    @Test
+    public void testAdd() throws SVNException, InterruptedException {
+        List<ChurnTable.Row> rows = compute(1);
+        Assert.assertEquals(2, rows.size());
+        for (ChurnTable.Row row : rows) {
+            Assert.assertEquals('A', row.getChangeType());
+            Assert.assertEquals(row.getPath().endsWith("A.java") ? 3 : 1, row.getAddLines());
+        }
+    }
+
+    /**
+     * 修改文本文件时统计新增、删除行数,只修改属性的文件及二进制文件不统计
+     */
+    @Test
+    public void testModify() throws SVNException, InterruptedException {
+        long revision = repository.commit("bob")
+                .put("project/src/A.java", "a\nB\n\nc\nd\n")
+                .property("project/src/B.java", "svn:eol-style", "native")
+                .put("project/lib/data.bin", "one\nthree\n")
+                .done();
+        List<ChurnTable.Row> rows = compute(revision);
+        Assert.assertEquals(1, rows.size());
+        ChurnTable.Row row = rows.get(0);
+        Assert.assertEquals("src/A.java", row.getPath());
+        Assert.assertEquals('M', row.getChangeType());
+        Assert.assertEquals(2, row.getAddLines());
+        Assert.assertEquals(1, row.getDeleteLines());
+    }
+
+    /**
+     * 本版本设为二进制类型的文件不统计
+     */
+    @Test
+    public void testBecomesBinary() throws SVNException, InterruptedException {
+        long revision = repository.commit("bob")
+                .put("project/src/B.java", "y\n")
+                .property("project/src/B.java", "svn:mime-type", "application/octet-stream")
+                .done();
+        Assert.assertTrue(compute(revision).isEmpty());
+    }
+
+    /**
+     * 删除目录时统计其下全部文本文件的行数
+     */
+    @Test
+    public void testDeleteDir() throws SVNException, InterruptedException {
+        long revision = repository.commit("bob").delete("project/src").done();
+        List<ChurnTable.Row> rows = compute(revision);
+        Assert.assertEquals(2, rows.size());
+        long deleted = 0;
+        for (ChurnTable.Row row : rows) {
+            Assert.assertEquals('D', row.getChangeType());
+            deleted += row.getDeleteLines();
+        }
+        Assert.assertEquals(4, deleted);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNRevisionProperty;
+import org.tmatesoft.svn.core.internal.util.SVNDate;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+
+public class RevisionDateIndexTest {
+
+    private TestRepository repository;
+    private SVNRepository session;
+    private File persistFile;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        for (int i = 0; i < 3; i++) {
+            repository.commit("alice").put("project/A.java", "a" + i + "\n").done();
+        }
+        session = repository.open();
+        persistFile = new File(Files.createTempDirectory("svn_date_index_test_").toFile(), "dates.idx");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        session.closeSession();
+        repository.close();
+        persistFile.delete();
+        persistFile.getParentFile().delete();
+    }
+
+    private Date dateOf(long revision) throws SVNException {
+        return SVNDate.parseDate(session.getRevisionPropertyValue(revision, SVNRevisionProperty.DATE).getString());
+    }
+
+    /**
+     * 按时间查到的版本号与服务器一致
+     */
+    @Test
+    public void testDatedRevision() throws SVNException {
+        RevisionDateIndex index = new RevisionDateIndex(null, session.getRepositoryUUID(true));
+        for (long revision = 1; revision <= 3; revision++) {
+            Date date = dateOf(revision);
+            Assert.assertEquals(session.getDatedRevision(date), index.getDatedRevision(session, date));
+        }
+        Date later = new Date(dateOf(3).getTime() + 1000);
+        Assert.assertEquals(3, index.getDatedRevision(session, later));
+        Assert.assertEquals(0, index.getDatedRevision(session, new Date(0)));
+    }
+
+    /**
+     * 重新打开同一存储库的索引文件时直接使用保存的索引
+     */
+    @Test
+    public void testPersist() throws SVNException {
+        String uuid = session.getRepositoryUUID(true);
+        new RevisionDateIndex(persistFile, uuid).refresh(session);
+        RevisionDateIndex reopened = new RevisionDateIndex(persistFile, uuid);
+        Assert.assertEquals(3, reopened.getIndexedRevision());
+    }
+
+    /**
+     * 索引文件属于其它存储库时丢弃,重新从服务器获取
+     */
+    @Test
+    public void testOtherRepository() throws SVNException {
+        new RevisionDateIndex(persistFile, session.getRepositoryUUID(true)).refresh(session);
+        RevisionDateIndex other = new RevisionDateIndex(persistFile, "other-uuid");
+        Assert.assertEquals(-1, other.getIndexedRevision());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RevisionWatcherTest {
+
+    private TestRepository repository;
+    private SVNManager svnManager;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        repository.commit("alice").put("project/A.java", "a\n").done();
+        repository.commit("bob").put("project/A.java", "a\nb\n").done();
+        svnManager = new SVNManager();
+        svnManager.createSession(repository.getUrl("project").toString(), "", "");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        svnManager.closeSession();
+        repository.close();
+    }
+
+    /**
+     * 默认从第一次统计时的最新版本之后开始,不回溯历史
+     */
+    @Test
+    public void testStartAtHead() throws SVNException {
+        try (RevisionWatcher watcher = new RevisionWatcher(svnManager, null)) {
+            Assert.assertEquals(0, watcher.poll());
+            Assert.assertEquals(2, watcher.getAggregates().getRevision());
+            repository.commit("carol").put("project/B.java", "c\n").done();
+            Assert.assertEquals(1, watcher.poll());
+            Assert.assertEquals(3, watcher.getAggregates().getRevision());
+        }
+    }
+
+    /**
+     * 指定起始版本时从该版本开始统计
+     */
+    @Test
+    public void testStartRevision() throws SVNException {
+        try (RevisionWatcher watcher = new RevisionWatcher(svnManager, null, 2)) {
+            Assert.assertEquals(1, watcher.poll());
+            Assert.assertEquals(2, watcher.getAggregates().getRevision());
+        }
+    }
+
+    /**
+     * 钩子地址只接受POST请求,收到后在后台统计新版本
+     */
+    @Test
+    public void testHookServer() throws SVNException, IOException, InterruptedException {
+        try (RevisionWatcher watcher = new RevisionWatcher(svnManager, null)) {
+            watcher.poll();
+            CountDownLatch processed = new CountDownLatch(1);
+            watcher.addListener((logEntry, rows) -> processed.countDown());
+            int port = watcher.startHookServer(0);
+            Assert.assertEquals(405, request(port, "GET"));
+            repository.commit("carol").put("project/B.java", "c\n").done();
+            Assert.assertEquals(202, request(port, "POST"));
+            Assert.assertTrue(processed.await(30, TimeUnit.SECONDS));
+            Assert.assertEquals(3, watcher.getAggregates().getRevision());
+        }
+    }
+
+    private static int request(int port, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/commit").openConnection();
+        try {
+            connection.setRequestMethod(method);
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SVNCancellationTest {
+
+    /**
+     * 调用中创建的线程池线程不继承取消标记,包装的任务执行期间绑定调用的标记
+     */
+    @Test
+    public void testPropagate() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SVNCancellation cancellation = new SVNCancellation();
+        cancellation.enter();
+        try {
+            Assert.assertSame(cancellation, executor.submit(SVNCancellation.propagate(SVNCancellation::current)).get());
+            cancellation.cancel();
+        } finally {
+            cancellation.exit();
+        }
+        try {
+            Assert.assertNull(SVNCancellation.current());
+            Assert.assertNull(executor.submit(SVNCancellation::current).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntry;
+import org.tmatesoft.svn.core.SVNLogEntryPath;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SVNLogCacheTest {
+
+    private TestRepository repository;
+    private SVNRepository session;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        repository.commit("alice").put("project/A.java", "a\n").done();
+        repository.commit("bob").put("project/B.java", "b\n").put("project/A.java", "a\na\n").done();
+        repository.commit("alice").delete("project/B.java").done();
+        session = repository.open();
+        cacheDir = Files.createTempDirectory("svn_log_cache_test_").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        session.closeSession();
+        repository.close();
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    private SVNLogCache open() throws IOException {
+        return SVNLogCache.open(cacheDir, "uuid", repository.getUrl());
+    }
+
+    private static List<SVNLogEntry> read(SVNLogCache cache, long start, long end, boolean discoverChangedPaths) throws SVNException {
+        List<SVNLogEntry> entries = new ArrayList<>();
+        cache.forEachLog(start, end, discoverChangedPaths, entries::add);
+        return entries;
+    }
+
+    /**
+     * 缓存的提交记录与服务器返回的一致,重新打开后不需要同步即可查询
+     */
+    @Test
+    public void testRoundTrip() throws IOException, SVNException {
+        try (SVNLogCache cache = open()) {
+            Assert.assertEquals(4, cache.sync(session));
+            Assert.assertEquals(3, cache.getSyncedRevision());
+        }
+        try (SVNLogCache cache = open()) {
+            Assert.assertEquals(3, cache.getSyncedRevision());
+            Assert.assertEquals(0, cache.sync(session));
+            List<SVNLogEntry> entries = read(cache, 1, 3, true);
+            Assert.assertEquals(3, entries.size());
+            SVNLogEntry second = entries.get(1);
+            Assert.assertEquals(2, second.getRevision());
+            Assert.assertEquals("bob", second.getAuthor());
+            Assert.assertEquals("commit by bob", second.getMessage());
+            Assert.assertNotNull(second.getDate());
+            Assert.assertEquals(2, second.getChangedPaths().size());
+            Assert.assertEquals('A', second.getChangedPaths().get("/project/B.java").getType());
+            Assert.assertEquals('M', second.getChangedPaths().get("/project/A.java").getType());
+            SVNLogEntryPath deleted = entries.get(2).getChangedPaths().get("/project/B.java");
+            Assert.assertEquals('D', deleted.getType());
+
+            List<SVNLogEntry> descending = read(cache, 3, 2, true);
+            Assert.assertEquals(3, descending.get(0).getRevision());
+            Assert.assertEquals(2, descending.get(1).getRevision());
+        }
+    }
+
+    /**
+     * 不需要变更文件时返回的记录中变更文件为空
+     */
+    @Test
+    public void testWithoutChangedPaths() throws IOException, SVNException {
+        try (SVNLogCache cache = open()) {
+            cache.sync(session);
+            List<SVNLogEntry> entries = read(cache, 1, 3, false);
+            Assert.assertEquals(3, entries.size());
+            Assert.assertEquals("bob", entries.get(1).getAuthor());
+            Assert.assertTrue(entries.get(1).getChangedPaths().isEmpty());
+        }
+    }
+
+    /**
+     * 只同步缓存之后的新版本
+     */
+    @Test
+    public void testIncrementalSync() throws IOException, SVNException {
+        try (SVNLogCache cache = open()) {
+            cache.sync(session);
+            repository.commit("carol").put("project/C.java", "c\n").done();
+            Assert.assertEquals(1, cache.sync(session));
+            Assert.assertEquals(4, cache.getSyncedRevision());
+            Assert.assertEquals(5, cache.size());
+            Assert.assertEquals("carol", read(cache, 4, 4, true).get(0).getAuthor());
+        }
+    }
+
+    /**
+     * 文件末尾的记录不完整时截断到最后一条完整的记录,再次同步补齐缺少的版本
+     */
+    @Test
+    public void testTruncatedTail() throws IOException, SVNException {
+        File file;
+        long length;
+        try (SVNLogCache cache = open()) {
+            cache.sync(session);
+            file = cache.getFile().toFile();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // 去掉同步记录及最后一条提交记录的一部分
+            length = raf.length() - 12;
+            raf.setLength(length);
+        }
+        try (SVNLogCache cache = open()) {
+            Assert.assertEquals(3, cache.size());
+            Assert.assertEquals(-1, cache.getSyncedRevision());
+            Assert.assertTrue(file.length() < length);
+            Assert.assertEquals(2, read(cache, 0, 3, true).get(2).getRevision());
+            cache.sync(session);
+            Assert.assertEquals(4, cache.size());
+            Assert.assertEquals("alice", read(cache, 3, 3, true).get(0).getAuthor());
+        }
+    }
+
+    /**
+     * 最后一条记录校验失败时丢弃该记录
+     */
+    @Test
+    public void testCorruptTail() throws IOException, SVNException {
+        File file;
+        try (SVNLogCache cache = open()) {
+            cache.sync(session);
+            file = cache.getFile().toFile();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xFF);
+        }
+        try (SVNLogCache cache = open()) {
+            Assert.assertEquals(4, cache.size());
+            Assert.assertEquals(-1, cache.getSyncedRevision());
+            // 提交记录都已在缓存中,重新同步时不重复添加
+            cache.sync(session);
+            Assert.assertEquals(4, cache.size());
+            Assert.assertEquals(3, cache.getSyncedRevision());
+        }
+    }
+}
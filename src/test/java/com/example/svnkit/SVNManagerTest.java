@@ -1,20 +1,32 @@
 package com.example.svnkit;
 
 import org.joda.time.LocalDateTime;
+import org.joda.time.LocalTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.tmatesoft.svn.core.SVNDepth;
 import org.tmatesoft.svn.core.SVNDirEntry;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNLogEntry;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class SVNManagerTest {
 
@@ -75,6 +87,40 @@ public class SVNManagerTest {
         }
     }
 
+    /**
+     * 分批流式查询提交记录,只统计提交次数,不获取变更的文件
+     */
+    @Test
+    public void testForEachLogWithAuthor() {
+        try {
+            int[] count = {0};
+            svnManager.forEachLog(105000L, 105253L, "xxx", false, 50, log -> count[0]++);
+            System.out.println("提交次数: " + count[0]);
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 统计起始与结束时间之间每个版本的代码变更行数,并按提交人汇总
+     */
+    @Test
+    public void testGetRevisionChurn() {
+        try {
+            LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+            LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+            svnManager.setChurnConcurrency(4);
+            ChurnTable table = svnManager.getRevisionChurn(start, end, null);
+            table.getRows().forEach(System.out::println);
+            table.getByAuthor().forEach((author, churn) -> System.out.println(author + "  " + churn));
+            System.out.println("合计: " + table.getTotal());
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
     /**
      * 根据起始结束时间及提交者用户名,获取该用户在这个时间区间内提交的文件名(去重并按文件路径排序)
      */
@@ -116,6 +162,61 @@ public class SVNManagerTest {
         }
     }
 
+    /**
+     * 并行比较文件,生成比较日志文件(文件顺序与串行方式一致)
+     */
+    @Test
+    public void testGetChangeLogBetweenDateParallel(){
+        try {
+            LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+            LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+            String author = "xxx";
+            svnManager.setDiffConcurrency(8);
+            File changeLog = svnManager.getChangeLog(start, end, author);
+            System.out.println("生成的比较日志文件路径: " + changeLog.getAbsolutePath());
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 将比较日志直接写入调用方提供的输出流,不生成临时文件
+     */
+    @Test
+    public void testWriteChangeLogToStream(){
+        try {
+            List<SVNLogEntry> logs = svnManager.getLogs(105250L, 105253L);
+            List<String> filePathList = logs.stream()
+                    .flatMap(log -> log.getChangedPaths().keySet().stream())
+                    .distinct()
+                    .sorted()
+                    .map(path -> url.substring(0, url.indexOf("/svn/") + 4) + path)
+                    .collect(Collectors.toList());
+            svnManager.writeChangeLog(105250L, 105253L, filePathList, System.out);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 对项目目录只做一次递归比较,再按该用户提交过的文件过滤,生成比较日志文件
+     */
+    @Test
+    public void testGetChangeLogByTreeDiff(){
+        try {
+            LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+            LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+            String author = "xxx";
+            File changeLog = svnManager.getChangeLogByTreeDiff(start, end, author);
+            System.out.println("生成的比较日志文件路径: " + changeLog.getAbsolutePath());
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
     @Test
     public void testStaticsCodeAdd(){
         try {
@@ -153,6 +254,62 @@ public class SVNManagerTest {
         }
     }
 
+    /**
+     * 启用文件内容缓存后重复获取同一文件,只有第一次下载文件内容
+     */
+    @Test
+    public void testCheckoutFileWithCache() {
+        try {
+            // 该路径为相对项目目录的路径
+            String filePath = "xxx";
+            svnManager.enableFileContentCache(64 * 1024 * 1024, false);
+            for (int i = 0; i < 3; i++) {
+                svnManager.checkoutFileToString(filePath);
+            }
+            System.out.println(svnManager.checkoutFileToString(filePath, 105000L));
+            System.out.println(svnManager.getFileContentCache());
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 批量导出最新版本中的多个文件到临时目录
+     */
+    @Test
+    public void testExportFiles() {
+        try {
+            // 该路径为相对项目目录的路径
+            List<String> paths = Arrays.asList("xxx", "xxx");
+            Path targetDir = Files.createTempDirectory("svn_export_");
+            long bytes = svnManager.exportFiles(paths, -1, targetDir);
+            System.out.println("导出到: " + targetDir + "  字节数: " + bytes);
+        } catch (SVNException | IOException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 比较本地发布包与svn最新版本,列出缺少、多出及内容不同的文件
+     */
+    @Test
+    public void testComparePackage() {
+        try {
+            svnManager.enablePackageManifestCache(new File(System.getProperty("java.io.tmpdir"), "svn_manifest"));
+            // 发布包路径及对应的svn目录(相对项目目录的路径)
+            PackageComparison comparison = svnManager.comparePackage(Paths.get("xxx.war"), "xxx", -1);
+            System.out.println(comparison);
+            comparison.getMissing().forEach(path -> System.out.println("缺少: " + path));
+            comparison.getExtra().forEach(path -> System.out.println("多出: " + path));
+            comparison.getDifferent().forEach(path -> System.out.println("不同: " + path));
+        } catch (SVNException | IOException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
     @Test
     public void testCheckPath(){
         // 该路径为相对项目目录的路径
@@ -183,6 +340,232 @@ public class SVNManagerTest {
         }
     }
 
+    @Test
+    public void testListTree() {
+        try {
+            // 递归列出目录下的java文件,跳过target目录;不需要文件大小时整个子树通过一次请求获取
+            String folderPath = "xxx";
+            int[] count = {0};
+            PathFilter filter = PathFilter.all().include("**.java").exclude("**target");
+            svnManager.listTree(folderPath, -1, SVNDepth.INFINITY, SVNDirEntry.DIRENT_KIND | SVNDirEntry.DIRENT_LAST_AUTHOR,
+                    filter, entry -> {
+                        count[0]++;
+                        System.out.println(entry.getRelativePath() + "  " + entry.getAuthor());
+                    });
+            System.out.println("文件数: " + count[0]);
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    @Test
+    public void testSharedSessionManager() {
+        // 多个SVNManager共用会话管理器,多个线程同时读取文件,每个地址最多建立4个连接
+        try (SVNSessionManager sessionManager = new SVNSessionManager(username, password, 4)) {
+            SVNManager other = new SVNManager();
+            other.createSession(sessionManager, url);
+            String filePath = "xxx";
+            String expected = other.checkoutFileToString(filePath);
+            List<String> contents = IntStream.range(0, 16).parallel().mapToObj(i -> {
+                try {
+                    return other.checkoutFileToString(filePath);
+                } catch (SVNException e) {
+                    throw new RuntimeException(e);
+                }
+            }).collect(Collectors.toList());
+            contents.forEach(content -> Assert.assertEquals(expected, content));
+            other.closeSession();
+        } catch (SVNException | RuntimeException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    @Test
+    public void testMetrics() {
+        try {
+            svnManager.getMetrics().addListener((operation, durationNanos, failed, roundTrips, bytesRead, bytesWritten) ->
+                    System.out.println(operation + " " + durationNanos / 1000000 + "ms 往返" + roundTrips + "次 接收" + bytesRead + "字节"));
+            LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+            LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+            svnManager.getLogs(start, end);
+            SVNMetrics.OperationStats stats = svnManager.getMetrics().getStats("log");
+            Assert.assertEquals(1, stats.getCalls());
+            System.out.println(svnManager.getMetrics().toJson());
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    @Test
+    public void testCommitIndex() {
+        try {
+            // 启用后按提交人、目录、时间查询变更文件不再请求服务器(只获取新版本)
+            svnManager.enableCommitIndex();
+            LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+            LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+            List<String> paths = svnManager.getCommitIndex().query()
+                    .authors("username", "xxx")
+                    .under("/xxx/xxx/projectName")
+                    .between(start.toDate(), end.toDate())
+                    .getPaths();
+            paths.forEach(System.out::println);
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 按逐行追溯统计时间段内新增代码行的实际编写人(其他人对同一文件的修改计入其本人)
+     */
+    @Test
+    public void testGetAuthorAttribution() {
+        try {
+            LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+            LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+            svnManager.setAnnotateConcurrency(8);
+            AuthorAttribution attribution = svnManager.getAuthorAttribution(start, end);
+            attribution.getByAuthor().forEach((author, lines) -> System.out.println(author + " 新增行数: " + lines));
+            // 稍晚的时间段只追溯之后修改过的文件
+            AuthorAttribution later = svnManager.getAuthorAttribution(start.plusDays(1), end.plusDays(1));
+            System.out.println(later);
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 异步查询: 同时发出多个查询,超时的查询被中止
+     */
+    @Test
+    public void testAsync() {
+        LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+        LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+        try (AsyncSVNManager async = new AsyncSVNManager(svnManager)) {
+            CompletableFuture<List<SVNLogEntry>> logs = async.getLogs(start, end, "username");
+            CompletableFuture<List<SVNDirEntry>> dirs = async.listFolder("src");
+            CompletableFuture<Integer> exists = async.checkPath("pom.xml");
+            CompletableFuture.allOf(logs, dirs, exists).join();
+            System.out.println("提交记录数: " + logs.join().size() + "  目录项数: " + dirs.join().size());
+            Assert.assertEquals(1, exists.join().intValue());
+
+            CompletableFuture<File> changeLog = async.withTimeout(1, TimeUnit.MILLISECONDS).getChangeLog(start, end, null);
+            try {
+                changeLog.join();
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            // 中止的调用不影响之后的查询
+            Assert.assertEquals(1, async.checkPath("pom.xml").join().intValue());
+        } catch (CompletionException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 过滤二进制及过大的文件后生成比较日志
+     */
+    @Test
+    public void testDiffFilter() {
+        try {
+            LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+            LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+            svnManager.setDiffFilter(new DiffFilter().setMaxFileSize(512 * 1024, DiffFilter.Action.TRUNCATE));
+            File file = svnManager.getChangeLog(start, end, null);
+            ChangeLogStatistics statistics = svnManager.analyzeChangeLog(file, changeFile -> {
+                if (changeFile.getSkipReason() != null) {
+                    System.out.println("跳过: " + changeFile.getFilePath() + " " + changeFile.getChangeType()
+                            + " " + changeFile.getSkipReason() + " " + changeFile.getSizeDelta());
+                }
+            });
+            System.out.println("新增行数: " + statistics.getTotal().getAddLines());
+        } catch (SVNException | IOException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 生成压缩并带索引的比较日志,统计结果来自索引,单个文件单独读取
+     */
+    @Test
+    public void testChangeLogArchive() {
+        LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+        LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+        try (ChangeLogArchive archive = svnManager.getChangeLogArchive(start, end, null)) {
+            ChangeLogStatistics statistics = svnManager.analyzeChangeLog(archive, ChangeFileSink.console());
+            System.out.println("压缩前: " + archive.getRawLength() + "  压缩后: " + Files.size(archive.getFile()));
+            if (!statistics.getFiles().isEmpty()) {
+                String path = statistics.getFiles().get(0).getFilePath();
+                System.out.println(archive.readDiff(path));
+            }
+        } catch (SVNException | IOException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    @Test
+    public void testChangeLogCheckpoint() {
+        LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+        LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+        try {
+            svnManager.enableChangeLogCheckpoint(Files.createTempDirectory("svn_checkpoint_").toFile());
+            svnManager.setDiffRetry(3, 500);
+            File first = svnManager.getChangeLog(start, end, null);
+            // 第二次生成直接使用保存的比较结果
+            File second = svnManager.getChangeLog(start, end, null);
+            Assert.assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+        } catch (SVNException | IOException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 直接接收结构化的比较结果统计变更行数,不生成比较日志文本
+     */
+    @Test
+    public void testGetChangeStatistics() {
+        LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+        LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+        try {
+            ChangeLogStatistics statistics = svnManager.getChangeStatistics(start, end, "xxx", ChangeFileSink.console());
+            System.out.println("合计: " + statistics.getTotal());
+            statistics.getByFileType().forEach((type, summary) -> System.out.println(type + "  " + summary));
+        } catch (SVNException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
+    /**
+     * 持续统计新版本,任意时间段的统计从累计结果中查询,与直接统计的结果一致
+     */
+    @Test
+    public void testRevisionWatcher() {
+        LocalDateTime start = LocalDateTime.parse("2021-01-22 17:15:00", dateTimeFormatter);
+        LocalDateTime end = LocalDateTime.parse("2021-01-27 17:15:00", dateTimeFormatter);
+        try (RevisionWatcher watcher = new RevisionWatcher(svnManager, Files.createTempFile("svn_watcher_", ".state").toFile(), 0)) {
+            watcher.addListener((logEntry, rows) -> System.out.println("r" + logEntry.getRevision() + "  " + rows.size() + " files"));
+            System.out.println("统计版本数: " + watcher.poll());
+            int port = watcher.startHookServer(0);
+            System.out.println("post-commit钩子: curl -s -X POST http://127.0.0.1:" + port + "/commit");
+            ChurnTable.Churn churn = watcher.getAggregates().getTotal(start.toLocalDate(), end.toLocalDate());
+            System.out.println("累计结果: " + churn);
+            ChurnTable table = svnManager.getRevisionChurn(start.withTime(0, 0, 0, 0), end.toLocalDate().plusDays(1).toLocalDateTime(LocalTime.MIDNIGHT), null);
+            Assert.assertEquals(table.getTotal().getAddLines(), churn.getAddLines());
+        } catch (SVNException | IOException e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+    }
+
     @After
     public void close() {
         svnManager.closeSession();
@@ -0,0 +1,89 @@
+package com.example.svnkit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.util.SVNLogType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class SVNMetricsTest {
+
+    /**
+     * 百分位数的误差不超过一个桶的宽度
+     */
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000_000L);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1000_000, histogram.getMaxMicros());
+        Assert.assertEquals(500_500, histogram.getMeanMicros(), 1);
+        long p50 = histogram.getPercentileMicros(0.5);
+        long p99 = histogram.getPercentileMicros(0.99);
+        Assert.assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125);
+        Assert.assertTrue(p99 >= 990_000 && p99 <= 1000_000);
+    }
+
+    /**
+     * 操作期间发送、接收的字节数及往返次数计入该操作,包装后在其它线程执行的任务的流量计入提交任务的线程的操作
+     */
+    @Test
+    public void testTrafficPerOperation() throws Exception {
+        SVNMetrics metrics = new SVNMetrics();
+        long[] notified = new long[4];
+        metrics.addListener((operation, durationNanos, failed, roundTrips, bytesRead, bytesWritten) -> {
+            notified[0]++;
+            notified[1] = roundTrips;
+            notified[2] = bytesRead;
+            notified[3] = bytesWritten;
+        });
+        MeteredDebugLog log = new MeteredDebugLog();
+        long start = metrics.begin();
+        exchange(log, 10, 100);
+        Thread child = new Thread(NetworkTraffic.attribute(() -> {
+            try {
+                exchange(new MeteredDebugLog(), 5, 50);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+        child.start();
+        child.join();
+        exchange(log, 10, 100);
+        metrics.end("log", start, false);
+
+        SVNMetrics.OperationStats stats = metrics.getStats("log");
+        Assert.assertEquals(1, stats.getCalls());
+        Assert.assertEquals(0, stats.getErrors());
+        Assert.assertEquals(3, stats.getRoundTrips());
+        Assert.assertEquals(25, stats.getBytesWritten());
+        Assert.assertEquals(250, stats.getBytesRead());
+        Assert.assertArrayEquals(new long[]{1, 3, 250, 25}, notified);
+
+        start = metrics.begin();
+        metrics.end("getFile", start, true);
+        Assert.assertEquals(1, metrics.getStats("getFile").getErrors());
+        Assert.assertEquals(0, metrics.getStats("getFile").getBytesRead());
+        String json = metrics.toJson();
+        Assert.assertTrue(json.contains("\"log\":{\"calls\":1,\"errors\":0,\"roundTrips\":3,\"bytesRead\":250,\"bytesWritten\":25"));
+        Assert.assertTrue(json.contains("\"getFile\":{\"calls\":1,\"errors\":1"));
+    }
+
+    /**
+     * 模拟一次请求: 发送request个字节后接收response个字节
+     */
+    private static void exchange(MeteredDebugLog log, int request, int response) throws IOException {
+        OutputStream out = log.createLogStream(SVNLogType.NETWORK, new ByteArrayOutputStream());
+        out.write(new byte[request]);
+        InputStream in = log.createLogStream(SVNLogType.NETWORK, new ByteArrayInputStream(new byte[response]));
+        byte[] buffer = new byte[64];
+        while (in.read(buffer) >= 0) {
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.wc.SVNLogClient;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+public class SVNRepositoryPoolTest {
+
+    private final ISVNAuthenticationManager authManager = SVNWCUtil.createDefaultAuthenticationManager();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private TestRepository repository;
+    private SVNURL url;
+    private SVNRepositoryPool pool;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        repository.commit("alice").put("project/a.txt", "a\n").done();
+        repository.commit("bob").put("project/a.txt", "a\nb\n").done();
+        url = repository.getUrl("project");
+        pool = new SVNRepositoryPool(url, authManager, 2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        pool.close();
+        repository.close();
+    }
+
+    /**
+     * 最多创建maxSize个会话,全部借出时借用方等待归还
+     */
+    @Test(timeout = 60000)
+    public void testSizeBound() throws Exception {
+        SVNRepository first = pool.borrow();
+        SVNRepository second = pool.borrow();
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(2, pool.getSize());
+        Assert.assertNull(pool.tryBorrow());
+
+        Future<SVNRepository> waiting = executor.submit(() -> pool.borrow());
+        Thread.sleep(200);
+        Assert.assertFalse(waiting.isDone());
+        pool.release(first);
+        Assert.assertSame(first, waiting.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(2, pool.getSize());
+        Assert.assertEquals(2, first.getLatestRevision());
+
+        pool.release(first);
+        pool.release(second);
+        Assert.assertEquals(2, pool.getSize());
+    }
+
+    /**
+     * 同时借用多个会话时全部可用才一起借出,超过最大会话数时报错
+     */
+    @Test(timeout = 60000)
+    public void testBorrowMany() throws Exception {
+        try {
+            pool.borrow(3);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        SVNRepository held = pool.borrow();
+        Future<SVNRepository[]> waiting = executor.submit(() -> pool.borrow(2));
+        Thread.sleep(200);
+        // 还有一个会话可以创建,但不会只借出一部分
+        Assert.assertFalse(waiting.isDone());
+        Assert.assertEquals(1, pool.getSize());
+        pool.release(held);
+
+        SVNRepository[] repositories = waiting.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(2, repositories.length);
+        Assert.assertNotSame(repositories[0], repositories[1]);
+        Assert.assertEquals(2, pool.getSize());
+        for (SVNRepository repository : repositories) {
+            Assert.assertEquals(2, repository.getLatestRevision());
+            pool.release(repository);
+        }
+    }
+
+    /**
+     * 空闲超过检查间隔的会话借出前先测试连接,连接失败的会话被替换
+     */
+    @Test
+    public void testIdleValidation() throws Exception {
+        SVNRepository broken = pool.borrow();
+        // 指向不存在的存储库,测试连接时失败
+        broken.setLocation(SVNURL.parseURIEncoded(repository.getUrl() + "_missing"), false);
+        pool.release(broken);
+
+        // 检查间隔内不测试连接
+        Assert.assertSame(broken, pool.borrow());
+        pool.release(broken);
+
+        pool.setValidationInterval(0);
+        Thread.sleep(10);
+        SVNRepository replaced = pool.borrow();
+        Assert.assertNotSame(broken, replaced);
+        Assert.assertEquals(1, pool.getSize());
+        Assert.assertEquals(2, replaced.getLatestRevision());
+        pool.release(replaced);
+
+        Thread.sleep(10);
+        Assert.assertSame(replaced, pool.borrow());
+        pool.release(replaced);
+    }
+
+    /**
+     * 会话管理器在连接问题时丢弃会话,其它错误时归还会话
+     */
+    @Test
+    public void testInvalidateOnConnectionError() throws Exception {
+        try (SVNSessionManager sessionManager = new SVNSessionManager(authManager, 2)) {
+            SVNRepository[] used = new SVNRepository[1];
+            Assert.assertEquals(Long.valueOf(2), sessionManager.execute(url, repository -> {
+                used[0] = repository;
+                return repository.getLatestRevision();
+            }));
+            SVNRepositoryPool sessionPool = sessionManager.getPool(url);
+            Assert.assertEquals(1, sessionPool.getSize());
+
+            try {
+                sessionManager.execute(url, repository -> {
+                    throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NOT_FOUND, "文件不存在"));
+                });
+                Assert.fail();
+            } catch (SVNException expected) {
+                Assert.assertEquals(SVNErrorCode.FS_NOT_FOUND, expected.getErrorMessage().getErrorCode());
+            }
+            Assert.assertEquals(1, sessionPool.getSize());
+
+            try {
+                sessionManager.execute(url, repository -> {
+                    Assert.assertSame(used[0], repository);
+                    throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, "连接已断开"));
+                });
+                Assert.fail();
+            } catch (SVNException expected) {
+                Assert.assertEquals(SVNErrorCode.IO_ERROR, expected.getErrorMessage().getErrorCode());
+            }
+            Assert.assertEquals(0, sessionPool.getSize());
+
+            Assert.assertEquals(Long.valueOf(2), sessionManager.execute(url, repository -> {
+                Assert.assertNotSame(used[0], repository);
+                return repository.getLatestRevision();
+            }));
+        }
+    }
+
+    /**
+     * svn客户端从共享池借用会话,释放时归还; 共享池已全部借出时单独创建会话
+     */
+    @Test(timeout = 60000)
+    public void testClientPool() throws Exception {
+        ClientRepositoryPool clientPool = new ClientRepositoryPool(pool, authManager);
+        SVNLogClient client = new SVNLogClient(clientPool, SVNWCUtil.createDefaultOptions(true));
+        Assert.assertEquals(2, log(client));
+        Assert.assertEquals(1, pool.getSize());
+        clientPool.dispose();
+        Assert.assertEquals(1, pool.getSize());
+
+        SVNRepository returned = pool.tryBorrow();
+        Assert.assertNotNull(returned);
+        Assert.assertEquals(1, pool.getSize());
+        Assert.assertEquals(url, returned.getLocation());
+        SVNRepository other = pool.borrow();
+
+        ClientRepositoryPool overflow = new ClientRepositoryPool(pool, authManager);
+        Assert.assertEquals(2, log(new SVNLogClient(overflow, SVNWCUtil.createDefaultOptions(true))));
+        Assert.assertEquals(2, pool.getSize());
+        overflow.dispose();
+
+        pool.release(returned);
+        pool.release(other);
+    }
+
+    private int log(SVNLogClient client) throws SVNException {
+        int[] count = new int[1];
+        client.doLog(url, new String[]{"a.txt"}, SVNRevision.HEAD, SVNRevision.HEAD, SVNRevision.create(0),
+                false, false, 0, entry -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ScanSchedulerTest {
+
+    private TestRepository first;
+    private TestRepository second;
+    private String firstUrl;
+    private String secondUrl;
+    private ExecutorService executor;
+    private ScanScheduler scheduler;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        first = TestRepository.create();
+        first.commit("alice").put("project/a.txt", "a\n").done();
+        second = TestRepository.create();
+        second.commit("bob").put("project/b.txt", "b\n").done();
+        second.commit("bob").put("project/b.txt", "b\nb\n").done();
+        firstUrl = first.getUrl("project").toString();
+        secondUrl = second.getUrl("project").toString();
+        // 执行器的线程数多于并发上限,同时执行的任务数只受调度器限制
+        executor = Executors.newFixedThreadPool(6);
+        // 本地存储库(file://)属于同一台"服务器"
+        scheduler = new ScanScheduler("", "", executor);
+        scheduler.setHostConcurrency(2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        scheduler.close();
+        executor.shutdownNow();
+        first.close();
+        second.close();
+    }
+
+    /**
+     * 记录同时执行的任务数及开始顺序,执行指定时间后返回存储库的最新版本号
+     */
+    private ScanJob<Long> job(String url, long sleepMillis) {
+        return ScanJob.of(url, 0, -1, (manager, job) -> {
+            started.add(url);
+            int current = active.incrementAndGet();
+            maxActive.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(sleepMillis);
+                return manager.getLatestRevision();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 同一服务器同时执行的任务数不超过并发上限,各存储库轮流执行
+     */
+    @Test(timeout = 60000)
+    public void testConcurrencyAndFairness() throws InterruptedException {
+        List<ScanJob<Long>> jobs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            jobs.add(job(firstUrl, 100));
+        }
+        for (int i = 0; i < 4; i++) {
+            jobs.add(job(secondUrl, 100));
+        }
+        ScanReport<Long> report = scheduler.run(jobs);
+
+        Assert.assertTrue(report.getFailures().isEmpty());
+        for (int i = 0; i < jobs.size(); i++) {
+            Assert.assertEquals(Long.valueOf(i < 4 ? 1 : 2), report.getResults().get(i).getValue());
+        }
+        Assert.assertEquals(2, maxActive.get());
+        // 第一个存储库的任务先提交,但不会全部执行完才轮到第二个存储库
+        Assert.assertEquals(8, started.size());
+        int difference = 0;
+        for (String url : started) {
+            difference += url.equals(firstUrl) ? 1 : -1;
+            Assert.assertTrue(started.toString(), Math.abs(difference) <= 1);
+        }
+    }
+
+    /**
+     * 等待结果的线程被中断时,排队的任务不再执行,正在执行的任务被中止;
+     * 被中止的任务真正结束后才释放并发数,之后的任务同时执行的数量仍不超过上限
+     */
+    @Test(timeout = 60000)
+    public void testInterrupt() throws Exception {
+        CountDownLatch running = new CountDownLatch(2);
+        AtomicInteger interrupted = new AtomicInteger();
+        List<ScanJob<Long>> jobs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            jobs.add(ScanJob.of(i % 2 == 0 ? firstUrl : secondUrl, 0, -1, (manager, job) -> {
+                started.add(job.getUrl());
+                int current = active.incrementAndGet();
+                maxActive.accumulateAndGet(current, Math::max);
+                try {
+                    running.countDown();
+                    Thread.sleep(60000);
+                    return manager.getLatestRevision();
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    // 被中止后还要一段时间才结束,期间不能开始新的任务
+                    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+                    while (System.nanoTime() < end) {
+                        Thread.onSpinWait();
+                    }
+                    throw e;
+                } finally {
+                    active.decrementAndGet();
+                }
+            }));
+        }
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread runner = new Thread(() -> {
+            try {
+                scheduler.run(jobs);
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        runner.start();
+        Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+        runner.interrupt();
+        runner.join(10000);
+        Assert.assertTrue(error.get() instanceof InterruptedException);
+
+        // 被中止的任务还没结束时提交的任务等待其释放并发数
+        ScanReport<Long> report = scheduler.run(Collections.singletonList(job(firstUrl, 0)));
+        Assert.assertTrue(report.getFailures().isEmpty());
+        Assert.assertEquals(2, interrupted.get());
+        Assert.assertEquals(3, started.size());
+        Assert.assertEquals(2, maxActive.get());
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.svnkit;
+
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.auth.BasicAuthenticationManager;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 测试用的本地(file://)存储库,关闭时删除
+ */
+class TestRepository implements Closeable {
+
+    private final File dir;
+    private final SVNURL url;
+
+    private TestRepository(File dir, SVNURL url) {
+        this.dir = dir;
+        this.url = url;
+    }
+
+    static TestRepository create() throws IOException, SVNException {
+        File dir = Files.createTempDirectory("svn_test_repo_").toFile();
+        return new TestRepository(dir, SVNRepositoryFactory.createLocalRepository(dir, true, true));
+    }
+
+    SVNURL getUrl() {
+        return url;
+    }
+
+    SVNURL getUrl(String path) throws SVNException {
+        return url.appendPath(path, false);
+    }
+
+    SVNRepository open() throws SVNException {
+        return SVNRepositoryFactory.create(url);
+    }
+
+    /**
+     * @param author 提交人
+     * @return 一次提交,依次添加变更后调用 {@link Commit#done()}
+     */
+    Commit commit(String author) {
+        return new Commit(author);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    class Commit {
+        private final String author;
+        // 路径 -> 文件内容,null表示删除
+        private final Map<String, String> files = new TreeMap<>();
+        private final Map<String, Map<String, String>> properties = new TreeMap<>();
+
+        private Commit(String author) {
+            this.author = author;
+        }
+
+        /**
+         * 添加或修改文件,上级目录不存在时一并添加
+         */
+        Commit put(String path, String content) {
+            files.put(path, content);
+            return this;
+        }
+
+        /**
+         * 删除文件或目录
+         */
+        Commit delete(String path) {
+            files.put(path, null);
+            return this;
+        }
+
+        /**
+         * 设置文件属性,文件须已存在或在本次提交中添加
+         */
+        Commit property(String path, String name, String value) {
+            properties.computeIfAbsent(path, key -> new TreeMap<>()).put(name, value);
+            return this;
+        }
+
+        /**
+         * @return 提交的版本号
+         */
+        long done() throws SVNException {
+            SVNRepository repository = open();
+            repository.setAuthenticationManager(BasicAuthenticationManager.newInstance(author, new char[0]));
+            // 提交过程中同一会话不能再查询,另开一个会话判断路径是否存在
+            SVNRepository lookup = open();
+            try {
+                Set<String> paths = new TreeSet<>(files.keySet());
+                paths.addAll(properties.keySet());
+                ISVNEditor editor = repository.getCommitEditor("commit by " + author, null);
+                editor.openRoot(-1);
+                Deque<String> openDirs = new ArrayDeque<>();
+                for (String path : paths) {
+                    String parent = path.contains("/") ? path.substring(0, path.lastIndexOf('/')) : "";
+                    while (!openDirs.isEmpty() && !parent.equals(openDirs.peek()) && !parent.startsWith(openDirs.peek() + "/")) {
+                        editor.closeDir();
+                        openDirs.pop();
+                    }
+                    if (!parent.isEmpty()) {
+                        String[] names = parent.split("/");
+                        String dir = "";
+                        for (String name : names) {
+                            dir = dir.isEmpty() ? name : dir + "/" + name;
+                            if (openDirs.contains(dir)) {
+                                continue;
+                            }
+                            if (lookup.checkPath(dir, -1) == SVNNodeKind.DIR) {
+                                editor.openDir(dir, -1);
+                            } else {
+                                editor.addDir(dir, null, -1);
+                            }
+                            openDirs.push(dir);
+                        }
+                    }
+                    if (files.containsKey(path) && files.get(path) == null) {
+                        editor.deleteEntry(path, -1);
+                        continue;
+                    }
+                    if (lookup.checkPath(path, -1) == SVNNodeKind.FILE) {
+                        editor.openFile(path, -1);
+                    } else {
+                        editor.addFile(path, null, -1);
+                    }
+                    for (Map.Entry<String, String> property : properties.getOrDefault(path, Collections.emptyMap()).entrySet()) {
+                        editor.changeFileProperty(path, property.getKey(), SVNPropertyValue.create(property.getValue()));
+                    }
+                    String checksum = null;
+                    String content = files.get(path);
+                    if (content != null) {
+                        editor.applyTextDelta(path, null);
+                        checksum = new SVNDeltaGenerator().sendDelta(path,
+                                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), editor, true);
+                    }
+                    editor.closeFile(path, checksum);
+                }
+                while (!openDirs.isEmpty()) {
+                    editor.closeDir();
+                    openDirs.pop();
+                }
+                editor.closeDir();
+                return editor.closeEdit().getNewRevision();
+            } finally {
+                repository.closeSession();
+                lookup.closeSession();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.svnkit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TreeListerTest {
+
+    private static final SVNDepth[] DEPTHS = {SVNDepth.FILES, SVNDepth.IMMEDIATES, SVNDepth.INFINITY};
+
+    private TestRepository repository;
+    private SVNRepositoryPool pool;
+
+    @Before
+    public void setUp() throws IOException, SVNException {
+        repository = TestRepository.create();
+        repository.commit("alice")
+                .put("project/A.java", "a\n")
+                .put("project/README.md", "readme\n")
+                .put("project/src/main/B.java", "b\n")
+                .put("project/src/main/C.txt", "c\n")
+                .put("project/src/main/deep/D.java", "d\n")
+                .put("project/src/test/T.java", "t\n")
+                .put("project/target/out.class", "class\n")
+                .put("project/target/sub/X.java", "x\n")
+                .done();
+        pool = new SVNRepositoryPool(repository.getUrl("project"), SVNWCUtil.createDefaultAuthenticationManager(), 4);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pool.close();
+        repository.close();
+    }
+
+    /**
+     * 列出的相对路径,目录以"/"结尾; 处理器不会被同时调用
+     */
+    private Set<String> list(SVNDepth depth, int entryFields, PathFilter filter) throws SVNException {
+        Set<String> paths = new TreeSet<>();
+        AtomicInteger active = new AtomicInteger();
+        new TreeLister(pool, 3).list("", -1, depth, entryFields, filter, entry -> {
+            Assert.assertEquals(1, active.incrementAndGet());
+            try {
+                if ((entryFields & SVNDirEntry.DIRENT_SIZE) != 0 && entry.getKind() == SVNNodeKind.FILE) {
+                    Assert.assertTrue(entry.getSize() > 0);
+                }
+                Assert.assertTrue(paths.add(entry.getRelativePath() + (entry.getKind() == SVNNodeKind.DIR ? "/" : "")));
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+        return paths;
+    }
+
+    /**
+     * 状态请求与逐个目录请求在各深度、过滤规则下列出相同的目录项
+     */
+    @Test
+    public void testSameEntries() throws SVNException {
+        PathFilter[] filters = {
+                PathFilter.all(),
+                PathFilter.all().exclude("target"),
+                PathFilter.all().include("**.java"),
+                PathFilter.all().include("**.java").exclude("src/test"),
+        };
+        for (SVNDepth depth : DEPTHS) {
+            for (PathFilter filter : filters) {
+                Set<String> byReport = list(depth, SVNDirEntry.DIRENT_KIND, filter);
+                Set<String> byDirectory = list(depth, SVNDirEntry.DIRENT_KIND | SVNDirEntry.DIRENT_SIZE, filter);
+                Assert.assertEquals(depth + " " + filter, byReport, byDirectory);
+            }
+        }
+    }
+
+    @Test
+    public void testDepth() throws SVNException {
+        for (int entryFields : new int[]{SVNDirEntry.DIRENT_KIND, SVNDirEntry.DIRENT_ALL}) {
+            Assert.assertEquals(new HashSet<>(Arrays.asList("A.java", "README.md")),
+                    list(SVNDepth.FILES, entryFields, PathFilter.all()));
+            Assert.assertEquals(new HashSet<>(Arrays.asList("A.java", "README.md", "src/", "target/")),
+                    list(SVNDepth.IMMEDIATES, entryFields, PathFilter.all()));
+            Assert.assertEquals(14, list(SVNDepth.INFINITY, entryFields, PathFilter.all()).size());
+        }
+    }
+
+    /**
+     * 被排除的目录不再向下遍历,包含规则只影响输出
+     */
+    @Test
+    public void testFilter() throws SVNException {
+        for (int entryFields : new int[]{SVNDirEntry.DIRENT_KIND, SVNDirEntry.DIRENT_ALL}) {
+            Assert.assertEquals(new HashSet<>(Arrays.asList("A.java", "src/main/B.java", "src/main/deep/D.java", "src/test/T.java")),
+                    list(SVNDepth.INFINITY, entryFields, PathFilter.all().include("**.java").exclude("target")));
+            Assert.assertEquals(new HashSet<>(Arrays.asList("A.java", "README.md", "src/", "src/main/", "src/main/B.java",
+                            "src/main/C.txt", "src/main/deep/", "src/main/deep/D.java")),
+                    list(SVNDepth.INFINITY, entryFields, PathFilter.all().exclude("target").exclude("src/test")));
+        }
+    }
+}